@@ -1,10 +1,10 @@
 package io.jenkins.plugins.aipconsole;
 
-import com.castsoftware.aip.console.tools.core.dto.ApiInfoDto;
 import com.castsoftware.aip.console.tools.core.dto.ApplicationDto;
 import com.castsoftware.aip.console.tools.core.dto.Exclusions;
 import com.castsoftware.aip.console.tools.core.dto.ModuleGenerationType;
 import com.castsoftware.aip.console.tools.core.dto.NodeDto;
+import com.castsoftware.aip.console.tools.core.dto.ServerCapabilities;
 import com.castsoftware.aip.console.tools.core.dto.jobs.FileCommandRequest;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobRequestBuilder;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobState;
@@ -374,8 +374,8 @@ public class AddVersionBuilder extends BaseActionBuilder implements SimpleBuildS
             run.setResult(defaultResult);
             return;
         }
-        ApiInfoDto apiInfoDto = apiService.getAipConsoleApiInfo();
-        if (!apiInfoDto.isEnablePackagePathCheck()) {
+        ServerCapabilities capabilities = apiService.getServerCapabilities();
+        if (!capabilities.isPackagePathCheckEnabled()) {
             listener.getLogger().println("enable.package.path.check option is disabled");
         }
         EnvVars vars = run.getEnvironment(listener);
@@ -488,7 +488,7 @@ public class AddVersionBuilder extends BaseActionBuilder implements SimpleBuildS
                     return;
                 }
                 fileName = Paths.get(resolvedFilePath).toString();
-                if (apiInfoDto.isSourcePathPrefixRequired()) {
+                if (capabilities.isSourcePathPrefixRequired()) {
                     fileName = "sources:" + fileName;
                 }
             } else {
@@ -502,10 +502,10 @@ public class AddVersionBuilder extends BaseActionBuilder implements SimpleBuildS
                         throw new UploadException("Uploading was not completed successfully.");
                     }
 
-                    if (apiInfoDto.isExtractionRequired()) {
+                    if (capabilities.isExtractionRequired()) {
                         // If we have already extracted the content, the source path will be application main sources
                         fileName = variableAppName + "/main_sources";
-                        if (apiInfoDto.isSourcePathPrefixRequired()) {
+                        if (capabilities.isSourcePathPrefixRequired()) {
                             fileName = "upload:" + fileName;
                         }
                     } else {
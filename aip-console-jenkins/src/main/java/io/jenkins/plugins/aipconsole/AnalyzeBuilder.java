@@ -1,8 +1,9 @@
 package io.jenkins.plugins.aipconsole;
 
-import com.castsoftware.aip.console.tools.core.dto.ApiInfoDto;
 import com.castsoftware.aip.console.tools.core.dto.ModuleGenerationType;
+import com.castsoftware.aip.console.tools.core.dto.ServerCapabilities;
 import com.castsoftware.aip.console.tools.core.dto.VersionDto;
+import com.castsoftware.aip.console.tools.core.dto.VersionIndex;
 import com.castsoftware.aip.console.tools.core.dto.VersionStatus;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobRequestBuilder;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobState;
@@ -43,9 +44,7 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
-import java.util.Comparator;
 import java.util.Date;
-import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
@@ -229,19 +228,16 @@ public class AnalyzeBuilder extends BaseActionBuilder implements SimpleBuildStep
 
         try {
             String resolvedVersionName = vars.expand(versionName);
-            ApiInfoDto apiInfoDto = apiService.getAipConsoleApiInfo();
-            Set<VersionDto> versions = applicationService.getApplicationVersion(applicationGuid);
+            ServerCapabilities capabilities = apiService.getServerCapabilities();
+            VersionIndex versions = applicationService.getVersionIndex(applicationGuid);
             // Get the version name
             VersionDto versionToAnalyze;
             // Version with name provided
             if (StringUtils.isNotBlank(resolvedVersionName)) {
-                versionToAnalyze = versions.stream().filter(v -> StringUtils.equalsAnyIgnoreCase(v.getName(), resolvedVersionName)).findFirst().orElse(null);
+                versionToAnalyze = versions.findByName(resolvedVersionName);
             } else {
                 // Latest Delivered Version
-                versionToAnalyze = versions
-                        .stream()
-                        .filter(v -> v.getStatus().ordinal() >= VersionStatus.DELIVERED.ordinal())
-                        .max(Comparator.comparing(VersionDto::getVersionDate)).orElse(null);
+                versionToAnalyze = versions.getLatestVersion(VersionStatus.DELIVERED);
             }
             if (versionToAnalyze == null) {
                 String message = StringUtils.isNotBlank(resolvedVersionName) ?
@@ -260,7 +256,7 @@ public class AnalyzeBuilder extends BaseActionBuilder implements SimpleBuildStep
                 boolean forcedConsolidation = processImaging || consolidation;
                 String snapshotName = String.format("Snapshot-%s", new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS").format(new Date()));
                 requestBuilder.processImaging(processImaging)
-                        .endStep(apiInfoDto.isLastStepConsolidateSnapshot() ?
+                        .endStep(capabilities.isLastStepConsolidateSnapshot() ?
                                 Constants.CONSOLIDATE_SNAPSHOT :
                                 Constants.UPLOAD_APP_SNAPSHOT)
                         .snapshotName(snapshotName)
@@ -1,9 +1,9 @@
 package io.jenkins.plugins.aipconsole;
 
-import com.castsoftware.aip.console.tools.core.dto.ApiInfoDto;
 import com.castsoftware.aip.console.tools.core.dto.ApplicationDto;
 import com.castsoftware.aip.console.tools.core.dto.Exclusions;
 import com.castsoftware.aip.console.tools.core.dto.NodeDto;
+import com.castsoftware.aip.console.tools.core.dto.ServerCapabilities;
 import com.castsoftware.aip.console.tools.core.dto.VersionDto;
 import com.castsoftware.aip.console.tools.core.dto.jobs.FileCommandRequest;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobRequestBuilder;
@@ -365,7 +365,7 @@ public class DeliverBuilder extends BaseActionBuilder implements SimpleBuildStep
 
         EnvVars vars = run.getEnvironment(listener);
         String expandedAppName = vars.expand(applicationName);
-        ApiInfoDto apiInfoDto = apiService.getAipConsoleApiInfo();
+        ServerCapabilities capabilities = apiService.getServerCapabilities();
         boolean inplaceMode = false;
         try {
             ApplicationDto app = applicationService.getApplicationFromName(expandedAppName);
@@ -476,7 +476,7 @@ public class DeliverBuilder extends BaseActionBuilder implements SimpleBuildStep
                     return;
                 }
                 fileName = Paths.get(resolvedFilePath).toString();
-                if (apiInfoDto.isSourcePathPrefixRequired()) {
+                if (capabilities.isSourcePathPrefixRequired()) {
                     fileName = "sources:" + fileName;
                 }
             } else {
@@ -490,10 +490,10 @@ public class DeliverBuilder extends BaseActionBuilder implements SimpleBuildStep
                     if (!uploadService.uploadInputStream(applicationGuid, fileName, workspaceFile.length(), bufferedStream)) {
                         throw new UploadException("Uploading was not completed successfully.");
                     }
-                    if (apiInfoDto.isExtractionRequired()) {
+                    if (capabilities.isExtractionRequired()) {
                         // If we have already extracted the content, the source path will be application main sources
                         fileName = expandedAppName + "/main_sources";
-                        if (apiInfoDto.isSourcePathPrefixRequired()) {
+                        if (capabilities.isSourcePathPrefixRequired()) {
                             fileName = "upload:" + fileName;
                         }
                     } else {
@@ -607,8 +607,11 @@ public class DeliverBuilder extends BaseActionBuilder implements SimpleBuildStep
     private void downloadDeliveryReport(FilePath workspace, String appGuid, String versionName, TaskListener taskListener) throws ApplicationServiceException, ApiCallException {
         PrintStream log = taskListener.getLogger();
         log.println("Downloading delivery report...");
-        String versionGuid = applicationService.getApplicationVersion(appGuid).stream().filter(v -> v.getName().equalsIgnoreCase(versionName))
-                .map(VersionDto::getGuid).findFirst().orElseThrow(() -> new ApiCallException(404, "version not found"));
+        VersionDto version = applicationService.getVersionIndex(appGuid).findByName(versionName);
+        if (version == null) {
+            throw new ApiCallException(404, "version not found");
+        }
+        String versionGuid = version.getGuid();
         log.println("Version guid " + versionGuid);
 
         String reportFile = versionName + "-report-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmm")) + ".xml";
@@ -1,6 +1,6 @@
 package io.jenkins.plugins.aipconsole;
 
-import com.castsoftware.aip.console.tools.core.dto.ApiInfoDto;
+import com.castsoftware.aip.console.tools.core.dto.ServerCapabilities;
 import com.castsoftware.aip.console.tools.core.dto.VersionDto;
 import com.castsoftware.aip.console.tools.core.dto.VersionStatus;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobRequestBuilder;
@@ -15,7 +15,6 @@ import com.castsoftware.aip.console.tools.core.services.ApplicationService;
 import com.castsoftware.aip.console.tools.core.services.JobsService;
 import com.castsoftware.aip.console.tools.core.services.RestApiService;
 import com.castsoftware.aip.console.tools.core.utils.Constants;
-import com.castsoftware.aip.console.tools.core.utils.SemVerUtils;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import hudson.EnvVars;
@@ -43,7 +42,6 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
@@ -194,7 +192,7 @@ public class SnapshotBuilder extends BaseActionBuilder implements SimpleBuildSte
             run.setResult(defaultResult);
             return;
         }
-        ApiInfoDto apiInfoDto = apiService.getAipConsoleApiInfo();
+        ServerCapabilities capabilities = apiService.getServerCapabilities();
         EnvVars vars = run.getEnvironment(listener);
 
         String expandedAppName = vars.expand(applicationName);
@@ -208,11 +206,8 @@ public class SnapshotBuilder extends BaseActionBuilder implements SimpleBuildSte
         }
         String jobGuid = null;
         try {
-            Set<VersionDto> versions = applicationService.getApplicationVersion(applicationGuid);
             // Get the current version's guid
-            VersionDto versionToAnalyze = versions.stream().filter(VersionDto::isCurrentVersion)
-                    .findFirst()
-                    .orElse(null);
+            VersionDto versionToAnalyze = applicationService.getVersionIndex(applicationGuid).getCurrentVersion();
             if (versionToAnalyze == null) {
                 //FIXME change error message
                 listener.error(SnapshotBuilder_Snapshot_error_noAnalyzedVersion(expandedAppName));
@@ -239,7 +234,7 @@ public class SnapshotBuilder extends BaseActionBuilder implements SimpleBuildSte
                     .uploadApplication(forcedConsolidation)
                     .releaseAndSnapshotDate(new Date())
                     .processImaging(processImaging)
-                    .endStep(SemVerUtils.isNewerThan115(apiInfoDto.getApiVersionSemVer()) ?
+                    .endStep(capabilities.isLastStepUploadAppSnapshot() ?
                             Constants.UPLOAD_APP_SNAPSHOT : Constants.CONSOLIDATE_SNAPSHOT);
             //Snapshot required now see whether we upload application or not
             if (!forcedConsolidation) {
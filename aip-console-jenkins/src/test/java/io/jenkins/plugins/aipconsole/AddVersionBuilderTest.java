@@ -1,6 +1,7 @@
 package io.jenkins.plugins.aipconsole;
 
 import com.castsoftware.aip.console.tools.core.dto.ApiInfoDto;
+import com.castsoftware.aip.console.tools.core.dto.ServerCapabilities;
 import com.castsoftware.aip.console.tools.core.dto.ApplicationDto;
 import com.castsoftware.aip.console.tools.core.dto.ModuleGenerationType;
 import com.castsoftware.aip.console.tools.core.dto.NodeDto;
@@ -108,8 +109,8 @@ public class AddVersionBuilderTest {
         addVersionBuilder.setModuleGenerationType(ModuleGenerationType.ONE_PER_TECHNO.toString());
         addVersionBuilder.setExclusionPatterns("tmp/, *test, _Macosx/");
         MockitoAnnotations.initMocks(this);
-        doReturn(ApiInfoDto.builder().apiVersion("1.12.0-DEV").build())
-                .when(restApiService).getAipConsoleApiInfo();
+        doReturn(ServerCapabilities.of(ApiInfoDto.builder().apiVersion("1.12.0-DEV").build()))
+                .when(restApiService).getServerCapabilities();
     }
 
     @Test
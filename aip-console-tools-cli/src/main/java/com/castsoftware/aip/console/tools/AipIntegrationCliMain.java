@@ -2,23 +2,40 @@ package com.castsoftware.aip.console.tools;
 
 import com.castsoftware.aip.console.tools.commands.ParentCommand;
 import com.castsoftware.aip.console.tools.core.utils.Constants;
+import com.castsoftware.aip.console.tools.daemon.DaemonClient;
+import com.castsoftware.aip.console.tools.factories.HelpCommandFactory;
 import com.castsoftware.aip.console.tools.factories.SpringAwareCommandFactory;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
-import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.SpringBootConfiguration;
 import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Profile;
 import picocli.CommandLine;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.Properties;
 
-@SpringBootApplication
+/**
+ * Entry point of the CLI.
+ * <p>
+ * The beans are declared explicitly, without component scanning nor auto-configuration, which take most of the
+ * startup time of a command.
+ */
+@SpringBootConfiguration
+@Import({ApiIntegrationConfig.class, CommandImportSelector.class})
 @Slf4j
 @Profile(Constants.EXECUTION_PROFILE_DEFAULT)
 public class AipIntegrationCliMain implements CommandLineRunner {
+    private static final List<String> HELP_OPTIONS = Arrays.asList("-h", "--help", "-V", "--version");
 
     @Autowired
     private SpringAwareCommandFactory springAwareCommandFactory;
@@ -30,18 +47,98 @@ public class AipIntegrationCliMain implements CommandLineRunner {
     private int consoleUsageWidth;
 
     public static void main(String... args) {
+        if (args.length > 0 && DaemonClient.STOP_DAEMON_OPTION.equals(args[0])) {
+            System.exit(DaemonClient.stop(DaemonClient.getDefaultInfoFile()));
+        }
+        if (args.length > 0 && DaemonClient.USE_DAEMON_OPTION.equals(args[0])) {
+            args = Arrays.copyOfRange(args, 1, args.length);
+            // forwarded before starting Spring, which is what the daemon saves
+            Integer result = DaemonClient.forward(DaemonClient.getDefaultInfoFile(), args);
+            if (result != null) {
+                System.exit(result);
+            }
+            System.err.println("No AIP integration tool daemon available, the command is run in this process");
+        }
+        Integer helpResult = printHelpWithoutContext(args);
+        if (helpResult != null) {
+            System.exit(helpResult);
+        }
         new SpringApplicationBuilder(AipIntegrationCliMain.class)
                 .logStartupInfo(false)
                 .run(args);
     }
 
+    /**
+     * The usage and version help don't need any service, so they are printed without starting Spring.
+     * <p>
+     * Only the command lines made of command names followed by help options are handled here. A help option anywhere
+     * else may be the value of another option, so it's left to the application.
+     *
+     * @param args The command line arguments
+     * @return The exit code, or null if the command must be run by the application
+     */
+    static Integer printHelpWithoutContext(String... args) {
+        if (args.length == 0 || !HELP_OPTIONS.contains(args[args.length - 1])) {
+            return null;
+        }
+        try {
+            CommandLine cli = new CommandLine(ParentCommand.class, new HelpCommandFactory());
+            CommandLine command = cli;
+            boolean helpOptionFound = false;
+            for (String arg : args) {
+                if (HELP_OPTIONS.contains(arg)) {
+                    helpOptionFound = true;
+                } else if (!helpOptionFound && command.getSubcommands().containsKey(arg)) {
+                    command = command.getSubcommands().get(arg);
+                } else {
+                    return null;
+                }
+            }
+            cli.setUsageHelpWidth(Integer.parseInt(loadApplicationProperties().getProperty("picocli.usage.width", "120")));
+            if (CommandLine.printHelpIfRequested(cli.parseArgs(args))) {
+                return Constants.RETURN_OK;
+            }
+        } catch (CommandLine.PicocliException | IOException | NumberFormatException e) {
+            // reported by the application
+        }
+        return null;
+    }
+
+    private static Properties loadApplicationProperties() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = AipIntegrationCliMain.class.getResourceAsStream("/application.properties")) {
+            if (in != null) {
+                properties.load(in);
+            }
+        }
+        return properties;
+    }
+
     @Override
     public void run(String... args) throws Exception {
+        System.exit(execute(springAwareCommandFactory, parentCommand, consoleUsageWidth, null, args));
+    }
+
+    /**
+     * Parse the arguments and run the requested command
+     *
+     * @param factory          The factory creating the commands
+     * @param parentCommand    The root command
+     * @param usageWidth       The width of the usage help
+     * @param workingDirectory The directory against which relative paths are resolved, or null for the current directory
+     * @param args             The command line arguments
+     * @return The exit code of the command
+     */
+    public static int execute(CommandLine.IFactory factory, Object parentCommand, int usageWidth, Path workingDirectory, String... args) {
         Integer result;
 
         try {
-            CommandLine cli = new CommandLine(parentCommand, springAwareCommandFactory);
-            cli.setUsageHelpWidth(consoleUsageWidth);
+            CommandLine cli = new CommandLine(parentCommand, factory);
+            cli.setUsageHelpWidth(usageWidth);
+            if (workingDirectory != null) {
+                cli.registerConverter(File.class, s -> workingDirectory.resolve(s).toFile());
+                cli.registerConverter(Path.class, workingDirectory::resolve);
+            }
 
             List<Object> returnedResults = cli.parseWithHandler(new CommandLine.RunLast(), args);
             if (returnedResults != null) {
@@ -52,12 +149,12 @@ public class AipIntegrationCliMain implements CommandLineRunner {
                         .orElse(Constants.RETURN_OK);
             } else {
                 // Help message was shown
-                result = result = cli.getUnmatchedArguments().isEmpty() ? 0:1;
+                result = cli.getUnmatchedArguments().isEmpty() ? 0 : 1;
             }
         } catch (Throwable t) {
             log.error("Could not run AIP integration tool", t);
             result = Constants.UNKNOWN_ERROR;
         }
-        System.exit(result);
+        return result;
     }
 }
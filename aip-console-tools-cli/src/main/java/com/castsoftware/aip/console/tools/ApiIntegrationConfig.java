@@ -6,10 +6,13 @@ import com.castsoftware.aip.console.tools.core.services.ApplicationService;
 import com.castsoftware.aip.console.tools.core.services.ApplicationServiceImpl;
 import com.castsoftware.aip.console.tools.core.services.DebugOptionsService;
 import com.castsoftware.aip.console.tools.core.services.DebugOptionsServiceImpl;
+import com.castsoftware.aip.console.tools.core.services.JobLifecycleManager;
 import com.castsoftware.aip.console.tools.core.services.JobsService;
 import com.castsoftware.aip.console.tools.core.services.JobsServiceImpl;
+import com.castsoftware.aip.console.tools.core.services.LeastLoadedNodePlacementPolicy;
 import com.castsoftware.aip.console.tools.core.services.RestApiService;
 import com.castsoftware.aip.console.tools.core.services.RestApiServiceImpl;
+import com.castsoftware.aip.console.tools.core.services.StepDurationStore;
 import com.castsoftware.aip.console.tools.core.services.UploadService;
 import com.castsoftware.aip.console.tools.core.services.UploadServiceImpl;
 import com.fasterxml.jackson.databind.DeserializationFeature;
@@ -17,18 +20,25 @@ import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.http.impl.client.BasicCookieStore;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
-@ComponentScan
+@Slf4j
 public class ApiIntegrationConfig {
 
+    private StepDurationStore stepDurationStore;
+
     @Bean
     public BasicCookieStore getCookieStore() {
         return new BasicCookieStore();
@@ -54,8 +64,19 @@ public class ApiIntegrationConfig {
     }
 
     @Bean
-    public JobsService jobsService(@Autowired RestApiService restApiService) {
-        return new JobsServiceImpl(restApiService);
+    public JobsService jobsService(@Autowired RestApiService restApiService, @Value("${step-durations.file:}") String stepDurationsFile) {
+        JobsServiceImpl jobsService = new JobsServiceImpl(restApiService);
+        // cancel the jobs still running on AIP Console when the process is stopped
+        jobsService.getJobLifecycleManager().installShutdownHook(JobLifecycleManager.DEFAULT_GRACE_PERIOD, TimeUnit.MILLISECONDS);
+        if (!stepDurationsFile.isEmpty()) {
+            try {
+                stepDurationStore = new StepDurationStore(Paths.get(stepDurationsFile));
+                jobsService.setStepDurationStore(stepDurationStore);
+            } catch (IOException e) {
+                log.warn("Unable to open the step durations history {}, job durations won't be estimated", stepDurationsFile, e);
+            }
+        }
+        return jobsService;
     }
 
     @Bean
@@ -64,8 +85,20 @@ public class ApiIntegrationConfig {
     }
 
     @Bean
-    public ApplicationService applicationService(@Autowired RestApiService restApiService, @Autowired JobsService jobsService) {
-        return new ApplicationServiceImpl(restApiService, jobsService);
+    public ApplicationService applicationService(@Autowired RestApiService restApiService, @Autowired JobsService jobsService,
+                                                 @Value("${package-discovery.timeout-minutes:60}") long packageDiscoveryTimeout) {
+        ApplicationServiceImpl applicationService = new ApplicationServiceImpl(restApiService, jobsService);
+        applicationService.setPackageDiscoveryTimeout(packageDiscoveryTimeout, TimeUnit.MINUTES);
+        // the step durations history is opened with the jobs service
+        applicationService.setNodePlacementPolicy(new LeastLoadedNodePlacementPolicy(stepDurationStore));
+        return applicationService;
+    }
+
+    @PreDestroy
+    public void closeStepDurationStore() throws IOException {
+        if (stepDurationStore != null) {
+            stepDurationStore.close();
+        }
     }
 
     @Bean
@@ -0,0 +1,41 @@
+package com.castsoftware.aip.console.tools;
+
+import com.castsoftware.aip.console.tools.commands.ParentCommand;
+import com.castsoftware.aip.console.tools.commands.SharedOptions;
+import com.castsoftware.aip.console.tools.factories.SpringAwareCommandFactory;
+import com.castsoftware.aip.console.tools.providers.VersionProvider;
+import org.springframework.context.annotation.ImportSelector;
+import org.springframework.core.type.AnnotationMetadata;
+import picocli.CommandLine;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Registers the commands declared as subcommands of {@link ParentCommand}, with the beans used by picocli, instead
+ * of scanning the classpath for components.
+ */
+public class CommandImportSelector implements ImportSelector {
+
+    @Override
+    public String[] selectImports(AnnotationMetadata importingClassMetadata) {
+        Set<String> classNames = new LinkedHashSet<>();
+        classNames.add(SpringAwareCommandFactory.class.getName());
+        classNames.add(VersionProvider.class.getName());
+        classNames.add(SharedOptions.class.getName());
+        addCommand(ParentCommand.class, classNames);
+        return classNames.toArray(new String[0]);
+    }
+
+    private static void addCommand(Class<?> commandClass, Set<String> classNames) {
+        if (!classNames.add(commandClass.getName())) {
+            return;
+        }
+        CommandLine.Command command = commandClass.getAnnotation(CommandLine.Command.class);
+        if (command != null) {
+            for (Class<?> subcommand : command.subcommands()) {
+                addCommand(subcommand, classNames);
+            }
+        }
+    }
+}
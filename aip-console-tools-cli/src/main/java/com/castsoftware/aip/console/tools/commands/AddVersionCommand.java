@@ -1,6 +1,5 @@
 package com.castsoftware.aip.console.tools.commands;
 
-import com.castsoftware.aip.console.tools.core.dto.ApiInfoDto;
 import com.castsoftware.aip.console.tools.core.dto.ApplicationDto;
 import com.castsoftware.aip.console.tools.core.dto.DebugOptionsDto;
 import com.castsoftware.aip.console.tools.core.dto.ExclusionRuleType;
@@ -10,8 +9,6 @@ import com.castsoftware.aip.console.tools.core.dto.jobs.JobRequestBuilder;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobState;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusWithSteps;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobType;
-import com.castsoftware.aip.console.tools.core.exceptions.ApiCallException;
-import com.castsoftware.aip.console.tools.core.exceptions.ApiKeyMissingException;
 import com.castsoftware.aip.console.tools.core.exceptions.ApplicationServiceException;
 import com.castsoftware.aip.console.tools.core.exceptions.JobServiceException;
 import com.castsoftware.aip.console.tools.core.exceptions.PackagePathInvalidException;
@@ -21,6 +18,7 @@ import com.castsoftware.aip.console.tools.core.services.DebugOptionsService;
 import com.castsoftware.aip.console.tools.core.services.JobsService;
 import com.castsoftware.aip.console.tools.core.services.RestApiService;
 import com.castsoftware.aip.console.tools.core.services.UploadService;
+import com.castsoftware.aip.console.tools.core.tracing.Tracer;
 import com.castsoftware.aip.console.tools.core.utils.ApiEndpointHelper;
 import com.castsoftware.aip.console.tools.core.utils.Constants;
 import com.castsoftware.aip.console.tools.core.utils.VersionObjective;
@@ -35,8 +33,6 @@ import picocli.CommandLine;
 import java.io.File;
 import java.util.Date;
 import java.util.List;
-import java.util.concurrent.Callable;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Component
@@ -49,7 +45,7 @@ import java.util.function.Function;
 @Slf4j
 @Getter
 @Setter
-public class AddVersionCommand implements Callable<Integer> {
+public class AddVersionCommand implements BatchEntryCommand {
     private final RestApiService restApiService;
     private final JobsService jobsService;
     private final UploadService uploadService;
@@ -118,6 +114,13 @@ public class AddVersionCommand implements Callable<Integer> {
     @CommandLine.Option(names = "--node-name", paramLabel = "NODE_NAME", description = "The name of the node on which the application will be created. Ignored if no --auto-create or the application already exists.")
     private String nodeName;
 
+    /**
+     * Whether to create the application on the least loaded node when no node name is given. Only used if --auto-create is true and the application doesn't exists
+     */
+    @CommandLine.Option(names = "--auto-node-placement", description = "If no --node-name is given, create the application on the least loaded node instead of letting AIP Console choose it"
+            + " if specified without parameter: ${FALLBACK-VALUE}", fallbackValue = "true")
+    private boolean autoNodePlacement = false;
+
     /**
      * Run a backup before delivering the new version
      */
@@ -178,25 +181,36 @@ public class AddVersionCommand implements Callable<Integer> {
             , description = "Project's exclusion rules, separated with comma. Valid values: ${COMPLETION-CANDIDATES}")
     private ExclusionRuleType[] exclusionRules;
 
+    @CommandLine.Option(names = "--detach",
+            description = "Start the job and exit without waiting for it to finish. The GUID of the job is printed, to be given to the Wait or Status commands"
+                    + " if specified without parameter: ${FALLBACK-VALUE}",
+            fallbackValue = "true")
+    private boolean detach = false;
+
+    @CommandLine.Option(names = "--job-guid-file", paramLabel = "FILE",
+            description = "With --detach, a file in which the GUID of the job is written, for the scripts reading it")
+    private File jobGuidFile;
+
     @CommandLine.Unmatched
     private List<String> unmatchedOptions;
 
     @Autowired
     DebugOptionsService debugOptionsService;
 
+    /**
+     * Set when run as an entry of a Batch, which configured the session and the services for all its entries
+     */
+    private boolean batchEntry;
+
     @Override
-    public Integer call() {
-        ApiInfoDto apiInfo = null;
-        try {
-            if (sharedOptions.getTimeout() != Constants.DEFAULT_HTTP_TIMEOUT) {
-                restApiService.setTimeout(sharedOptions.getTimeout(), TimeUnit.SECONDS);
-            }
-            restApiService.validateUrlAndKey(sharedOptions.getFullServerRootUrl(), sharedOptions.getUsername(), sharedOptions.getApiKeyValue());
-            apiInfo = restApiService.getAipConsoleApiInfo();
-        } catch (ApiKeyMissingException e) {
-            return Constants.RETURN_NO_PASSWORD;
-        } catch (ApiCallException e) {
-            return Constants.RETURN_LOGIN_ERROR;
+    public Integer call() throws Exception {
+        return Tracer.trace(sharedOptions.getTracePath(), "AddVersion", this::runCommand);
+    }
+
+    private Integer runCommand() {
+        Integer loginError = configureSession();
+        if (loginError != null) {
+            return loginError;
         }
 
         log.info("AddVersion version command has triggered with log verbose mode = '{}'", sharedOptions.isVerbose());
@@ -211,7 +225,7 @@ public class AddVersionCommand implements Callable<Integer> {
         try {
             if (StringUtils.isBlank(applicationGuid)) {
                 log.info("Searching for application '{}' on AIP Console", applicationName);
-                applicationGuid = applicationService.getOrCreateApplicationFromName(applicationName, autoCreate, nodeName, domainName, sharedOptions.isVerbose());
+                applicationGuid = applicationService.getOrCreateApplicationFromName(applicationName, autoCreate, nodeName, domainName, autoNodePlacement, sharedOptions.isVerbose());
                 if (StringUtils.isBlank(applicationGuid)) {
                     String message = autoCreate ?
                             "Creation of the application '{}' failed on AIP Console" :
@@ -241,7 +255,8 @@ public class AddVersionCommand implements Callable<Integer> {
                     .objectives(VersionObjective.SECURITY, enableSecurityDataflow)
                     .backupApplication(backupEnabled)
                     .backupName(backupName)
-                    .processImaging(processImaging);
+                    .processImaging(processImaging)
+                    .archiveSize(filePath.isFile() ? filePath.length() : 0);
 
             Exclusions selectedExclusions = Exclusions.builder().excludePatterns(exclusionPatterns)
                     .exclusionRules(ExclusionRuleType.toExclusionRuleDtos(exclusionRules)).build();
@@ -270,13 +285,13 @@ public class AddVersionCommand implements Callable<Integer> {
                     DebugOptionsDto.builder().showSql(showSql).activateAmtMemoryProfile(amtProfiling).build());
 
             String jobGuid = jobsService.startAddVersionJob(builder);
-            // add a shutdown hook, to cancel the job
-            Thread shutdownHook = getShutdownHookForJobGuid(jobGuid);
-            // Register shutdown hook to cancel the job
-            Runtime.getRuntime().addShutdownHook(shutdownHook);
+            if (detach) {
+                if (showSql || amtProfiling) {
+                    log.warn("[Debug options] The debug options will stay enabled on the application once the job is finished");
+                }
+                return DetachedJob.started(jobGuid, jobGuidFile);
+            }
             JobStatusWithSteps jobStatus = jobsService.pollAndWaitForJobFinished(jobGuid, Function.identity(), sharedOptions.isVerbose());
-            // Deregister the shutdown hook since the job is finished and we won't need to cancel it
-            Runtime.getRuntime().removeShutdownHook(shutdownHook);
 
             DebugOptionsDto debugOptions = debugOptionsService.getDebugOptions(applicationGuid);
             debugOptionsService.resetDebugOptions(applicationGuid, oldDebugOptions);
@@ -304,15 +319,4 @@ public class AddVersionCommand implements Callable<Integer> {
             return Constants.RETURN_JOB_FAILED;
         }
     }
-
-    private Thread getShutdownHookForJobGuid(String jobGuid) {
-        return new Thread(() -> {
-            log.info("Received termination signal. Cancelling currently running job on AIP Console and exiting.");
-            try {
-                jobsService.cancelJob(jobGuid);
-            } catch (JobServiceException e) {
-                log.error("Cannot cancel the job on AIP Console. Please cancel it manually.", e);
-            }
-        });
-    }
 }
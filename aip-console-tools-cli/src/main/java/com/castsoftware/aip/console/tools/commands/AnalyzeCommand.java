@@ -1,22 +1,21 @@
 package com.castsoftware.aip.console.tools.commands;
 
-import com.castsoftware.aip.console.tools.core.dto.ApiInfoDto;
 import com.castsoftware.aip.console.tools.core.dto.DebugOptionsDto;
 import com.castsoftware.aip.console.tools.core.dto.ModuleGenerationType;
 import com.castsoftware.aip.console.tools.core.dto.VersionDto;
+import com.castsoftware.aip.console.tools.core.dto.VersionIndex;
 import com.castsoftware.aip.console.tools.core.dto.VersionStatus;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobRequestBuilder;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobState;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusWithSteps;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobType;
-import com.castsoftware.aip.console.tools.core.exceptions.ApiCallException;
-import com.castsoftware.aip.console.tools.core.exceptions.ApiKeyMissingException;
 import com.castsoftware.aip.console.tools.core.exceptions.ApplicationServiceException;
 import com.castsoftware.aip.console.tools.core.exceptions.JobServiceException;
 import com.castsoftware.aip.console.tools.core.services.ApplicationService;
 import com.castsoftware.aip.console.tools.core.services.DebugOptionsService;
 import com.castsoftware.aip.console.tools.core.services.JobsService;
 import com.castsoftware.aip.console.tools.core.services.RestApiService;
+import com.castsoftware.aip.console.tools.core.tracing.Tracer;
 import com.castsoftware.aip.console.tools.core.utils.ApiEndpointHelper;
 import com.castsoftware.aip.console.tools.core.utils.Constants;
 import lombok.Getter;
@@ -27,13 +26,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import picocli.CommandLine;
 
+import java.io.File;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
-import java.util.Comparator;
 import java.util.Date;
-import java.util.Set;
-import java.util.concurrent.Callable;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 /**
@@ -49,7 +45,7 @@ import java.util.function.Function;
 @Slf4j
 @Getter
 @Setter
-public class AnalyzeCommand implements Callable<Integer> {
+public class AnalyzeCommand implements BatchEntryCommand {
     private static final DateFormat RELEASE_DATE_FORMATTER = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
     private final RestApiService restApiService;
     private final JobsService jobsService;
@@ -99,9 +95,29 @@ public class AnalyzeCommand implements Callable<Integer> {
     @CommandLine.Option(names = "--module-option", description = "Generates a user defined module option for either technology module or analysis unit module. Possible value is one of: full_content, one_per_au, one_per_techno")
     private ModuleGenerationType moduleGenerationType;
 
+    @CommandLine.Option(names = "--detach",
+            description = "Start the job and exit without waiting for it to finish. The GUID of the job is printed, to be given to the Wait or Status commands"
+                    + " if specified without parameter: ${FALLBACK-VALUE}",
+            fallbackValue = "true")
+    private boolean detach = false;
+
+    @CommandLine.Option(names = "--job-guid-file", paramLabel = "FILE",
+            description = "With --detach, a file in which the GUID of the job is written, for the scripts reading it")
+    private File jobGuidFile;
+
     @Autowired
     private DebugOptionsService debugOptionsService;
 
+    /**
+     * Set when run as a stage of a Pipeline
+     */
+    private PipelineContext pipelineContext;
+
+    /**
+     * Set when run as an entry of a Batch, which configured the session and the services for all its entries
+     */
+    private boolean batchEntry;
+
     public AnalyzeCommand(RestApiService restApiService, JobsService jobsService, ApplicationService applicationService) {
         this.restApiService = restApiService;
         this.jobsService = jobsService;
@@ -110,35 +126,36 @@ public class AnalyzeCommand implements Callable<Integer> {
 
     @Override
     public Integer call() throws Exception {
+        return Tracer.trace(sharedOptions.getTracePath(), "Analyze", this::runCommand);
+    }
+
+    private Integer runCommand() throws Exception {
         if (StringUtils.isBlank(applicationName)) {
             log.error("No application name provided. Exiting.");
             return Constants.RETURN_APPLICATION_INFO_MISSING;
         }
 
-        try {
-            if (sharedOptions.getTimeout() != Constants.DEFAULT_HTTP_TIMEOUT) {
-                restApiService.setTimeout(sharedOptions.getTimeout(), TimeUnit.SECONDS);
-            }
-            restApiService.validateUrlAndKey(sharedOptions.getFullServerRootUrl(), sharedOptions.getUsername(), sharedOptions.getApiKeyValue());
-        } catch (ApiKeyMissingException e) {
-            return Constants.RETURN_NO_PASSWORD;
-        } catch (ApiCallException e) {
-            return Constants.RETURN_LOGIN_ERROR;
+        Integer loginError = configureSession();
+        if (loginError != null) {
+            return loginError;
         }
         String applicationGuid;
-        ApiInfoDto apiInfoDto = restApiService.getAipConsoleApiInfo();
 
         log.info("[Debug options] Show Sql is '{}'", showSql);
         log.info("[Debug options] AMT Profiling is '{}'", amtProfiling);
 
         try {
-            log.info("Searching for application '{}' on AIP Console", applicationName);
-            applicationGuid = applicationService.getApplicationGuidFromName(applicationName);
+            if (pipelineContext != null && pipelineContext.getApplicationGuid() != null) {
+                applicationGuid = pipelineContext.getApplicationGuid();
+            } else {
+                log.info("Searching for application '{}' on AIP Console", applicationName);
+                applicationGuid = applicationService.getApplicationGuidFromName(applicationName);
+            }
             if (StringUtils.isBlank(applicationGuid)) {
                 log.error("Application '{}' was not found on AIP Console", applicationName);
                 return Constants.RETURN_APPLICATION_NOT_FOUND;
             }
-            Set<VersionDto> versions = applicationService.getApplicationVersion(applicationGuid);
+            VersionIndex versions = applicationService.getVersionIndex(applicationGuid);
             if (versions.isEmpty()) {
                 log.error("No version for the given application. Make sure at least one version has been delivered");
                 return Constants.RETURN_APPLICATION_NO_VERSION;
@@ -147,12 +164,9 @@ public class AnalyzeCommand implements Callable<Integer> {
             VersionDto versionToAnalyze;
             // Version with name provided
             if (StringUtils.isNotBlank(versionName)) {
-                versionToAnalyze = versions.stream().filter(v -> StringUtils.equalsAnyIgnoreCase(v.getName(), versionName)).findFirst().orElse(null);
+                versionToAnalyze = versions.findByName(versionName);
             } else {
-                versionToAnalyze = versions
-                        .stream()
-                        .filter(v -> v.getStatus().ordinal() >= VersionStatus.DELIVERED.ordinal())
-                        .max(Comparator.comparing(VersionDto::getVersionDate)).orElse(null);
+                versionToAnalyze = versions.getLatestVersion(VersionStatus.DELIVERED);
             }
             if (versionToAnalyze == null) {
                 String message = StringUtils.isBlank(versionName) ?
@@ -193,11 +207,13 @@ public class AnalyzeCommand implements Callable<Integer> {
 
             log.info("Running analysis for application '{}' with version '{}'", applicationName, versionToAnalyze.getName());
             String jobGuid = jobsService.startJob(builder);
-            Thread shutdownHook = getShutdownHookForJobGuid(jobGuid);
-
-            Runtime.getRuntime().addShutdownHook(shutdownHook);
+            if (detach) {
+                if (showSql || amtProfiling) {
+                    log.warn("[Debug options] The debug options will stay enabled on the application once the job is finished");
+                }
+                return DetachedJob.started(jobGuid, jobGuidFile);
+            }
             JobStatusWithSteps jobStatus = jobsService.pollAndWaitForJobFinished(jobGuid, Function.identity(), sharedOptions.isVerbose());
-            Runtime.getRuntime().removeShutdownHook(shutdownHook);
 
             DebugOptionsDto debugOptions = debugOptionsService.getDebugOptions(applicationGuid);
             debugOptionsService.resetDebugOptions(applicationGuid, oldDebugOptions);
@@ -207,6 +223,9 @@ public class AnalyzeCommand implements Callable<Integer> {
                             sharedOptions.getFullServerRootUrl() + ApiEndpointHelper.getAmtProfilingDownloadUrl(applicationGuid));
                 }
                 log.info("Application Analysis completed successfully");
+                if (pipelineContext != null) {
+                    pipelineContext.setVersion(versionToAnalyze);
+                }
                 return Constants.RETURN_OK;
             }
 
@@ -218,15 +237,4 @@ public class AnalyzeCommand implements Callable<Integer> {
             return Constants.RETURN_JOB_POLL_ERROR;
         }
     }
-
-    private Thread getShutdownHookForJobGuid(String jobGuid) {
-        return new Thread(() -> {
-            log.info("Received termination signal. Cancelling currently running job on AIP Console and exiting.");
-            try {
-                jobsService.cancelJob(jobGuid);
-            } catch (JobServiceException e) {
-                log.error("Cannot cancel the job on AIP Console. Please cancel it manually.", e);
-            }
-        });
-    }
 }
@@ -0,0 +1,189 @@
+package com.castsoftware.aip.console.tools.commands;
+
+import com.castsoftware.aip.console.tools.core.exceptions.ApiCallException;
+import com.castsoftware.aip.console.tools.core.exceptions.ApiKeyMissingException;
+import com.castsoftware.aip.console.tools.core.services.JobsService;
+import com.castsoftware.aip.console.tools.core.services.RestApiService;
+import com.castsoftware.aip.console.tools.core.tracing.Tracer;
+import com.castsoftware.aip.console.tools.core.utils.Constants;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.stereotype.Component;
+import picocli.CommandLine;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Runs AddVersion, Deliver, Analysis or Snapshot for several applications in the same process, sharing the session,
+ * the caches and the job polling.
+ */
+@Component
+@CommandLine.Command(
+        name = "Batch",
+        mixinStandardHelpOptions = true,
+        aliases = {"batch"},
+        description = "Runs AddVersion, Deliver, Analysis or Snapshot for several applications, as described in a manifest file"
+)
+@Slf4j
+@Getter
+@Setter
+@NoArgsConstructor
+public class BatchCommand implements Callable<Integer> {
+    private static final List<Class<? extends BatchEntryCommand>> BATCH_COMMANDS = Arrays.asList(
+            AddVersionCommand.class, DeliverVersionCommand.class, AnalyzeCommand.class, SnapshotCommand.class);
+    /**
+     * The options configuring the session and the services, shared by the entries running at the same time
+     */
+    private static final List<String> SESSION_OPTIONS = Arrays.asList(
+            "--server-url", "--apikey", "--apikey:env", "--user", "--timeout", "--log-archive-dir", "--metadata-cache");
+
+    @Autowired
+    private RestApiService restApiService;
+
+    @Autowired
+    private JobsService jobsService;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    @CommandLine.Mixin
+    private SharedOptions sharedOptions;
+
+    @CommandLine.Option(names = {"-m", "--manifest"}, paramLabel = "MANIFEST_FILE", required = true,
+            description = "A JSON file listing the applications and the command to run for each of them")
+    private File manifest;
+
+    @CommandLine.Option(names = "--max-parallel", paramLabel = "COUNT", defaultValue = "2",
+            description = "The maximum number of commands running at the same time. Defaults to ${DEFAULT-VALUE}")
+    private int maxParallel;
+
+    @CommandLine.Option(names = "--max-per-node", paramLabel = "COUNT", defaultValue = "1",
+            description = "The maximum number of commands running at the same time on the same node, for the entries giving their node. Defaults to ${DEFAULT-VALUE}")
+    private int maxPerNode;
+
+    @CommandLine.Unmatched
+    private List<String> unmatchedOptions;
+
+    @Override
+    public Integer call() throws Exception {
+        return Tracer.trace(sharedOptions.getTracePath(), "Batch", this::runCommand);
+    }
+
+    private Integer runCommand() throws InterruptedException {
+        if (maxParallel < 1 || maxPerNode < 1) {
+            log.error("The number of parallel commands must be at least 1");
+            return Constants.RETURN_INVALID_PARAMETERS_ERROR;
+        }
+        List<BatchEntry> entries;
+        Map<BatchEntry, Callable<Integer>> commands = new IdentityHashMap<>();
+        try {
+            entries = mapper.readValue(manifest, new TypeReference<List<BatchEntry>>() {
+            }).stream().filter(BatchEntry::isEnabled).collect(Collectors.toList());
+            // check all the entries before running any of them
+            for (BatchEntry entry : entries) {
+                commands.put(entry, prepareCommand(entry));
+            }
+        } catch (IOException e) {
+            log.error("Unable to read the batch manifest {}", manifest, e);
+            return Constants.RETURN_INVALID_PARAMETERS_ERROR;
+        } catch (IllegalArgumentException | CommandLine.ParameterException e) {
+            log.error("Invalid entry in the batch manifest {}: {}", manifest, e.getMessage());
+            return Constants.RETURN_INVALID_PARAMETERS_ERROR;
+        }
+        if (entries.isEmpty()) {
+            log.warn("No enabled entry in the batch manifest {}", manifest);
+            return Constants.RETURN_OK;
+        }
+
+        try {
+            if (sharedOptions.getTimeout() != Constants.DEFAULT_HTTP_TIMEOUT) {
+                restApiService.setTimeout(sharedOptions.getTimeout(), TimeUnit.SECONDS);
+            }
+            restApiService.setMetadataCacheDirectory(sharedOptions.getMetadataCachePath());
+            // the commands of the batch reuse this session
+            restApiService.validateUrlAndKey(sharedOptions.getFullServerRootUrl(), sharedOptions.getUsername(), sharedOptions.getApiKeyValue());
+        } catch (ApiKeyMissingException e) {
+            return Constants.RETURN_NO_PASSWORD;
+        } catch (ApiCallException e) {
+            return Constants.RETURN_LOGIN_ERROR;
+        }
+        jobsService.setLogArchiveDirectory(sharedOptions.getLogArchivePath());
+
+        log.info("Running {} commands, {} at most at the same time", entries.size(), maxParallel);
+        List<BatchRunner.Result> results = new BatchRunner(maxParallel, maxPerNode).run(entries, e -> commands.get(e).call());
+        BatchRunner.toTable(results).forEach(log::info);
+        return results.stream().allMatch(BatchRunner.Result::isSuccessful) ? Constants.RETURN_OK : Constants.RETURN_BATCH_FAILED;
+    }
+
+    /**
+     * Create a new instance of the command of the entry, with its own options and the options shared by the batch
+     */
+    private Callable<Integer> prepareCommand(BatchEntry entry) {
+        if (StringUtils.isBlank(entry.getName())) {
+            throw new IllegalArgumentException("The application name is missing");
+        }
+        Class<? extends BatchEntryCommand> commandClass = BATCH_COMMANDS.stream()
+                .filter(c -> matches(c, entry.getCommand()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported command '" + entry.getCommand() + "' for application " + entry.getName()));
+
+        BatchEntryCommand command = beanFactory.createBean(commandClass);
+        CommandLine commandLine = new CommandLine(command);
+        List<String> args = new ArrayList<>();
+        args.add("--app-name");
+        args.add(entry.getName());
+        if (StringUtils.isNotBlank(entry.getNodeName()) && commandLine.getCommandSpec().findOption("--node-name") != null) {
+            args.add("--node-name");
+            args.add(entry.getNodeName());
+        }
+        if (entry.getArguments() != null) {
+            args.addAll(entry.getArguments());
+        }
+        commandLine.parseArgs(args.toArray(new String[0]));
+
+        CommandLine.ParseResult parseResult = commandLine.getParseResult();
+        for (String name : SESSION_OPTIONS) {
+            if (parseResult.hasMatchedOption(name)) {
+                throw new IllegalArgumentException("The option " + name + " is shared by all the entries and cannot be set for application " + entry.getName());
+            }
+        }
+        // the shared options not given by the entry are the ones of the batch
+        for (CommandLine.Model.OptionSpec option : sharedOptionsSpec().options()) {
+            CommandLine.Model.OptionSpec target = commandLine.getCommandSpec().findOption(option.longestName());
+            if (target != null && !parseResult.hasMatchedOption(target)) {
+                target.setValue(option.getValue());
+            }
+        }
+        command.setBatchEntry(true);
+        return command;
+    }
+
+    private CommandLine.Model.CommandSpec sharedOptionsSpec() {
+        return CommandLine.Model.CommandSpec.forAnnotatedObject(sharedOptions);
+    }
+
+    private static boolean matches(Class<?> commandClass, String name) {
+        CommandLine.Command command = commandClass.getAnnotation(CommandLine.Command.class);
+        return StringUtils.equalsIgnoreCase(command.name(), name)
+                || Arrays.stream(command.aliases()).anyMatch(a -> StringUtils.equalsIgnoreCase(a, name));
+    }
+}
@@ -0,0 +1,50 @@
+package com.castsoftware.aip.console.tools.commands;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A command to run for an application, as described in a batch manifest :
+ * <pre>
+ * {
+ *   "enabled": true,
+ *   "name": "My Application",
+ *   "command": "AddVersion",
+ *   "nodeName": "node1",
+ *   "arguments": ["--file", "sources.zip", "--version-name", "v1", "--auto-create"]
+ * }
+ * </pre>
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BatchEntry {
+    private boolean enabled = true;
+    /**
+     * The name of the application
+     */
+    private String name;
+    /**
+     * The name or alias of the command to run : AddVersion, Deliver, Analysis or Snapshot
+     */
+    private String command = "AddVersion";
+    /**
+     * The node of the application, used to limit the number of commands running on each node. Also passed as
+     * --node-name to the commands creating the application.
+     */
+    private String nodeName;
+    /**
+     * The options of the command, except the application name and the options shared by all the commands
+     */
+    private List<String> arguments = new ArrayList<>();
+}
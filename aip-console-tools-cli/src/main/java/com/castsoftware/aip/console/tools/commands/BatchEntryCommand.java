@@ -0,0 +1,56 @@
+package com.castsoftware.aip.console.tools.commands;
+
+import com.castsoftware.aip.console.tools.core.exceptions.ApiCallException;
+import com.castsoftware.aip.console.tools.core.exceptions.ApiKeyMissingException;
+import com.castsoftware.aip.console.tools.core.services.JobsService;
+import com.castsoftware.aip.console.tools.core.services.RestApiService;
+import com.castsoftware.aip.console.tools.core.utils.Constants;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A command that can be run as an entry of a Batch
+ */
+interface BatchEntryCommand extends Callable<Integer> {
+    /**
+     * @param batchEntry Whether the command runs as an entry of a Batch, which configures the session and the services
+     *                   once for all its entries
+     */
+    void setBatchEntry(boolean batchEntry);
+
+    boolean isBatchEntry();
+
+    SharedOptions getSharedOptions();
+
+    RestApiService getRestApiService();
+
+    JobsService getJobsService();
+
+    /**
+     * Configure the services with the shared options and log in to AIP Console. Nothing is done for the entries of a
+     * Batch, since the Batch does it once for all its entries, running at the same time.
+     *
+     * @return null once done, or the exit code of the command if the login failed
+     */
+    default Integer configureSession() {
+        if (isBatchEntry()) {
+            return null;
+        }
+        SharedOptions sharedOptions = getSharedOptions();
+        RestApiService restApiService = getRestApiService();
+        try {
+            if (sharedOptions.getTimeout() != Constants.DEFAULT_HTTP_TIMEOUT) {
+                restApiService.setTimeout(sharedOptions.getTimeout(), TimeUnit.SECONDS);
+            }
+            restApiService.setMetadataCacheDirectory(sharedOptions.getMetadataCachePath());
+            restApiService.validateUrlAndKey(sharedOptions.getFullServerRootUrl(), sharedOptions.getUsername(), sharedOptions.getApiKeyValue());
+        } catch (ApiKeyMissingException e) {
+            return Constants.RETURN_NO_PASSWORD;
+        } catch (ApiCallException e) {
+            return Constants.RETURN_LOGIN_ERROR;
+        }
+        getJobsService().setLogArchiveDirectory(sharedOptions.getLogArchivePath());
+        return null;
+    }
+}
@@ -0,0 +1,198 @@
+package com.castsoftware.aip.console.tools.commands;
+
+import com.castsoftware.aip.console.tools.core.tracing.Tracer;
+import com.castsoftware.aip.console.tools.core.utils.Constants;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the entries of a batch manifest concurrently.
+ * <p>
+ * The entries of an application are run one after the other, in the order of the manifest, and are skipped once one
+ * of them failed. The entries of different applications run in parallel, with at most {@code maxParallel} entries
+ * running at once, and at most {@code maxPerNode} entries running on the same node when the node of the entries is
+ * given.
+ */
+@Slf4j
+public class BatchRunner {
+
+    /**
+     * The action run for each entry
+     */
+    @FunctionalInterface
+    public interface EntryAction {
+        /**
+         * @param entry The entry to run
+         * @return The exit code of the command run for the entry
+         * @throws Exception If the command could not be run
+         */
+        int run(BatchEntry entry) throws Exception;
+    }
+
+    private final int maxParallel;
+    private final int maxPerNode;
+    private final Map<String, Semaphore> nodePermits = new ConcurrentHashMap<>();
+
+    public BatchRunner(int maxParallel, int maxPerNode) {
+        if (maxParallel < 1 || maxPerNode < 1) {
+            throw new IllegalArgumentException("The number of parallel commands must be at least 1");
+        }
+        this.maxParallel = maxParallel;
+        this.maxPerNode = maxPerNode;
+    }
+
+    /**
+     * Run all the entries, and wait until they are done
+     *
+     * @param entries The entries to run
+     * @param action  The action running an entry
+     * @return The result of each entry, in the order of the entries
+     * @throws InterruptedException If interrupted while waiting for the entries
+     */
+    public List<Result> run(List<BatchEntry> entries, EntryAction action) throws InterruptedException {
+        Map<String, List<BatchEntry>> entriesByApplication = new LinkedHashMap<>();
+        for (BatchEntry entry : entries) {
+            entriesByApplication.computeIfAbsent(entry.getName().toLowerCase(Locale.ROOT), n -> new ArrayList<>()).add(entry);
+        }
+
+        Map<BatchEntry, Result> results = new ConcurrentHashMap<>();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(maxParallel, Math.max(entriesByApplication.size(), 1)), r -> {
+            Thread thread = new Thread(r, "batch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<BatchEntry> applicationEntries : entriesByApplication.values()) {
+                // the commands of the entries are recorded in the trace of the batch
+                futures.add(executor.submit(Tracer.wrap(() -> runApplication(applicationEntries, action, results))));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    log.error("Unexpected error while running the batch", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        List<Result> orderedResults = new ArrayList<>();
+        for (BatchEntry entry : entries) {
+            orderedResults.add(results.getOrDefault(entry, new Result(entry, null, 0)));
+        }
+        return orderedResults;
+    }
+
+    private void runApplication(List<BatchEntry> entries, EntryAction action, Map<BatchEntry, Result> results) {
+        boolean failed = false;
+        for (BatchEntry entry : entries) {
+            if (failed || Thread.currentThread().isInterrupted()) {
+                results.put(entry, new Result(entry, null, 0));
+                continue;
+            }
+            Semaphore permits = StringUtils.isBlank(entry.getNodeName()) ? null
+                    : nodePermits.computeIfAbsent(entry.getNodeName().toLowerCase(Locale.ROOT), n -> new Semaphore(maxPerNode, true));
+            long start = System.currentTimeMillis();
+            int exitCode;
+            try {
+                if (permits != null) {
+                    permits.acquire();
+                }
+                try {
+                    start = System.currentTimeMillis();
+                    log.info("Running {} for application '{}'", entry.getCommand(), entry.getName());
+                    exitCode = action.run(entry);
+                } finally {
+                    if (permits != null) {
+                        permits.release();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                exitCode = Constants.UNKNOWN_ERROR;
+            } catch (Exception e) {
+                log.error("Unable to run {} for application '{}'", entry.getCommand(), entry.getName(), e);
+                exitCode = Constants.UNKNOWN_ERROR;
+            }
+            results.put(entry, new Result(entry, exitCode, System.currentTimeMillis() - start));
+            failed = exitCode != Constants.RETURN_OK;
+        }
+    }
+
+    /**
+     * Format the results as a table, one line per entry
+     *
+     * @param results The results of the entries
+     * @return The lines of the table
+     */
+    public static List<String> toTable(List<Result> results) {
+        int nameWidth = "Application".length();
+        int commandWidth = "Command".length();
+        for (Result result : results) {
+            nameWidth = Math.max(nameWidth, result.getEntry().getName().length());
+            commandWidth = Math.max(commandWidth, result.getEntry().getCommand().length());
+        }
+        String format = "%-" + nameWidth + "s | %-" + commandWidth + "s | %-9s | %s";
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(format, "Application", "Command", "Exit code", "Duration"));
+        lines.add(StringUtils.repeat('-', nameWidth) + "-+-" + StringUtils.repeat('-', commandWidth) + "-+-" + StringUtils.repeat('-', 9) + "-+-" + StringUtils.repeat('-', 8));
+        for (Result result : results) {
+            lines.add(String.format(format, result.getEntry().getName(), result.getEntry().getCommand(),
+                    result.isSkipped() ? "skipped" : result.getExitCode(),
+                    result.isSkipped() ? "" : formatDuration(result.getDurationMillis())));
+        }
+        return Collections.unmodifiableList(lines);
+    }
+
+    private static String formatDuration(long millis) {
+        long seconds = TimeUnit.MILLISECONDS.toSeconds(millis);
+        return String.format("%d:%02d:%02d", seconds / 3600, (seconds / 60) % 60, seconds % 60);
+    }
+
+    /**
+     * The result of an entry of the batch
+     */
+    @Getter
+    public static class Result {
+        private final BatchEntry entry;
+        /**
+         * The exit code of the command, or null if the entry was skipped
+         */
+        private final Integer exitCode;
+        private final long durationMillis;
+
+        Result(BatchEntry entry, Integer exitCode, long durationMillis) {
+            this.entry = entry;
+            this.exitCode = exitCode;
+            this.durationMillis = durationMillis;
+        }
+
+        public boolean isSkipped() {
+            return exitCode == null;
+        }
+
+        public boolean isSuccessful() {
+            return exitCode != null && exitCode == Constants.RETURN_OK;
+        }
+    }
+}
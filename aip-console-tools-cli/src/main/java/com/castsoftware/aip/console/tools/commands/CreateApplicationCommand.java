@@ -2,12 +2,16 @@ package com.castsoftware.aip.console.tools.commands;
 
 import com.castsoftware.aip.console.tools.core.dto.NodeDto;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobState;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusWithSteps;
 import com.castsoftware.aip.console.tools.core.exceptions.ApiCallException;
 import com.castsoftware.aip.console.tools.core.exceptions.ApiKeyMissingException;
 import com.castsoftware.aip.console.tools.core.exceptions.JobServiceException;
+import com.castsoftware.aip.console.tools.core.services.ApplicationService;
 import com.castsoftware.aip.console.tools.core.services.JobsService;
 import com.castsoftware.aip.console.tools.core.services.RestApiService;
+import com.castsoftware.aip.console.tools.core.tracing.Tracer;
 import com.castsoftware.aip.console.tools.core.utils.Constants;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -18,11 +22,36 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import picocli.CommandLine;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
+/**
+ * Creates an application, or many of them with --bulk-file.
+ * <p>
+ * In bulk mode, the creation jobs are started as soon as the limits allow it, at most --max-parallel at the same time
+ * and at most --max-per-node on the same node, and are all followed by the same job watcher. The GUIDs of the created
+ * applications are written to a mapping file, by name.
+ */
 @Component
 @CommandLine.Command(
         name = "CreateApplication",
@@ -43,18 +72,46 @@ public class CreateApplicationCommand implements Callable<Integer> {
     @Autowired
     private RestApiService restApiService;
 
+    @Autowired
+    private ApplicationService applicationService;
+
+    @Autowired
+    private ObjectMapper mapper;
+
     @CommandLine.Mixin
     private SharedOptions sharedOptions;
 
     /**
      * options for the upload and job startup
      */
-    @CommandLine.Option(names = {"-n", "--app-name"}, paramLabel = "APPLICATION_NAME", description = "The name of the application to create", required = true)
+    @CommandLine.Option(names = {"-n", "--app-name"}, paramLabel = "APPLICATION_NAME", description = "The name of the application to create. Required unless --bulk-file is given")
     private String applicationName;
 
+    @CommandLine.Option(names = "--bulk-file", paramLabel = "BULK_FILE",
+            description = "A file listing the applications to create, one per line as NAME;NODE_NAME;DOMAIN_NAME."
+                    + " The node and the domain are optional, and default to --node-name and --domain-name. Empty lines and lines starting with # are ignored")
+    private File bulkFile;
+
+    @CommandLine.Option(names = "--mapping-file", paramLabel = "MAPPING_FILE",
+            description = "The JSON file to which the GUIDs of the applications created with --bulk-file are written, by name."
+                    + " Defaults to the bulk file with the .guids.json extension added")
+    private File mappingFile;
+
+    @CommandLine.Option(names = "--max-parallel", paramLabel = "COUNT", defaultValue = "4",
+            description = "The maximum number of applications created at the same time with --bulk-file. Defaults to ${DEFAULT-VALUE}")
+    private int maxParallel;
+
+    @CommandLine.Option(names = "--max-per-node", paramLabel = "COUNT", defaultValue = "1",
+            description = "The maximum number of applications created at the same time on the same node with --bulk-file. Defaults to ${DEFAULT-VALUE}")
+    private int maxPerNode;
+
     @CommandLine.Option(names = "--node-name", paramLabel = "NODE_NAME", description = "The name of the node on which the application will be created.")
     private String nodeName;
 
+    @CommandLine.Option(names = "--auto-node-placement", description = "If no --node-name is given, create the application on the least loaded node instead of letting AIP Console choose it"
+            + " if specified without parameter: ${FALLBACK-VALUE}", fallbackValue = "true")
+    private boolean autoNodePlacement = false;
+
     /**
      * Domain name
      */
@@ -76,19 +133,36 @@ public class CreateApplicationCommand implements Callable<Integer> {
     private List<String> unmatchedOptions;
 
     @Override
-    public Integer call() {
+    public Integer call() throws Exception {
+        return Tracer.trace(sharedOptions.getTracePath(), "CreateApplication", this::runCommand);
+    }
+
+    private Integer runCommand() throws InterruptedException {
+        if ((bulkFile == null) == StringUtils.isBlank(applicationName)) {
+            log.error("Either the name of the application or a bulk file must be given");
+            return Constants.RETURN_INVALID_PARAMETERS_ERROR;
+        }
+        if (maxParallel < 1 || maxPerNode < 1) {
+            log.error("The number of applications created at the same time must be at least 1");
+            return Constants.RETURN_INVALID_PARAMETERS_ERROR;
+        }
         try {
             if (sharedOptions.getTimeout() != Constants.DEFAULT_HTTP_TIMEOUT) {
                 restApiService.setTimeout(sharedOptions.getTimeout(), TimeUnit.SECONDS);
             }
+            restApiService.setMetadataCacheDirectory(sharedOptions.getMetadataCachePath());
             restApiService.validateUrlAndKey(sharedOptions.getFullServerRootUrl(), sharedOptions.getUsername(), sharedOptions.getApiKeyValue());
         } catch (ApiKeyMissingException e) {
             return Constants.RETURN_NO_PASSWORD;
         } catch (ApiCallException e) {
             return Constants.RETURN_LOGIN_ERROR;
         }
+        jobsService.setLogArchiveDirectory(sharedOptions.getLogArchivePath());
 
         log.info("Create application command has triggered with log output = '{}'", sharedOptions.isVerbose());
+        if (bulkFile != null) {
+            return runBulk();
+        }
 
         try {
             String nodeGuid = null;
@@ -103,6 +177,9 @@ public class CreateApplicationCommand implements Callable<Integer> {
                     log.error("Node with name '%s' could not be found on AIP Console.");
                     return Constants.RETURN_APPLICATION_NOT_FOUND;
                 }
+            } else if (autoNodePlacement) {
+                NodeDto node = applicationService.placeNewApplication(applicationName);
+                nodeGuid = node == null ? null : node.getGuid();
             }
             //For backward compatibility
             boolean noHistory = noVersionHistory || inPlaceMode;
@@ -123,4 +200,223 @@ public class CreateApplicationCommand implements Callable<Integer> {
             return Constants.UNKNOWN_ERROR;
         }
     }
+
+    private Integer runBulk() throws InterruptedException {
+        List<BulkEntry> entries;
+        try {
+            entries = readBulkFile();
+        } catch (IOException e) {
+            log.error("Unable to read the bulk file {}", bulkFile, e);
+            return Constants.RETURN_INVALID_PARAMETERS_ERROR;
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid line in the bulk file {}: {}", bulkFile, e.getMessage());
+            return Constants.RETURN_INVALID_PARAMETERS_ERROR;
+        }
+        if (entries.isEmpty()) {
+            log.warn("No application to create in the bulk file {}", bulkFile);
+            return Constants.RETURN_OK;
+        }
+        Path mappingPath = mappingFile != null ? mappingFile.toPath() : Paths.get(bulkFile.getPath() + ".guids.json");
+        if (Files.exists(mappingPath)) {
+            log.error("The mapping file already exists: " + mappingPath);
+            return Constants.RETURN_FILE_ALREADY_EXISTS;
+        }
+
+        try {
+            if (entries.stream().anyMatch(e -> e.nodeName != null)) {
+                NodeDto[] nodes = restApiService.getForEntity("/api/nodes", NodeDto[].class);
+                for (BulkEntry entry : entries) {
+                    if (entry.nodeName != null) {
+                        entry.nodeGuid = Arrays.stream(nodes)
+                                .filter(node -> StringUtils.equalsIgnoreCase(entry.nodeName, node.getName()))
+                                .map(NodeDto::getGuid)
+                                .findFirst()
+                                .orElse(null);
+                        if (entry.nodeGuid == null) {
+                            log.error("Node with name '{}' of application '{}' could not be found on AIP Console.", entry.nodeName, entry.name);
+                            return Constants.RETURN_APPLICATION_NOT_FOUND;
+                        }
+                    }
+                }
+            }
+        } catch (ApiCallException e) {
+            log.error("Call to AIP Console resulted in an error.", e);
+            return Constants.UNKNOWN_ERROR;
+        }
+        log.info("Creating {} applications, {} at most at the same time and {} at most on the same node", entries.size(), maxParallel, maxPerNode);
+        Map<BulkEntry, CompletableFuture<JobStatusWithSteps>> futures = startAll(entries);
+        try {
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).get();
+        } catch (ExecutionException e) {
+            // the result of each creation is checked below
+        } finally {
+            futures.values().forEach(f -> f.cancel(false));
+        }
+
+        Map<String, String> guids = new LinkedHashMap<>();
+        for (Map.Entry<BulkEntry, CompletableFuture<JobStatusWithSteps>> result : futures.entrySet()) {
+            String name = result.getKey().name;
+            CompletableFuture<JobStatusWithSteps> future = result.getValue();
+            if (future.isCompletedExceptionally()) {
+                log.error("Unable to create application '{}'", name);
+                continue;
+            }
+            JobStatusWithSteps jobStatus = future.join();
+            if (jobStatus.getState() != JobState.COMPLETED) {
+                log.error("Creation of application '{}' failed with status '{}'", name, jobStatus.getState());
+                continue;
+            }
+            log.info("Application '{}' created successfully:  GUID is '{}'", name, jobStatus.getAppGuid());
+            guids.put(name, jobStatus.getAppGuid());
+        }
+        try {
+            mapper.writerWithDefaultPrettyPrinter().writeValue(mappingPath.toFile(), guids);
+            log.info("GUIDs of the {} created applications saved to {}", guids.size(), mappingPath);
+        } catch (IOException e) {
+            log.error("Unable to write the mapping file {}", mappingPath, e);
+            return Constants.UNKNOWN_ERROR;
+        }
+        return guids.size() == entries.size() ? Constants.RETURN_OK : Constants.RETURN_BATCH_FAILED;
+    }
+
+    /**
+     * Start the creation jobs as soon as the limits allow it. The jobs are followed by the job watcher, and a slot is
+     * freed as soon as one of them is finished.
+     *
+     * @return The watch of the creation job of each entry, in the order of the entries
+     */
+    private Map<BulkEntry, CompletableFuture<JobStatusWithSteps>> startAll(List<BulkEntry> entries) throws InterruptedException {
+        boolean noHistory = noVersionHistory || inPlaceMode;
+        CreationSlots slots = new CreationSlots(maxParallel, maxPerNode);
+        List<BulkEntry> pending = new LinkedList<>(entries);
+        Map<BulkEntry, CompletableFuture<JobStatusWithSteps>> futures = new LinkedHashMap<>();
+        while (!pending.isEmpty()) {
+            BulkEntry entry = slots.take(pending, this::place);
+            CompletableFuture<JobStatusWithSteps> future;
+            try {
+                String jobGuid = jobsService.startCreateApplication(entry.name, entry.nodeGuid, entry.domainName, noHistory);
+                log.info("Started job to create application '{}'", entry.name);
+                future = jobsService.watchJob(jobGuid, null, null);
+            } catch (JobServiceException e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            future.whenComplete((s, e) -> slots.release(entry));
+            futures.put(entry, future);
+        }
+        return futures;
+    }
+
+    private void place(BulkEntry entry) {
+        NodeDto node = autoNodePlacement ? applicationService.placeNewApplication(entry.name) : null;
+        entry.nodeGuid = node == null ? null : node.getGuid();
+    }
+
+    private List<BulkEntry> readBulkFile() throws IOException {
+        List<BulkEntry> entries = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (String line : Files.readAllLines(bulkFile.toPath(), StandardCharsets.UTF_8)) {
+            if (StringUtils.isBlank(line) || line.trim().startsWith("#")) {
+                continue;
+            }
+            String[] values = line.split(";", -1);
+            if (values.length > 3 || StringUtils.isBlank(values[0])) {
+                throw new IllegalArgumentException("expected NAME;NODE_NAME;DOMAIN_NAME but was '" + line + "'");
+            }
+            BulkEntry entry = new BulkEntry(values[0].trim(),
+                    values.length > 1 && StringUtils.isNotBlank(values[1]) ? values[1].trim() : StringUtils.trimToNull(nodeName),
+                    values.length > 2 && StringUtils.isNotBlank(values[2]) ? values[2].trim() : StringUtils.trimToNull(domainName));
+            if (!names.add(entry.name.toLowerCase(Locale.ROOT))) {
+                throw new IllegalArgumentException("application '" + entry.name + "' is listed more than once");
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * An application of the bulk file
+     */
+    private static class BulkEntry {
+        private final String name;
+        private final String nodeName;
+        private final String domainName;
+        private String nodeGuid;
+        /**
+         * Whether the node of an application without node name was chosen
+         */
+        private boolean placed;
+
+        private BulkEntry(String name, String nodeName, String domainName) {
+            this.name = name;
+            this.nodeName = nodeName;
+            this.domainName = domainName;
+        }
+    }
+
+    /**
+     * The creation jobs running, in total and on each node. The applications without node name are placed when a
+     * creation can start, one at a time so that the placement sees the creations started before, and then wait for a
+     * slot of their node like the others.
+     */
+    private static class CreationSlots {
+        private final int maxParallel;
+        private final int maxPerNode;
+        private final Map<String, Integer> runningByNode = new HashMap<>();
+        private int running;
+
+        private CreationSlots(int maxParallel, int maxPerNode) {
+            this.maxParallel = maxParallel;
+            this.maxPerNode = maxPerNode;
+        }
+
+        /**
+         * Wait until one of the pending entries can start, and remove it from the pending entries. The entries are only
+         * read and changed by the calling thread, the slots are released by the threads of the job watcher.
+         *
+         * @param placement Chooses the node of an entry without node name
+         */
+        private BulkEntry take(List<BulkEntry> pending, Consumer<BulkEntry> placement) throws InterruptedException {
+            while (true) {
+                BulkEntry unplaced = null;
+                synchronized (this) {
+                    if (running < maxParallel) {
+                        Iterator<BulkEntry> iterator = pending.iterator();
+                        while (iterator.hasNext()) {
+                            BulkEntry entry = iterator.next();
+                            boolean resolved = entry.nodeName != null || entry.placed;
+                            if (resolved && (entry.nodeGuid == null || runningByNode.getOrDefault(entry.nodeGuid, 0) < maxPerNode)) {
+                                iterator.remove();
+                                running++;
+                                if (entry.nodeGuid != null) {
+                                    runningByNode.merge(entry.nodeGuid, 1, Integer::sum);
+                                }
+                                return entry;
+                            }
+                        }
+                        // the next application is placed once the previous one has started
+                        if (pending.stream().noneMatch(e -> e.placed)) {
+                            unplaced = pending.stream().filter(e -> e.nodeName == null).findFirst().orElse(null);
+                        }
+                    }
+                    if (unplaced == null) {
+                        wait();
+                        continue;
+                    }
+                }
+                // the placement calls AIP Console, so it's done without blocking the release of the slots meanwhile,
+                // and the slots are checked again afterwards
+                placement.accept(unplaced);
+                unplaced.placed = true;
+            }
+        }
+
+        private synchronized void release(BulkEntry entry) {
+            running--;
+            if (entry.nodeGuid != null) {
+                runningByNode.merge(entry.nodeGuid, -1, Integer::sum);
+            }
+            notifyAll();
+        }
+    }
 }
@@ -0,0 +1,105 @@
+package com.castsoftware.aip.console.tools.commands;
+
+import com.castsoftware.aip.console.tools.AipIntegrationCliMain;
+import com.castsoftware.aip.console.tools.core.services.JobLifecycleManager;
+import com.castsoftware.aip.console.tools.core.services.JobsService;
+import com.castsoftware.aip.console.tools.core.services.RestApiService;
+import com.castsoftware.aip.console.tools.core.utils.Constants;
+import com.castsoftware.aip.console.tools.daemon.DaemonClient;
+import com.castsoftware.aip.console.tools.daemon.DaemonServer;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.stereotype.Component;
+import picocli.CommandLine;
+
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the tool running, with its session, connection pool and caches, to run the commands forwarded by the
+ * clients started with {@value DaemonClient#USE_DAEMON_OPTION}.
+ */
+@Component
+@CommandLine.Command(
+        name = "Daemon",
+        mixinStandardHelpOptions = true,
+        aliases = {"daemon"},
+        description = "Keeps the tool running in the background, to run the commands given with " + DaemonClient.USE_DAEMON_OPTION + " without starting a new process"
+)
+@Slf4j
+@Getter
+@Setter
+@NoArgsConstructor
+public class DaemonCommand implements Callable<Integer> {
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    @Autowired
+    private RestApiService restApiService;
+
+    @Autowired
+    private JobsService jobsService;
+
+    @Value("${picocli.usage.width:120}")
+    private int consoleUsageWidth;
+
+    @CommandLine.Option(names = "--idle-timeout", paramLabel = "MINUTES", defaultValue = "30",
+            description = "The number of minutes without any command after which the daemon stops. Defaults to ${DEFAULT-VALUE}")
+    private long idleTimeout;
+
+    @Override
+    public Integer call() throws Exception {
+        if (idleTimeout <= 0) {
+            log.error("The idle timeout must be positive");
+            return Constants.RETURN_INVALID_PARAMETERS_ERROR;
+        }
+        Path infoFile = DaemonClient.getDefaultInfoFile();
+        if (DaemonClient.isRunning(infoFile)) {
+            log.warn("An AIP integration tool daemon is already running");
+            return Constants.RETURN_OK;
+        }
+
+        // each command gets new instances, sharing the services of this context
+        CommandLine.IFactory factory = new CommandLine.IFactory() {
+            @Override
+            public <K> K create(Class<K> cls) {
+                return beanFactory.createBean(cls);
+            }
+        };
+        new DaemonServer(infoFile, idleTimeout, TimeUnit.MINUTES, new DaemonServer.RequestHandler() {
+            @Override
+            public int execute(Path workingDirectory, String[] args) {
+                if (args.length > 0 && isDaemonCommand(args[0])) {
+                    log.error("The daemon cannot start another daemon");
+                    return Constants.RETURN_INVALID_PARAMETERS_ERROR;
+                }
+                // the services are shared, the options given to the previous commands don't apply to this one
+                restApiService.setTimeout(Constants.DEFAULT_HTTP_TIMEOUT, TimeUnit.SECONDS);
+                restApiService.setMetadataCacheDirectory(null);
+                jobsService.setLogArchiveDirectory(null);
+                return AipIntegrationCliMain.execute(factory, ParentCommand.class, consoleUsageWidth, workingDirectory, args);
+            }
+
+            @Override
+            public void clientDisconnected() {
+                // as the command would have done when stopped in its own process
+                log.info("Cancelling the running jobs of the command on AIP Console");
+                jobsService.getJobLifecycleManager().cancelAll(JobLifecycleManager.DEFAULT_GRACE_PERIOD, TimeUnit.MILLISECONDS);
+            }
+        }).serve();
+        return Constants.RETURN_OK;
+    }
+
+    private static boolean isDaemonCommand(String arg) {
+        CommandLine.Command command = DaemonCommand.class.getAnnotation(CommandLine.Command.class);
+        return StringUtils.equalsAny(arg, command.name(), command.aliases()[0]);
+    }
+}
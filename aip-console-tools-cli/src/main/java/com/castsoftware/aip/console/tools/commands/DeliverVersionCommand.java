@@ -7,8 +7,6 @@ import com.castsoftware.aip.console.tools.core.dto.jobs.JobRequestBuilder;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobState;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusWithSteps;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobType;
-import com.castsoftware.aip.console.tools.core.exceptions.ApiCallException;
-import com.castsoftware.aip.console.tools.core.exceptions.ApiKeyMissingException;
 import com.castsoftware.aip.console.tools.core.exceptions.ApplicationServiceException;
 import com.castsoftware.aip.console.tools.core.exceptions.JobServiceException;
 import com.castsoftware.aip.console.tools.core.exceptions.PackagePathInvalidException;
@@ -17,6 +15,7 @@ import com.castsoftware.aip.console.tools.core.services.ApplicationService;
 import com.castsoftware.aip.console.tools.core.services.JobsService;
 import com.castsoftware.aip.console.tools.core.services.RestApiService;
 import com.castsoftware.aip.console.tools.core.services.UploadService;
+import com.castsoftware.aip.console.tools.core.tracing.Tracer;
 import com.castsoftware.aip.console.tools.core.utils.Constants;
 import com.castsoftware.aip.console.tools.core.utils.VersionObjective;
 import lombok.Getter;
@@ -28,8 +27,6 @@ import picocli.CommandLine;
 
 import java.io.File;
 import java.util.Date;
-import java.util.concurrent.Callable;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 /**
@@ -45,7 +42,7 @@ import java.util.function.Function;
 @Slf4j
 @Getter
 @Setter
-public class DeliverVersionCommand implements Callable<Integer> {
+public class DeliverVersionCommand implements BatchEntryCommand {
     private final RestApiService restApiService;
     private final JobsService jobsService;
     private final UploadService uploadService;
@@ -104,6 +101,12 @@ public class DeliverVersionCommand implements Callable<Integer> {
             paramLabel = "NODE_NAME", description = "The name of the node on which the application will be created. Ignored if no --auto-create or the application already exists.")
     private String nodeName;
 
+    @CommandLine.Option(names = "--auto-node-placement",
+            description = "If no --node-name is given, create the application on the least loaded node instead of letting AIP Console choose it"
+                    + " if specified without parameter: ${FALLBACK-VALUE}",
+            fallbackValue = "true")
+    private boolean autoNodePlacement = false;
+
     @CommandLine.Option(names = {"-b", "--backup"},
             description = "Enable backup of application before delivering the new version"
                     + " if specified without parameter: ${FALLBACK-VALUE}",
@@ -151,6 +154,26 @@ public class DeliverVersionCommand implements Callable<Integer> {
             fallbackValue = "true", defaultValue = "false")
     private boolean enableSecurityAssessment;
 
+    @CommandLine.Option(names = "--detach",
+            description = "Start the job and exit without waiting for it to finish. The GUID of the job is printed, to be given to the Wait or Status commands"
+                    + " if specified without parameter: ${FALLBACK-VALUE}",
+            fallbackValue = "true")
+    private boolean detach = false;
+
+    @CommandLine.Option(names = "--job-guid-file", paramLabel = "FILE",
+            description = "With --detach, a file in which the GUID of the job is written, for the scripts reading it")
+    private File jobGuidFile;
+
+    /**
+     * Set when run as a stage of a Pipeline
+     */
+    private PipelineContext pipelineContext;
+
+    /**
+     * Set when run as an entry of a Batch, which configured the session and the services for all its entries
+     */
+    private boolean batchEntry;
+
     public DeliverVersionCommand(RestApiService restApiService, JobsService jobsService, UploadService uploadService, ApplicationService applicationService) {
         this.restApiService = restApiService;
         this.jobsService = jobsService;
@@ -160,6 +183,10 @@ public class DeliverVersionCommand implements Callable<Integer> {
 
     @Override
     public Integer call() throws Exception {
+        return Tracer.trace(sharedOptions.getTracePath(), "Deliver", this::runCommand);
+    }
+
+    private Integer runCommand() throws Exception {
         // Same as a part of the AddVersion command
         // Upload a local file or register a remote path
         // And then starts a job up to "Delivery"
@@ -169,24 +196,17 @@ public class DeliverVersionCommand implements Callable<Integer> {
             return Constants.RETURN_APPLICATION_INFO_MISSING;
         }
 
-        try {
-            if (sharedOptions.getTimeout() != Constants.DEFAULT_HTTP_TIMEOUT) {
-                restApiService.setTimeout(sharedOptions.getTimeout(), TimeUnit.SECONDS);
-            }
-            restApiService.validateUrlAndKey(sharedOptions.getFullServerRootUrl(), sharedOptions.getUsername(), sharedOptions.getApiKeyValue());
-        } catch (ApiKeyMissingException e) {
-            return Constants.RETURN_NO_PASSWORD;
-        } catch (ApiCallException e) {
-            return Constants.RETURN_LOGIN_ERROR;
+        Integer loginError = configureSession();
+        if (loginError != null) {
+            return loginError;
         }
 
         log.info("Deliver version command has triggered with log output = '{}'", sharedOptions.isVerbose());
         String applicationGuid;
-        Thread shutdownHook = null;
 
         try {
             log.info("Searching for application '{}' on AIP Console", applicationName);
-            applicationGuid = applicationService.getOrCreateApplicationFromName(applicationName, autoCreate, nodeName, domainName, sharedOptions.isVerbose());
+            applicationGuid = applicationService.getOrCreateApplicationFromName(applicationName, autoCreate, nodeName, domainName, autoNodePlacement, sharedOptions.isVerbose());
             if (StringUtils.isBlank(applicationGuid)) {
                 String message = autoCreate ?
                         "Creation of the application '{}' failed on AIP Console" :
@@ -214,7 +234,8 @@ public class DeliverVersionCommand implements Callable<Integer> {
                     .objectives(VersionObjective.SECURITY, enableSecurityDataflow)
                     .backupApplication(backupEnabled)
                     .backupName(backupName)
-                    .autoDiscover(autoDiscover);
+                    .autoDiscover(autoDiscover)
+                    .archiveSize(filePath.isFile() ? filePath.length() : 0);
 
             if (app.isInPlaceMode() || setAsCurrent) {
                 //should got up to "set as current" when in-place mode is operating
@@ -232,12 +253,16 @@ public class DeliverVersionCommand implements Callable<Integer> {
             }
 
             String jobGuid = jobsService.startAddVersionJob(builder);
-            shutdownHook = getShutdownHookForJobGuid(jobGuid);
-
-            Runtime.getRuntime().addShutdownHook(shutdownHook);
+            if (detach) {
+                return DetachedJob.started(jobGuid, jobGuidFile);
+            }
             JobStatusWithSteps jobStatus = jobsService.pollAndWaitForJobFinished(jobGuid, Function.identity(), sharedOptions.isVerbose());
             if (JobState.COMPLETED == jobStatus.getState()) {
                 log.info("Delivery of application {} was completed successfully.", applicationName);
+                if (pipelineContext != null) {
+                    pipelineContext.setApplication(app);
+                    pipelineContext.setVersionName(builder.getVersionName());
+                }
                 return Constants.RETURN_OK;
             } else {
                 log.error("Job did not complete. Status is '{}' on step '{}'", jobStatus.getState(), jobStatus.getFailureStep());
@@ -253,24 +278,7 @@ public class DeliverVersionCommand implements Callable<Integer> {
         } catch (PackagePathInvalidException e) {
             log.error("Provided Path is invalid", e);
             return Constants.RETURN_JOB_FAILED;
-        } finally {
-            // Remove shutdown hook after execution
-            // This is to avoid exceptions during job execution to
-            if (shutdownHook != null) {
-                Runtime.getRuntime().removeShutdownHook(shutdownHook);
-            }
         }
 
     }
-
-    private Thread getShutdownHookForJobGuid(String jobGuid) {
-        return new Thread(() -> {
-            log.info("Received termination signal. Cancelling currently running job on AIP Console and exiting.");
-            try {
-                jobsService.cancelJob(jobGuid);
-            } catch (JobServiceException e) {
-                log.error("Cannot cancel the job on AIP Console. Please cancel it manually.", e);
-            }
-        });
-    }
 }
@@ -0,0 +1,42 @@
+package com.castsoftware.aip.console.tools.commands;
+
+import com.castsoftware.aip.console.tools.core.utils.Constants;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+/**
+ * Ends the commands started with --detach, once their job is started
+ */
+@Slf4j
+final class DetachedJob {
+
+    private DetachedJob() {
+    }
+
+    /**
+     * Print the GUID of the started job on the standard output, and write it to the given file. The logs are also
+     * printed on the standard output, so the file is the only reliable way to get the GUID from a script.
+     *
+     * @param jobGuid     The GUID of the started job
+     * @param jobGuidFile The file in which the GUID is written, or null
+     * @return The exit code of the command
+     */
+    static int started(String jobGuid, File jobGuidFile) {
+        log.info("Job '{}' started, not waiting for it to finish. Use the Wait or Status command to follow it.", jobGuid);
+        System.out.println(jobGuid);
+        if (jobGuidFile != null) {
+            try {
+                Files.write(jobGuidFile.toPath(), Collections.singletonList(jobGuid), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                log.error("Unable to write the GUID of job '{}' to {}", jobGuid, jobGuidFile, e);
+                return Constants.UNKNOWN_ERROR;
+            }
+        }
+        return Constants.RETURN_OK;
+    }
+}
@@ -1,13 +1,14 @@
 package com.castsoftware.aip.console.tools.commands;
 
-import com.castsoftware.aip.console.tools.core.dto.ApiInfoDto;
 import com.castsoftware.aip.console.tools.core.dto.ApplicationDto;
+import com.castsoftware.aip.console.tools.core.dto.ServerCapabilities;
 import com.castsoftware.aip.console.tools.core.dto.export.ExportApplicationsRequest;
 import com.castsoftware.aip.console.tools.core.exceptions.ApiCallException;
 import com.castsoftware.aip.console.tools.core.exceptions.ApiKeyMissingException;
 import com.castsoftware.aip.console.tools.core.services.ApplicationService;
 import com.castsoftware.aip.console.tools.core.services.JobsService;
 import com.castsoftware.aip.console.tools.core.services.RestApiService;
+import com.castsoftware.aip.console.tools.core.services.SettingsExporter;
 import com.castsoftware.aip.console.tools.core.services.UploadService;
 import com.castsoftware.aip.console.tools.core.utils.Constants;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -22,10 +23,14 @@ import org.springframework.stereotype.Component;
 import picocli.CommandLine;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
@@ -69,11 +74,30 @@ public class ExportSettingsCommand implements Callable<Integer> {
             , required = true)
     private String appList;
 
+    @CommandLine.Option(names = "--gzip",
+            description = "Compress the exported settings with gzip. When the file argument is a folder, the file is named "
+                    + Constants.DEFAULT_EXPORTED_SETTINGS_FILENAME + ".gz"
+                    + " if specified without parameter: ${FALLBACK-VALUE}",
+            fallbackValue = "true")
+    private boolean gzip = false;
+
+    @CommandLine.Option(names = "--max-parallel", paramLabel = "COUNT", defaultValue = "2",
+            description = "The maximum number of batches of " + ExportSettingsCommand.EXPORT_SIZE_MAX + " applications exported at the same time. Defaults to ${DEFAULT-VALUE}")
+    private int maxParallel;
+
+    @CommandLine.Option(names = "--since", paramLabel = "PREVIOUS_EXPORT",
+            description = "A previous export of the settings. Only the settings, domains, applications, versions and job executions"
+                    + " that changed since that export are written, with a summary of the changes. When the file argument is a folder,"
+                    + " the file is named " + ExportSettingsCommand.CHANGES_FILENAME)
+    private File since;
+
     @CommandLine.Mixin
     private SharedOptions sharedOptions;
 
+    // the maximum number of applications exported by AIP Console in one request
     private static final int EXPORT_SIZE_MAX = 5;
     private static final String NAMES_SEPARATOR = ";";
+    private static final String CHANGES_FILENAME = "exported-settings-changes.json";
 
     @Override
     public Integer call() throws Exception {
@@ -81,6 +105,7 @@ public class ExportSettingsCommand implements Callable<Integer> {
             if (sharedOptions.getTimeout() != Constants.DEFAULT_HTTP_TIMEOUT) {
                 restApiService.setTimeout(sharedOptions.getTimeout(), TimeUnit.SECONDS);
             }
+            restApiService.setMetadataCacheDirectory(sharedOptions.getMetadataCachePath());
             restApiService.validateUrlAndKey(sharedOptions.getFullServerRootUrl(), sharedOptions.getUsername(), sharedOptions.getApiKeyValue());
         } catch (ApiKeyMissingException e) {
             return Constants.RETURN_NO_PASSWORD;
@@ -88,15 +113,19 @@ public class ExportSettingsCommand implements Callable<Integer> {
             return Constants.RETURN_LOGIN_ERROR;
         }
 
-        ApiInfoDto apiInfo = restApiService.getAipConsoleApiInfo();
-        log.info(String.format("Target AIP-Console version: %s", apiInfo.getApiVersion()));
-        if (StringUtils.isNotEmpty(apiInfo.getCastVersion())) {
-            log.info(String.format("Target CAIP version: %s", apiInfo.getCastVersion()));
+        ServerCapabilities capabilities = restApiService.getServerCapabilities();
+        log.info(String.format("Target AIP-Console version: %s", capabilities.getApiVersion()));
+        if (StringUtils.isNotEmpty(capabilities.getCastVersion())) {
+            log.info(String.format("Target CAIP version: %s", capabilities.getCastVersion()));
         }
         if (!filePath.toPath().isAbsolute()) {
             log.error("The file argument should be an absolute path.");
             return Constants.RETURN_INVALID_PARAMETERS_ERROR;
         }
+        if (since != null && !since.isFile()) {
+            log.error("The previous export '{}' does not exist.", since);
+            return Constants.RETURN_INVALID_PARAMETERS_ERROR;
+        }
         if (StringUtils.isBlank(appList)) {
             log.error("Applications list should not be empty.");
             return Constants.RETURN_INVALID_PARAMETERS_ERROR;
@@ -104,8 +133,8 @@ public class ExportSettingsCommand implements Callable<Integer> {
 
         Set<String> toExportedApps;
         String[] applicationsToExport = appList.split(NAMES_SEPARATOR);
-        if (applicationsToExport.length == 0 || applicationsToExport.length > EXPORT_SIZE_MAX) {
-            log.error(String.format("Applications list size must be between 1 and %d", EXPORT_SIZE_MAX));
+        if (applicationsToExport.length == 0 || maxParallel < 1) {
+            log.error("Applications list should not be empty, and the number of parallel exports must be at least 1.");
             return Constants.RETURN_INVALID_PARAMETERS_ERROR;
         } else {
             Set<String> candidates = Arrays.stream(applicationsToExport).map(String::trim).collect(Collectors.toSet());
@@ -126,7 +155,8 @@ public class ExportSettingsCommand implements Callable<Integer> {
 
         Path exportedSettingsPath = filePath.toPath();
         if (Files.isDirectory(filePath.toPath())) {
-            exportedSettingsPath = filePath.toPath().resolve(Constants.DEFAULT_EXPORTED_SETTINGS_FILENAME);
+            String fileName = since != null ? CHANGES_FILENAME : Constants.DEFAULT_EXPORTED_SETTINGS_FILENAME;
+            exportedSettingsPath = filePath.toPath().resolve(fileName + (gzip ? ".gz" : ""));
         }
 
         if (Files.exists(exportedSettingsPath)) {
@@ -134,15 +164,24 @@ public class ExportSettingsCommand implements Callable<Integer> {
             return Constants.RETURN_FILE_ALREADY_EXISTS;
         }
 
-        ExportApplicationsRequest requestBody = new ExportApplicationsRequest(Collections.unmodifiableSet(toExportedApps));
+        // AIP Console exports a limited number of applications at once, the batches are merged afterwards
+        List<String> sortedApps = toExportedApps.stream().sorted().collect(Collectors.toList());
+        List<ExportApplicationsRequest> batches = new ArrayList<>();
+        for (int i = 0; i < sortedApps.size(); i += EXPORT_SIZE_MAX) {
+            List<String> batch = sortedApps.subList(i, Math.min(i + EXPORT_SIZE_MAX, sortedApps.size()));
+            batches.add(new ExportApplicationsRequest(Collections.unmodifiableSet(new LinkedHashSet<>(batch))));
+        }
         try {
-            log.info("Starting export settings from {} ", sharedOptions.getFullServerRootUrl());
-            String exportedSettings = restApiService.postForEntity("/api/export", requestBody, String.class);
-
-            log.info("Saving exported settings results to {} ", exportedSettingsPath);
-            mapper.writeValue(exportedSettingsPath.toFile(), exportedSettings);
-            log.info("Export settings completed.");
-        } catch (ApiCallException e) {
+            log.info("Starting export settings from {} in {} batches", sharedOptions.getFullServerRootUrl(), batches.size());
+            SettingsExporter exporter = new SettingsExporter(restApiService, mapper);
+            if (since != null) {
+                long size = exporter.exportChanges(batches, since.toPath(), exportedSettingsPath, gzip, maxParallel);
+                log.info("Export settings completed. {} bytes of changes since {} saved to {}", size, since, exportedSettingsPath);
+            } else {
+                long size = exporter.export(batches, exportedSettingsPath, gzip, maxParallel);
+                log.info("Export settings completed. {} bytes saved to {}", size, exportedSettingsPath);
+            }
+        } catch (ApiCallException | IOException e) {
             log.error("Unable to export the settings to '" + exportedSettingsPath + "'", e);
             return Constants.RETURN_EXPORT_SETTINGS_ERROR;
         }
@@ -18,7 +18,7 @@ import java.util.concurrent.Callable;
 @Command(
         name = "aip-integration-tool",
         mixinStandardHelpOptions = true,
-        subcommands = {CreateApplicationCommand.class, AddVersionCommand.class, AnalyzeCommand.class, DeliverVersionCommand.class, SnapshotCommand.class, ExportSettingsCommand.class},
+        subcommands = {CreateApplicationCommand.class, AddVersionCommand.class, AnalyzeCommand.class, DeliverVersionCommand.class, SnapshotCommand.class, ExportSettingsCommand.class, BatchCommand.class, DaemonCommand.class, PipelineCommand.class, WaitCommand.class, StatusCommand.class},
         commandListHeading = "%nPossible values for COMMAND:%n%n",
         versionProvider = VersionProvider.class
 )
@@ -0,0 +1,211 @@
+package com.castsoftware.aip.console.tools.commands;
+
+import com.castsoftware.aip.console.tools.core.dto.ModuleGenerationType;
+import com.castsoftware.aip.console.tools.core.tracing.Tracer;
+import com.castsoftware.aip.console.tools.core.utils.Constants;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.stereotype.Component;
+import picocli.CommandLine;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs Deliver, Analysis and Snapshot for an application, one after the other, in the same session.
+ * <p>
+ * Each stage starts as soon as the job of the previous one is completed, and reuses the application and the version
+ * resolved by the previous stages.
+ */
+@Component
+@CommandLine.Command(
+        name = "Pipeline",
+        mixinStandardHelpOptions = true,
+        aliases = {"pipeline"},
+        description = "Delivers, analyzes and takes a snapshot of a version, one stage after the other"
+)
+@Slf4j
+@Getter
+@Setter
+@NoArgsConstructor
+public class PipelineCommand implements Callable<Integer> {
+
+    /**
+     * The stages of a pipeline, in the order they run
+     */
+    public enum Stage {
+        DELIVER, ANALYZE, SNAPSHOT
+    }
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    @CommandLine.Mixin
+    private SharedOptions sharedOptions;
+
+    @CommandLine.Option(names = {"-n", "--app-name"}, paramLabel = "APPLICATION_NAME", required = true,
+            description = "The Name of the application")
+    private String applicationName;
+
+    @CommandLine.Option(names = "--stages", paramLabel = "STAGE", split = ",", defaultValue = "DELIVER,ANALYZE,SNAPSHOT",
+            description = "The stages to run, separated with comma. They always run in the order ${COMPLETION-CANDIDATES}. Defaults to ${DEFAULT-VALUE}")
+    private Stage[] stages;
+
+    @CommandLine.Option(names = {"-f", "--file"}, paramLabel = "FILE",
+            description = "A local zip or tar.gz file OR a path to a folder on the node where the source if saved. Required by the DELIVER stage")
+    private File filePath;
+
+    @CommandLine.Option(names = {"-v", "--version-name"}, paramLabel = "VERSION_NAME",
+            description = "The name of the version to deliver. Without DELIVER stage, the name of the version to analyze")
+    private String versionName;
+
+    @CommandLine.Option(names = "--auto-create",
+            description = "If the given application name doesn't exist on the target server, it'll be automatically created before delivering the version"
+                    + " if specified without parameter: ${FALLBACK-VALUE}",
+            fallbackValue = "true")
+    private boolean autoCreate = false;
+
+    @CommandLine.Option(names = "--node-name", paramLabel = "NODE_NAME",
+            description = "The name of the node on which the application will be created. Ignored if no --auto-create or the application already exists.")
+    private String nodeName;
+
+    @CommandLine.Option(names = "--domain-name", paramLabel = "DOMAIN_NAME",
+            description = "The name of the domain to assign to the application. Will only be used when creating the application.")
+    private String domainName;
+
+    @CommandLine.Option(names = {"--no-clone", "--no-rescan", "--create-new-version"},
+            description = "Enable this flag to create a new version without cloning the latest version configuration"
+                    + " if specified without parameter: ${FALLBACK-VALUE}",
+            fallbackValue = "true")
+    private boolean disableClone = false;
+
+    @CommandLine.Option(names = {"-exclude", "--exclude-patterns"},
+            description = "File patterns(glob pattern) to exclude in the delivery, separated with comma")
+    private String exclusionPatterns;
+
+    @CommandLine.Option(names = "--enable-security-dataflow",
+            description = "If defined, this will activate the security dataflow for this version"
+                    + " if specified without parameter: ${FALLBACK-VALUE}",
+            fallbackValue = "true")
+    private boolean enableSecurityDataflow = false;
+
+    @CommandLine.Option(names = "--module-option",
+            description = "Generates a user defined module option for either technology module or analysis unit module. Possible value is one of: full_content, one_per_au, one_per_techno")
+    private ModuleGenerationType moduleGenerationType;
+
+    @CommandLine.Option(names = {"-S", "--snapshot-name"}, paramLabel = "SNAPSHOT_NAME",
+            description = "The name of the snapshot to create")
+    private String snapshotName;
+
+    @CommandLine.Option(names = "--process-imaging",
+            description = "If provided, will upload data to Imaging after the snapshot"
+                    + " if specified without parameter: ${FALLBACK-VALUE}",
+            fallbackValue = "true")
+    private boolean processImaging = false;
+
+    @CommandLine.Option(names = {"--consolidation", "--upload-application"},
+            description = "When sets to false,  this prevents from consolidating snapshot or from publishing application to the Health dashboard"
+                    + " if specified without parameter: ${FALLBACK-VALUE}",
+            defaultValue = "true", fallbackValue = "true")
+    private boolean consolidation = true;
+
+    @Override
+    public Integer call() throws Exception {
+        return Tracer.trace(sharedOptions.getTracePath(), "Pipeline", this::runCommand);
+    }
+
+    private Integer runCommand() throws Exception {
+        if (stages == null || stages.length == 0) {
+            log.error("No stage to run");
+            return Constants.RETURN_INVALID_PARAMETERS_ERROR;
+        }
+        Set<Stage> stagesToRun = EnumSet.noneOf(Stage.class);
+        stagesToRun.addAll(Arrays.asList(stages));
+        if (stagesToRun.contains(Stage.DELIVER) && filePath == null) {
+            log.error("The DELIVER stage requires a --file");
+            return Constants.RETURN_INVALID_PARAMETERS_ERROR;
+        }
+
+        PipelineContext context = new PipelineContext();
+        for (Stage stage : stagesToRun) {
+            long start = System.currentTimeMillis();
+            log.info("Starting the {} stage for application '{}'", stage, applicationName);
+            int exitCode = createStage(stage, context).call();
+            if (exitCode != Constants.RETURN_OK) {
+                log.error("The {} stage failed with exit code {}, the next stages are skipped", stage, exitCode);
+                return exitCode;
+            }
+            log.info("The {} stage completed in {} seconds", stage, TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - start));
+        }
+        return Constants.RETURN_OK;
+    }
+
+    /**
+     * Create the command of the stage, with the options of this pipeline
+     */
+    private Callable<Integer> createStage(Stage stage, PipelineContext context) {
+        List<String> args = new ArrayList<>();
+        args.add("--app-name");
+        args.add(applicationName);
+        switch (stage) {
+            case DELIVER:
+                DeliverVersionCommand deliver = beanFactory.createBean(DeliverVersionCommand.class);
+                args.add("--file");
+                args.add(filePath.getPath());
+                addOption(args, "--version-name", versionName);
+                addOption(args, "--auto-create", autoCreate);
+                addOption(args, "--node-name", nodeName);
+                addOption(args, "--domain-name", domainName);
+                addOption(args, "--no-clone", disableClone);
+                addOption(args, "--exclude-patterns", exclusionPatterns);
+                addOption(args, "--enable-security-dataflow", enableSecurityDataflow);
+                new CommandLine(deliver).parseArgs(args.toArray(new String[0]));
+                deliver.setSharedOptions(sharedOptions);
+                deliver.setPipelineContext(context);
+                return deliver;
+            case ANALYZE:
+                AnalyzeCommand analyze = beanFactory.createBean(AnalyzeCommand.class);
+                addOption(args, "--version-name", context.getVersionName() != null ? context.getVersionName() : versionName);
+                addOption(args, "--module-option", moduleGenerationType == null ? null : moduleGenerationType.name());
+                new CommandLine(analyze).parseArgs(args.toArray(new String[0]));
+                analyze.setSharedOptions(sharedOptions);
+                analyze.setPipelineContext(context);
+                return analyze;
+            case SNAPSHOT:
+            default:
+                SnapshotCommand snapshot = beanFactory.createBean(SnapshotCommand.class);
+                addOption(args, "--version-name", context.getVersionName() != null ? context.getVersionName() : versionName);
+                addOption(args, "--snapshot-name", snapshotName);
+                addOption(args, "--process-imaging", processImaging);
+                args.add("--consolidation=" + consolidation);
+                new CommandLine(snapshot).parseArgs(args.toArray(new String[0]));
+                snapshot.setSharedOptions(sharedOptions);
+                snapshot.setPipelineContext(context);
+                return snapshot;
+        }
+    }
+
+    private static void addOption(List<String> args, String name, String value) {
+        if (StringUtils.isNotBlank(value)) {
+            args.add(name);
+            args.add(value);
+        }
+    }
+
+    private static void addOption(List<String> args, String name, boolean value) {
+        if (value) {
+            args.add(name);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.castsoftware.aip.console.tools.commands;
+
+import com.castsoftware.aip.console.tools.core.dto.ApplicationDto;
+import com.castsoftware.aip.console.tools.core.dto.VersionDto;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * What the stages of a Pipeline resolved, so the next stages don't look it up again
+ */
+@Getter
+@Setter
+public class PipelineContext {
+    private ApplicationDto application;
+    /**
+     * The name of the version delivered by the Deliver stage
+     */
+    private String versionName;
+    /**
+     * The version analyzed by the Analysis stage
+     */
+    private VersionDto version;
+
+    /**
+     * @return The GUID of the application, or null if it wasn't resolved yet
+     */
+    public String getApplicationGuid() {
+        return application == null ? null : application.getGuid();
+    }
+}
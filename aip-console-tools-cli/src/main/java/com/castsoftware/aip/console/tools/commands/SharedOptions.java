@@ -4,6 +4,9 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Component;
 import picocli.CommandLine;
 
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 
 @Component
@@ -30,6 +33,18 @@ public class SharedOptions {
             + " if specified without parameter: ${FALLBACK-VALUE}", fallbackValue = "true")
     private boolean verbose = true;
 
+    @CommandLine.Option(names = {"--log-archive-dir"}, paramLabel = "LOG_ARCHIVE_DIRECTORY", description = "A folder in which the logs of the jobs will be archived, gzip-compressed."
+            + " Each job gets its own sub folder, containing an index of the steps. Logs are not archived by default")
+    private File logArchiveDirectory;
+
+    @CommandLine.Option(names = {"--trace-dir"}, paramLabel = "TRACE_DIRECTORY", description = "A folder in which a trace of the command timeline will be written, in the Chrome trace and OTLP JSON formats."
+            + " No trace is recorded by default")
+    private File traceDirectory;
+
+    @CommandLine.Option(names = {"--metadata-cache"}, description = "Whether the AIP Console metadata (API information, nodes, applications and versions) should be cached"
+            + " under the user's home, and shared with the next commands. Defaulted to true if specified without parameter: ${FALLBACK-VALUE}", fallbackValue = "true")
+    private boolean metadataCache;
+
     @CommandLine.Unmatched
     private List<String> unmatchedOptions;
 
@@ -89,6 +104,42 @@ public class SharedOptions {
         this.verbose = verbose;
     }
 
+    public File getLogArchiveDirectory() {
+        return logArchiveDirectory;
+    }
+
+    public void setLogArchiveDirectory(File logArchiveDirectory) {
+        this.logArchiveDirectory = logArchiveDirectory;
+    }
+
+    public Path getLogArchivePath() {
+        return logArchiveDirectory == null ? null : logArchiveDirectory.toPath();
+    }
+
+    public File getTraceDirectory() {
+        return traceDirectory;
+    }
+
+    public void setTraceDirectory(File traceDirectory) {
+        this.traceDirectory = traceDirectory;
+    }
+
+    public Path getTracePath() {
+        return traceDirectory == null ? null : traceDirectory.toPath();
+    }
+
+    public boolean isMetadataCache() {
+        return metadataCache;
+    }
+
+    public void setMetadataCache(boolean metadataCache) {
+        this.metadataCache = metadataCache;
+    }
+
+    public Path getMetadataCachePath() {
+        return metadataCache ? Paths.get(System.getProperty("user.home"), ".aip-integration-tool", "metadata-cache") : null;
+    }
+
     public String getApiKeyValue() {
         if (apiKeyEnvVariable != null) {
             return System.getenv(apiKeyEnvVariable);
@@ -113,6 +164,9 @@ public class SharedOptions {
                 ", timeout='" + timeout + '\'' +
                 ", unmatchedOptions=" + unmatchedOptions +
                 ", log output= " + verbose +
+                ", log archive directory= " + logArchiveDirectory +
+                ", trace directory= " + traceDirectory +
+                ", metadata cache= " + metadataCache +
                 '}';
     }
 }
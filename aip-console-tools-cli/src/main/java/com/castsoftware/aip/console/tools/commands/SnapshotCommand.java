@@ -1,21 +1,20 @@
 package com.castsoftware.aip.console.tools.commands;
 
-import com.castsoftware.aip.console.tools.core.dto.ApiInfoDto;
+import com.castsoftware.aip.console.tools.core.dto.ServerCapabilities;
 import com.castsoftware.aip.console.tools.core.dto.VersionDto;
+import com.castsoftware.aip.console.tools.core.dto.VersionIndex;
 import com.castsoftware.aip.console.tools.core.dto.VersionStatus;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobRequestBuilder;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobState;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusWithSteps;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobType;
-import com.castsoftware.aip.console.tools.core.exceptions.ApiCallException;
-import com.castsoftware.aip.console.tools.core.exceptions.ApiKeyMissingException;
 import com.castsoftware.aip.console.tools.core.exceptions.ApplicationServiceException;
 import com.castsoftware.aip.console.tools.core.exceptions.JobServiceException;
 import com.castsoftware.aip.console.tools.core.services.ApplicationService;
 import com.castsoftware.aip.console.tools.core.services.JobsService;
 import com.castsoftware.aip.console.tools.core.services.RestApiService;
+import com.castsoftware.aip.console.tools.core.tracing.Tracer;
 import com.castsoftware.aip.console.tools.core.utils.Constants;
-import com.castsoftware.aip.console.tools.core.utils.SemVerUtils;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -23,14 +22,10 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Component;
 import picocli.CommandLine;
 
+import java.io.File;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
-import java.util.Comparator;
 import java.util.Date;
-import java.util.Optional;
-import java.util.Set;
-import java.util.concurrent.Callable;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 /**
@@ -46,7 +41,7 @@ import java.util.function.Function;
 @Slf4j
 @Getter
 @Setter
-public class SnapshotCommand implements Callable<Integer> {
+public class SnapshotCommand implements BatchEntryCommand {
     private static final DateFormat RELEASE_DATE_FORMATTER = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
     private final RestApiService restApiService;
     private final JobsService jobsService;
@@ -80,6 +75,26 @@ public class SnapshotCommand implements Callable<Integer> {
             defaultValue = "true", fallbackValue = "true")
     private boolean consolidation = true;
 
+    @CommandLine.Option(names = "--detach",
+            description = "Start the job and exit without waiting for it to finish. The GUID of the job is printed, to be given to the Wait or Status commands"
+                    + " if specified without parameter: ${FALLBACK-VALUE}",
+            fallbackValue = "true")
+    private boolean detach = false;
+
+    @CommandLine.Option(names = "--job-guid-file", paramLabel = "FILE",
+            description = "With --detach, a file in which the GUID of the job is written, for the scripts reading it")
+    private File jobGuidFile;
+
+    /**
+     * Set when run as a stage of a Pipeline
+     */
+    private PipelineContext pipelineContext;
+
+    /**
+     * Set when run as an entry of a Batch, which configured the session and the services for all its entries
+     */
+    private boolean batchEntry;
+
     public SnapshotCommand(RestApiService restApiService, JobsService jobsService, ApplicationService applicationService) {
         this.restApiService = restApiService;
         this.jobsService = jobsService;
@@ -89,60 +104,59 @@ public class SnapshotCommand implements Callable<Integer> {
 
     @Override
     public Integer call() throws Exception {
+        return Tracer.trace(sharedOptions.getTracePath(), "Snapshot", this::runCommand);
+    }
+
+    private Integer runCommand() throws Exception {
         // Runs snapshot + upload
         if (StringUtils.isBlank(applicationName)) {
             log.error("No application name provided. Exiting.");
             return Constants.RETURN_APPLICATION_INFO_MISSING;
         }
 
-        try {
-            if (sharedOptions.getTimeout() != Constants.DEFAULT_HTTP_TIMEOUT) {
-                restApiService.setTimeout(sharedOptions.getTimeout(), TimeUnit.SECONDS);
-            }
-            restApiService.validateUrlAndKey(sharedOptions.getFullServerRootUrl(), sharedOptions.getUsername(), sharedOptions.getApiKeyValue());
-        } catch (ApiKeyMissingException e) {
-            return Constants.RETURN_NO_PASSWORD;
-        } catch (ApiCallException e) {
-            return Constants.RETURN_LOGIN_ERROR;
+        Integer loginError = configureSession();
+        if (loginError != null) {
+            return loginError;
         }
-        ApiInfoDto apiInfoDto = restApiService.getAipConsoleApiInfo();
+        ServerCapabilities capabilities = restApiService.getServerCapabilities();
 
         try {
-            log.info("Searching for application '{}' on AIP Console", applicationName);
-            String applicationGuid = applicationService.getApplicationGuidFromName(applicationName);
+            String applicationGuid;
+            if (pipelineContext != null && pipelineContext.getApplicationGuid() != null) {
+                applicationGuid = pipelineContext.getApplicationGuid();
+            } else {
+                log.info("Searching for application '{}' on AIP Console", applicationName);
+                applicationGuid = applicationService.getApplicationGuidFromName(applicationName);
+            }
             if (StringUtils.isBlank(applicationGuid)) {
                 log.error("Application '{}' was not found on AIP Console", applicationName);
                 return Constants.RETURN_APPLICATION_NOT_FOUND;
             }
-            Set<VersionDto> versions = applicationService.getApplicationVersion(applicationGuid);
-            if (versions.isEmpty()) {
-                log.error("No version for the given application. Cannot run Snapshot without an analyzed version");
-                return Constants.RETURN_APPLICATION_NO_VERSION;
-            }
-            if (versions.stream().noneMatch(v -> v.getStatus().ordinal() >= VersionStatus.ANALYSIS_DONE.ordinal())) {
-                log.error("No analysis done for application '{}'. Cannot create snapshot.", applicationName);
-                return Constants.RETURN_VERSION_WITH_ANALYSIS_DONE_NOT_FOUND;
-            }
             VersionDto foundVersion;
-            if (StringUtils.isNotBlank(versionName)) {
-                Optional<VersionDto> optionalVersionDto = versions.stream()
-                        .filter(v -> StringUtils.equalsIgnoreCase(v.getName(), versionName))
-                        .findFirst();
-                if (!optionalVersionDto.isPresent()) {
-                    log.error("No version found with name " + versionName);
-                    return Constants.RETURN_APPLICATION_VERSION_NOT_FOUND;
-                }
-                foundVersion = optionalVersionDto.get();
+            if (pipelineContext != null && pipelineContext.getVersion() != null
+                    && (StringUtils.isBlank(versionName) || versionName.equals(pipelineContext.getVersion().getName()))) {
+                // analyzed by the previous stage
+                foundVersion = pipelineContext.getVersion();
             } else {
-                Optional<VersionDto> optionalVersionDto = versions
-                        .stream()
-                        .filter(v -> v.getStatus().ordinal() >= VersionStatus.ANALYSIS_DONE.ordinal())
-                        .max(Comparator.comparing(VersionDto::getVersionDate));
-                if (!optionalVersionDto.isPresent()) {
-                    log.error("No analyzed version found to create a snapshot for. Make sure you have at least one version that has been analyzed");
-                    return Constants.RETURN_APPLICATION_VERSION_NOT_FOUND;
+                VersionIndex versions = applicationService.getVersionIndex(applicationGuid);
+                if (versions.isEmpty()) {
+                    log.error("No version for the given application. Cannot run Snapshot without an analyzed version");
+                    return Constants.RETURN_APPLICATION_NO_VERSION;
+                }
+                VersionDto latestAnalyzedVersion = versions.getLatestVersion(VersionStatus.ANALYSIS_DONE);
+                if (latestAnalyzedVersion == null) {
+                    log.error("No analysis done for application '{}'. Cannot create snapshot.", applicationName);
+                    return Constants.RETURN_VERSION_WITH_ANALYSIS_DONE_NOT_FOUND;
+                }
+                if (StringUtils.isNotBlank(versionName)) {
+                    foundVersion = versions.findByName(versionName);
+                    if (foundVersion == null) {
+                        log.error("No version found with name " + versionName);
+                        return Constants.RETURN_APPLICATION_VERSION_NOT_FOUND;
+                    }
+                } else {
+                    foundVersion = latestAnalyzedVersion;
                 }
-                foundVersion = optionalVersionDto.get();
             }
 
             if (StringUtils.isBlank(snapshotName)) {
@@ -159,7 +173,7 @@ public class SnapshotCommand implements Callable<Integer> {
                     .releaseAndSnapshotDate(new Date())
                     .processImaging(processImaging)
                     .uploadApplication(forcedConsolidation)
-                    .endStep(SemVerUtils.isNewerThan115(apiInfoDto.getApiVersionSemVer()) ?
+                    .endStep(capabilities.isLastStepUploadAppSnapshot() ?
                             Constants.UPLOAD_APP_SNAPSHOT : Constants.CONSOLIDATE_SNAPSHOT);
 
             //Snapshot required now see whether we upload application or not
@@ -170,12 +184,10 @@ public class SnapshotCommand implements Callable<Integer> {
 
             log.info("Running Snapshot Job on application '{}' with Version '{}' (guid: '{}')", applicationName, foundVersion.getName(), foundVersion.getGuid());
             String jobGuid = jobsService.startJob(builder);
-
-            Thread shutdownHook = getShutdownHookForJobGuid(jobGuid);
-
-            Runtime.getRuntime().addShutdownHook(shutdownHook);
+            if (detach) {
+                return DetachedJob.started(jobGuid, jobGuidFile);
+            }
             JobStatusWithSteps jobStatus = jobsService.pollAndWaitForJobFinished(jobGuid, Function.identity(), sharedOptions.isVerbose());
-            Runtime.getRuntime().removeShutdownHook(shutdownHook);
             if (JobState.COMPLETED == jobStatus.getState()) {
                 log.info("Snapshot Creation completed successfully.");
                 return Constants.RETURN_OK;
@@ -188,15 +200,4 @@ public class SnapshotCommand implements Callable<Integer> {
             return Constants.RETURN_JOB_POLL_ERROR;
         }
     }
-
-    private Thread getShutdownHookForJobGuid(String jobGuid) {
-        return new Thread(() -> {
-            log.info("Received termination signal. Cancelling currently running job on AIP Console and exiting.");
-            try {
-                jobsService.cancelJob(jobGuid);
-            } catch (JobServiceException e) {
-                log.error("Cannot cancel the job on AIP Console. Please cancel it manually.", e);
-            }
-        });
-    }
 }
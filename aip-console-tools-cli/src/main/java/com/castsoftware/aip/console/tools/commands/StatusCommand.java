@@ -0,0 +1,102 @@
+package com.castsoftware.aip.console.tools.commands;
+
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobState;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusWithSteps;
+import com.castsoftware.aip.console.tools.core.exceptions.ApiCallException;
+import com.castsoftware.aip.console.tools.core.exceptions.ApiKeyMissingException;
+import com.castsoftware.aip.console.tools.core.exceptions.JobServiceException;
+import com.castsoftware.aip.console.tools.core.services.JobsService;
+import com.castsoftware.aip.console.tools.core.services.RestApiService;
+import com.castsoftware.aip.console.tools.core.tracing.Tracer;
+import com.castsoftware.aip.console.tools.core.utils.Constants;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+import picocli.CommandLine;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prints the current status of jobs, without waiting for them to finish
+ */
+@Component
+@CommandLine.Command(
+        name = "Status",
+        mixinStandardHelpOptions = true,
+        aliases = {"status"},
+        description = "Prints the current status of the given jobs"
+)
+@Slf4j
+@Getter
+@Setter
+public class StatusCommand implements Callable<Integer> {
+    private final RestApiService restApiService;
+    private final JobsService jobsService;
+
+    @CommandLine.Mixin
+    private SharedOptions sharedOptions;
+
+    @CommandLine.Parameters(paramLabel = "JOB_GUID", arity = "1..*",
+            description = "The GUIDs of the jobs")
+    private String[] jobGuids;
+
+    public StatusCommand(RestApiService restApiService, JobsService jobsService) {
+        this.restApiService = restApiService;
+        this.jobsService = jobsService;
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        return Tracer.trace(sharedOptions.getTracePath(), "Status", this::runCommand);
+    }
+
+    private Integer runCommand() {
+        if (Arrays.stream(jobGuids).anyMatch(StringUtils::isBlank)) {
+            log.error("The job GUIDs must not be empty");
+            return Constants.RETURN_INVALID_PARAMETERS_ERROR;
+        }
+        try {
+            if (sharedOptions.getTimeout() != Constants.DEFAULT_HTTP_TIMEOUT) {
+                restApiService.setTimeout(sharedOptions.getTimeout(), TimeUnit.SECONDS);
+            }
+            restApiService.validateUrlAndKey(sharedOptions.getFullServerRootUrl(), sharedOptions.getUsername(), sharedOptions.getApiKeyValue());
+        } catch (ApiKeyMissingException e) {
+            return Constants.RETURN_NO_PASSWORD;
+        } catch (ApiCallException e) {
+            return Constants.RETURN_LOGIN_ERROR;
+        }
+
+        boolean pollError = false;
+        boolean failed = false;
+        boolean notFinished = false;
+        for (String jobGuid : jobGuids) {
+            String guid = jobGuid.trim();
+            try {
+                JobStatusWithSteps status = jobsService.getJobStatus(guid);
+                if (Arrays.asList(JobState.getInProgressStates()).contains(status.getState())) {
+                    log.info("Job '{}' of application '{}' is {} on step '{}'", guid, status.getAppName(), status.getState(), status.getProgressStep());
+                    notFinished = true;
+                } else if (status.getState() == JobState.COMPLETED) {
+                    log.info("Job '{}' of application '{}' is completed", guid, status.getAppName());
+                } else {
+                    log.info("Job '{}' of application '{}' is {} on step '{}'", guid, status.getAppName(), status.getState(), status.getFailureStep());
+                    failed = true;
+                }
+            } catch (JobServiceException e) {
+                log.error("Unable to get the status of job '{}'", guid);
+                pollError = true;
+            }
+        }
+        if (pollError) {
+            return Constants.RETURN_JOB_POLL_ERROR;
+        }
+        if (failed) {
+            return Constants.RETURN_JOB_FAILED;
+        }
+        return notFinished ? Constants.RETURN_JOB_NOT_FINISHED : Constants.RETURN_OK;
+    }
+}
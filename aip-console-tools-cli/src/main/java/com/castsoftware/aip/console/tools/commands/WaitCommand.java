@@ -0,0 +1,156 @@
+package com.castsoftware.aip.console.tools.commands;
+
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobState;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusWithSteps;
+import com.castsoftware.aip.console.tools.core.exceptions.ApiCallException;
+import com.castsoftware.aip.console.tools.core.exceptions.ApiKeyMissingException;
+import com.castsoftware.aip.console.tools.core.services.JobsService;
+import com.castsoftware.aip.console.tools.core.services.RestApiService;
+import com.castsoftware.aip.console.tools.core.tracing.Tracer;
+import com.castsoftware.aip.console.tools.core.utils.Constants;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+import picocli.CommandLine;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Waits for jobs started by other commands, for instance with the --detach option.
+ * <p>
+ * All the jobs are followed by the same job watcher, so waiting for many jobs doesn't require a thread per job. The
+ * jobs are not cancelled when this command is stopped or times out.
+ */
+@Component
+@CommandLine.Command(
+        name = "Wait",
+        mixinStandardHelpOptions = true,
+        aliases = {"wait"},
+        description = "Waits until all, or any, of the given jobs are finished"
+)
+@Slf4j
+@Getter
+@Setter
+public class WaitCommand implements Callable<Integer> {
+    private final RestApiService restApiService;
+    private final JobsService jobsService;
+
+    @CommandLine.Mixin
+    private SharedOptions sharedOptions;
+
+    @CommandLine.Parameters(paramLabel = "JOB_GUID", arity = "1..*",
+            description = "The GUIDs of the jobs to wait for")
+    private String[] jobGuids;
+
+    @CommandLine.Option(names = "--any",
+            description = "Stop waiting as soon as one of the jobs is finished"
+                    + " if specified without parameter: ${FALLBACK-VALUE}",
+            fallbackValue = "true")
+    private boolean any = false;
+
+    @CommandLine.Option(names = "--wait-timeout", paramLabel = "MINUTES", defaultValue = "0",
+            description = "The number of minutes after which the command stops waiting, leaving the jobs running. 0 waits without limit. Defaults to ${DEFAULT-VALUE}")
+    private long waitTimeout;
+
+    public WaitCommand(RestApiService restApiService, JobsService jobsService) {
+        this.restApiService = restApiService;
+        this.jobsService = jobsService;
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        return Tracer.trace(sharedOptions.getTracePath(), "Wait", this::runCommand);
+    }
+
+    private Integer runCommand() throws InterruptedException {
+        if (waitTimeout < 0 || Arrays.stream(jobGuids).anyMatch(StringUtils::isBlank)) {
+            log.error("The job GUIDs must not be empty, and the timeout must not be negative");
+            return Constants.RETURN_INVALID_PARAMETERS_ERROR;
+        }
+        try {
+            if (sharedOptions.getTimeout() != Constants.DEFAULT_HTTP_TIMEOUT) {
+                restApiService.setTimeout(sharedOptions.getTimeout(), TimeUnit.SECONDS);
+            }
+            restApiService.validateUrlAndKey(sharedOptions.getFullServerRootUrl(), sharedOptions.getUsername(), sharedOptions.getApiKeyValue());
+        } catch (ApiKeyMissingException e) {
+            return Constants.RETURN_NO_PASSWORD;
+        } catch (ApiCallException e) {
+            return Constants.RETURN_LOGIN_ERROR;
+        }
+        jobsService.setLogArchiveDirectory(sharedOptions.getLogArchivePath());
+
+        Map<String, CompletableFuture<JobStatusWithSteps>> futures = new LinkedHashMap<>();
+        for (String jobGuid : jobGuids) {
+            String guid = jobGuid.trim();
+            Consumer<JobStatusWithSteps> stepChangedCallback = sharedOptions.isVerbose() ?
+                    s -> log.info("Job '{}' is on step '{}'", guid, s.getProgressStep()) : null;
+            // the jobs were started by another process, they must keep running if this one is stopped
+            futures.computeIfAbsent(guid, g -> jobsService.watchJob(g, stepChangedCallback, null, false));
+        }
+        log.info("Waiting for {} of {} jobs", any ? "any" : "all", futures.size());
+
+        CompletableFuture<?>[] allFutures = futures.values().toArray(new CompletableFuture<?>[0]);
+        CompletableFuture<?> combined = any ? CompletableFuture.anyOf(allFutures) : CompletableFuture.allOf(allFutures);
+        try {
+            if (waitTimeout > 0) {
+                combined.get(waitTimeout, TimeUnit.MINUTES);
+            } else {
+                combined.get();
+            }
+        } catch (ExecutionException e) {
+            // the result of each job is checked below
+        } catch (TimeoutException e) {
+            log.warn("Stopped waiting after {} minutes", waitTimeout);
+        } finally {
+            // stop watching the jobs still running, without cancelling them
+            futures.values().forEach(f -> f.cancel(false));
+        }
+        return getExitCode(futures);
+    }
+
+    private int getExitCode(Map<String, CompletableFuture<JobStatusWithSteps>> futures) {
+        boolean pollError = false;
+        boolean failed = false;
+        boolean notFinished = false;
+        boolean completed = false;
+        for (Map.Entry<String, CompletableFuture<JobStatusWithSteps>> entry : futures.entrySet()) {
+            CompletableFuture<JobStatusWithSteps> future = entry.getValue();
+            if (future.isCancelled()) {
+                log.info("Job '{}' is still running", entry.getKey());
+                notFinished = true;
+            } else if (future.isCompletedExceptionally()) {
+                log.error("Unable to get the status of job '{}'", entry.getKey());
+                pollError = true;
+            } else {
+                JobStatusWithSteps status = future.join();
+                if (status.getState() == JobState.COMPLETED) {
+                    log.info("Job '{}' completed successfully", entry.getKey());
+                    completed = true;
+                } else {
+                    log.error("Job '{}' did not complete. Status is '{}' on step '{}'", entry.getKey(), status.getState(), status.getFailureStep());
+                    failed = true;
+                }
+            }
+        }
+        if (any && completed) {
+            return Constants.RETURN_OK;
+        }
+        if (pollError) {
+            return Constants.RETURN_JOB_POLL_ERROR;
+        }
+        if (failed) {
+            return Constants.RETURN_JOB_FAILED;
+        }
+        return notFinished ? Constants.RETURN_JOB_NOT_FINISHED : Constants.RETURN_OK;
+    }
+}
@@ -0,0 +1,216 @@
+package com.castsoftware.aip.console.tools.daemon;
+
+import com.castsoftware.aip.console.tools.core.utils.Constants;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Function;
+
+/**
+ * Forwards the command line arguments to a running {@link DaemonServer}, and writes back the output of the command.
+ * <p>
+ * This class is used before Spring is started, so it doesn't log anything. The API key given with --apikey:env is
+ * read from the environment of the client, and relative paths are resolved against the working directory of the
+ * client.
+ */
+public final class DaemonClient {
+    public static final String USE_DAEMON_OPTION = "--use-daemon";
+    public static final String STOP_DAEMON_OPTION = "--stop-daemon";
+    private static final String API_KEY_ENV_OPTION = "--apikey:env";
+    private static final int CONNECT_TIMEOUT = 2000;
+
+    private DaemonClient() {
+        // NOP
+    }
+
+    /**
+     * @return The information file of the daemon of the current user
+     */
+    public static Path getDefaultInfoFile() {
+        return DaemonProtocol.getDefaultInfoFile();
+    }
+
+    /**
+     * @param infoFile The information file of the daemon
+     * @return Whether a daemon is running and accepting connections
+     */
+    public static boolean isRunning(Path infoFile) {
+        try (Connection connection = Connection.open(infoFile)) {
+            return connection != null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Run a command in the daemon, writing its output to the standard output and error of this process
+     *
+     * @param infoFile The information file of the daemon
+     * @param args     The command line arguments
+     * @return The exit code of the command, or null if no daemon is running or if it is running another command
+     */
+    public static Integer forward(Path infoFile, String[] args) {
+        return forward(infoFile, args, System.out, System.err);
+    }
+
+    /**
+     * Run a command in the daemon, writing its output to the given streams
+     *
+     * @param infoFile The information file of the daemon
+     * @param args     The command line arguments
+     * @param out      The stream receiving the standard output of the command
+     * @param err      The stream receiving the standard error of the command
+     * @return The exit code of the command, or null if no daemon is running or if it is running another command
+     */
+    public static Integer forward(Path infoFile, String[] args, OutputStream out, OutputStream err) {
+        Connection connection;
+        try {
+            connection = Connection.open(infoFile);
+        } catch (IOException e) {
+            return null;
+        }
+        if (connection == null) {
+            return null;
+        }
+        try (Connection c = connection) {
+            String[] resolvedArgs = resolveApiKey(args, System::getenv);
+            c.out.writeByte(DaemonProtocol.OP_RUN);
+            c.out.writeUTF(Paths.get("").toAbsolutePath().toString());
+            c.out.writeInt(resolvedArgs.length);
+            for (String arg : resolvedArgs) {
+                c.out.writeUTF(arg);
+            }
+            c.out.flush();
+            return readFrames(c.in, out, err);
+        } catch (IOException e) {
+            // the command may have been started, so it is not run again in this process
+            System.err.println("Lost the connection to the AIP integration tool daemon: " + e.getMessage());
+            return Constants.UNKNOWN_ERROR;
+        }
+    }
+
+    /**
+     * Stop the daemon, if it is running
+     *
+     * @param infoFile The information file of the daemon
+     * @return The exit code of this process
+     */
+    public static int stop(Path infoFile) {
+        try (Connection connection = Connection.open(infoFile)) {
+            if (connection == null) {
+                System.err.println("No AIP integration tool daemon running");
+                return Constants.RETURN_OK;
+            }
+            connection.out.writeByte(DaemonProtocol.OP_STOP);
+            connection.out.flush();
+            readFrames(connection.in, System.out, System.err);
+            System.err.println("AIP integration tool daemon stopped");
+            return Constants.RETURN_OK;
+        } catch (IOException e) {
+            System.err.println("Unable to stop the AIP integration tool daemon: " + e.getMessage());
+            return Constants.UNKNOWN_ERROR;
+        }
+    }
+
+    /**
+     * Replace --apikey:env by the API key found in the given environment, since the daemon has its own environment
+     */
+    static String[] resolveApiKey(String[] args, Function<String, String> environment) {
+        List<String> resolved = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            String variable = null;
+            if (API_KEY_ENV_OPTION.equals(arg) && i + 1 < args.length) {
+                variable = args[i + 1];
+            } else if (arg.startsWith(API_KEY_ENV_OPTION + "=")) {
+                variable = arg.substring(API_KEY_ENV_OPTION.length() + 1);
+            }
+            String value = variable == null ? null : environment.apply(variable);
+            if (value == null) {
+                resolved.add(arg);
+            } else {
+                resolved.add("--apikey=" + value);
+                if (API_KEY_ENV_OPTION.equals(arg)) {
+                    i++;
+                }
+            }
+        }
+        return resolved.toArray(new String[0]);
+    }
+
+    /**
+     * @return The exit code of the command, or null if the daemon is busy
+     */
+    private static Integer readFrames(DataInputStream in, OutputStream out, OutputStream err) throws IOException {
+        while (true) {
+            byte type = in.readByte();
+            if (type == DaemonProtocol.FRAME_EXIT) {
+                return in.readInt();
+            }
+            if (type == DaemonProtocol.FRAME_BUSY) {
+                return null;
+            }
+            byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+            OutputStream target = type == DaemonProtocol.FRAME_ERR ? err : out;
+            target.write(data);
+            target.flush();
+        }
+    }
+
+    private static final class Connection implements AutoCloseable {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        private Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        /**
+         * @return The connection to the daemon, or null if no daemon is running
+         */
+        static Connection open(Path infoFile) throws IOException {
+            if (!Files.isRegularFile(infoFile)) {
+                return null;
+            }
+            Properties info = DaemonProtocol.readInfo(infoFile);
+            String port = info.getProperty(DaemonProtocol.PORT_PROPERTY);
+            String token = info.getProperty(DaemonProtocol.TOKEN_PROPERTY);
+            if (port == null || token == null) {
+                return null;
+            }
+            Socket socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(port)), CONNECT_TIMEOUT);
+                Connection connection = new Connection(socket);
+                DaemonProtocol.writeHeader(connection.out, token);
+                return connection;
+            } catch (IOException | NumberFormatException e) {
+                // a daemon which didn't stop properly
+                socket.close();
+                return null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.castsoftware.aip.console.tools.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * The protocol between the daemon and its clients, over a loopback TCP connection.
+ * <p>
+ * The daemon writes its port and a random token in an information file readable by its owner only. A client sends :
+ * <ul>
+ *     <li>the magic number and the protocol version (2 ints)</li>
+ *     <li>the token (UTF string)</li>
+ *     <li>the operation : {@link #OP_RUN} or {@link #OP_STOP} (1 byte)</li>
+ *     <li>for {@link #OP_RUN}, the working directory of the client (UTF string), the number of arguments (int) and the
+ *     arguments (UTF strings)</li>
+ * </ul>
+ * The daemon answers with frames made of a type (1 byte) followed by, for {@link #FRAME_OUT} and {@link #FRAME_ERR},
+ * the length of the data (int) and the data written by the command to its standard output or error, and for
+ * {@link #FRAME_EXIT}, the exit code of the command (int). The exit frame is always the last one, unless the daemon is
+ * already running a command : it then only answers {@link #FRAME_BUSY} (no data), and the client runs the command
+ * itself.
+ */
+final class DaemonProtocol {
+    static final int MAGIC = 0x41495444;
+    static final int VERSION = 1;
+    static final byte OP_RUN = 'R';
+    static final byte OP_STOP = 'S';
+    static final byte FRAME_OUT = 'O';
+    static final byte FRAME_ERR = 'E';
+    static final byte FRAME_EXIT = 'X';
+    static final byte FRAME_BUSY = 'B';
+
+    static final String PORT_PROPERTY = "port";
+    static final String TOKEN_PROPERTY = "token";
+    static final String PID_PROPERTY = "pid";
+
+    private DaemonProtocol() {
+        // NOP
+    }
+
+    /**
+     * @return The information file of the daemon of the current user
+     */
+    static Path getDefaultInfoFile() {
+        return Paths.get(System.getProperty("user.home"), ".aip-integration-tool", "daemon.properties");
+    }
+
+    static Properties readInfo(Path infoFile) throws IOException {
+        Properties info = new Properties();
+        try (InputStream in = Files.newInputStream(infoFile)) {
+            info.load(in);
+        }
+        return info;
+    }
+
+    static void writeHeader(DataOutputStream out, String token) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(token);
+    }
+
+    static String readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Unknown daemon protocol");
+        }
+        return in.readUTF();
+    }
+
+    /**
+     * An output stream sending what is written as frames of the given type
+     */
+    static class FrameOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final byte type;
+
+        FrameOutputStream(DataOutputStream out, byte type) {
+            this.out = out;
+            this.type = type;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            // both streams share the connection
+            synchronized (out) {
+                out.writeByte(type);
+                out.writeInt(len);
+                out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (out) {
+                out.flush();
+            }
+        }
+    }
+}
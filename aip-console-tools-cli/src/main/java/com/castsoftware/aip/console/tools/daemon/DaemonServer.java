@@ -0,0 +1,292 @@
+package com.castsoftware.aip.console.tools.daemon;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Serves the commands forwarded by {@link DaemonClient}, one at a time, on a loopback port.
+ * <p>
+ * The standard output and error of the process are redirected to the client while its command runs, so a client
+ * requesting a command while another one runs is answered right away that the daemon is busy, and runs its command
+ * itself. The server stops when no request was received during the idle timeout, or when a client asks it to stop.
+ */
+@Slf4j
+public class DaemonServer {
+    private static final int MAX_ARGUMENTS = 1024;
+    private static final int REQUEST_TIMEOUT = (int) TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * Runs the command requested by a client
+     */
+    @FunctionalInterface
+    public interface RequestHandler {
+        /**
+         * @param workingDirectory The working directory of the client
+         * @param args             The arguments of the command
+         * @return The exit code of the command
+         */
+        int execute(Path workingDirectory, String[] args);
+
+        /**
+         * Called when the client of the running command disconnects before the end of the command, e.g. when it was
+         * stopped with CTRL+C
+         */
+        default void clientDisconnected() {
+            // NOP
+        }
+    }
+
+    private final Path infoFile;
+    private final long idleTimeoutMillis;
+    private final RequestHandler handler;
+    private final String token;
+    // only started by the thread serving the requests
+    private volatile Thread requestThread;
+    private volatile long lastActivity;
+
+    public DaemonServer(Path infoFile, long idleTimeout, TimeUnit unit, RequestHandler handler) {
+        if (idleTimeout <= 0) {
+            throw new IllegalArgumentException("The idle timeout must be positive");
+        }
+        this.infoFile = infoFile;
+        this.idleTimeoutMillis = unit.toMillis(idleTimeout);
+        this.handler = handler;
+        byte[] random = new byte[24];
+        new SecureRandom().nextBytes(random);
+        StringBuilder hex = new StringBuilder();
+        for (byte b : random) {
+            hex.append(String.format("%02x", b));
+        }
+        this.token = hex.toString();
+    }
+
+    /**
+     * Serve the requests until the server is idle or stopped. Once stopped, the running command is finished first.
+     *
+     * @throws IOException If the server cannot be started
+     */
+    public void serve() throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            writeInfo(serverSocket.getLocalPort());
+            log.info("AIP integration tool daemon listening on port {}, it will stop after {} minutes without request",
+                    serverSocket.getLocalPort(), TimeUnit.MILLISECONDS.toMinutes(idleTimeoutMillis));
+            lastActivity = System.currentTimeMillis();
+            boolean running = true;
+            while (running) {
+                long idleRemaining = isBusy() ? idleTimeoutMillis : lastActivity + idleTimeoutMillis - System.currentTimeMillis();
+                if (idleRemaining <= 0) {
+                    log.info("No request received for {} minutes, stopping the daemon", TimeUnit.MILLISECONDS.toMinutes(idleTimeoutMillis));
+                    break;
+                }
+                serverSocket.setSoTimeout((int) Math.min(idleRemaining, Integer.MAX_VALUE));
+                Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                } catch (SocketTimeoutException e) {
+                    continue;
+                }
+                running = handle(socket);
+            }
+        } finally {
+            deleteInfo();
+            awaitRequest();
+        }
+    }
+
+    /**
+     * Read a request, and start its command unless another command is running
+     *
+     * @return Whether the server should keep running
+     */
+    private boolean handle(Socket socket) {
+        boolean started = false;
+        try {
+            socket.setSoTimeout(REQUEST_TIMEOUT);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            String clientToken = DaemonProtocol.readHeader(in);
+            if (!MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), clientToken.getBytes(StandardCharsets.UTF_8))) {
+                log.warn("Rejected a daemon request with an invalid token");
+                return true;
+            }
+            byte operation = in.readByte();
+            if (operation == DaemonProtocol.OP_STOP) {
+                log.info(isBusy() ? "Stop requested, stopping the daemon once the running command is finished" : "Stop requested, stopping the daemon");
+                writeExit(out, 0);
+                return false;
+            }
+            if (operation != DaemonProtocol.OP_RUN) {
+                throw new IOException("Unknown daemon operation " + operation);
+            }
+            Path workingDirectory = Paths.get(in.readUTF());
+            int count = in.readInt();
+            if (count < 0 || count > MAX_ARGUMENTS) {
+                throw new IOException("Invalid number of arguments " + count);
+            }
+            String[] args = new String[count];
+            for (int i = 0; i < count; i++) {
+                args[i] = in.readUTF();
+            }
+            if (isBusy()) {
+                // the standard output and error of the process are those of the running command
+                log.info("A command is already running, the client runs its command itself");
+                synchronized (out) {
+                    out.writeByte(DaemonProtocol.FRAME_BUSY);
+                    out.flush();
+                }
+                return true;
+            }
+            lastActivity = System.currentTimeMillis();
+            requestThread = new Thread(() -> run(socket, in, out, workingDirectory, args), "daemon-request");
+            requestThread.start();
+            started = true;
+        } catch (IOException e) {
+            log.warn("Unable to serve a daemon request", e);
+        } finally {
+            if (!started) {
+                closeQuietly(socket);
+            }
+        }
+        return true;
+    }
+
+    private void run(Socket socket, DataInputStream in, DataOutputStream out, Path workingDirectory, String[] args) {
+        AtomicBoolean finished = new AtomicBoolean();
+        try {
+            // the command may run for hours
+            socket.setSoTimeout(0);
+            watchDisconnection(in, finished);
+            PrintStream previousOut = System.out;
+            PrintStream previousErr = System.err;
+            PrintStream requestOut = new PrintStream(new DaemonProtocol.FrameOutputStream(out, DaemonProtocol.FRAME_OUT), true, "UTF-8");
+            PrintStream requestErr = new PrintStream(new DaemonProtocol.FrameOutputStream(out, DaemonProtocol.FRAME_ERR), true, "UTF-8");
+            int exitCode;
+            System.setOut(requestOut);
+            System.setErr(requestErr);
+            try {
+                exitCode = handler.execute(workingDirectory, args);
+            } finally {
+                System.setOut(previousOut);
+                System.setErr(previousErr);
+                requestOut.flush();
+                requestErr.flush();
+            }
+            writeExit(out, exitCode);
+        } catch (IOException e) {
+            log.warn("Unable to serve a daemon request", e);
+        } finally {
+            finished.set(true);
+            closeQuietly(socket);
+            lastActivity = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * The client sends nothing once its request is sent, so the end of its stream means that it disconnected
+     */
+    private void watchDisconnection(DataInputStream in, AtomicBoolean finished) {
+        Thread watcher = new Thread(() -> {
+            try {
+                while (in.read() >= 0) {
+                    // NOP
+                }
+            } catch (IOException e) {
+                // the connection is closed
+            }
+            if (!finished.get()) {
+                log.warn("The client of the running command disconnected");
+                handler.clientDisconnected();
+            }
+        }, "daemon-client-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private boolean isBusy() {
+        Thread current = requestThread;
+        return current != null && current.isAlive();
+    }
+
+    private void awaitRequest() {
+        Thread current = requestThread;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            log.debug("Unable to close the daemon connection", e);
+        }
+    }
+
+    private static void writeExit(DataOutputStream out, int exitCode) throws IOException {
+        synchronized (out) {
+            out.writeByte(DaemonProtocol.FRAME_EXIT);
+            out.writeInt(exitCode);
+            out.flush();
+        }
+    }
+
+    private void writeInfo(int port) throws IOException {
+        Path parent = infoFile.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tempFile = Files.createTempFile(parent, "daemon", ".tmp");
+        try {
+            // the token gives access to the session of the daemon
+            Files.setPosixFilePermissions(tempFile, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            log.debug("POSIX permissions are not supported for {}", tempFile);
+        }
+        Properties info = new Properties();
+        info.setProperty(DaemonProtocol.PORT_PROPERTY, Integer.toString(port));
+        info.setProperty(DaemonProtocol.TOKEN_PROPERTY, token);
+        info.setProperty(DaemonProtocol.PID_PROPERTY, ManagementFactory.getRuntimeMXBean().getName().split("@")[0]);
+        try (OutputStream stream = Files.newOutputStream(tempFile)) {
+            info.store(stream, "AIP integration tool daemon");
+        }
+        // clients never read a partially written file
+        Files.move(tempFile, infoFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void deleteInfo() {
+        try {
+            // unless another daemon replaced it
+            if (Files.exists(infoFile) && token.equals(DaemonProtocol.readInfo(infoFile).getProperty(DaemonProtocol.TOKEN_PROPERTY))) {
+                Files.delete(infoFile);
+            }
+        } catch (IOException e) {
+            log.warn("Unable to delete the daemon information file {}", infoFile, e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.castsoftware.aip.console.tools.factories;
+
+import picocli.CommandLine;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Creates the commands without their services, to print the usage and version help without starting Spring.
+ * The commands created by this factory must not be run.
+ */
+public class HelpCommandFactory implements CommandLine.IFactory {
+    private final CommandLine.IFactory defaultFactory = CommandLine.defaultFactory();
+
+    @Override
+    public <K> K create(Class<K> cls) throws Exception {
+        if (cls.isInterface() || Arrays.stream(cls.getDeclaredConstructors()).anyMatch(c -> c.getParameterCount() == 0)) {
+            return defaultFactory.create(cls);
+        }
+        // the commands with constructor injection only keep their services
+        Constructor<?> constructor = Arrays.stream(cls.getDeclaredConstructors())
+                .min(Comparator.comparingInt(Constructor::getParameterCount))
+                .orElseThrow(() -> new CommandLine.InitializationException("Cannot instantiate " + cls.getName()));
+        Object[] args = Arrays.stream(constructor.getParameterTypes())
+                .map(t -> t.isPrimitive() ? Array.get(Array.newInstance(t, 1), 0) : null)
+                .toArray();
+        constructor.setAccessible(true);
+        return cls.cast(constructor.newInstance(args));
+    }
+}
@@ -4,6 +4,10 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import picocli.CommandLine;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
 @Component
 public class VersionProvider implements CommandLine.IVersionProvider {
 
@@ -14,6 +18,19 @@ public class VersionProvider implements CommandLine.IVersionProvider {
 
     @Override
     public String[] getVersion() throws Exception {
-        return new String[]{appVersion};
+        return new String[]{appVersion != null ? appVersion : readVersion()};
+    }
+
+    /**
+     * Read the version when created by picocli, without Spring
+     */
+    private static String readVersion() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = VersionProvider.class.getResourceAsStream("/application.properties")) {
+            if (in != null) {
+                properties.load(in);
+            }
+        }
+        return properties.getProperty("application.version");
     }
 }
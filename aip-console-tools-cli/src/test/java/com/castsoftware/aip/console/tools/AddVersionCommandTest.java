@@ -8,6 +8,7 @@ import org.junit.runner.RunWith;
 import org.mockito.junit.MockitoJUnitRunner;
 import picocli.CommandLine;
 
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.stream.Collectors;
 
@@ -152,4 +153,16 @@ public class AddVersionCommandTest extends AipCommandTest<AddVersionCommand> {
         String parsedRules = Arrays.stream(aipCommand.getExclusionRules()).map(ExclusionRuleType::name).collect(Collectors.joining(","));
         assertEquals(rules, parsedRules);
     }
+
+    @Test
+    public void testAddVersionCommand_WithTraceDir() {
+        String[] sb = new String[]{"--apikey", TestConstants.TEST_API_KEY,
+                "--app-name=" + TestConstants.TEST_CREATRE_APP,
+                "--file", TEST_SRC_FOLDER,
+                "--trace-dir", "traces"
+        };
+
+        aipCommandLine.parseArgs(sb);
+        assertEquals(Paths.get("traces"), aipCommand.getSharedOptions().getTracePath());
+    }
 }
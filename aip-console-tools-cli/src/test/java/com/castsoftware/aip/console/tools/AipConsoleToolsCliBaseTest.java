@@ -3,6 +3,7 @@ package com.castsoftware.aip.console.tools;
 import com.castsoftware.aip.console.tools.commands.SharedOptions;
 import com.castsoftware.aip.console.tools.core.dto.ApiInfoDto;
 import com.castsoftware.aip.console.tools.core.dto.ApplicationDto;
+import com.castsoftware.aip.console.tools.core.dto.ServerCapabilities;
 import com.castsoftware.aip.console.tools.core.services.ApplicationService;
 import com.castsoftware.aip.console.tools.core.services.JobsService;
 import com.castsoftware.aip.console.tools.core.services.RestApiService;
@@ -58,7 +59,7 @@ public abstract class AipConsoleToolsCliBaseTest {
         Files.createDirectories(sflPath);
         zippedSourcesPath = sflPath.resolve("fake_sources.zip");
         zippedSourcesPath.toFile().createNewFile();
-        when(restApiService.getAipConsoleApiInfo()).thenReturn(ApiInfoDto.builder().apiVersion("1.23.0").build());
+        when(restApiService.getServerCapabilities()).thenReturn(ServerCapabilities.of(ApiInfoDto.builder().apiVersion("1.23.0").build()));
         defaultArgs = new String[]{"--apikey",
                 TestConstants.TEST_API_KEY,
                 "--app-name=" + TestConstants.TEST_CREATRE_APP,
@@ -0,0 +1,25 @@
+package com.castsoftware.aip.console.tools;
+
+import com.castsoftware.aip.console.tools.core.utils.Constants;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class AipIntegrationCliMainTest {
+
+    @Test
+    public void testHelpPrintedWithoutContext() {
+        assertEquals(Integer.valueOf(Constants.RETURN_OK), AipIntegrationCliMain.printHelpWithoutContext("--version"));
+        assertEquals(Integer.valueOf(Constants.RETURN_OK), AipIntegrationCliMain.printHelpWithoutContext("Snapshot", "--help"));
+        assertEquals(Integer.valueOf(Constants.RETURN_OK), AipIntegrationCliMain.printHelpWithoutContext("snapshot", "-h"));
+    }
+
+    @Test
+    public void testHelpOptionsAsValuesLeftToTheApplication() {
+        assertNull(AipIntegrationCliMain.printHelpWithoutContext("Snapshot", "--app-name", "-h"));
+        assertNull(AipIntegrationCliMain.printHelpWithoutContext("Snapshot", "--snapshot-name", "-V", "--app-name", "app"));
+        assertNull(AipIntegrationCliMain.printHelpWithoutContext("Snapshot", "--apikey", "--help"));
+        assertNull(AipIntegrationCliMain.printHelpWithoutContext("Batch", "-m", "projects.json", "--", "-h"));
+    }
+}
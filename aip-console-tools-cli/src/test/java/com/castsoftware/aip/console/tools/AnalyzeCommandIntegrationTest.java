@@ -3,6 +3,7 @@ package com.castsoftware.aip.console.tools;
 import com.castsoftware.aip.console.tools.commands.AnalyzeCommand;
 import com.castsoftware.aip.console.tools.core.dto.DebugOptionsDto;
 import com.castsoftware.aip.console.tools.core.dto.VersionDto;
+import com.castsoftware.aip.console.tools.core.dto.VersionIndex;
 import com.castsoftware.aip.console.tools.core.dto.VersionStatus;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobRequestBuilder;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobState;
@@ -24,6 +25,10 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 import picocli.CommandLine;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.Date;
 import java.util.function.Function;
@@ -35,6 +40,8 @@ import static org.hamcrest.Matchers.notNullValue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(SpringRunner.class)
@@ -59,6 +66,7 @@ public class AnalyzeCommandIntegrationTest extends AipConsoleToolsCliBaseTest {
         resetSharedOptions(analyzeCommand.getSharedOptions());
         analyzeCommand.setApplicationName(null);
         analyzeCommand.setVersionName(null);
+        analyzeCommand.setDetach(false);
     }
     
     @Test
@@ -105,7 +113,7 @@ public class AnalyzeCommandIntegrationTest extends AipConsoleToolsCliBaseTest {
                 "-S"};
         when(applicationService.getApplicationGuidFromName(TestConstants.TEST_CREATRE_APP)).thenReturn(TestConstants.TEST_APP_GUID);
         //Set<VersionDto> versions =
-        when(applicationService.getApplicationVersion(TestConstants.TEST_APP_GUID)).thenReturn(Collections.emptySet());
+        when(applicationService.getVersionIndex(TestConstants.TEST_APP_GUID)).thenReturn(new VersionIndex(Collections.emptySet()));
 
         runStringArgs(analyzeCommand, args);
 
@@ -125,7 +133,7 @@ public class AnalyzeCommandIntegrationTest extends AipConsoleToolsCliBaseTest {
         when(applicationService.getApplicationGuidFromName(TestConstants.TEST_CREATRE_APP)).thenReturn(TestConstants.TEST_APP_GUID);
         VersionDto versionDto = new VersionDto();
         versionDto.setName("The-Current-Version");
-        when(applicationService.getApplicationVersion(TestConstants.TEST_APP_GUID)).thenReturn(Sets.newSet(versionDto));
+        when(applicationService.getVersionIndex(TestConstants.TEST_APP_GUID)).thenReturn(new VersionIndex(Sets.newSet(versionDto)));
 
         runStringArgs(analyzeCommand, args);
 
@@ -145,7 +153,7 @@ public class AnalyzeCommandIntegrationTest extends AipConsoleToolsCliBaseTest {
         VersionDto versionDto = new VersionDto();
         versionDto.setName(TestConstants.TEST_VERSION_NAME);
         versionDto.setStatus(VersionStatus.DELIVERING);
-        when(applicationService.getApplicationVersion(TestConstants.TEST_APP_GUID)).thenReturn(Sets.newSet(versionDto));
+        when(applicationService.getVersionIndex(TestConstants.TEST_APP_GUID)).thenReturn(new VersionIndex(Sets.newSet(versionDto)));
 
         runStringArgs(analyzeCommand, args);
 
@@ -167,7 +175,7 @@ public class AnalyzeCommandIntegrationTest extends AipConsoleToolsCliBaseTest {
         VersionDto versionDto = new VersionDto();
         versionDto.setName(TestConstants.TEST_VERSION_NAME);
         versionDto.setStatus(VersionStatus.DELIVERED);
-        when(applicationService.getApplicationVersion(TestConstants.TEST_APP_GUID)).thenReturn(Sets.newSet(versionDto));
+        when(applicationService.getVersionIndex(TestConstants.TEST_APP_GUID)).thenReturn(new VersionIndex(Sets.newSet(versionDto)));
         when(jobsService.startJob(any(JobRequestBuilder.class))).thenReturn(TestConstants.TEST_JOB_GUID);
         DebugOptionsDto debugOptions = Mockito.mock(DebugOptionsDto.class);
         when(debugOptions.isActivateAmtMemoryProfile()).thenReturn(false);
@@ -186,4 +194,27 @@ public class AnalyzeCommandIntegrationTest extends AipConsoleToolsCliBaseTest {
         assertThat(spec, is(notNullValue()));
         assertThat(exitCode, is(Constants.RETURN_OK));
     }
+
+    @Test
+    public void testAnalyzeCommand_DetachedJob() throws ApplicationServiceException, JobServiceException, IOException {
+        Path jobGuidFile = folder.getRoot().toPath().resolve("job.txt");
+        String[] args = new String[]{"--apikey", TestConstants.TEST_API_KEY,
+                "--app-name=" + TestConstants.TEST_CREATRE_APP,
+                "--version-name", TestConstants.TEST_VERSION_NAME,
+                "--detach", "--job-guid-file", jobGuidFile.toString()};
+
+        when(applicationService.getApplicationGuidFromName(TestConstants.TEST_CREATRE_APP)).thenReturn(TestConstants.TEST_APP_GUID);
+        VersionDto versionDto = new VersionDto();
+        versionDto.setName(TestConstants.TEST_VERSION_NAME);
+        versionDto.setStatus(VersionStatus.ACCEPTED);
+        when(applicationService.getVersionIndex(TestConstants.TEST_APP_GUID)).thenReturn(new VersionIndex(Sets.newSet(versionDto)));
+        when(jobsService.startJob(any(JobRequestBuilder.class))).thenReturn(TestConstants.TEST_JOB_GUID);
+
+        runStringArgs(analyzeCommand, args);
+
+        assertThat(exitCode, is(Constants.RETURN_OK));
+        assertThat(new String(Files.readAllBytes(jobGuidFile), StandardCharsets.UTF_8).trim(), is(TestConstants.TEST_JOB_GUID));
+        verify(jobsService, never()).pollAndWaitForJobFinished(anyString(), any(Function.class), anyBoolean());
+        verify(debugOptionsService, never()).resetDebugOptions(any(), any());
+    }
 }
@@ -0,0 +1,81 @@
+package com.castsoftware.aip.console.tools;
+
+import com.castsoftware.aip.console.tools.commands.BatchCommand;
+import com.castsoftware.aip.console.tools.core.utils.Constants;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, classes = {AipConsoleToolsCliIntegrationTest.class})
+@ActiveProfiles(TestConstants.PROFILE_INTEGRATION_TEST)
+public class BatchCommandIntegrationTest extends AipConsoleToolsCliBaseTest {
+
+    @Autowired
+    private BatchCommand batchCommand;
+
+    @Override
+    protected void cleanupTestCommand() {
+        resetSharedOptions(batchCommand.getSharedOptions());
+        batchCommand.setManifest(null);
+    }
+
+    @Test
+    public void testBatchCommand_SharedOptionsAndResults() throws Exception {
+        Path manifest = writeManifest("[" +
+                "{\"name\": \"app1\", \"command\": \"Snapshot\", \"arguments\": [\"--snapshot-name\", \"first\"]}," +
+                "{\"name\": \"app1\", \"command\": \"snapshot\"}," +
+                "{\"name\": \"app2\", \"command\": \"Snapshot\"}," +
+                "{\"name\": \"app3\", \"enabled\": false}]");
+
+        runStringArgs(batchCommand, new String[]{"--apikey", TestConstants.TEST_API_KEY, "--manifest", manifest.toString()});
+
+        // the applications are not found, so the second entry of app1 is skipped
+        assertThat(exitCode, is(Constants.RETURN_BATCH_FAILED));
+        verify(applicationService, times(2)).getApplicationGuidFromName(any());
+        // only the batch logs in, the commands share its session
+        verify(restApiService, times(1)).validateUrlAndKey(any(), any(), eq(TestConstants.TEST_API_KEY));
+        verify(jobsService, times(1)).setLogArchiveDirectory(any());
+    }
+
+    @Test
+    public void testBatchCommand_SessionOptionOverridden() throws Exception {
+        Path manifest = writeManifest("[{\"name\": \"app1\", \"command\": \"Snapshot\", \"arguments\": [\"--server-url\", \"http://other:8081\"]}]");
+
+        runStringArgs(batchCommand, new String[]{"--apikey", TestConstants.TEST_API_KEY, "--manifest", manifest.toString()});
+
+        assertThat(exitCode, is(Constants.RETURN_INVALID_PARAMETERS_ERROR));
+        verify(restApiService, never()).validateUrlAndKey(any(), any(), any());
+    }
+
+    @Test
+    public void testBatchCommand_UnsupportedCommand() throws Exception {
+        Path manifest = writeManifest("[{\"name\": \"app1\", \"command\": \"ExportSettings\"}]");
+
+        runStringArgs(batchCommand, new String[]{"--apikey", TestConstants.TEST_API_KEY, "--manifest", manifest.toString()});
+
+        assertThat(exitCode, is(Constants.RETURN_INVALID_PARAMETERS_ERROR));
+        verify(restApiService, never()).validateUrlAndKey(any(), any(), any());
+    }
+
+    private Path writeManifest(String content) throws Exception {
+        Path manifest = folder.getRoot().toPath().resolve("projects.json");
+        Files.write(manifest, content.getBytes(StandardCharsets.UTF_8));
+        return manifest;
+    }
+}
@@ -0,0 +1,83 @@
+package com.castsoftware.aip.console.tools;
+
+import com.castsoftware.aip.console.tools.commands.BatchEntry;
+import com.castsoftware.aip.console.tools.commands.BatchRunner;
+import com.castsoftware.aip.console.tools.core.utils.Constants;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BatchRunnerTest {
+
+    @Test
+    public void testGlobalAndPerNodeLimits() throws Exception {
+        List<BatchEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            entries.add(entry("app" + i, i % 2 == 0 ? "node1" : null));
+        }
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger runningOnNode = new AtomicInteger();
+        AtomicInteger maxRunningOnNode = new AtomicInteger();
+
+        List<BatchRunner.Result> results = new BatchRunner(3, 1).run(entries, entry -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            boolean onNode = entry.getNodeName() != null;
+            if (onNode) {
+                maxRunningOnNode.accumulateAndGet(runningOnNode.incrementAndGet(), Math::max);
+            }
+            Thread.sleep(50);
+            if (onNode) {
+                runningOnNode.decrementAndGet();
+            }
+            running.decrementAndGet();
+            return Constants.RETURN_OK;
+        });
+
+        assertEquals(6, results.size());
+        assertTrue(results.stream().allMatch(BatchRunner.Result::isSuccessful));
+        assertTrue("At most 3 entries should run at once", maxRunning.get() <= 3);
+        assertEquals("At most 1 entry should run at once on node1", 1, maxRunningOnNode.get());
+    }
+
+    @Test
+    public void testEntriesOfFailedApplicationSkipped() throws Exception {
+        BatchEntry deliver = entry("app", null);
+        BatchEntry analyze = entry("app", null);
+        BatchEntry other = entry("other", null);
+        List<BatchEntry> calls = Collections.synchronizedList(new ArrayList<>());
+
+        List<BatchRunner.Result> results = new BatchRunner(2, 1).run(Arrays.asList(deliver, analyze, other), entry -> {
+            calls.add(entry);
+            if (entry == deliver) {
+                return Constants.RETURN_JOB_FAILED;
+            }
+            if (entry == other) {
+                throw new IllegalStateException("unexpected");
+            }
+            return Constants.RETURN_OK;
+        });
+
+        assertEquals(2, calls.size());
+        assertEquals(Integer.valueOf(Constants.RETURN_JOB_FAILED), results.get(0).getExitCode());
+        assertTrue(results.get(1).isSkipped());
+        assertEquals(Integer.valueOf(Constants.UNKNOWN_ERROR), results.get(2).getExitCode());
+        assertFalse(results.get(2).isSuccessful());
+
+        List<String> table = BatchRunner.toTable(results);
+        assertEquals(5, table.size());
+        assertTrue(table.get(3).contains("skipped"));
+    }
+
+    private static BatchEntry entry(String name, String nodeName) {
+        return new BatchEntry(true, name, "AddVersion", nodeName, Collections.emptyList());
+    }
+}
@@ -7,15 +7,25 @@ import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusWithSteps;
 import com.castsoftware.aip.console.tools.core.exceptions.ApiCallException;
 import com.castsoftware.aip.console.tools.core.exceptions.JobServiceException;
 import com.castsoftware.aip.console.tools.core.utils.Constants;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 import picocli.CommandLine;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -24,12 +34,17 @@ import static org.hamcrest.Matchers.notNullValue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, classes = {AipConsoleToolsCliIntegrationTest.class})
 @ActiveProfiles(TestConstants.PROFILE_INTEGRATION_TEST)
 public class CreateApplicationCommandIntegrationTest extends AipConsoleToolsCliBaseTest {
+    private static final String NODE_GUID = "NODE-G-U-I-D";
+
     @Autowired
     private CreateApplicationCommand createApplicationCommand;
 
@@ -39,6 +54,11 @@ public class CreateApplicationCommandIntegrationTest extends AipConsoleToolsCliB
         createApplicationCommand.setApplicationName(null);
         createApplicationCommand.setDomainName(null);
         createApplicationCommand.setNodeName(null);
+        createApplicationCommand.setBulkFile(null);
+        createApplicationCommand.setMappingFile(null);
+        createApplicationCommand.setMaxParallel(4);
+        createApplicationCommand.setMaxPerNode(1);
+        createApplicationCommand.setAutoNodePlacement(false);
     }
 
     @Test
@@ -80,4 +100,133 @@ public class CreateApplicationCommandIntegrationTest extends AipConsoleToolsCliB
         assertThat(spec, is(notNullValue()));
         assertThat(exitCode, is(Constants.RETURN_OK));
     }
+
+    @Test
+    public void testCreateApplicationCommand_WithoutNameNorBulkFile() {
+        runStringArgs(createApplicationCommand, new String[]{"--apikey", TestConstants.TEST_API_KEY});
+
+        assertThat(exitCode, is(Constants.RETURN_INVALID_PARAMETERS_ERROR));
+    }
+
+    @Test
+    public void testCreateApplicationCommand_Bulk() throws Exception {
+        Path bulkFile = writeBulkFile("App1", "# comment", "", "App2;" + TestConstants.TEST_NODE + ";Dom", "App3;;" + TestConstants.TEST_DOMAIN);
+        when(restApiService.getForEntity("/api/nodes", NodeDto[].class)).thenReturn(new NodeDto[]{new NodeDto(NODE_GUID, TestConstants.TEST_NODE, "http", "localhost", 8082)});
+        mockCreation("App1", "job1", completed("App1", "guid1"));
+        mockCreation("App2", "job2", completed("App2", "guid2"));
+        mockCreation("App3", "job3", completed("App3", "guid3"));
+
+        runStringArgs(createApplicationCommand, new String[]{"--apikey", TestConstants.TEST_API_KEY, "--bulk-file", bulkFile.toString()});
+
+        assertThat(exitCode, is(Constants.RETURN_OK));
+        verify(jobsService).startCreateApplication("App1", null, null, false);
+        verify(jobsService).startCreateApplication("App2", NODE_GUID, "Dom", false);
+        verify(jobsService).startCreateApplication("App3", null, TestConstants.TEST_DOMAIN, false);
+        Path mappingFile = Paths.get(bulkFile + ".guids.json");
+        assertThat(new ObjectMapper().readTree(mappingFile.toFile()).toString(), is("{\"App1\":\"guid1\",\"App2\":\"guid2\",\"App3\":\"guid3\"}"));
+    }
+
+    @Test
+    public void testCreateApplicationCommand_BulkWithNodeLimit() throws Exception {
+        Path bulkFile = writeBulkFile("App1;" + TestConstants.TEST_NODE, "App2;" + TestConstants.TEST_NODE, "App3");
+        when(restApiService.getForEntity("/api/nodes", NodeDto[].class)).thenReturn(new NodeDto[]{new NodeDto(NODE_GUID, TestConstants.TEST_NODE, "http", "localhost", 8082)});
+        CompletableFuture<JobStatusWithSteps> firstJob = new CompletableFuture<>();
+        mockCreation("App1", "job1", firstJob);
+        mockCreation("App2", "job2", completed("App2", "guid2"));
+        // App2 waits for the node of App1, without blocking App3. Finishing App1 frees its node for App2
+        when(jobsService.startCreateApplication(eq("App3"), any(), any(), anyBoolean())).thenAnswer(invocation -> {
+            firstJob.complete(completed("App1", "guid1").join());
+            return "job3";
+        });
+        when(jobsService.watchJob(eq("job3"), any(), any())).thenReturn(completed("App3", "guid3"));
+        Path mappingFile = sflPath.resolve("guids.json");
+
+        runStringArgs(createApplicationCommand, new String[]{"--apikey", TestConstants.TEST_API_KEY,
+                "--bulk-file", bulkFile.toString(), "--mapping-file", mappingFile.toString()});
+
+        assertThat(exitCode, is(Constants.RETURN_OK));
+        InOrder inOrder = inOrder(jobsService);
+        inOrder.verify(jobsService).startCreateApplication(eq("App1"), any(), any(), anyBoolean());
+        inOrder.verify(jobsService).startCreateApplication(eq("App3"), any(), any(), anyBoolean());
+        inOrder.verify(jobsService).startCreateApplication(eq("App2"), any(), any(), anyBoolean());
+        assertThat(Files.exists(mappingFile), is(true));
+    }
+
+    @Test
+    public void testCreateApplicationCommand_BulkWithAutoNodePlacementAndNodeLimit() throws Exception {
+        Path bulkFile = writeBulkFile("App1;" + TestConstants.TEST_NODE, "App2");
+        NodeDto node = new NodeDto(NODE_GUID, TestConstants.TEST_NODE, "http", "localhost", 8082);
+        when(restApiService.getForEntity("/api/nodes", NodeDto[].class)).thenReturn(new NodeDto[]{node});
+        CompletableFuture<JobStatusWithSteps> firstJob = new CompletableFuture<>();
+        mockCreation("App1", "job1", firstJob);
+        // App2 is placed on the node of App1, which finishes a bit later
+        when(applicationService.placeNewApplication("App2")).thenAnswer(invocation -> {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                firstJob.complete(completed("App1", "guid1").join());
+            });
+            return node;
+        });
+        AtomicBoolean startedAfterFirstJob = new AtomicBoolean();
+        when(jobsService.startCreateApplication(eq("App2"), any(), any(), anyBoolean())).thenAnswer(invocation -> {
+            startedAfterFirstJob.set(firstJob.isDone());
+            return "job2";
+        });
+        when(jobsService.watchJob(eq("job2"), any(), any())).thenReturn(completed("App2", "guid2"));
+
+        runStringArgs(createApplicationCommand, new String[]{"--apikey", TestConstants.TEST_API_KEY,
+                "--bulk-file", bulkFile.toString(), "--auto-node-placement"});
+
+        assertThat(exitCode, is(Constants.RETURN_OK));
+        verify(jobsService).startCreateApplication("App2", NODE_GUID, null, false);
+        assertThat(startedAfterFirstJob.get(), is(true));
+    }
+
+    @Test
+    public void testCreateApplicationCommand_BulkWithFailedCreation() throws Exception {
+        Path bulkFile = writeBulkFile("App1", "App2");
+        mockCreation("App1", "job1", completed("App1", "guid1"));
+        JobStatusWithSteps failed = new JobStatusWithSteps();
+        failed.setState(JobState.FAILED);
+        mockCreation("App2", "job2", CompletableFuture.completedFuture(failed));
+
+        runStringArgs(createApplicationCommand, new String[]{"--apikey", TestConstants.TEST_API_KEY, "--bulk-file", bulkFile.toString()});
+
+        assertThat(exitCode, is(Constants.RETURN_BATCH_FAILED));
+        Path mappingFile = Paths.get(bulkFile + ".guids.json");
+        assertThat(new ObjectMapper().readTree(mappingFile.toFile()).toString(), is("{\"App1\":\"guid1\"}"));
+    }
+
+    @Test
+    public void testCreateApplicationCommand_BulkWithDuplicateName() throws Exception {
+        Path bulkFile = writeBulkFile("App1", "app1;" + TestConstants.TEST_NODE);
+
+        runStringArgs(createApplicationCommand, new String[]{"--apikey", TestConstants.TEST_API_KEY, "--bulk-file", bulkFile.toString()});
+
+        assertThat(exitCode, is(Constants.RETURN_INVALID_PARAMETERS_ERROR));
+        verify(jobsService, never()).startCreateApplication(any(), any(), any(), anyBoolean());
+    }
+
+    private Path writeBulkFile(String... lines) throws IOException {
+        Path bulkFile = sflPath.resolve("applications.txt");
+        Files.write(bulkFile, Arrays.asList(lines), StandardCharsets.UTF_8);
+        return bulkFile;
+    }
+
+    private void mockCreation(String name, String jobGuid, CompletableFuture<JobStatusWithSteps> job) throws JobServiceException {
+        when(jobsService.startCreateApplication(eq(name), any(), any(), anyBoolean())).thenReturn(jobGuid);
+        when(jobsService.watchJob(eq(jobGuid), any(), any())).thenReturn(job);
+    }
+
+    private static CompletableFuture<JobStatusWithSteps> completed(String name, String guid) {
+        JobStatusWithSteps jobStatus = new JobStatusWithSteps();
+        jobStatus.setState(JobState.COMPLETED);
+        jobStatus.setAppName(name);
+        jobStatus.setAppGuid(guid);
+        return CompletableFuture.completedFuture(jobStatus);
+    }
 }
@@ -0,0 +1,166 @@
+package com.castsoftware.aip.console.tools;
+
+import com.castsoftware.aip.console.tools.core.utils.Constants;
+import com.castsoftware.aip.console.tools.daemon.DaemonClient;
+import com.castsoftware.aip.console.tools.daemon.DaemonServer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DaemonServerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testForwardAndStop() throws Exception {
+        Path infoFile = folder.getRoot().toPath().resolve("daemon.properties");
+        Thread server = startServer(infoFile, 1, TimeUnit.MINUTES, (workingDirectory, args) -> {
+            System.out.println(String.join(" ", args));
+            System.err.println(workingDirectory);
+            return 3;
+        });
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        Integer exitCode = DaemonClient.forward(infoFile, new String[]{"AddVersion", "--app-name", "é"}, out, err);
+        assertEquals(Integer.valueOf(3), exitCode);
+        assertEquals("AddVersion --app-name é", new String(out.toByteArray(), StandardCharsets.UTF_8).trim());
+        assertEquals(Paths.get("").toAbsolutePath().toString(), new String(err.toByteArray(), StandardCharsets.UTF_8).trim());
+
+        assertEquals(Constants.RETURN_OK, DaemonClient.stop(infoFile));
+        server.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(server.isAlive());
+        assertFalse(Files.exists(infoFile));
+        assertNull(DaemonClient.forward(infoFile, new String[0]));
+    }
+
+    @Test
+    public void testBusyDaemon() throws Exception {
+        Path infoFile = folder.getRoot().toPath().resolve("daemon.properties");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread server = startServer(infoFile, 1, TimeUnit.MINUTES, (workingDirectory, args) -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 5;
+        });
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> DaemonClient.forward(infoFile, new String[]{"Snapshot"}, new ByteArrayOutputStream(), new ByteArrayOutputStream()));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        // answered right away, to be run by the client
+        assertNull(DaemonClient.forward(infoFile, new String[]{"Analyze"}, new ByteArrayOutputStream(), new ByteArrayOutputStream()));
+        release.countDown();
+        assertEquals(Integer.valueOf(5), first.get(10, TimeUnit.SECONDS));
+
+        DaemonClient.stop(infoFile);
+        server.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(server.isAlive());
+    }
+
+    @Test
+    public void testClientDisconnected() throws Exception {
+        Path infoFile = folder.getRoot().toPath().resolve("daemon.properties");
+        CountDownLatch disconnected = new CountDownLatch(1);
+        Thread server = startServer(infoFile, 1, TimeUnit.MINUTES, new DaemonServer.RequestHandler() {
+            @Override
+            public int execute(Path workingDirectory, String[] args) {
+                System.out.println("started");
+                try {
+                    disconnected.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return Constants.RETURN_OK;
+            }
+
+            @Override
+            public void clientDisconnected() {
+                disconnected.countDown();
+            }
+        });
+        // the client stops as soon as it receives the output of the command
+        OutputStream failingOut = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("stopped");
+            }
+        };
+        assertEquals(Integer.valueOf(Constants.UNKNOWN_ERROR), DaemonClient.forward(infoFile, new String[]{"Snapshot"}, failingOut, new ByteArrayOutputStream()));
+        assertTrue(disconnected.await(10, TimeUnit.SECONDS));
+
+        DaemonClient.stop(infoFile);
+        server.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(server.isAlive());
+    }
+
+    @Test
+    public void testInvalidToken() throws Exception {
+        Path infoFile = folder.getRoot().toPath().resolve("daemon.properties");
+        Thread server = startServer(infoFile, 1, TimeUnit.MINUTES, (workingDirectory, args) -> Constants.RETURN_OK);
+
+        Properties info = new Properties();
+        try (InputStream in = Files.newInputStream(infoFile)) {
+            info.load(in);
+        }
+        info.setProperty("token", "invalid");
+        Path otherFile = folder.getRoot().toPath().resolve("other.properties");
+        try (OutputStream stream = Files.newOutputStream(otherFile)) {
+            info.store(stream, null);
+        }
+        assertEquals(Integer.valueOf(Constants.UNKNOWN_ERROR), DaemonClient.forward(otherFile, new String[0], new ByteArrayOutputStream(), new ByteArrayOutputStream()));
+        assertTrue(server.isAlive());
+
+        DaemonClient.stop(infoFile);
+        server.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    @Test
+    public void testIdleTimeout() throws Exception {
+        Path infoFile = folder.getRoot().toPath().resolve("daemon.properties");
+        Thread server = startServer(infoFile, 200, TimeUnit.MILLISECONDS, (workingDirectory, args) -> Constants.RETURN_OK);
+
+        server.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(server.isAlive());
+        assertFalse(DaemonClient.isRunning(infoFile));
+    }
+
+    private static Thread startServer(Path infoFile, long idleTimeout, TimeUnit unit, DaemonServer.RequestHandler handler) throws InterruptedException {
+        Thread thread = new Thread(() -> {
+            try {
+                new DaemonServer(infoFile, idleTimeout, unit, handler).serve();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!Files.exists(infoFile) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return thread;
+    }
+}
@@ -2,8 +2,15 @@ package com.castsoftware.aip.console.tools;
 
 import com.castsoftware.aip.console.tools.commands.ExportSettingsCommand;
 import com.castsoftware.aip.console.tools.core.dto.ApplicationDto;
+import com.castsoftware.aip.console.tools.core.exceptions.ApiCallException;
 import com.castsoftware.aip.console.tools.core.exceptions.ApplicationServiceException;
 import com.castsoftware.aip.console.tools.core.utils.Constants;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.apache.commons.io.IOUtils;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,22 +20,32 @@ import org.springframework.test.context.junit4.SpringRunner;
 import picocli.CommandLine;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.zip.GZIPInputStream;
 
 import static com.castsoftware.aip.console.tools.TestConstants.TEST_SRC_FOLDER;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, classes = {AipConsoleToolsCliIntegrationTest.class})
 @ActiveProfiles(TestConstants.PROFILE_INTEGRATION_TEST)
 public class ExportSettingsCommandIntegrationTest extends AipConsoleToolsCliBaseTest {
+    private static final String EXPORTED_SETTINGS = "{\"settings\":{},\"domains\":[],\"exclusionTemplates\":[]}";
+
     @Autowired
     private ExportSettingsCommand exportSettingsCommand;
 
@@ -36,6 +53,9 @@ public class ExportSettingsCommandIntegrationTest extends AipConsoleToolsCliBase
     protected void cleanupTestCommand() {
         resetSharedOptions(exportSettingsCommand.getSharedOptions());
         exportSettingsCommand.setFilePath(null);
+        exportSettingsCommand.setGzip(false);
+        exportSettingsCommand.setMaxParallel(2);
+        exportSettingsCommand.setSince(null);
     }
 
     @Test
@@ -68,7 +88,7 @@ public class ExportSettingsCommandIntegrationTest extends AipConsoleToolsCliBase
     }
 
     @Test
-    public void testExportSettingsCommand_WithAppListExceedLimit() throws IOException {
+    public void testExportSettingsCommand_WithAppListExceedLimit() throws IOException, ApplicationServiceException, ApiCallException {
         Path existingRootPath = sflPath.resolve(TEST_SRC_FOLDER);
         Files.createDirectories(existingRootPath);
         Path existingFilePath = existingRootPath.resolve("fake_file.json");
@@ -78,15 +98,20 @@ public class ExportSettingsCommandIntegrationTest extends AipConsoleToolsCliBase
                 "-f", existingFilePath.toString(),
                 "--appList", "A;B;C;D;E;F"
         };
+        when(applicationService.findApplicationsByNames(anySet())).thenReturn(getExistingApplication("A", "B", "C", "D", "E", "F"));
+        when(restApiService.exchangeForResponse(eq("POST"), eq("/api/export"), any())).thenAnswer(invocation -> exportResponse());
 
         runStringArgs(exportSettingsCommand, args);
         CommandLine.Model.CommandSpec spec = cliToTest.getCommandSpec();
         assertThat(spec, is(notNullValue()));
-        assertThat(exitCode, is(Constants.RETURN_INVALID_PARAMETERS_ERROR));
+        assertThat(exitCode, is(Constants.RETURN_OK));
+        // exported in two batches, merged into a single file
+        verify(restApiService, times(2)).exchangeForResponse(eq("POST"), eq("/api/export"), any());
+        assertThat(existingFilePath.toFile().exists(), is(true));
     }
 
     @Test
-    public void testExportSettingsCommand_WithAppListInWrongFormat() throws IOException, ApplicationServiceException {
+    public void testExportSettingsCommand_WithAppListInWrongFormat() throws IOException, ApplicationServiceException, ApiCallException {
         Path existingRootPath = sflPath.resolve(TEST_SRC_FOLDER);
         Files.createDirectories(existingRootPath);
         Path existingFilePath = existingRootPath.resolve("fake_file.json");
@@ -97,6 +122,7 @@ public class ExportSettingsCommandIntegrationTest extends AipConsoleToolsCliBase
                 "--appList", "A,B;C"
         };
         when(applicationService.findApplicationsByNames(anySet())).thenReturn(getExistingApplication("A", "B"));
+        when(restApiService.exchangeForResponse(eq("POST"), eq("/api/export"), any())).thenReturn(exportResponse());
 
         runStringArgs(exportSettingsCommand, args);
         CommandLine.Model.CommandSpec spec = cliToTest.getCommandSpec();
@@ -125,7 +151,7 @@ public class ExportSettingsCommandIntegrationTest extends AipConsoleToolsCliBase
     }
 
     @Test
-    public void testExportSettingsCommand_WithFilePathAsDirectory() throws IOException, ApplicationServiceException {
+    public void testExportSettingsCommand_WithFilePathAsDirectory() throws IOException, ApplicationServiceException, ApiCallException {
         Path existingRootPath = sflPath.resolve(TEST_SRC_FOLDER);
         Files.createDirectories(existingRootPath);
 
@@ -136,6 +162,7 @@ public class ExportSettingsCommandIntegrationTest extends AipConsoleToolsCliBase
         };
 
         when(applicationService.findApplicationsByNames(anySet())).thenReturn(getExistingApplication("B", "C"));
+        when(restApiService.exchangeForResponse(eq("POST"), eq("/api/export"), any())).thenReturn(exportResponse());
 
         Path expectedResultFilePath = existingRootPath.resolve(Constants.DEFAULT_EXPORTED_SETTINGS_FILENAME);
         runStringArgs(exportSettingsCommand, args);
@@ -143,6 +170,71 @@ public class ExportSettingsCommandIntegrationTest extends AipConsoleToolsCliBase
         assertThat(spec, is(notNullValue()));
         assertThat(exitCode, is(Constants.RETURN_OK));
         assertThat(expectedResultFilePath.toFile().exists(), is(true));
+        assertThat(new String(Files.readAllBytes(expectedResultFilePath), StandardCharsets.UTF_8), is(EXPORTED_SETTINGS));
+    }
+
+    @Test
+    public void testExportSettingsCommand_WithGzip() throws IOException, ApplicationServiceException, ApiCallException {
+        Path existingRootPath = sflPath.resolve(TEST_SRC_FOLDER);
+        Files.createDirectories(existingRootPath);
+
+        String[] args = new String[]{"--apikey",
+                TestConstants.TEST_API_KEY,
+                "-f", existingRootPath.toString(),
+                "-apps", "B",
+                "--gzip"
+        };
+
+        when(applicationService.findApplicationsByNames(anySet())).thenReturn(getExistingApplication("B"));
+        when(restApiService.exchangeForResponse(eq("POST"), eq("/api/export"), any())).thenReturn(exportResponse());
+
+        Path expectedResultFilePath = existingRootPath.resolve(Constants.DEFAULT_EXPORTED_SETTINGS_FILENAME + ".gz");
+        runStringArgs(exportSettingsCommand, args);
+        assertThat(exitCode, is(Constants.RETURN_OK));
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(expectedResultFilePath))) {
+            assertThat(IOUtils.toString(in, StandardCharsets.UTF_8), is(EXPORTED_SETTINGS));
+        }
+    }
+
+    @Test
+    public void testExportSettingsCommand_WithSince() throws IOException, ApplicationServiceException, ApiCallException {
+        Path existingRootPath = sflPath.resolve(TEST_SRC_FOLDER);
+        Files.createDirectories(existingRootPath);
+        Path previousExportPath = sflPath.resolve("previous.json");
+        Files.write(previousExportPath, "{\"settings\":{\"name\":\"old\"},\"domains\":[],\"exclusionTemplates\":[]}".getBytes(StandardCharsets.UTF_8));
+
+        String[] args = new String[]{"--apikey",
+                TestConstants.TEST_API_KEY,
+                "-f", existingRootPath.toString(),
+                "-apps", "B",
+                "--since", previousExportPath.toString()
+        };
+
+        when(applicationService.findApplicationsByNames(anySet())).thenReturn(getExistingApplication("B"));
+        when(restApiService.exchangeForResponse(eq("POST"), eq("/api/export"), any())).thenReturn(exportResponse());
+
+        Path expectedResultFilePath = existingRootPath.resolve("exported-settings-changes.json");
+        runStringArgs(exportSettingsCommand, args);
+        assertThat(exitCode, is(Constants.RETURN_OK));
+        String changes = new String(Files.readAllBytes(expectedResultFilePath), StandardCharsets.UTF_8);
+        assertThat(changes, containsString("\"properties\":{\"added\":0,\"changed\":1,\"removed\":0,\"unchanged\":0}"));
+        assertThat(changes, containsString("{\"type\":\"properties\",\"change\":\"changed\",\"key\":\"settings\",\"value\":{}}"));
+    }
+
+    @Test
+    public void testExportSettingsCommand_WithMissingPreviousExport() throws IOException {
+        Path existingRootPath = sflPath.resolve(TEST_SRC_FOLDER);
+        Files.createDirectories(existingRootPath);
+
+        String[] args = new String[]{"--apikey",
+                TestConstants.TEST_API_KEY,
+                "-f", existingRootPath.toString(),
+                "-apps", "B",
+                "--since", sflPath.resolve("missing.json").toString()
+        };
+
+        runStringArgs(exportSettingsCommand, args);
+        assertThat(exitCode, is(Constants.RETURN_INVALID_PARAMETERS_ERROR));
     }
 
     @Test
@@ -158,6 +250,16 @@ public class ExportSettingsCommandIntegrationTest extends AipConsoleToolsCliBase
         assertThat(exitCode, is(Constants.RETURN_INVALID_PARAMETERS_ERROR));
     }
 
+    private static Response exportResponse() {
+        return new Response.Builder()
+                .request(new Request.Builder().url("http://localhost/api/export").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("")
+                .body(ResponseBody.create(MediaType.parse("application/json"), EXPORTED_SETTINGS))
+                .build();
+    }
+
     private Set<ApplicationDto> getExistingApplication(String... candidates) {
         Set<ApplicationDto> existing = new HashSet<>(candidates.length);
         for (String name : candidates) {
@@ -0,0 +1,114 @@
+package com.castsoftware.aip.console.tools;
+
+import com.castsoftware.aip.console.tools.commands.PipelineCommand;
+import com.castsoftware.aip.console.tools.core.dto.DebugOptionsDto;
+import com.castsoftware.aip.console.tools.core.dto.VersionDto;
+import com.castsoftware.aip.console.tools.core.dto.VersionIndex;
+import com.castsoftware.aip.console.tools.core.dto.VersionStatus;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobRequestBuilder;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobState;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusWithSteps;
+import com.castsoftware.aip.console.tools.core.services.DebugOptionsService;
+import com.castsoftware.aip.console.tools.core.utils.Constants;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Date;
+import java.util.function.Function;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, classes = {AipConsoleToolsCliIntegrationTest.class})
+@ActiveProfiles(TestConstants.PROFILE_INTEGRATION_TEST)
+public class PipelineCommandIntegrationTest extends AipConsoleToolsCliBaseTest {
+
+    @Autowired
+    private PipelineCommand pipelineCommand;
+    @MockBean
+    private DebugOptionsService debugOptionsService;
+
+    @Override
+    protected void cleanupTestCommand() {
+        resetSharedOptions(pipelineCommand.getSharedOptions());
+        pipelineCommand.setApplicationName(null);
+        pipelineCommand.setFilePath(null);
+        pipelineCommand.setVersionName(null);
+    }
+
+    @Test
+    public void testPipelineCommand_StagesShareTheApplicationAndVersion() throws Exception {
+        prepareDelivery(JobState.COMPLETED);
+        VersionDto version = new VersionDto();
+        version.setGuid("VERSION-G-U-I-D");
+        version.setName(TestConstants.TEST_VERSION_NAME);
+        version.setStatus(VersionStatus.DELIVERED);
+        when(applicationService.getVersionIndex(TestConstants.TEST_APP_GUID)).thenReturn(new VersionIndex(Collections.singleton(version)));
+        when(debugOptionsService.getDebugOptions(TestConstants.TEST_APP_GUID)).thenReturn(DebugOptionsDto.builder().build());
+        when(jobsService.startJob(any(JobRequestBuilder.class))).thenReturn(TestConstants.TEST_JOB_GUID);
+
+        runStringArgs(pipelineCommand, new String[]{"--apikey", TestConstants.TEST_API_KEY,
+                "--app-name", TestConstants.TEST_CREATRE_APP,
+                "--file", sflPath.toString(),
+                "--version-name", TestConstants.TEST_VERSION_NAME});
+
+        assertThat(exitCode, is(Constants.RETURN_OK));
+        verify(jobsService).startAddVersionJob(any(JobRequestBuilder.class));
+        // the analysis and the snapshot
+        verify(jobsService, times(2)).startJob(any(JobRequestBuilder.class));
+        // resolved by the previous stages
+        verify(applicationService, never()).getApplicationGuidFromName(any());
+        verify(applicationService, times(1)).getVersionIndex(TestConstants.TEST_APP_GUID);
+    }
+
+    @Test
+    public void testPipelineCommand_FailedStageSkipsTheNextOnes() throws Exception {
+        prepareDelivery(JobState.FAILED);
+
+        runStringArgs(pipelineCommand, new String[]{"--apikey", TestConstants.TEST_API_KEY,
+                "--app-name", TestConstants.TEST_CREATRE_APP,
+                "--file", sflPath.toString()});
+
+        assertThat(exitCode, is(Constants.RETURN_JOB_FAILED));
+        verify(jobsService, never()).startJob(any(JobRequestBuilder.class));
+    }
+
+    @Test
+    public void testPipelineCommand_DeliverRequiresFile() throws Exception {
+        runStringArgs(pipelineCommand, new String[]{"--apikey", TestConstants.TEST_API_KEY,
+                "--app-name", TestConstants.TEST_CREATRE_APP,
+                "--stages", "DELIVER,SNAPSHOT"});
+
+        assertThat(exitCode, is(Constants.RETURN_INVALID_PARAMETERS_ERROR));
+        verify(restApiService, never()).validateUrlAndKey(any(), any(), any());
+    }
+
+    private void prepareDelivery(JobState state) throws Exception {
+        when(applicationService.getOrCreateApplicationFromName(any(String.class), anyBoolean(), eq(null), eq(null), anyBoolean(), anyBoolean())).thenReturn(TestConstants.TEST_APP_GUID);
+        when(applicationService.getApplicationFromName(TestConstants.TEST_CREATRE_APP)).thenReturn(AipConsoleToolsCliBaseTest.simplifiedModeApp);
+        when(uploadService.uploadFileAndGetSourcePath(any(String.class), any(String.class), any(File.class))).thenReturn(sflPath.toString());
+        when(jobsService.startAddVersionJob(any(JobRequestBuilder.class))).thenReturn(TestConstants.TEST_JOB_GUID);
+
+        JobStatusWithSteps jobStatus = new JobStatusWithSteps();
+        jobStatus.setAppGuid(TestConstants.TEST_APP_GUID);
+        jobStatus.setState(state);
+        jobStatus.setCreated(new Date());
+        when(jobsService.pollAndWaitForJobFinished(anyString(), any(Function.class), anyBoolean())).thenReturn(jobStatus);
+    }
+}
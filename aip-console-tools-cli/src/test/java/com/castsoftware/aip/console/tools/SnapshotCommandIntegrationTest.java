@@ -2,6 +2,7 @@ package com.castsoftware.aip.console.tools;
 
 import com.castsoftware.aip.console.tools.commands.SnapshotCommand;
 import com.castsoftware.aip.console.tools.core.dto.VersionDto;
+import com.castsoftware.aip.console.tools.core.dto.VersionIndex;
 import com.castsoftware.aip.console.tools.core.dto.VersionStatus;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobRequestBuilder;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobState;
@@ -73,7 +74,7 @@ public class SnapshotCommandIntegrationTest extends AipConsoleToolsCliBaseTest {
         VersionDto versionDto = new VersionDto();
         versionDto.setName(TestConstants.TEST_VERSION_NAME);
         versionDto.setStatus(VersionStatus.ACCEPTED);
-        when(applicationService.getApplicationVersion(TestConstants.TEST_APP_GUID)).thenReturn(Sets.newSet(versionDto));
+        when(applicationService.getVersionIndex(TestConstants.TEST_APP_GUID)).thenReturn(new VersionIndex(Sets.newSet(versionDto)));
         runStringArgs(snapshotCommand, args);
 
         CommandLine.Model.CommandSpec spec = cliToTest.getCommandSpec();
@@ -94,7 +95,7 @@ public class SnapshotCommandIntegrationTest extends AipConsoleToolsCliBaseTest {
         VersionDto versionDto = new VersionDto();
         versionDto.setName(TestConstants.TEST_VERSION_NAME);
         versionDto.setStatus(VersionStatus.ANALYSIS_DONE);
-        when(applicationService.getApplicationVersion(TestConstants.TEST_APP_GUID)).thenReturn(Sets.newSet(versionDto));
+        when(applicationService.getVersionIndex(TestConstants.TEST_APP_GUID)).thenReturn(new VersionIndex(Sets.newSet(versionDto)));
         when(jobsService.startJob(any(JobRequestBuilder.class))).thenReturn(TestConstants.TEST_JOB_GUID);
 
         JobStatusWithSteps jobStatus = new JobStatusWithSteps();
@@ -124,7 +125,7 @@ public class SnapshotCommandIntegrationTest extends AipConsoleToolsCliBaseTest {
         VersionDto versionDto = new VersionDto();
         versionDto.setName(TestConstants.TEST_VERSION_NAME);
         versionDto.setStatus(VersionStatus.ANALYSIS_DONE);
-        when(applicationService.getApplicationVersion(TestConstants.TEST_APP_GUID)).thenReturn(Sets.newSet(versionDto));
+        when(applicationService.getVersionIndex(TestConstants.TEST_APP_GUID)).thenReturn(new VersionIndex(Sets.newSet(versionDto)));
         when(jobsService.startJob(any(JobRequestBuilder.class))).thenReturn(TestConstants.TEST_JOB_GUID);
 
         JobStatusWithSteps jobStatus = new JobStatusWithSteps();
@@ -147,7 +148,7 @@ public class SnapshotCommandIntegrationTest extends AipConsoleToolsCliBaseTest {
         VersionDto versionDto = new VersionDto();
         versionDto.setName(TestConstants.TEST_VERSION_NAME);
         versionDto.setStatus(VersionStatus.ANALYSIS_DONE);
-        when(applicationService.getApplicationVersion(TestConstants.TEST_APP_GUID)).thenReturn(Sets.newSet(versionDto));
+        when(applicationService.getVersionIndex(TestConstants.TEST_APP_GUID)).thenReturn(new VersionIndex(Sets.newSet(versionDto)));
         when(jobsService.startJob(any(JobRequestBuilder.class))).thenReturn(TestConstants.TEST_JOB_GUID);
 
         JobStatusWithSteps jobStatus = new JobStatusWithSteps();
@@ -4,6 +4,9 @@ import com.castsoftware.aip.console.tools.commands.SnapshotCommand;
 import org.junit.Test;
 import picocli.CommandLine;
 
+import java.io.File;
+import java.nio.file.Paths;
+
 import static org.junit.Assert.assertEquals;
 
 public class SnapshotCommandTest extends AipCommandTest<SnapshotCommand> {
@@ -25,6 +28,18 @@ public class SnapshotCommandTest extends AipCommandTest<SnapshotCommand> {
         assertEquals(true, aipCommand.isProcessImaging());
     }
 
+    @Test
+    public void testSnapshotCommand_WithLogArchiveDir() {
+        String[] sb = new String[]{"--apikey",
+                TestConstants.TEST_API_KEY, "--app-name=" + TestConstants.TEST_CREATRE_APP,
+                "--log-archive-dir", "job-logs"
+        };
+
+        aipCommandLine.parseArgs(sb);
+        assertEquals(new File("job-logs"), aipCommand.getSharedOptions().getLogArchiveDirectory());
+        assertEquals(Paths.get("job-logs"), aipCommand.getSharedOptions().getLogArchivePath());
+    }
+
     @Test(expected = CommandLine.MissingParameterException.class)
     public void testSnapshotCommand_WithMissingRequiredParams() {
         //Missing the application name
@@ -0,0 +1,115 @@
+package com.castsoftware.aip.console.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the startup of the tool in new processes : the time until {@code --version} returns, and the time until
+ * the first request of a command reaches a local server, with the resident memory of the process at that time.
+ * <p>
+ * Not run with the unit tests. Run it with the main method of this class, after a {@code mvn test-compile}. The
+ * classpath of the tool to measure can be given as first argument, e.g. to compare with a previous build, and the
+ * number of runs as second argument.
+ */
+public class StartupBenchmark {
+    private static final String MAIN_CLASS = "com.castsoftware.aip.console.tools.AipIntegrationCliMain";
+
+    public static void main(String[] args) throws Exception {
+        String classpath = args.length > 0 ? args[0] : System.getProperty("java.class.path");
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Path output = Files.createTempFile("startup-benchmark", ".log");
+        try {
+            List<Long> versionTimes = new ArrayList<>();
+            List<Long> firstRequestTimes = new ArrayList<>();
+            List<Long> residentMemory = new ArrayList<>();
+            for (int i = 0; i < runs; i++) {
+                versionTimes.add(timeVersion(java, classpath, output.toFile()));
+                timeFirstRequest(java, classpath, output.toFile(), firstRequestTimes, residentMemory);
+            }
+            System.out.println("--version            : " + summary(versionTimes, "ms"));
+            System.out.println("Time to first request: " + summary(firstRequestTimes, "ms"));
+            System.out.println("RSS at first request : " + (residentMemory.isEmpty() ? "n/a" : summary(residentMemory, "MB")));
+        } finally {
+            Files.deleteIfExists(output);
+        }
+    }
+
+    private static long timeVersion(String java, String classpath, File output) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(java, "-cp", classpath, MAIN_CLASS, "--version")
+                .redirectErrorStream(true)
+                .redirectOutput(output)
+                .start();
+        process.waitFor();
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private static void timeFirstRequest(String java, String classpath, File output, List<Long> times, List<Long> memory) throws IOException, InterruptedException {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout((int) TimeUnit.MINUTES.toMillis(1));
+            long start = System.nanoTime();
+            Process process = new ProcessBuilder(java, "-cp", classpath, MAIN_CLASS, "CreateApplication",
+                    "--server-url", "http://127.0.0.1:" + server.getLocalPort(), "--apikey", "benchmark", "--app-name", "benchmark")
+                    .redirectErrorStream(true)
+                    .redirectOutput(output)
+                    .start();
+            try (Socket ignored = server.accept()) {
+                times.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                // the process waits for the answer to its login request
+                long rss = getResidentMemoryKb(process);
+                if (rss > 0) {
+                    memory.add(rss / 1024);
+                }
+            } finally {
+                process.destroy();
+                process.waitFor();
+            }
+        }
+    }
+
+    /**
+     * @return The resident memory of the process, read from /proc, or -1 if not available
+     */
+    private static long getResidentMemoryKb(Process process) {
+        try {
+            long pid;
+            try {
+                pid = (Long) Process.class.getMethod("pid").invoke(process);
+            } catch (NoSuchMethodException e) {
+                // Java 8
+                Field field = process.getClass().getDeclaredField("pid");
+                field.setAccessible(true);
+                pid = field.getInt(process);
+            }
+            for (String line : Files.readAllLines(Paths.get("/proc", Long.toString(pid), "status"), StandardCharsets.UTF_8)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", ""));
+                }
+            }
+        } catch (ReflectiveOperationException | IOException | RuntimeException e) {
+            // not on Linux
+        }
+        return -1;
+    }
+
+    private static String summary(List<Long> values, String unit) {
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return String.format("median %d %s, min %d %s, max %d %s (%s)", sorted.get(sorted.size() / 2), unit,
+                sorted.get(0), unit, sorted.get(sorted.size() - 1), unit, Arrays.toString(values.toArray()));
+    }
+}
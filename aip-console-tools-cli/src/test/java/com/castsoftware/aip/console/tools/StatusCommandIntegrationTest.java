@@ -0,0 +1,68 @@
+package com.castsoftware.aip.console.tools;
+
+import com.castsoftware.aip.console.tools.commands.StatusCommand;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobState;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusWithSteps;
+import com.castsoftware.aip.console.tools.core.exceptions.JobServiceException;
+import com.castsoftware.aip.console.tools.core.utils.Constants;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, classes = {AipConsoleToolsCliIntegrationTest.class})
+@ActiveProfiles(TestConstants.PROFILE_INTEGRATION_TEST)
+public class StatusCommandIntegrationTest extends AipConsoleToolsCliBaseTest {
+    private static final String OTHER_JOB_GUID = "other-job-guid";
+
+    @Autowired
+    private StatusCommand statusCommand;
+
+    @Override
+    protected void cleanupTestCommand() {
+        resetSharedOptions(statusCommand.getSharedOptions());
+        statusCommand.setJobGuids(null);
+    }
+
+    @Test
+    public void testStatusCommand_JobStillRunning() throws JobServiceException {
+        when(jobsService.getJobStatus(TestConstants.TEST_JOB_GUID)).thenReturn(status(JobState.COMPLETED));
+        when(jobsService.getJobStatus(OTHER_JOB_GUID)).thenReturn(status(JobState.STARTED));
+
+        runStringArgs(statusCommand, new String[]{"--apikey", TestConstants.TEST_API_KEY, TestConstants.TEST_JOB_GUID, OTHER_JOB_GUID});
+
+        assertThat(exitCode, is(Constants.RETURN_JOB_NOT_FINISHED));
+    }
+
+    @Test
+    public void testStatusCommand_JobsCompleted() throws JobServiceException {
+        when(jobsService.getJobStatus(TestConstants.TEST_JOB_GUID)).thenReturn(status(JobState.COMPLETED));
+
+        runStringArgs(statusCommand, new String[]{"--apikey", TestConstants.TEST_API_KEY, TestConstants.TEST_JOB_GUID});
+
+        assertThat(exitCode, is(Constants.RETURN_OK));
+    }
+
+    @Test
+    public void testStatusCommand_UnknownJob() throws JobServiceException {
+        when(jobsService.getJobStatus(TestConstants.TEST_JOB_GUID)).thenReturn(status(JobState.CANCELED));
+        when(jobsService.getJobStatus(OTHER_JOB_GUID)).thenThrow(new JobServiceException("not found"));
+
+        runStringArgs(statusCommand, new String[]{"--apikey", TestConstants.TEST_API_KEY, TestConstants.TEST_JOB_GUID, OTHER_JOB_GUID});
+
+        assertThat(exitCode, is(Constants.RETURN_JOB_POLL_ERROR));
+    }
+
+    private static JobStatusWithSteps status(JobState state) {
+        JobStatusWithSteps status = new JobStatusWithSteps();
+        status.setState(state);
+        return status;
+    }
+}
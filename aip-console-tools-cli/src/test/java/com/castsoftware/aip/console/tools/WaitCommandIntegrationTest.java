@@ -0,0 +1,104 @@
+package com.castsoftware.aip.console.tools;
+
+import com.castsoftware.aip.console.tools.commands.WaitCommand;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobState;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusWithSteps;
+import com.castsoftware.aip.console.tools.core.exceptions.JobServiceException;
+import com.castsoftware.aip.console.tools.core.utils.Constants;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, classes = {AipConsoleToolsCliIntegrationTest.class})
+@ActiveProfiles(TestConstants.PROFILE_INTEGRATION_TEST)
+public class WaitCommandIntegrationTest extends AipConsoleToolsCliBaseTest {
+    private static final String OTHER_JOB_GUID = "other-job-guid";
+
+    @Autowired
+    private WaitCommand waitCommand;
+
+    @Override
+    protected void cleanupTestCommand() {
+        resetSharedOptions(waitCommand.getSharedOptions());
+        waitCommand.setJobGuids(null);
+        waitCommand.setAny(false);
+        waitCommand.setWaitTimeout(0);
+    }
+
+    @Test
+    public void testWaitCommand_AllJobsCompleted() {
+        when(jobsService.watchJob(eq(TestConstants.TEST_JOB_GUID), any(), any(), eq(false))).thenReturn(finished(JobState.COMPLETED));
+        when(jobsService.watchJob(eq(OTHER_JOB_GUID), any(), any(), eq(false))).thenReturn(finished(JobState.COMPLETED));
+
+        runStringArgs(waitCommand, new String[]{"--apikey", TestConstants.TEST_API_KEY, TestConstants.TEST_JOB_GUID, OTHER_JOB_GUID});
+
+        assertThat(exitCode, is(Constants.RETURN_OK));
+        // the jobs of other processes are never cancelled
+        verify(jobsService, never()).watchJob(anyString(), any(), any(), eq(true));
+        verify(jobsService, never()).watchJob(anyString(), any(), any());
+    }
+
+    @Test
+    public void testWaitCommand_OneJobFailed() {
+        when(jobsService.watchJob(eq(TestConstants.TEST_JOB_GUID), any(), any(), anyBoolean())).thenReturn(finished(JobState.COMPLETED));
+        when(jobsService.watchJob(eq(OTHER_JOB_GUID), any(), any(), anyBoolean())).thenReturn(finished(JobState.FAILED));
+
+        runStringArgs(waitCommand, new String[]{"--apikey", TestConstants.TEST_API_KEY, TestConstants.TEST_JOB_GUID, OTHER_JOB_GUID});
+
+        assertThat(exitCode, is(Constants.RETURN_JOB_FAILED));
+    }
+
+    @Test
+    public void testWaitCommand_AnyJobCompleted() {
+        CompletableFuture<JobStatusWithSteps> running = new CompletableFuture<>();
+        when(jobsService.watchJob(eq(TestConstants.TEST_JOB_GUID), any(), any(), anyBoolean())).thenReturn(running);
+        when(jobsService.watchJob(eq(OTHER_JOB_GUID), any(), any(), anyBoolean())).thenReturn(finished(JobState.COMPLETED));
+
+        runStringArgs(waitCommand, new String[]{"--apikey", TestConstants.TEST_API_KEY, "--any", TestConstants.TEST_JOB_GUID, OTHER_JOB_GUID});
+
+        assertThat(exitCode, is(Constants.RETURN_OK));
+        // the watch of the job still running is stopped
+        assertThat(running.isCancelled(), is(true));
+    }
+
+    @Test
+    public void testWaitCommand_PollError() {
+        CompletableFuture<JobStatusWithSteps> error = new CompletableFuture<>();
+        error.completeExceptionally(new JobServiceException("status unavailable"));
+        when(jobsService.watchJob(eq(TestConstants.TEST_JOB_GUID), any(), any(), anyBoolean())).thenReturn(error);
+
+        runStringArgs(waitCommand, new String[]{"--apikey", TestConstants.TEST_API_KEY, TestConstants.TEST_JOB_GUID});
+
+        assertThat(exitCode, is(Constants.RETURN_JOB_POLL_ERROR));
+    }
+
+    @Test
+    public void testWaitCommand_InvalidTimeout() {
+        runStringArgs(waitCommand, new String[]{"--apikey", TestConstants.TEST_API_KEY, "--wait-timeout", "-1", TestConstants.TEST_JOB_GUID});
+
+        assertThat(exitCode, is(Constants.RETURN_INVALID_PARAMETERS_ERROR));
+        verify(jobsService, never()).watchJob(anyString(), any(), any(), anyBoolean());
+    }
+
+    private static CompletableFuture<JobStatusWithSteps> finished(JobState state) {
+        JobStatusWithSteps status = new JobStatusWithSteps();
+        status.setState(state);
+        return CompletableFuture.completedFuture(status);
+    }
+}
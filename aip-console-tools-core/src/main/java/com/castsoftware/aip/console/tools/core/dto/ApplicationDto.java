@@ -20,4 +20,8 @@ public class ApplicationDto {
     private String name;
     private String state;
     private boolean inPlaceMode;
+    /**
+     * The name of the node of the application
+     */
+    private String targetNode;
 }
@@ -0,0 +1,32 @@
+package com.castsoftware.aip.console.tools.core.dto;
+
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatus;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An AIP Node, with the jobs currently running on it
+ */
+public final class NodeLoad {
+    private final NodeDto node;
+    private final List<JobStatus> runningJobs;
+
+    public NodeLoad(NodeDto node, List<JobStatus> runningJobs) {
+        this.node = node;
+        this.runningJobs = runningJobs == null ? Collections.emptyList() : Collections.unmodifiableList(runningJobs);
+    }
+
+    public NodeDto getNode() {
+        return node;
+    }
+
+    public List<JobStatus> getRunningJobs() {
+        return runningJobs;
+    }
+
+    @Override
+    public String toString() {
+        return "NodeLoad{node='" + node.getName() + "', runningJobs=" + runningJobs.size() + "}";
+    }
+}
@@ -0,0 +1,27 @@
+package com.castsoftware.aip.console.tools.core.dto;
+
+/**
+ * The node chosen to create a new application, and why it was chosen
+ */
+public final class NodePlacement {
+    private final NodeDto node;
+    private final String reason;
+
+    public NodePlacement(NodeDto node, String reason) {
+        this.node = node;
+        this.reason = reason;
+    }
+
+    public NodeDto getNode() {
+        return node;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return "NodePlacement{node='" + node.getName() + "', reason='" + reason + "'}";
+    }
+}
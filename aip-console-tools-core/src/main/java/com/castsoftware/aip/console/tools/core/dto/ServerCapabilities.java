@@ -0,0 +1,126 @@
+package com.castsoftware.aip.console.tools.core.dto;
+
+import com.castsoftware.aip.console.tools.core.utils.SemVerUtils;
+
+/**
+ * Features supported by an AIP Console instance, resolved once from its {@link ApiInfoDto}.
+ * <p>
+ * All the version checks are done when the object is created, so the flags can be read as often as needed.
+ */
+public final class ServerCapabilities {
+    private final String apiVersion;
+    private final String castVersion;
+    private final SemVer apiVersionSemVer;
+    private final boolean packagePathCheckEnabled;
+    private final boolean snapshotValidationEnabled;
+    private final boolean downloadDmtEnabled;
+    private final boolean dashboardIntegrated;
+    private final boolean imagingFlat;
+    private final boolean extractionRequired;
+    private final boolean sourcePathPrefixRequired;
+    private final boolean jobStatusWithDuration;
+    private final boolean jobToBeResumed;
+    private final boolean lastStepConsolidateSnapshot;
+    private final boolean lastStepUploadAppSnapshot;
+
+    private ServerCapabilities(ApiInfoDto apiInfo) {
+        this.apiVersion = apiInfo.getApiVersion();
+        this.castVersion = apiInfo.getCastVersion();
+        this.apiVersionSemVer = apiInfo.getApiVersionSemVer();
+        this.packagePathCheckEnabled = apiInfo.isEnablePackagePathCheck();
+        this.snapshotValidationEnabled = apiInfo.isEnableSnapshotValidation();
+        this.downloadDmtEnabled = apiInfo.isEnableDownloadDmt();
+        this.dashboardIntegrated = apiInfo.isDashboardIntegrated();
+        this.imagingFlat = apiInfo.isImagingFlat();
+        this.extractionRequired = apiInfo.isExtractionRequired();
+        this.sourcePathPrefixRequired = apiInfo.isSourcePathPrefixRequired();
+        this.jobStatusWithDuration = apiInfo.isJobStatusWithDuration();
+        this.jobToBeResumed = apiInfo.isJobToBeResumed();
+        this.lastStepConsolidateSnapshot = apiInfo.isLastStepConsolidateSnapshot();
+        this.lastStepUploadAppSnapshot = SemVerUtils.isNewerThan115(apiVersionSemVer);
+    }
+
+    /**
+     * @param apiInfo The information returned by AIP Console
+     * @return The features supported by this AIP Console
+     */
+    public static ServerCapabilities of(ApiInfoDto apiInfo) {
+        return new ServerCapabilities(apiInfo == null ? new ApiInfoDto() : apiInfo);
+    }
+
+    public String getApiVersion() {
+        return apiVersion;
+    }
+
+    public String getCastVersion() {
+        return castVersion;
+    }
+
+    public SemVer getApiVersionSemVer() {
+        return apiVersionSemVer;
+    }
+
+    public boolean isPackagePathCheckEnabled() {
+        return packagePathCheckEnabled;
+    }
+
+    public boolean isSnapshotValidationEnabled() {
+        return snapshotValidationEnabled;
+    }
+
+    public boolean isDownloadDmtEnabled() {
+        return downloadDmtEnabled;
+    }
+
+    public boolean isDashboardIntegrated() {
+        return dashboardIntegrated;
+    }
+
+    public boolean isImagingFlat() {
+        return imagingFlat;
+    }
+
+    /**
+     * @return Whether uploaded archives must be extracted by a separate call (1.13 to 1.18)
+     */
+    public boolean isExtractionRequired() {
+        return extractionRequired;
+    }
+
+    /**
+     * @return Whether source paths must be prefixed by their location, e.g. "upload:" or "sources:" (1.13 and above)
+     */
+    public boolean isSourcePathPrefixRequired() {
+        return sourcePathPrefixRequired;
+    }
+
+    public boolean isJobStatusWithDuration() {
+        return jobStatusWithDuration;
+    }
+
+    /**
+     * @return Whether jobs are started in a suspended state, and must be resumed (1.9 and below)
+     */
+    public boolean isJobToBeResumed() {
+        return jobToBeResumed;
+    }
+
+    /**
+     * @return Whether the last step of a snapshot job is the consolidation (1.15 and below)
+     */
+    public boolean isLastStepConsolidateSnapshot() {
+        return lastStepConsolidateSnapshot;
+    }
+
+    /**
+     * @return Whether the last step of a snapshot job is the upload of the application (after 1.15)
+     */
+    public boolean isLastStepUploadAppSnapshot() {
+        return lastStepUploadAppSnapshot;
+    }
+
+    @Override
+    public String toString() {
+        return "ServerCapabilities{apiVersion='" + apiVersion + "', castVersion='" + castVersion + "'}";
+    }
+}
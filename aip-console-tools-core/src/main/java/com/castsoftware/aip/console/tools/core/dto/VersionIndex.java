@@ -0,0 +1,89 @@
+package com.castsoftware.aip.console.tools.core.dto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Read-only index of the versions of an application.
+ * <p>
+ * The versions are sorted from the newest to the oldest, and the newest version having reached each
+ * {@link VersionStatus} is computed once, so that finding the latest delivered or analyzed version doesn't require
+ * going through all the versions again. Versions can also be found by name, case-insensitive.
+ */
+public final class VersionIndex {
+    private static final Comparator<VersionDto> NEWEST_FIRST =
+            Comparator.comparing(VersionDto::getVersionDate, Comparator.nullsFirst(Comparator.naturalOrder())).reversed();
+
+    private final List<VersionDto> versions;
+    // the newest version with a status greater or equal to the status with the same ordinal
+    private final VersionDto[] latestByMinimumStatus = new VersionDto[VersionStatus.values().length];
+    private final Map<String, VersionDto> versionsByName = new HashMap<>();
+    private VersionDto currentVersion;
+
+    public VersionIndex(Collection<VersionDto> versions) {
+        List<VersionDto> sortedVersions = new ArrayList<>();
+        if (versions != null) {
+            versions.stream().filter(Objects::nonNull).forEach(sortedVersions::add);
+        }
+        sortedVersions.sort(NEWEST_FIRST);
+        this.versions = Collections.unmodifiableList(sortedVersions);
+
+        // all the status thresholds up to the highest status seen so far have a version already
+        int highestStatus = -1;
+        for (VersionDto version : sortedVersions) {
+            if (currentVersion == null && version.isCurrentVersion()) {
+                currentVersion = version;
+            }
+            if (version.getName() != null) {
+                versionsByName.putIfAbsent(version.getName().toLowerCase(Locale.ROOT), version);
+            }
+            if (version.getStatus() != null && version.getStatus().ordinal() > highestStatus) {
+                for (int status = highestStatus + 1; status <= version.getStatus().ordinal(); status++) {
+                    latestByMinimumStatus[status] = version;
+                }
+                highestStatus = version.getStatus().ordinal();
+            }
+        }
+    }
+
+    /**
+     * @return All the versions, from the newest to the oldest
+     */
+    public List<VersionDto> getVersions() {
+        return versions;
+    }
+
+    public boolean isEmpty() {
+        return versions.isEmpty();
+    }
+
+    /**
+     * @param versionName The name of the version, in any case
+     * @return The version with this name, or null if there is none
+     */
+    public VersionDto findByName(String versionName) {
+        return versionName == null ? null : versionsByName.get(versionName.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @param minimumStatus The minimum status of the version, e.g. {@link VersionStatus#DELIVERED}
+     * @return The newest version with a status greater or equal to the given status, or null if there is none
+     */
+    public VersionDto getLatestVersion(VersionStatus minimumStatus) {
+        return latestByMinimumStatus[minimumStatus.ordinal()];
+    }
+
+    /**
+     * @return The version flagged as current version, or null if there is none
+     */
+    public VersionDto getCurrentVersion() {
+        return currentVersion;
+    }
+}
@@ -2,41 +2,53 @@ package com.castsoftware.aip.console.tools.core.dto.deserializers;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import lombok.extern.java.Log;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Reads the list of step names of a job, from the tokens of the parser.
+ * <p>
+ * Before 1.20 AIP Console, fullSteps node is just a list of strings. After 1.20, fullSteps contains a list of objects,
+ * of which only the "step" field is kept.
+ */
 @Log
 public class FullStepsDeserializer extends JsonDeserializer<List<String>> {
+    private static final String STEP_FIELD = "step";
+
     @Override
     public List<String> deserialize(JsonParser p, DeserializationContext ctxt) throws IOException, JsonProcessingException {
         List<String> fullSteps = new ArrayList<>();
-        JsonNode node = p.readValueAsTree();
-        // Ignore non arrays... ?
-        if (node.isArray()) {
-            ArrayNode arrayNode = (ArrayNode) node;
-            for (JsonNode child : arrayNode) {
-                // before 1.20 AIP Console, fullSteps node is just a list of strings
-                // After 1.20, fullSteps contains a list of object
-                // Here we dynamically map from object or string to a string
-                if (child.isObject()) {
-                    // Make sure we have a text node and not an object node
-                    JsonNode stepNode = child.get("step");
-                    if (stepNode.isTextual()) {
-                        fullSteps.add(stepNode.textValue());
-                    }
-                } else if (child.isTextual()) {
-                    fullSteps.add(child.textValue());
-                }
+        // Ignore non arrays
+        if (!p.isExpectedStartArrayToken()) {
+            p.skipChildren();
+            return fullSteps;
+        }
+        for (JsonToken token = p.nextToken(); token != JsonToken.END_ARRAY && token != null; token = p.nextToken()) {
+            if (token == JsonToken.VALUE_STRING) {
+                fullSteps.add(p.getText());
+            } else if (token == JsonToken.START_OBJECT) {
+                readStep(p, fullSteps);
+            } else {
+                p.skipChildren();
             }
         }
-        //
         return fullSteps;
     }
+
+    private static void readStep(JsonParser p, List<String> fullSteps) throws IOException {
+        for (String field = p.nextFieldName(); field != null; field = p.nextFieldName()) {
+            // Make sure we have a text value and not an object
+            if (p.nextToken() == JsonToken.VALUE_STRING && STEP_FIELD.equals(field)) {
+                fullSteps.add(p.getText());
+            } else {
+                p.skipChildren();
+            }
+        }
+    }
 }
@@ -41,6 +41,8 @@ public class JobRequestBuilder {
     private boolean uploadApplication = false;
     private boolean processImaging = false;
     private ModuleGenerationType moduleGenerationType;
+    // not sent to AIP Console, only used locally to estimate the job duration
+    private long archiveSize;
 
     private JobRequestBuilder(String appGuid, String sourcePath, JobType jobType) {
         this.appGuid = appGuid;
@@ -233,6 +235,25 @@ public class JobRequestBuilder {
         return parameters;
     }
 
+    /**
+     * The size of the source archive delivered by this job, used to estimate the duration of the job steps
+     */
+    public JobRequestBuilder archiveSize(long archiveSize) {
+        this.archiveSize = archiveSize;
+        return this;
+    }
+
+    public long getArchiveSize() {
+        return archiveSize;
+    }
+
+    /**
+     * @return The name of the version, generated from the current date if none was given
+     */
+    public String getVersionName() {
+        return versionName;
+    }
+
     public CreateJobsRequest buildJobRequest() {
         CreateJobsRequest jobRequest = new CreateJobsRequest();
         jobRequest.setJobType(jobType);
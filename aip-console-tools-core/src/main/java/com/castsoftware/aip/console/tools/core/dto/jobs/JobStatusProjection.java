@@ -0,0 +1,68 @@
+package com.castsoftware.aip.console.tools.core.dto.jobs;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * The few fields of a job status needed to follow the progress of a job.
+ * <p>
+ * All the other fields of the job details (parameters, log URLs, full steps...) are skipped while reading the
+ * response, without being deserialized. Use {@link JobStatusWithSteps} when they are needed.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class JobStatusProjection {
+    private String guid;
+    private String appGuid;
+    private JobState state;
+    private String progressStep;
+    private String failureStep;
+
+    public JobStatusProjection() {
+        // Default constructor
+    }
+
+    public JobStatusProjection(String guid, JobState state, String progressStep) {
+        this.guid = guid;
+        this.state = state;
+        this.progressStep = progressStep;
+    }
+
+    public String getGuid() {
+        return guid;
+    }
+
+    public void setGuid(String guid) {
+        this.guid = guid;
+    }
+
+    public String getAppGuid() {
+        return appGuid;
+    }
+
+    public void setAppGuid(String appGuid) {
+        this.appGuid = appGuid;
+    }
+
+    public JobState getState() {
+        return state;
+    }
+
+    public void setState(JobState state) {
+        this.state = state;
+    }
+
+    public String getProgressStep() {
+        return progressStep;
+    }
+
+    public void setProgressStep(String progressStep) {
+        this.progressStep = progressStep;
+    }
+
+    public String getFailureStep() {
+        return failureStep;
+    }
+
+    public void setFailureStep(String failureStep) {
+        this.failureStep = failureStep;
+    }
+}
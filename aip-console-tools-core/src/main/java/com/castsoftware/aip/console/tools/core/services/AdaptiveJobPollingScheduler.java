@@ -0,0 +1,93 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStepType;
+import lombok.extern.java.Log;
+
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Polling scheduler adapting the delay between two status checks to the step being executed.
+ * <p>
+ * The first status check happens shortly after the job submission. Afterwards :
+ * <ul>
+ *     <li>For steps with a known expected duration, the delay is half of the expected remaining time,
+ *     so the checks get closer as the expected end of the step approaches</li>
+ *     <li>For steps running longer than expected, or without any recorded duration, the delay grows with the
+ *     time already spent in the step</li>
+ * </ul>
+ * Delays are always kept between a minimum and a maximum value.
+ */
+@Log
+public class AdaptiveJobPollingScheduler implements JobPollingScheduler {
+    public static final long DEFAULT_MIN_DELAY = TimeUnit.SECONDS.toMillis(2);
+    public static final long DEFAULT_MAX_DELAY = TimeUnit.SECONDS.toMillis(60);
+    // For steps we know nothing about, don't wait more than the "historical" polling interval
+    public static final long DEFAULT_UNKNOWN_STEP_MAX_DELAY = TimeUnit.SECONDS.toMillis(15);
+
+    private final StepDurationHistory history;
+    private final long minDelay;
+    private final long maxDelay;
+    private final long unknownStepMaxDelay;
+
+    public AdaptiveJobPollingScheduler() {
+        this(new InMemoryStepDurationHistory());
+    }
+
+    public AdaptiveJobPollingScheduler(StepDurationHistory history) {
+        this(history, DEFAULT_MIN_DELAY, DEFAULT_MAX_DELAY, DEFAULT_UNKNOWN_STEP_MAX_DELAY);
+    }
+
+    public AdaptiveJobPollingScheduler(StepDurationHistory history, long minDelay, long maxDelay, long unknownStepMaxDelay) {
+        if (minDelay <= 0 || maxDelay < minDelay || unknownStepMaxDelay < minDelay) {
+            throw new IllegalArgumentException("Invalid polling delays: min=" + minDelay + ", max=" + maxDelay + ", unknown step max=" + unknownStepMaxDelay);
+        }
+        this.history = history;
+        this.minDelay = minDelay;
+        this.maxDelay = maxDelay;
+        this.unknownStepMaxDelay = unknownStepMaxDelay;
+    }
+
+    @Override
+    public long getNextPollDelay(int pollCount, String currentStep, long stepElapsedMillis) {
+        if (pollCount == 0) {
+            return minDelay;
+        }
+        if (currentStep == null) {
+            // status not available yet, back off exponentially
+            return clamp(minDelay << Math.min(pollCount - 1, 16), unknownStepMaxDelay);
+        }
+        OptionalLong expected = history.getExpectedDuration(toStepType(currentStep));
+        if (!expected.isPresent()) {
+            return clamp(stepElapsedMillis / 4, unknownStepMaxDelay);
+        }
+        long remaining = expected.getAsLong() - stepElapsedMillis;
+        if (remaining > 0) {
+            return clamp(remaining / 2, maxDelay);
+        }
+        // overdue, the longer the step overruns, the less likely it is to end right now
+        return clamp(-remaining / 2, maxDelay);
+    }
+
+    @Override
+    public void onStepCompleted(String step, long durationMillis) {
+        JobStepType stepType = toStepType(step);
+        if (stepType != null) {
+            history.record(stepType, durationMillis);
+        }
+    }
+
+    private long clamp(long delay, long upperBound) {
+        return Math.max(minDelay, Math.min(delay, upperBound));
+    }
+
+    private static JobStepType toStepType(String step) {
+        try {
+            return JobStepType.fromString(step);
+        } catch (IllegalArgumentException e) {
+            log.log(Level.FINE, "Unknown job step " + step);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.castsoftware.aip.console.tools.core.dto.ApplicationDto;
+import com.castsoftware.aip.console.tools.core.dto.Applications;
+import com.castsoftware.aip.console.tools.core.exceptions.ApiCallException;
+import com.castsoftware.aip.console.tools.core.exceptions.ApplicationServiceException;
+import com.castsoftware.aip.console.tools.core.tracing.Span;
+import com.castsoftware.aip.console.tools.core.tracing.Tracer;
+import com.castsoftware.aip.console.tools.core.utils.ApiEndpointHelper;
+import lombok.extern.java.Log;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local copy of the applications declared on AIP Console, indexed by name and by GUID, both case-insensitive.
+ * <p>
+ * The applications are fetched at most once per time-to-live period. {@link #invalidate()} forces the next lookup to
+ * fetch them again, e.g. after an application was created or deleted.
+ */
+@Log
+class ApplicationDirectory {
+    static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(1);
+
+    private final RestApiService restApiService;
+    private final long ttlNanos;
+    private volatile Index index;
+
+    ApplicationDirectory(RestApiService restApiService, long ttl, TimeUnit unit) {
+        this.restApiService = restApiService;
+        this.ttlNanos = unit.toNanos(ttl);
+    }
+
+    /**
+     * @param applicationName The name of the application, in any case
+     * @return The application with this name, or null if there is none
+     * @throws ApplicationServiceException If the applications cannot be retrieved from AIP Console
+     */
+    ApplicationDto findByName(String applicationName) throws ApplicationServiceException {
+        return applicationName == null ? null : getIndex().byName.get(toKey(applicationName));
+    }
+
+    /**
+     * @param applicationGuid The GUID of the application, in any case
+     * @return The application with this GUID, or null if there is none
+     * @throws ApplicationServiceException If the applications cannot be retrieved from AIP Console
+     */
+    ApplicationDto findByGuid(String applicationGuid) throws ApplicationServiceException {
+        return applicationGuid == null ? null : getIndex().byGuid.get(toKey(applicationGuid));
+    }
+
+    /**
+     * @param applicationNames The names of the applications, in any case
+     * @return The applications found among these names
+     * @throws ApplicationServiceException If the applications cannot be retrieved from AIP Console
+     */
+    Set<ApplicationDto> findByNames(Set<String> applicationNames) throws ApplicationServiceException {
+        Index current = getIndex();
+        Set<ApplicationDto> applications = new HashSet<>();
+        for (String applicationName : applicationNames) {
+            ApplicationDto app = applicationName == null ? null : current.byName.get(toKey(applicationName));
+            if (app != null) {
+                applications.add(app);
+            }
+        }
+        return applications;
+    }
+
+    /**
+     * Forces the next lookup to fetch the applications from AIP Console
+     */
+    void invalidate() {
+        index = null;
+    }
+
+    private Index getIndex() throws ApplicationServiceException {
+        Index current = index;
+        if (current != null && !current.isExpired()) {
+            return current;
+        }
+        synchronized (this) {
+            // another thread may have refreshed the index in the meantime
+            current = index;
+            if (current == null || current.isExpired()) {
+                current = new Index(fetchApplications());
+                index = current;
+            }
+            return current;
+        }
+    }
+
+    private Set<ApplicationDto> fetchApplications() throws ApplicationServiceException {
+        try (Span span = Tracer.span("application lookup")) {
+            Applications result = restApiService.getForEntity(ApiEndpointHelper.getApplicationsPath(), Applications.class);
+            return result == null || result.getApplications() == null ? Collections.emptySet() : result.getApplications();
+        } catch (ApiCallException e) {
+            throw new ApplicationServiceException("Unable to get applications from AIP Console", e);
+        }
+    }
+
+    private static String toKey(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private class Index {
+        private final Map<String, ApplicationDto> byName = new HashMap<>();
+        private final Map<String, ApplicationDto> byGuid = new HashMap<>();
+        private final long loadTime = System.nanoTime();
+
+        private Index(Set<ApplicationDto> applications) {
+            for (ApplicationDto app : applications) {
+                if (app == null) {
+                    continue;
+                }
+                if (app.getName() != null) {
+                    byName.putIfAbsent(toKey(app.getName()), app);
+                }
+                if (app.getGuid() != null) {
+                    byGuid.putIfAbsent(toKey(app.getGuid()), app);
+                }
+            }
+            log.fine("Loaded " + byGuid.size() + " applications from AIP Console");
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - loadTime >= ttlNanos;
+        }
+    }
+}
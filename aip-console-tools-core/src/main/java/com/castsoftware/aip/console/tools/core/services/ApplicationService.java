@@ -4,13 +4,17 @@ import com.castsoftware.aip.console.tools.core.dto.ApplicationDto;
 import com.castsoftware.aip.console.tools.core.dto.DebugOptionsDto;
 import com.castsoftware.aip.console.tools.core.dto.Exclusions;
 import com.castsoftware.aip.console.tools.core.dto.ModuleGenerationType;
+import com.castsoftware.aip.console.tools.core.dto.NodeDto;
 import com.castsoftware.aip.console.tools.core.dto.VersionDto;
+import com.castsoftware.aip.console.tools.core.dto.VersionIndex;
+import com.castsoftware.aip.console.tools.core.dto.jobs.DeliveryPackageDto;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobRequestBuilder;
 import com.castsoftware.aip.console.tools.core.exceptions.ApplicationServiceException;
 import com.castsoftware.aip.console.tools.core.exceptions.JobServiceException;
 import com.castsoftware.aip.console.tools.core.exceptions.PackagePathInvalidException;
 
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public interface ApplicationService {
 
@@ -74,6 +78,33 @@ public interface ApplicationService {
      */
     String getOrCreateApplicationFromName(String applicationName, boolean autoCreate, String nodeName, String domainName, boolean logOutput) throws ApplicationServiceException;
 
+    /**
+     * Retrieve an application's GUID from the given application name.
+     * <p/>
+     * If the "autoCreate" parameter is true and the application doesn't exist on AIP Console, it'll automatically create it
+     * before returning the GUID.
+     *
+     * @param applicationName   The name of the application to look up
+     * @param autoCreate        Whether the application should be created if it couldn't be found
+     * @param nodeName          The name of the node on which the application
+     * @param domainName        The name of the domain to assign to the application
+     * @param autoNodePlacement Whether the node of the application is chosen by the node placement policy when no node
+     *                          name is given, instead of letting AIP Console choose it
+     * @param logOutput         whether the log is displayed
+     * @return An application GUID or null if non was found
+     * @throws ApplicationServiceException
+     */
+    String getOrCreateApplicationFromName(String applicationName, boolean autoCreate, String nodeName, String domainName, boolean autoNodePlacement, boolean logOutput) throws ApplicationServiceException;
+
+    /**
+     * Choose the node on which a new application should be created, based on the load of the nodes.
+     * The chosen node and the reason of the choice are logged.
+     *
+     * @param applicationName The name of the application to create
+     * @return The chosen node, or null if no node could be chosen, to let AIP Console choose the node
+     */
+    NodeDto placeNewApplication(String applicationName);
+
     /**
      * Retrieve an application's version
      *
@@ -83,6 +114,16 @@ public interface ApplicationService {
      */
     Set<VersionDto> getApplicationVersion(String appGuid) throws ApplicationServiceException;
 
+    /**
+     * Get an index of the versions of an application, to find its latest versions or a version by name.
+     * The index is kept until a job of this application is finished, or for one minute at most.
+     *
+     * @param appGuid The application GUID
+     * @return The index of the versions of the application
+     * @throws ApplicationServiceException If the versions cannot be retrieved from AIP Console
+     */
+    VersionIndex getVersionIndex(String appGuid) throws ApplicationServiceException;
+
     /**
      * Create delivery configuration add exclusion patterns
      *
@@ -90,6 +131,17 @@ public interface ApplicationService {
      * @return
      */
     String createDeliveryConfiguration(String appGuid, String sourcePath, Exclusions exclusions, boolean rescan) throws JobServiceException, PackagePathInvalidException;
+
+    /**
+     * Discover the packages of a new version from the configuration of a previous version, without blocking.
+     * AIP Console is polled with an increasing delay until the packages are available or the discovery timeout is reached.
+     *
+     * @param appGuid             The application GUID
+     * @param sourcePath          The path of the sources of the new version on AIP Console
+     * @param previousVersionGuid The GUID of the version to copy the configuration from
+     * @return The discovered packages, or a future completed with a {@link JobServiceException} if the discovery failed
+     */
+    CompletableFuture<Set<DeliveryPackageDto>> discoverPackages(String appGuid, String sourcePath, String previousVersionGuid);
     
     /**
      * Get the existing {@code }debug options} settings
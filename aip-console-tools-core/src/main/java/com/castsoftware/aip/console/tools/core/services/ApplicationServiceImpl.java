@@ -1,8 +1,6 @@
 package com.castsoftware.aip.console.tools.core.services;
 
-import com.castsoftware.aip.console.tools.core.dto.ApiInfoDto;
 import com.castsoftware.aip.console.tools.core.dto.ApplicationDto;
-import com.castsoftware.aip.console.tools.core.dto.Applications;
 import com.castsoftware.aip.console.tools.core.dto.BaseDto;
 import com.castsoftware.aip.console.tools.core.dto.DebugOptionsDto;
 import com.castsoftware.aip.console.tools.core.dto.DeliveryConfigurationDto;
@@ -11,32 +9,44 @@ import com.castsoftware.aip.console.tools.core.dto.Exclusions;
 import com.castsoftware.aip.console.tools.core.dto.JsonDto;
 import com.castsoftware.aip.console.tools.core.dto.ModuleGenerationType;
 import com.castsoftware.aip.console.tools.core.dto.NodeDto;
-import com.castsoftware.aip.console.tools.core.dto.PendingResultDto;
+import com.castsoftware.aip.console.tools.core.dto.NodeLoad;
+import com.castsoftware.aip.console.tools.core.dto.NodePlacement;
+import com.castsoftware.aip.console.tools.core.dto.ServerCapabilities;
 import com.castsoftware.aip.console.tools.core.dto.VersionDto;
+import com.castsoftware.aip.console.tools.core.dto.VersionIndex;
 import com.castsoftware.aip.console.tools.core.dto.VersionStatus;
 import com.castsoftware.aip.console.tools.core.dto.jobs.DeliveryPackageDto;
-import com.castsoftware.aip.console.tools.core.dto.jobs.DiscoverPackageRequest;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobRequestBuilder;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobState;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatus;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusWithSteps;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobType;
 import com.castsoftware.aip.console.tools.core.exceptions.ApiCallException;
 import com.castsoftware.aip.console.tools.core.exceptions.ApplicationServiceException;
 import com.castsoftware.aip.console.tools.core.exceptions.JobServiceException;
 import com.castsoftware.aip.console.tools.core.exceptions.PackagePathInvalidException;
+import com.castsoftware.aip.console.tools.core.tracing.Span;
+import com.castsoftware.aip.console.tools.core.tracing.Tracer;
 import com.castsoftware.aip.console.tools.core.utils.ApiEndpointHelper;
+import com.castsoftware.aip.console.tools.core.utils.Constants;
 import com.fasterxml.jackson.core.type.TypeReference;
 import lombok.extern.java.Log;
-import okhttp3.Response;
 import org.apache.commons.lang3.StringUtils;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 
@@ -45,10 +55,23 @@ public class ApplicationServiceImpl implements ApplicationService {
 
     private RestApiService restApiService;
     private JobsService jobService;
+    private final ApplicationDirectory applicationDirectory;
+    private final Map<String, CachedVersionIndex> versionIndexes = new ConcurrentHashMap<>();
+    private final PackageDiscovery packageDiscovery;
+    private volatile NodePlacementPolicy nodePlacementPolicy = new LeastLoadedNodePlacementPolicy(null);
 
     public ApplicationServiceImpl(RestApiService restApiService, JobsService jobsService) {
         this.restApiService = restApiService;
         this.jobService = jobsService;
+        this.applicationDirectory = new ApplicationDirectory(restApiService, ApplicationDirectory.DEFAULT_TTL, TimeUnit.MILLISECONDS);
+        this.packageDiscovery = new PackageDiscovery(restApiService, Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "package-discovery");
+            thread.setDaemon(true);
+            return thread;
+        }), PackageDiscovery.DEFAULT_MIN_DELAY, PackageDiscovery.DEFAULT_MAX_DELAY);
+        if (jobsService != null) {
+            jobsService.addJobFinishedListener(this::onJobFinished);
+        }
     }
 
     @Override
@@ -65,31 +88,17 @@ public class ApplicationServiceImpl implements ApplicationService {
 
     @Override
     public ApplicationDto getApplicationFromGuid(String applicationGuid) throws ApplicationServiceException {
-        return getApplications()
-                .getApplications()
-                .stream()
-                .filter(Objects::nonNull)
-                .filter(a -> StringUtils.equalsAnyIgnoreCase(applicationGuid, a.getGuid()))
-                .findFirst()
-                .orElse(null);
+        return applicationDirectory.findByGuid(applicationGuid);
     }
 
     @Override
     public Set<ApplicationDto> findApplicationsByNames(Set<String> applicationNames) throws ApplicationServiceException {
-        Set<String> appNames = applicationNames.stream().map(String::toLowerCase).collect(Collectors.toSet());
-        return getApplications().getApplications().stream()
-                .filter(applicationDto -> appNames.contains(applicationDto.getName().toLowerCase(Locale.ROOT))).collect(Collectors.toSet());
+        return applicationDirectory.findByNames(applicationNames);
     }
 
     @Override
     public ApplicationDto getApplicationFromName(String applicationName) throws ApplicationServiceException {
-        return getApplications()
-                .getApplications()
-                .stream()
-                .filter(Objects::nonNull)
-                .filter(a -> StringUtils.equalsAnyIgnoreCase(applicationName, a.getName()))
-                .findFirst()
-                .orElse(null);
+        return applicationDirectory.findByName(applicationName);
     }
 
     @Override
@@ -111,25 +120,31 @@ public class ApplicationServiceImpl implements ApplicationService {
 
     @Override
     public String getOrCreateApplicationFromName(String applicationName, boolean autoCreate, String nodeName, String domainName, boolean logOutput) throws ApplicationServiceException {
+        return getOrCreateApplicationFromName(applicationName, autoCreate, nodeName, domainName, false, logOutput);
+    }
+
+    @Override
+    public String getOrCreateApplicationFromName(String applicationName, boolean autoCreate, String nodeName, String domainName, boolean autoNodePlacement, boolean logOutput) throws ApplicationServiceException {
         if (StringUtils.isBlank(applicationName)) {
             throw new ApplicationServiceException("No application name provided.");
         }
 
-        Optional<ApplicationDto> appDto = getApplications()
-                .getApplications()
-                .stream()
-                .filter(Objects::nonNull)
-                .filter(a -> StringUtils.equalsAnyIgnoreCase(applicationName, a.getName()))
-                .findFirst();
+        ApplicationDto appDto = applicationDirectory.findByName(applicationName);
+        if (appDto == null && autoCreate && restApiService.evictCachedResponses(ApiEndpointHelper.getApplicationsPath())) {
+            // the application may have been created since the list was cached
+            applicationDirectory.invalidate();
+            appDto = applicationDirectory.findByName(applicationName);
+        }
 
-        if (!appDto.isPresent()) {
+        if (appDto == null) {
             if (!autoCreate) {
                 return null;
             }
             try {
                 String nodeGuid = null;
+                String targetNodeName = nodeName;
                 if (StringUtils.isNotBlank(nodeName)) {
-                    nodeGuid = restApiService.getForEntity("/api/nodes", new TypeReference<List<NodeDto>>() {
+                    nodeGuid = restApiService.getForEntity(ApiEndpointHelper.getNodesPath(), new TypeReference<List<NodeDto>>() {
                     }).stream()
                             .filter(n -> StringUtils.equalsIgnoreCase(nodeName, n.getName()))
                             .map(NodeDto::getGuid)
@@ -138,30 +153,111 @@ public class ApplicationServiceImpl implements ApplicationService {
                     if (nodeGuid == null) {
                         throw new ApplicationServiceException("Node with name " + nodeName + " could not be found on AIP Console to create the new application");
                     }
+                } else if (autoNodePlacement) {
+                    NodeDto node = placeNewApplication(applicationName);
+                    if (node != null) {
+                        nodeGuid = node.getGuid();
+                        targetNodeName = node.getName();
+                    }
                 }
                 String infoMessage = String.format("Application '%s' not found and 'auto create' enabled. Starting application creation", applicationName);
                 if (nodeGuid != null) {
-                    infoMessage += " on node " + nodeName;
+                    infoMessage += " on node " + targetNodeName;
                 }
                 log.info(infoMessage);
 
                 String jobGuid = jobService.startCreateApplication(applicationName, nodeGuid, domainName, false);
-                return jobService.pollAndWaitForJobFinished(jobGuid, (s) -> s.getState() == JobState.COMPLETED ? s.getAppGuid() : null, logOutput);
+                String appGuid = jobService.pollAndWaitForJobFinished(jobGuid, (s) -> s.getState() == JobState.COMPLETED ? s.getAppGuid() : null, logOutput);
+                restApiService.evictCachedResponses(ApiEndpointHelper.getApplicationsPath());
+                applicationDirectory.invalidate();
+                return appGuid;
             } catch (JobServiceException | ApiCallException e) {
                 log.log(Level.SEVERE, "Could not create the application due to the following error", e);
                 throw new ApplicationServiceException("Unable to create application automatically.", e);
             }
         }
-        return appDto.get().getGuid();
+        return appDto.getGuid();
     }
 
-    private Applications getApplications() throws ApplicationServiceException {
-        try {
-            Applications result = restApiService.getForEntity(ApiEndpointHelper.getApplicationsPath(), Applications.class);
-            return result == null ? new Applications() : result;
-        } catch (ApiCallException e) {
-            throw new ApplicationServiceException("Unable to get applications from AIP Console", e);
+    /**
+     * Set the policy choosing the node of the applications created without a node name, when automatic placement is
+     * requested. By default, a {@link LeastLoadedNodePlacementPolicy} without step duration history is used.
+     *
+     * @param nodePlacementPolicy The node placement policy
+     */
+    public void setNodePlacementPolicy(NodePlacementPolicy nodePlacementPolicy) {
+        this.nodePlacementPolicy = nodePlacementPolicy;
+    }
+
+    @Override
+    public NodeDto placeNewApplication(String applicationName) {
+        NodePlacementPolicy policy = nodePlacementPolicy;
+        if (policy == null) {
+            return null;
+        }
+        try (Span span = Tracer.span("node placement")) {
+            List<NodeDto> nodes = restApiService.getForEntity(ApiEndpointHelper.getNodesPath(), new TypeReference<List<NodeDto>>() {
+            });
+            if (nodes == null || nodes.isEmpty()) {
+                log.info("No node found on AIP Console, the node of application '" + applicationName + "' will be chosen by AIP Console");
+                return null;
+            }
+            Map<String, List<JobStatus>> jobsByNode = getRunningJobsByNode(nodes);
+            List<NodeLoad> loads = nodes.stream()
+                    .map(n -> new NodeLoad(n, jobsByNode.get(n.getGuid())))
+                    .collect(Collectors.toList());
+            NodePlacement placement = policy.choose(applicationName, loads);
+            if (placement == null || placement.getNode() == null) {
+                log.info("No node chosen by the placement policy, the node of application '" + applicationName + "' will be chosen by AIP Console");
+                return null;
+            }
+            span.setAttribute("node", placement.getNode().getName());
+            log.info(String.format("Application '%s' will be created on node %s: %s", applicationName, placement.getNode().getName(), placement.getReason()));
+            return placement.getNode();
+        } catch (ApiCallException | ApplicationServiceException | RuntimeException e) {
+            log.log(Level.WARNING, "Unable to choose a node automatically, the node of application '" + applicationName + "' will be chosen by AIP Console", e);
+            return null;
+        }
+    }
+
+    /**
+     * The jobs creating an application give their node in their parameters. The other jobs run on the node of their
+     * application.
+     */
+    private Map<String, List<JobStatus>> getRunningJobsByNode(List<NodeDto> nodes) throws ApiCallException, ApplicationServiceException {
+        List<JobStatus> jobs = restApiService.getForEntity(ApiEndpointHelper.getRunningJobsEndpoint(), new TypeReference<List<JobStatus>>() {
+        });
+        if (jobs == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> nodeGuidsByName = new HashMap<>();
+        for (NodeDto node : nodes) {
+            if (node.getName() != null) {
+                nodeGuidsByName.putIfAbsent(node.getName().toLowerCase(Locale.ROOT), node.getGuid());
+            }
+        }
+        Map<String, List<JobStatus>> jobsByNode = new HashMap<>();
+        int unknownNode = 0;
+        for (JobStatus job : jobs) {
+            Map<String, String> parameters = job.getJobParameters() == null ? Collections.emptyMap() : job.getJobParameters();
+            if (job.getAppGuid() == null) {
+                job.setAppGuid(parameters.get(Constants.PARAM_APP_GUID));
+            }
+            String nodeGuid = parameters.get(Constants.PARAM_NODE_GUID);
+            if (StringUtils.isBlank(nodeGuid)) {
+                ApplicationDto app = applicationDirectory.findByGuid(job.getAppGuid());
+                nodeGuid = app == null || app.getTargetNode() == null ? null : nodeGuidsByName.get(app.getTargetNode().toLowerCase(Locale.ROOT));
+            }
+            if (StringUtils.isBlank(nodeGuid)) {
+                unknownNode++;
+            } else {
+                jobsByNode.computeIfAbsent(nodeGuid, n -> new ArrayList<>()).add(job);
+            }
+        }
+        if (unknownNode > 0) {
+            log.fine(unknownNode + " running jobs have no known node and are not counted in the load of the nodes");
         }
+        return jobsByNode;
     }
 
     @Override
@@ -174,6 +270,17 @@ public class ApplicationServiceImpl implements ApplicationService {
         }
     }
 
+    @Override
+    public VersionIndex getVersionIndex(String appGuid) throws ApplicationServiceException {
+        CachedVersionIndex cached = versionIndexes.get(appGuid);
+        if (cached != null && !cached.isExpired()) {
+            return cached.index;
+        }
+        VersionIndex index = new VersionIndex(getApplicationVersion(appGuid));
+        versionIndexes.put(appGuid, new CachedVersionIndex(index));
+        return index;
+    }
+
     @Override
     public DebugOptionsDto getDebugOptions(String appGuid) throws ApplicationServiceException {
         try {
@@ -213,24 +320,37 @@ public class ApplicationServiceImpl implements ApplicationService {
         updateAmtProfileDebugOption(appGuid, debugOptionsDto.isActivateAmtMemoryProfile());
     }
 
+    /**
+     * Set the maximum time to wait for AIP Console to discover the packages of a new version
+     *
+     * @param timeout The timeout
+     * @param unit    The unit of the timeout
+     */
+    public void setPackageDiscoveryTimeout(long timeout, TimeUnit unit) {
+        packageDiscovery.setTimeout(timeout, unit);
+    }
+
     @Override
     public String createDeliveryConfiguration(String appGuid, String sourcePath, Exclusions exclusions, boolean rescan) throws JobServiceException, PackagePathInvalidException {
-        ApiInfoDto apiInfoDto = restApiService.getAipConsoleApiInfo();
-        try {
+        ServerCapabilities capabilities = restApiService.getServerCapabilities();
+        try (Span span = Tracer.span("delivery configuration")) {
             Set<DeliveryPackageDto> packages = new HashSet<>();
-            VersionDto previousVersion = getApplicationVersion(appGuid)
-                    .stream()
-                    .filter(v -> v.getStatus().ordinal() >= VersionStatus.DELIVERED.ordinal())
-                    .max(Comparator.comparing(VersionDto::getVersionDate)).orElse(null);
+            VersionDto previousVersion = getVersionIndex(appGuid).getLatestVersion(VersionStatus.DELIVERED);
+            boolean copyConfiguration = capabilities.isPackagePathCheckEnabled() && previousVersion != null && rescan;
+            CompletableFuture<Set<DeliveryPackageDto>> discovery = null;
+            if (copyConfiguration) {
+                log.info("Copy configuration from the previous version: " + previousVersion.getName());
+                // AIP Console discovers the packages while the exclusions are prepared
+                discovery = discoverPackages(appGuid, sourcePath, previousVersion.getGuid());
+            }
             Set<String> ignorePatterns = StringUtils.isEmpty(exclusions.getExcludePatterns()) ?
                     Exclusions.getDefaultIgnorePatterns() : Arrays.stream(exclusions.getExcludePatterns().split(",")).collect(Collectors.toSet());
-            if (apiInfoDto.isEnablePackagePathCheck() && previousVersion != null && rescan) {
-                log.info("Copy configuration from the previous version: " + previousVersion.getName());
-                packages = discoverPackages(appGuid, sourcePath, previousVersion.getGuid());
+            if (copyConfiguration) {
                 if (StringUtils.isEmpty(exclusions.getExcludePatterns()) && previousVersion.getDeliveryConfiguration() != null) {
                     ignorePatterns = previousVersion.getDeliveryConfiguration().getIgnorePatterns();
                     exclusions.setExclusionRules(previousVersion.getDeliveryConfiguration().getExclusionRules());
                 }
+                packages = waitForDiscoveredPackages(getApplicationFromGuid(appGuid), discovery);
             }
             DeliveryConfigurationDto deliveryConfigurationDto = DeliveryConfigurationDto.builder()
                     .ignorePatterns(ignorePatterns)
@@ -256,41 +376,47 @@ public class ApplicationServiceImpl implements ApplicationService {
         }
     }
 
-    private Set<DeliveryPackageDto> discoverPackages(String appGuid, String sourcePath, String previousVersionGuid) throws PackagePathInvalidException, JobServiceException {
+    @Override
+    public CompletableFuture<Set<DeliveryPackageDto>> discoverPackages(String appGuid, String sourcePath, String previousVersionGuid) {
+        return packageDiscovery.discover(appGuid, sourcePath, previousVersionGuid);
+    }
+
+    private Set<DeliveryPackageDto> waitForDiscoveredPackages(ApplicationDto app, CompletableFuture<Set<DeliveryPackageDto>> discovery) throws JobServiceException, PackagePathInvalidException {
+        Set<DeliveryPackageDto> packages;
         try {
-            Response resp = restApiService.exchangeForResponse("POST", "/api/applications/" + appGuid + "/delivery-configuration/discover-packages",
-                    DiscoverPackageRequest.builder().previousVersionGuid(previousVersionGuid).sourcePath(sourcePath).build());
-            int status = resp.code();
-            Response packageReponse = null;
-            if (status == 200) {
-                packageReponse = resp;
-            } else if (status == 202) {
-                PendingResultDto resultDto = restApiService.mapResponse(resp, PendingResultDto.class);
-                while (status != 200) {
-                    log.fine("Polling server to get discovered packages...");
-                    Response response = restApiService.exchangeForResponse("GET", "/api/applications/" + appGuid + "/pending-results/" + resultDto.getGuid(), null);
-                    status = response.code();
-
-                    if (status == 200) {
-                        packageReponse = response;
-                        break;
-                    }
-                    Thread.sleep(5000);
-                }
+            packages = discovery.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof JobServiceException) {
+                throw (JobServiceException) e.getCause();
             }
-            if (packageReponse != null) {
-                Set<DeliveryPackageDto> packages = restApiService.mapResponse(packageReponse, new TypeReference<Set<DeliveryPackageDto>>() {
-                });
+            throw new JobServiceException("Error discovering packages", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JobServiceException("Interrupted while waiting for the discovered packages", e);
+        }
+        if (app != null && !app.isInPlaceMode() && packages.stream().anyMatch(p -> p.getPath() == null)) {
+            throw new PackagePathInvalidException(packages.stream().filter(p -> p.getPath() == null).collect(Collectors.toSet()));
+        }
+        return packages;
+    }
 
-                ApplicationDto app = getApplicationFromGuid(appGuid);
-                if (!app.isInPlaceMode() && packages.stream().anyMatch(p -> p.getPath() == null)) {
-                    throw new PackagePathInvalidException(packages.stream().filter(p -> p.getPath() == null).collect(Collectors.toSet()));
-                }
-                return packages;
-            }
-            return Collections.emptySet();
-        } catch (ApiCallException | InterruptedException | ApplicationServiceException e) {
-            throw new JobServiceException("Error discovering packages", e);
+    private void onJobFinished(JobStatusWithSteps jobStatus) {
+        // the list of applications changes with these jobs
+        if (JobType.DECLARE_APPLICATION.getSerializableValue().equals(jobStatus.getJobType())
+                || JobType.DELETE_APPLICATION.getSerializableValue().equals(jobStatus.getJobType())) {
+            restApiService.evictCachedResponses(ApiEndpointHelper.getApplicationsPath());
+            applicationDirectory.invalidate();
+        }
+        String appGuid = jobStatus.getAppGuid();
+        if (appGuid == null && jobStatus.getJobParameters() != null) {
+            appGuid = jobStatus.getJobParameters().get(Constants.PARAM_APP_GUID);
+        }
+        if (appGuid == null) {
+            restApiService.evictCachedResponses(ApiEndpointHelper.getApplicationsPath());
+            versionIndexes.clear();
+        } else {
+            restApiService.evictCachedResponses(ApiEndpointHelper.getApplicationVersionsPath(appGuid));
+            versionIndexes.remove(appGuid);
         }
     }
 
@@ -336,4 +462,16 @@ public class ApplicationServiceImpl implements ApplicationService {
         }
     }
 
+    private static class CachedVersionIndex {
+        private final VersionIndex index;
+        private final long loadTime = System.nanoTime();
+
+        private CachedVersionIndex(VersionIndex index) {
+            this.index = index;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - loadTime >= TimeUnit.MILLISECONDS.toNanos(ApplicationDirectory.DEFAULT_TTL);
+        }
+    }
 }
@@ -0,0 +1,415 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.java.Log;
+import org.apache.commons.io.output.CountingOutputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Writes the changes between a previous export of the settings and the current one.
+ * <p>
+ * Both documents are streamed once to index their entities : the top level properties such as the settings, the
+ * exclusion templates, the domains, the applications, and the versions and job executions of each application. Each
+ * entity only keeps its key (its GUID, or its name when it has none), a digest of its content and its position in the
+ * current document, so the memory used depends on the number of entities, not on the size of the documents. The two
+ * indexes are sorted by key and merged, and the added or changed entities are copied from their position in the
+ * current document.
+ * <p>
+ * The content of the domains excludes their applications, and the content of the applications excludes their versions
+ * and job executions, which are compared on their own. The digests ignore the order of the object properties and of
+ * the array elements, as many arrays of the export are sets serialized in no particular order.
+ */
+@Log
+class ExportDiff {
+    private static final String DOMAINS = "domains";
+    private static final String APPLICATIONS = "applications";
+    private static final String VERSIONS = "versions";
+    private static final String JOB_EXECUTIONS = "jobExecutions";
+    private static final String EXCLUSION_TEMPLATES = "exclusionTemplates";
+    private static final Comparator<byte[]> DIGEST_ORDER = (a, b) -> {
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            if (a[i] != b[i]) {
+                return Byte.compare(a[i], b[i]);
+            }
+        }
+        return Integer.compare(a.length, b.length);
+    };
+
+    private final ObjectMapper mapper;
+    private final JsonFactory factory;
+
+    ExportDiff(ObjectMapper mapper) {
+        this.mapper = mapper;
+        this.factory = mapper.getFactory();
+    }
+
+    /**
+     * @param previous The previous export, which may be gzip-compressed
+     * @param current  The current export, not compressed
+     * @param out      The stream to which the changes are written. It is closed once the changes are written.
+     * @return The size of the changes
+     * @throws IOException If an export could not be read, or the changes could not be written
+     */
+    long write(Path previous, Path current, OutputStream out) throws IOException {
+        List<Entity> previousEntities;
+        try (InputStream in = openInput(previous)) {
+            previousEntities = new Indexer(null).read(in);
+        }
+        List<Entity> currentEntities;
+        try (InputStream in = Files.newInputStream(current)) {
+            currentEntities = new Indexer(current).read(in);
+        }
+        List<Change> changes = compare(previousEntities, currentEntities);
+
+        Map<EntityType, int[]> counts = new EnumMap<>(EntityType.class);
+        for (EntityType type : EntityType.values()) {
+            counts.put(type, new int[ChangeType.values().length]);
+        }
+        for (Change change : changes) {
+            counts.get(change.entity.type)[change.type.ordinal()]++;
+        }
+        StringBuilder summary = new StringBuilder();
+        for (EntityType type : EntityType.values()) {
+            int[] count = counts.get(type);
+            if (count[ChangeType.ADDED.ordinal()] + count[ChangeType.CHANGED.ordinal()] + count[ChangeType.REMOVED.ordinal()] > 0) {
+                summary.append(String.format("%n- %s: %d added, %d changed, %d removed", type.name, count[ChangeType.ADDED.ordinal()],
+                        count[ChangeType.CHANGED.ordinal()], count[ChangeType.REMOVED.ordinal()]));
+            }
+        }
+        log.info("Changes since " + previous.getFileName() + ":" + (summary.length() == 0 ? " none" : summary));
+
+        CountingOutputStream countingStream = new CountingOutputStream(out);
+        try (JsonGenerator generator = factory.createGenerator(countingStream, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeStringField("previous", previous.getFileName().toString());
+            generator.writeObjectFieldStart("summary");
+            for (EntityType type : EntityType.values()) {
+                generator.writeObjectFieldStart(type.name);
+                for (ChangeType changeType : ChangeType.values()) {
+                    generator.writeNumberField(changeType.name, counts.get(type)[changeType.ordinal()]);
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+            generator.writeArrayFieldStart("changes");
+            for (Change change : changes) {
+                if (change.type == ChangeType.UNCHANGED) {
+                    continue;
+                }
+                generator.writeStartObject();
+                generator.writeStringField("type", change.entity.type.name);
+                generator.writeStringField("change", change.type.name);
+                generator.writeStringField("key", change.entity.key);
+                if (change.entity.parent != null) {
+                    generator.writeStringField("parent", change.entity.parent);
+                }
+                if (change.type != ChangeType.REMOVED) {
+                    generator.writeFieldName("value");
+                    copyValue(generator, current, change.entity);
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        return countingStream.getByteCount();
+    }
+
+    private static List<Change> compare(List<Entity> previous, List<Entity> current) {
+        Collections.sort(previous);
+        Collections.sort(current);
+        List<Change> changes = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < previous.size() || j < current.size()) {
+            int order = i == previous.size() ? 1 : j == current.size() ? -1 : previous.get(i).compareTo(current.get(j));
+            if (order < 0) {
+                changes.add(new Change(ChangeType.REMOVED, previous.get(i++)));
+            } else if (order > 0) {
+                changes.add(new Change(ChangeType.ADDED, current.get(j++)));
+            } else {
+                boolean changed = !Arrays.equals(previous.get(i++).digest, current.get(j).digest);
+                changes.add(new Change(changed ? ChangeType.CHANGED : ChangeType.UNCHANGED, current.get(j++)));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Copy the content of an entity from its position in the file, without its children compared on their own
+     */
+    private void copyValue(JsonGenerator generator, Path file, Entity entity) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             JsonParser parser = factory.createParser(Channels.newInputStream(channel.position(entity.offset)))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT || entity.type.children.isEmpty()) {
+                generator.copyCurrentStructure(parser);
+                return;
+            }
+            generator.writeStartObject();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                if (entity.type.children.contains(name)) {
+                    parser.skipChildren();
+                } else {
+                    generator.writeFieldName(name);
+                    generator.copyCurrentStructure(parser);
+                }
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    private static InputStream openInput(Path file) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(file));
+        in.mark(2);
+        boolean gzip = in.read() == 0x1f && in.read() == 0x8b;
+        in.reset();
+        return gzip ? new GZIPInputStream(in) : in;
+    }
+
+    /**
+     * A digest of the content of a node, ignoring the order of the object properties and of the array elements
+     */
+    private static byte[] digest(JsonNode node) {
+        MessageDigest digest = newDigest();
+        if (node.isObject()) {
+            digest.update((byte) '{');
+            List<String> names = new ArrayList<>();
+            node.fieldNames().forEachRemaining(names::add);
+            Collections.sort(names);
+            for (String name : names) {
+                digest.update(name.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) ':');
+                digest.update(digest(node.get(name)));
+            }
+        } else if (node.isArray()) {
+            digest.update((byte) '[');
+            List<byte[]> elements = new ArrayList<>();
+            node.forEach(element -> elements.add(digest(element)));
+            elements.sort(DIGEST_ORDER);
+            elements.forEach(digest::update);
+        } else {
+            digest.update(node.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    /**
+     * @return The GUID of the entity, or the first of the other properties it has
+     */
+    private static String getKey(JsonNode node, String... otherProperties) {
+        JsonNode guid = node.get("guid");
+        if (guid != null && !guid.isNull()) {
+            return guid.asText();
+        }
+        for (String property : otherProperties) {
+            JsonNode value = node.get(property);
+            if (value != null && !value.isNull()) {
+                return property + ":" + value.asText();
+            }
+        }
+        return "";
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private enum EntityType {
+        PROPERTY("properties"),
+        EXCLUSION_TEMPLATE(EXCLUSION_TEMPLATES),
+        DOMAIN(DOMAINS, APPLICATIONS),
+        APPLICATION(APPLICATIONS, VERSIONS, JOB_EXECUTIONS),
+        VERSION(VERSIONS),
+        JOB_EXECUTION(JOB_EXECUTIONS);
+
+        private final String name;
+        // the properties of the entity which are compared as entities of their own
+        private final List<String> children;
+
+        EntityType(String name, String... children) {
+            this.name = name;
+            this.children = Arrays.asList(children);
+        }
+    }
+
+    private enum ChangeType {
+        ADDED("added"),
+        CHANGED("changed"),
+        REMOVED("removed"),
+        UNCHANGED("unchanged");
+
+        private final String name;
+
+        ChangeType(String name) {
+            this.name = name;
+        }
+    }
+
+    private static class Entity implements Comparable<Entity> {
+        private final EntityType type;
+        private final String key;
+        private final byte[] digest;
+        private final long offset;
+        private String parent;
+
+        private Entity(EntityType type, String key, byte[] digest, long offset) {
+            this.type = type;
+            this.key = key;
+            this.digest = digest;
+            this.offset = offset;
+        }
+
+        @Override
+        public int compareTo(Entity other) {
+            int order = type.compareTo(other.type);
+            return order != 0 ? order : key.compareTo(other.key);
+        }
+    }
+
+    private static class Change {
+        private final ChangeType type;
+        private final Entity entity;
+
+        private Change(ChangeType type, Entity entity) {
+            this.type = type;
+            this.entity = entity;
+        }
+    }
+
+    private class Indexer {
+        // the file whose entities are copied, for which their positions are kept
+        private final Path file;
+        private final List<Entity> entities = new ArrayList<>();
+        private JsonParser parser;
+
+        private Indexer(Path file) {
+            this.file = file;
+        }
+
+        private List<Entity> read(InputStream in) throws IOException {
+            try (JsonParser jsonParser = factory.createParser(in)) {
+                parser = jsonParser;
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    throw new JsonParseException(parser, "The exported settings are not an object");
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    JsonToken value = parser.nextToken();
+                    if (value == JsonToken.VALUE_NULL) {
+                        continue;
+                    }
+                    if (DOMAINS.equals(name) && value == JsonToken.START_ARRAY) {
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            readEntity(EntityType.DOMAIN, "name");
+                        }
+                    } else if (EXCLUSION_TEMPLATES.equals(name) && value == JsonToken.START_ARRAY) {
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            long offset = getOffset();
+                            JsonNode template = mapper.readTree(parser);
+                            byte[] digest = digest(template);
+                            String key = template.hasNonNull("name") ? template.get("name").asText() : toHex(digest);
+                            entities.add(new Entity(EntityType.EXCLUSION_TEMPLATE, key, digest, offset));
+                        }
+                    } else {
+                        long offset = getOffset();
+                        entities.add(new Entity(EntityType.PROPERTY, name, digest(mapper.readTree(parser)), offset));
+                    }
+                }
+            }
+            return entities;
+        }
+
+        /**
+         * Read the entity starting at the current token, with its children
+         */
+        private void readEntity(EntityType type, String... otherKeyProperties) throws IOException {
+            long offset = getOffset();
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "The " + type.name + " of the exported settings should be objects");
+            }
+            ObjectNode content = mapper.createObjectNode();
+            List<Entity> children = new ArrayList<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (type.children.contains(name)) {
+                    if (value == JsonToken.START_ARRAY) {
+                        int first = entities.size();
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            readChild(name);
+                        }
+                        children.addAll(entities.subList(first, entities.size()));
+                    } else {
+                        parser.skipChildren();
+                    }
+                } else {
+                    content.set(name, mapper.readTree(parser));
+                }
+            }
+            String key = getKey(content, otherKeyProperties);
+            for (Entity child : children) {
+                if (child.parent == null) {
+                    child.parent = key;
+                }
+            }
+            entities.add(new Entity(type, key, digest(content), offset));
+        }
+
+        private void readChild(String property) throws IOException {
+            if (APPLICATIONS.equals(property)) {
+                readEntity(EntityType.APPLICATION, "name");
+            } else {
+                long offset = getOffset();
+                JsonNode content = mapper.readTree(parser);
+                EntityType type = VERSIONS.equals(property) ? EntityType.VERSION : EntityType.JOB_EXECUTION;
+                entities.add(new Entity(type, getKey(content, "name", "title"), digest(content), offset));
+            }
+        }
+
+        private long getOffset() {
+            return file == null ? -1 : parser.getTokenLocation().getByteOffset();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.commons.io.output.CountingOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Merges the exported settings of several batches of applications into a single document.
+ * <p>
+ * The files are read twice. The first pass only keeps the position of the large values (the settings and each
+ * application) in the files, with the small ones: the exclusion templates and the properties of the domains. The
+ * second pass writes the merged document, copying each large value token by token from its position in its file, so
+ * no more than one file is read at a time and no application is ever held in memory.
+ * <p>
+ * The first value of a property found in the files is kept, e.g. the settings, which are the same for all the batches.
+ * The exclusion templates are deduplicated, and the applications of a domain found in several files are grouped under
+ * that domain.
+ */
+class ExportMerger {
+    private static final String DOMAINS = "domains";
+    private static final String APPLICATIONS = "applications";
+    private static final String EXCLUSION_TEMPLATES = "exclusionTemplates";
+
+    private final ObjectMapper mapper;
+    private final JsonFactory factory;
+
+    ExportMerger(ObjectMapper mapper) {
+        this.mapper = mapper;
+        this.factory = mapper.getFactory();
+    }
+
+    /**
+     * @param files The exported settings to merge
+     * @param out   The stream to which the merged document is written. It is closed once the document is written.
+     * @return The size of the merged document
+     * @throws IOException If a file could not be read, or the merged document could not be written
+     */
+    long merge(List<Path> files, OutputStream out) throws IOException {
+        Index index = new Index();
+        for (Path file : files) {
+            index.read(file);
+        }
+
+        CountingOutputStream countingStream = new CountingOutputStream(out);
+        try (JsonGenerator generator = factory.createGenerator(countingStream, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            for (Map.Entry<String, ValuePosition> property : index.properties.entrySet()) {
+                generator.writeFieldName(property.getKey());
+                if (DOMAINS.equals(property.getKey())) {
+                    writeDomains(generator, index.domains);
+                } else if (EXCLUSION_TEMPLATES.equals(property.getKey())) {
+                    generator.writeStartArray();
+                    for (JsonNode template : index.exclusionTemplates) {
+                        generator.writeTree(template);
+                    }
+                    generator.writeEndArray();
+                } else {
+                    copyValue(generator, property.getValue());
+                }
+            }
+            generator.writeEndObject();
+        }
+        return countingStream.getByteCount();
+    }
+
+    private void writeDomains(JsonGenerator generator, Map<String, Domain> domains) throws IOException {
+        generator.writeStartArray();
+        for (Domain domain : domains.values()) {
+            generator.writeStartObject();
+            Iterator<Map.Entry<String, JsonNode>> fields = domain.properties.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                generator.writeFieldName(field.getKey());
+                generator.writeTree(field.getValue());
+            }
+            generator.writeFieldName(APPLICATIONS);
+            generator.writeStartArray();
+            for (ValuePosition application : domain.applications) {
+                copyValue(generator, application);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    private void copyValue(JsonGenerator generator, ValuePosition position) throws IOException {
+        try (FileChannel channel = FileChannel.open(position.file, StandardOpenOption.READ);
+             JsonParser parser = factory.createParser(Channels.newInputStream(channel.position(position.offset)))) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        }
+    }
+
+    /**
+     * The position of a value in a file
+     */
+    private static class ValuePosition {
+        private final Path file;
+        private final long offset;
+
+        private ValuePosition(Path file, long offset) {
+            this.file = file;
+            this.offset = offset;
+        }
+    }
+
+    private static class Domain {
+        private final ObjectNode properties;
+        private final List<ValuePosition> applications = new ArrayList<>();
+
+        private Domain(ObjectNode properties) {
+            this.properties = properties;
+        }
+    }
+
+    private class Index {
+        // the position of the first value of each property, in the order the properties were found. The domains and
+        // the exclusion templates, which are merged, have no position
+        private final Map<String, ValuePosition> properties = new LinkedHashMap<>();
+        private final Map<String, Domain> domains = new LinkedHashMap<>();
+        private final Set<JsonNode> exclusionTemplates = new LinkedHashSet<>();
+
+        private void read(Path file) throws IOException {
+            try (JsonParser parser = factory.createParser(file.toFile())) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    throw new JsonParseException(parser, "The exported settings are not an object");
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    JsonToken value = parser.nextToken();
+                    if (DOMAINS.equals(name) && value == JsonToken.START_ARRAY) {
+                        properties.putIfAbsent(name, null);
+                        readDomains(parser, file);
+                    } else if (EXCLUSION_TEMPLATES.equals(name) && value == JsonToken.START_ARRAY) {
+                        properties.putIfAbsent(name, null);
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            exclusionTemplates.add(mapper.readTree(parser));
+                        }
+                    } else {
+                        if (value != JsonToken.VALUE_NULL && !properties.containsKey(name)) {
+                            properties.put(name, new ValuePosition(file, parser.getTokenLocation().getByteOffset()));
+                        }
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+
+        private void readDomains(JsonParser parser, Path file) throws IOException {
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                ObjectNode domainProperties = mapper.createObjectNode();
+                List<ValuePosition> applications = new ArrayList<>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    JsonToken value = parser.nextToken();
+                    if (APPLICATIONS.equals(name)) {
+                        if (value == JsonToken.START_ARRAY) {
+                            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                                applications.add(new ValuePosition(file, parser.getTokenLocation().getByteOffset()));
+                                parser.skipChildren();
+                            }
+                        }
+                    } else {
+                        domainProperties.set(name, mapper.readTree(parser));
+                    }
+                }
+                domains.computeIfAbsent(getDomainKey(domainProperties), k -> new Domain(domainProperties))
+                        .applications.addAll(applications);
+            }
+        }
+
+        private String getDomainKey(ObjectNode domain) {
+            JsonNode guid = domain.get("guid");
+            if (guid != null && !guid.isNull()) {
+                return "guid:" + guid.asText();
+            }
+            JsonNode name = domain.get("name");
+            return name == null || name.isNull() ? "" : "name:" + name.asText();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+/**
+ * Polling scheduler that always waits the same amount of time between two status checks
+ */
+public class FixedJobPollingScheduler implements JobPollingScheduler {
+    private final long pollingSleepDuration;
+
+    public FixedJobPollingScheduler(long pollingSleepDuration) {
+        this.pollingSleepDuration = pollingSleepDuration;
+    }
+
+    @Override
+    public long getNextPollDelay(int pollCount, String currentStep, long stepElapsedMillis) {
+        return pollingSleepDuration;
+    }
+
+    @Override
+    public void onStepCompleted(String step, long durationMillis) {
+        // nothing to learn
+    }
+}
@@ -0,0 +1,32 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStepType;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * Step duration history kept in memory, using an exponential moving average of the recorded durations
+ * so recent runs weigh more than older ones.
+ */
+public class InMemoryStepDurationHistory implements StepDurationHistory {
+    private static final double SMOOTHING_FACTOR = 0.3;
+
+    private final Map<JobStepType, Long> expectedDurations = new EnumMap<>(JobStepType.class);
+
+    @Override
+    public synchronized void record(JobStepType stepType, long durationMillis) {
+        if (stepType == null || durationMillis < 0) {
+            return;
+        }
+        expectedDurations.merge(stepType, durationMillis,
+                (previous, current) -> Math.round(SMOOTHING_FACTOR * current + (1 - SMOOTHING_FACTOR) * previous));
+    }
+
+    @Override
+    public synchronized OptionalLong getExpectedDuration(JobStepType stepType) {
+        Long expected = stepType == null ? null : expectedDurations.get(stepType);
+        return expected == null ? OptionalLong.empty() : OptionalLong.of(expected);
+    }
+}
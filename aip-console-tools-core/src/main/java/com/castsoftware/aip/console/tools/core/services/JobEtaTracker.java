@@ -0,0 +1,128 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusWithSteps;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStepType;
+import com.castsoftware.aip.console.tools.core.utils.Constants;
+import com.castsoftware.aip.console.tools.core.utils.VersionObjective;
+import lombok.extern.java.Log;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the step durations of a job in a {@link StepDurationStore}, and logs the estimated remaining time of the
+ * job each time it moves to another step.
+ */
+@Log
+class JobEtaTracker {
+    private final StepDurationStore store;
+    private final long archiveSize;
+
+    /**
+     * @param store       The store of the step durations
+     * @param archiveSize The size of the source archive delivered by the job, 0 if unknown
+     */
+    JobEtaTracker(StepDurationStore store, long archiveSize) {
+        this.store = store;
+        this.archiveSize = archiveSize;
+    }
+
+    void onStepCompleted(JobStatusWithSteps jobStatus, String step, long durationMillis) {
+        JobStepType stepType = toStepType(step);
+        if (stepType != null) {
+            store.record(getAppGuid(jobStatus), stepType, durationMillis, archiveSize, getObjectives(jobStatus));
+        }
+    }
+
+    void onStepStarted(JobStatusWithSteps jobStatus, String step) {
+        List<String> remainingSteps = getRemainingSteps(jobStatus.getFullSteps(), step);
+        String appGuid = getAppGuid(jobStatus);
+        Set<VersionObjective> objectives = getObjectives(jobStatus);
+
+        long totalMillis = 0;
+        int unknownSteps = 0;
+        List<String> estimates = new ArrayList<>();
+        for (String remainingStep : remainingSteps) {
+            OptionalLong expected = store.getExpectedDuration(appGuid, toStepType(remainingStep), archiveSize, objectives);
+            if (expected.isPresent()) {
+                totalMillis += expected.getAsLong();
+                estimates.add(remainingStep + " ~" + formatDuration(expected.getAsLong()));
+            } else {
+                unknownSteps++;
+                estimates.add(remainingStep + " ?");
+            }
+        }
+        if (unknownSteps == remainingSteps.size()) {
+            // nothing known yet about this kind of job
+            return;
+        }
+        String message = "Estimated remaining time : ~" + formatDuration(totalMillis) + " (" + String.join(", ", estimates) + ")";
+        if (unknownSteps > 0) {
+            message += ". No history for " + unknownSteps + " of the remaining steps";
+        }
+        log.info(message);
+    }
+
+    static List<String> getRemainingSteps(List<String> fullSteps, String currentStep) {
+        if (fullSteps == null) {
+            return Collections.singletonList(currentStep);
+        }
+        for (int i = 0; i < fullSteps.size(); i++) {
+            if (StringUtils.equalsIgnoreCase(fullSteps.get(i), currentStep)) {
+                return fullSteps.subList(i, fullSteps.size());
+            }
+        }
+        return Collections.singletonList(currentStep);
+    }
+
+    static String formatDuration(long millis) {
+        long seconds = TimeUnit.MILLISECONDS.toSeconds(millis);
+        if (seconds < 60) {
+            return seconds + "s";
+        }
+        long minutes = seconds / 60;
+        if (minutes < 60) {
+            return String.format("%dm %02ds", minutes, seconds % 60);
+        }
+        return String.format("%dh %02dm", minutes / 60, minutes % 60);
+    }
+
+    private static String getAppGuid(JobStatusWithSteps jobStatus) {
+        if (StringUtils.isNotBlank(jobStatus.getAppGuid())) {
+            return jobStatus.getAppGuid();
+        }
+        Map<String, String> parameters = jobStatus.getJobParameters();
+        return parameters == null ? null : parameters.get(Constants.PARAM_APP_GUID);
+    }
+
+    private static Set<VersionObjective> getObjectives(JobStatusWithSteps jobStatus) {
+        Set<VersionObjective> objectives = EnumSet.noneOf(VersionObjective.class);
+        Map<String, String> parameters = jobStatus.getJobParameters();
+        String joined = parameters == null ? null : parameters.get(Constants.PARAM_VERSION_OBJECTIVES);
+        if (StringUtils.isNotBlank(joined)) {
+            for (String objective : joined.split(VersionObjective.OBJECTIVES_DELIMITER)) {
+                try {
+                    objectives.add(VersionObjective.fromString(objective.trim()));
+                } catch (IllegalArgumentException e) {
+                    log.fine("Unknown version objective " + objective);
+                }
+            }
+        }
+        return objectives;
+    }
+
+    private static JobStepType toStepType(String step) {
+        try {
+            return JobStepType.fromString(step);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobState;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusProjection;
+import com.castsoftware.aip.console.tools.core.exceptions.ApiCallException;
+import com.castsoftware.aip.console.tools.core.exceptions.JobServiceException;
+import com.castsoftware.aip.console.tools.core.utils.ApiEndpointHelper;
+import lombok.extern.java.Log;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+
+/**
+ * Keeps track of the jobs being followed by this process, so they can all be cancelled when the process is stopped.
+ * <p>
+ * The jobs are cancelled concurrently, and each job status is then checked until the job is no longer running, or until
+ * the end of the grace period. The jobs that could not be confirmed as stopped are reported, to be cancelled manually.
+ */
+@Log
+public class JobLifecycleManager {
+    public static final long DEFAULT_GRACE_PERIOD = TimeUnit.SECONDS.toMillis(30);
+    static final long CONFIRMATION_POLL_INTERVAL = TimeUnit.SECONDS.toMillis(1);
+    private static final int MAX_CANCEL_THREADS = 8;
+
+    private final JobsService jobsService;
+    private final RestApiService restApiService;
+    private final Set<String> inFlightJobs = ConcurrentHashMap.newKeySet();
+    private Thread shutdownHook;
+
+    public JobLifecycleManager(JobsService jobsService, RestApiService restApiService) {
+        this.jobsService = jobsService;
+        this.restApiService = restApiService;
+    }
+
+    /**
+     * Register a job which must be cancelled if the process is stopped
+     *
+     * @param jobGuid The GUID of the job
+     */
+    public void register(String jobGuid) {
+        inFlightJobs.add(jobGuid);
+    }
+
+    /**
+     * Stop tracking a job, once it is finished or no longer followed
+     *
+     * @param jobGuid The GUID of the job
+     */
+    public void unregister(String jobGuid) {
+        inFlightJobs.remove(jobGuid);
+    }
+
+    /**
+     * @return The GUIDs of the jobs currently tracked
+     */
+    public Set<String> getInFlightJobs() {
+        return Collections.unmodifiableSet(new HashSet<>(inFlightJobs));
+    }
+
+    /**
+     * Register a single shutdown hook cancelling all the tracked jobs when the JVM is stopped (e.g. SIGTERM or CTRL+C).
+     * Calling this method again has no effect.
+     *
+     * @param gracePeriod The maximum time to wait for the cancellation of the jobs
+     * @param unit        The unit of the grace period
+     */
+    public synchronized void installShutdownHook(long gracePeriod, TimeUnit unit) {
+        if (shutdownHook != null) {
+            return;
+        }
+        long gracePeriodMillis = unit.toMillis(gracePeriod);
+        shutdownHook = new Thread(() -> {
+            if (!inFlightJobs.isEmpty()) {
+                log.info("Received termination signal. Cancelling currently running jobs on AIP Console and exiting.");
+                cancelAll(gracePeriodMillis, TimeUnit.MILLISECONDS);
+            }
+        }, "job-cancellation");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Remove the shutdown hook, if it was installed
+     */
+    public synchronized void removeShutdownHook() {
+        if (shutdownHook != null) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // shutdown already in progress
+                log.fine("Unable to remove the shutdown hook : " + e.getMessage());
+            }
+            shutdownHook = null;
+        }
+    }
+
+    /**
+     * Cancel all the tracked jobs concurrently, and wait until they are no longer running
+     *
+     * @param gracePeriod The maximum time to wait for the cancellation of the jobs
+     * @param unit        The unit of the grace period
+     * @return The GUIDs of the jobs which could not be confirmed as stopped
+     */
+    public Set<String> cancelAll(long gracePeriod, TimeUnit unit) {
+        Set<String> jobGuids = getInFlightJobs();
+        if (jobGuids.isEmpty()) {
+            return Collections.emptySet();
+        }
+        long deadline = System.currentTimeMillis() + unit.toMillis(gracePeriod);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(jobGuids.size(), MAX_CANCEL_THREADS), r -> {
+            Thread thread = new Thread(r, "job-cancellation-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Map<String, CompletableFuture<JobState>> cancellations = new LinkedHashMap<>();
+        try {
+            for (String jobGuid : jobGuids) {
+                cancellations.put(jobGuid, CompletableFuture.supplyAsync(() -> cancel(jobGuid, deadline), executor));
+            }
+            Set<String> failedJobs = new HashSet<>();
+            for (Map.Entry<String, CompletableFuture<JobState>> cancellation : cancellations.entrySet()) {
+                JobState finalState = getFinalState(cancellation.getValue(), deadline);
+                String jobGuid = cancellation.getKey();
+                if (finalState == null) {
+                    failedJobs.add(jobGuid);
+                } else {
+                    log.info("Job " + jobGuid + " is " + finalState);
+                    inFlightJobs.remove(jobGuid);
+                }
+            }
+            if (!failedJobs.isEmpty()) {
+                log.severe("Unable to confirm the cancellation of the following jobs on AIP Console. Please cancel them manually : " +
+                        String.join(", ", failedJobs));
+            }
+            return failedJobs;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Request the cancellation of a job, and check its status until it is no longer running
+     *
+     * @return The final state of the job, or null if it couldn't be confirmed before the deadline
+     */
+    private JobState cancel(String jobGuid, long deadline) {
+        try {
+            jobsService.cancelJob(jobGuid);
+        } catch (JobServiceException e) {
+            log.log(Level.WARNING, "Cannot cancel the job " + jobGuid + " on AIP Console", e);
+            // the job might have finished in the meantime, check its status anyway
+        }
+        String jobDetailsEndpoint = ApiEndpointHelper.getJobDetailsEndpoint(jobGuid);
+        while (true) {
+            try {
+                JobStatusProjection status = restApiService.getForEntity(jobDetailsEndpoint, JobStatusProjection.class);
+                if (status != null && isStopped(status.getState())) {
+                    return status.getState();
+                }
+            } catch (ApiCallException e) {
+                log.log(Level.FINE, "Unable to get the status of job " + jobGuid, e);
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return null;
+            }
+            try {
+                Thread.sleep(Math.min(CONFIRMATION_POLL_INTERVAL, remaining));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    private static boolean isStopped(JobState state) {
+        // a job being cancelled is still running
+        return state != null && !Arrays.asList(JobState.getInProgressStates()).contains(state);
+    }
+
+    private static JobState getFinalState(CompletableFuture<JobState> cancellation, long deadline) {
+        try {
+            return cancellation.get(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.castsoftware.aip.console.tools.core.dto.jobs.LogContentDto;
+import com.castsoftware.aip.console.tools.core.dto.jobs.LogLine;
+import com.castsoftware.aip.console.tools.core.utils.LogUtils;
+import lombok.extern.java.Log;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.io.output.CountingOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.SequenceInputStream;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local, gzip-compressed archive of the logs of a job.
+ * <p>
+ * Log lines are handed over to a background writer through a bounded queue, so archiving never blocks the caller :
+ * when the queue is full, the lines are dropped and counted instead.
+ * <p>
+ * The archive is stored in a folder named after the job GUID, and is made of :
+ * <ul>
+ *     <li>part files ({@code part-001.log.gz}, {@code part-002.log.gz}...), a new part being started once the
+ *     current one exceeds the maximum size. Each step starts a new gzip member in the current part.</li>
+ *     <li>an index file ({@code index.tsv}) giving, for each step, the part file, the offset of the gzip member in
+ *     that file and the line of the step log it starts with. It allows reading the log of one step without
+ *     decompressing the whole archive, see {@link #openStepLog(Path, String)}</li>
+ * </ul>
+ * Sensitive information is removed from the lines before they are written.
+ */
+@Log
+public class JobLogArchive implements Closeable {
+    public static final long DEFAULT_MAX_PART_SIZE = 64L * 1024 * 1024;
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    public static final String INDEX_FILE_NAME = "index.tsv";
+    private static final String INDEX_HEADER = "# step\tpart\toffset\tfirstLine";
+    private static final Entry END_OF_ARCHIVE = new Entry(null, Collections.emptyList());
+
+    private final Path directory;
+    private final long maxPartSize;
+    private final BlockingQueue<Entry> queue;
+    private final Thread writerThread;
+    private final AtomicLong droppedLines = new AtomicLong();
+    private volatile boolean closed;
+
+    // only accessed by the writer thread
+    private int partNumber;
+    private CountingOutputStream partOutput;
+    private Writer memberWriter;
+    private GZIPOutputStream memberOutput;
+    private Writer indexWriter;
+    private String currentStep;
+    private long currentStepLines;
+
+    public JobLogArchive(Path baseDirectory, String jobGuid) throws IOException {
+        this(baseDirectory, jobGuid, DEFAULT_MAX_PART_SIZE, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public JobLogArchive(Path baseDirectory, String jobGuid, long maxPartSize, int queueCapacity) throws IOException {
+        this.directory = baseDirectory.resolve(jobGuid);
+        this.maxPartSize = maxPartSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        Files.createDirectories(directory);
+        this.indexWriter = Files.newBufferedWriter(directory.resolve(INDEX_FILE_NAME), StandardCharsets.UTF_8);
+        this.indexWriter.write(INDEX_HEADER);
+        this.indexWriter.write('\n');
+        this.writerThread = new Thread(this::writeEntries, "job-log-archive-" + jobGuid);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * @return The folder containing the archive
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return The number of lines that were not archived because the writer couldn't keep up
+     */
+    public long getDroppedLines() {
+        return droppedLines.get();
+    }
+
+    /**
+     * Adds the given log content to the archive, without waiting for it to be written
+     *
+     * @param step    The step the log content belongs to
+     * @param content The log content
+     */
+    public void append(String step, LogContentDto content) {
+        if (closed || content == null || content.getLines() == null || content.getLines().isEmpty()) {
+            return;
+        }
+        List<String> lines = content.getLines().stream().map(LogLine::getContent).collect(Collectors.toList());
+        if (!queue.offer(new Entry(step, lines))) {
+            droppedLines.addAndGet(lines.size());
+        }
+    }
+
+    /**
+     * Writes the remaining queued lines, and closes the archive files
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(END_OF_ARCHIVE);
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writerThread.interrupt();
+        }
+        if (droppedLines.get() > 0) {
+            log.warning(droppedLines.get() + " log lines could not be archived");
+        }
+    }
+
+    /**
+     * Opens the archived log of a step
+     *
+     * @param archiveDirectory The folder of the archive, as returned by {@link #getDirectory()}
+     * @param step             The step
+     * @return The uncompressed log of the step
+     * @throws IOException If the step isn't in the archive, or the archive cannot be read
+     */
+    public static InputStream openStepLog(Path archiveDirectory, String step) throws IOException {
+        List<String[]> index = Files.readAllLines(archiveDirectory.resolve(INDEX_FILE_NAME), StandardCharsets.UTF_8)
+                .stream()
+                .filter(line -> !line.startsWith("#") && !line.isEmpty())
+                .map(line -> line.split("\t"))
+                .collect(Collectors.toList());
+        List<InputStream> members = new ArrayList<>();
+        try {
+            for (int i = 0; i < index.size(); i++) {
+                String[] entry = index.get(i);
+                if (!entry[0].equals(step)) {
+                    continue;
+                }
+                Path part = archiveDirectory.resolve(entry[1]);
+                long offset = Long.parseLong(entry[2]);
+                // the member ends where the next one in the same part starts
+                long length = i + 1 < index.size() && index.get(i + 1)[1].equals(entry[1]) ?
+                        Long.parseLong(index.get(i + 1)[2]) - offset : Files.size(part) - offset;
+                FileChannel channel = FileChannel.open(part, StandardOpenOption.READ);
+                try {
+                    channel.position(offset);
+                    members.add(new GZIPInputStream(new BoundedInputStream(Channels.newInputStream(channel), length)));
+                } catch (IOException | RuntimeException e) {
+                    channel.close();
+                    throw e;
+                }
+            }
+            if (members.isEmpty()) {
+                throw new IOException("No log archived for step " + step);
+            }
+            return new SequenceInputStream(Collections.enumeration(members));
+        } catch (IOException | RuntimeException e) {
+            // the members opened so far are not returned to the caller
+            for (InputStream member : members) {
+                try {
+                    member.close();
+                } catch (IOException closeError) {
+                    e.addSuppressed(closeError);
+                }
+            }
+            throw e;
+        }
+    }
+
+    private void writeEntries() {
+        try {
+            while (true) {
+                Entry entry = queue.take();
+                if (entry == END_OF_ARCHIVE) {
+                    break;
+                }
+                write(entry);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.log(Level.SEVERE, "Unable to write the log archive in " + directory, e);
+            // stop accepting lines, and release the callers waiting on a full queue
+            closed = true;
+            queue.clear();
+        } finally {
+            closeFiles();
+        }
+    }
+
+    private void write(Entry entry) throws IOException {
+        if (!entry.step.equals(currentStep)) {
+            currentStep = entry.step;
+            currentStepLines = 0;
+            startMember();
+        }
+        for (String line : entry.lines) {
+            memberWriter.write(LogUtils.replaceAllSensitiveInformation(line));
+            memberWriter.write('\n');
+            currentStepLines++;
+        }
+        // the size is checked on what was already compressed, so parts can slightly exceed the maximum size
+        if (partOutput.getByteCount() >= maxPartSize) {
+            startMember();
+        }
+    }
+
+    private void startMember() throws IOException {
+        finishMember();
+        if (partOutput == null || partOutput.getByteCount() >= maxPartSize) {
+            if (partOutput != null) {
+                partOutput.close();
+            }
+            partNumber++;
+            partOutput = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(directory.resolve(getPartFileName()))));
+        }
+        indexWriter.write(currentStep + "\t" + getPartFileName() + "\t" + partOutput.getByteCount() + "\t" + currentStepLines + "\n");
+        indexWriter.flush();
+        memberOutput = new GZIPOutputStream(partOutput);
+        memberWriter = new BufferedWriter(new OutputStreamWriter(memberOutput, StandardCharsets.UTF_8));
+    }
+
+    private void finishMember() throws IOException {
+        if (memberWriter != null) {
+            memberWriter.flush();
+            memberOutput.finish();
+            memberWriter = null;
+            memberOutput = null;
+        }
+    }
+
+    private void closeFiles() {
+        try {
+            finishMember();
+            if (partOutput != null) {
+                partOutput.close();
+            }
+            indexWriter.close();
+        } catch (IOException e) {
+            log.log(Level.SEVERE, "Unable to close the log archive in " + directory, e);
+        }
+    }
+
+    private String getPartFileName() {
+        return String.format("part-%03d.log.gz", partNumber);
+    }
+
+    private static class Entry {
+        private final String step;
+        private final List<String> lines;
+
+        private Entry(String step, List<String> lines) {
+            this.step = step;
+            this.lines = lines;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobState;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusProjection;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusWithSteps;
+import com.castsoftware.aip.console.tools.core.dto.jobs.LogContentDto;
+import com.castsoftware.aip.console.tools.core.tracing.Span;
+import com.castsoftware.aip.console.tools.core.tracing.Tracer;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Tracks the polling progress of a single job : current step, step timings and status retrieval retries.
+ * Each poll only needs a {@link JobStatusProjection} of the job, the full job status is only needed when the job
+ * moved to another step or is finished.
+ * The logs of the job are followed by a {@link LogTailer}.
+ * When tracing is enabled, the job and each of its steps are recorded as spans.
+ * When a {@link JobEtaTracker} is given, the step durations are recorded and the remaining time is logged on each
+ * step change.
+ * <p>
+ * Not thread-safe, a context must only be used by one polling thread at a time.
+ */
+class JobPollingContext {
+    static final int MAX_STATUS_RETRIES = 20;
+
+    private final String jobGuid;
+    private final JobPollingScheduler pollingScheduler;
+    private final Consumer<JobStatusWithSteps> stepChangedCallback;
+    private final LogTailer logTailer;
+    private final JobEtaTracker etaTracker;
+    private final Span jobSpan;
+    private Span stepSpan = Span.NOOP;
+
+    private String currentStep;
+    private long stepStartTime = System.nanoTime();
+    // the first step seen is only measured if it was seen right after the job submission
+    private boolean stepStartObserved;
+    private int pollCount;
+    private int retryCount;
+    private JobStatusWithSteps lastStatus;
+
+    JobPollingContext(String jobGuid, JobPollingScheduler pollingScheduler,
+                      Consumer<JobStatusWithSteps> stepChangedCallback, Consumer<LogContentDto> pollingCallback,
+                      RestApiService restApiService, ScheduledExecutorService logExecutor) {
+        this(jobGuid, pollingScheduler, stepChangedCallback, pollingCallback, null, null, restApiService, logExecutor);
+    }
+
+    JobPollingContext(String jobGuid, JobPollingScheduler pollingScheduler,
+                      Consumer<JobStatusWithSteps> stepChangedCallback, Consumer<LogContentDto> pollingCallback, JobLogArchive logArchive,
+                      JobEtaTracker etaTracker, RestApiService restApiService, ScheduledExecutorService logExecutor) {
+        this.jobGuid = jobGuid;
+        this.etaTracker = etaTracker;
+        this.pollingScheduler = pollingScheduler;
+        this.stepChangedCallback = stepChangedCallback;
+        this.logTailer = pollingCallback == null && logArchive == null ? null :
+                new LogTailer(restApiService, jobGuid, pollingCallback, logArchive, logExecutor);
+        this.jobSpan = Tracer.detachedSpan("job").setAttribute("jobGuid", jobGuid);
+    }
+
+    String getJobGuid() {
+        return jobGuid;
+    }
+
+    String getCurrentStep() {
+        return currentStep;
+    }
+
+    JobStatusWithSteps getLastStatus() {
+        return lastStatus;
+    }
+
+    /**
+     * @return The delay to wait before the next status check of this job, in milliseconds
+     */
+    long getNextPollDelay() {
+        long stepElapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - stepStartTime);
+        return pollingScheduler.getNextPollDelay(pollCount, currentStep, stepElapsed);
+    }
+
+    /**
+     * Register that the job status could not be retrieved
+     *
+     * @return true if the status can be retried, false if the maximum number of retries was reached
+     */
+    boolean onStatusUnavailable() {
+        pollCount++;
+        return ++retryCount <= MAX_STATUS_RETRIES;
+    }
+
+    /**
+     * Process a newly retrieved projection of the job status
+     *
+     * @param jobStatus The retrieved job status projection
+     * @return true if the job moved to another step or is finished, in which case the full job status must be
+     * retrieved and given to {@link #onStatus(JobStatusWithSteps)}. false otherwise.
+     */
+    boolean onStatusProjection(JobStatusProjection jobStatus) {
+        String progressStep = jobStatus.getProgressStep();
+        if (isFinished(jobStatus.getState()) || (progressStep != null && !StringUtils.equalsIgnoreCase(progressStep, currentStep))) {
+            return true;
+        }
+        pollCount++;
+        retryCount = 0;
+        return false;
+    }
+
+    /**
+     * Process a newly retrieved job status : notifies the step changes, and follows the log of the new steps
+     *
+     * @param jobStatus The retrieved job status
+     * @return true if the job is finished, false otherwise
+     */
+    boolean onStatus(JobStatusWithSteps jobStatus) {
+        pollCount++;
+        retryCount = 0;
+        lastStatus = jobStatus;
+
+        String progressStep = jobStatus.getProgressStep();
+        boolean stepChanged = progressStep != null && !progressStep.equalsIgnoreCase(currentStep);
+        if (stepChanged) {
+            long now = System.nanoTime();
+            if (stepStartObserved) {
+                onStepCompleted(jobStatus, TimeUnit.NANOSECONDS.toMillis(now - stepStartTime));
+            }
+            stepStartObserved = currentStep != null || pollCount == 1;
+            stepStartTime = now;
+            currentStep = progressStep;
+            stepSpan.close();
+            stepSpan = jobSpan.childSpan(progressStep);
+            if (stepChangedCallback != null) {
+                stepChangedCallback.accept(jobStatus);
+            }
+            if (etaTracker != null && !isFinished(jobStatus.getState())) {
+                etaTracker.onStepStarted(jobStatus, progressStep);
+            }
+            if (logTailer != null) {
+                logTailer.follow(progressStep);
+            }
+        }
+
+        if (isFinished(jobStatus.getState())) {
+            if (stepStartObserved && !stepChanged && jobStatus.getState() == JobState.COMPLETED) {
+                onStepCompleted(jobStatus, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - stepStartTime));
+            }
+            stepSpan.close();
+            jobSpan.setAttribute("state", jobStatus.getState())
+                    .setAttribute("failureStep", jobStatus.getFailureStep())
+                    .close();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reads the remaining log lines of the job
+     *
+     * @return A future completed once all the log lines were read
+     */
+    CompletableFuture<Void> finishLogs() {
+        return logTailer == null ? CompletableFuture.completedFuture(null) : logTailer.finish();
+    }
+
+    /**
+     * Stops following the logs of the job, without reading the remaining lines
+     */
+    void close() {
+        if (logTailer != null) {
+            logTailer.close();
+        }
+        stepSpan.close();
+        jobSpan.close();
+    }
+
+    private void onStepCompleted(JobStatusWithSteps jobStatus, long durationMillis) {
+        pollingScheduler.onStepCompleted(currentStep, durationMillis);
+        if (etaTracker != null) {
+            etaTracker.onStepCompleted(jobStatus, currentStep, durationMillis);
+        }
+    }
+
+    static boolean isFinished(JobState state) {
+        return state != JobState.STARTED && state != JobState.STARTING;
+    }
+}
@@ -0,0 +1,28 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+/**
+ * Decides how long to wait between two status checks of a running job.
+ * <p>
+ * Implementations are notified of every step transition observed while polling, so they can adapt the delays
+ * to the durations seen for each step.
+ */
+public interface JobPollingScheduler {
+
+    /**
+     * Get the delay to wait before the next status check of a job
+     *
+     * @param pollCount          The number of status checks already done for the job
+     * @param currentStep        The step the job was in during the last status check. Can be null if no status was retrieved yet.
+     * @param stepElapsedMillis  The time elapsed since the current step was first observed, in milliseconds
+     * @return The delay before the next status check, in milliseconds
+     */
+    long getNextPollDelay(int pollCount, String currentStep, long stepElapsedMillis);
+
+    /**
+     * Notify the scheduler that a step was observed as completed
+     *
+     * @param step           The completed step
+     * @param durationMillis The observed duration of the step, in milliseconds
+     */
+    void onStepCompleted(String step, long durationMillis);
+}
@@ -0,0 +1,268 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusProjection;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusWithSteps;
+import com.castsoftware.aip.console.tools.core.dto.jobs.LogContentDto;
+import com.castsoftware.aip.console.tools.core.exceptions.ApiCallException;
+import com.castsoftware.aip.console.tools.core.exceptions.JobServiceException;
+import com.castsoftware.aip.console.tools.core.utils.ApiEndpointHelper;
+import com.fasterxml.jackson.core.type.TypeReference;
+import lombok.extern.java.Log;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+
+/**
+ * Watches the progress of many jobs using a small, shared pool of threads, instead of blocking one thread per job.
+ * <p>
+ * Every watched job gets a {@link CompletableFuture} which is completed with the final status of the job once it is
+ * no longer running. Step changes and log contents are passed to the given callbacks, on one of the watcher threads.
+ * <p>
+ * When several jobs are due for a status check at the same time, the watcher retrieves the running jobs in a single
+ * request, and only requests the details of a job when its step changed or when it is finished.
+ * If AIP Console doesn't support listing jobs, a {@link JobStatusProjection} of each job is requested individually.
+ */
+@Log
+public class JobWatcher implements Closeable {
+    private static final long TICK_DURATION = TimeUnit.MILLISECONDS.toMillis(500);
+    private static final long SESSION_REFRESH_DURATION = TimeUnit.MINUTES.toMillis(10);
+    private static final int DEFAULT_THREADS = 4;
+
+    private final RestApiService restApiService;
+    private final JobPollingScheduler pollingScheduler;
+    private final ScheduledExecutorService executor;
+    private final Map<String, WatchedJob> watchedJobs = new ConcurrentHashMap<>();
+
+    private volatile boolean jobListingSupported = true;
+    private volatile long lastLoginTime = System.currentTimeMillis();
+
+    public JobWatcher(RestApiService restApiService, JobPollingScheduler pollingScheduler) {
+        this(restApiService, pollingScheduler, DEFAULT_THREADS);
+    }
+
+    public JobWatcher(RestApiService restApiService, JobPollingScheduler pollingScheduler, int threads) {
+        this.restApiService = restApiService;
+        this.pollingScheduler = pollingScheduler;
+        this.executor = Executors.newScheduledThreadPool(threads, new WatcherThreadFactory());
+        this.executor.scheduleWithFixedDelay(this::tick, TICK_DURATION, TICK_DURATION, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Start watching a job
+     *
+     * @param jobGuid The GUID of the job
+     * @return A future completed with the final status of the job
+     */
+    public CompletableFuture<JobStatusWithSteps> watch(String jobGuid) {
+        return watch(jobGuid, null, null);
+    }
+
+    /**
+     * Start watching a job
+     *
+     * @param jobGuid             The GUID of the job
+     * @param stepChangedCallback Called every time the job moves to another step. Can be null.
+     * @param pollingCallback     Called with the new log lines of the current step. Can be null.
+     * @return A future completed with the final status of the job. Cancelling it stops the watch of this job.
+     */
+    public CompletableFuture<JobStatusWithSteps> watch(String jobGuid, Consumer<JobStatusWithSteps> stepChangedCallback, Consumer<LogContentDto> pollingCallback) {
+        return watch(jobGuid, stepChangedCallback, pollingCallback, null);
+    }
+
+    /**
+     * Start watching a job
+     *
+     * @param jobGuid             The GUID of the job
+     * @param stepChangedCallback Called every time the job moves to another step. Can be null.
+     * @param pollingCallback     Called with the new log lines of the current step. Can be null.
+     * @param logArchive          An archive to which the logs of the job are added. Can be null.
+     * @return A future completed with the final status of the job. Cancelling it stops the watch of this job.
+     */
+    public CompletableFuture<JobStatusWithSteps> watch(String jobGuid, Consumer<JobStatusWithSteps> stepChangedCallback, Consumer<LogContentDto> pollingCallback, JobLogArchive logArchive) {
+        return watch(jobGuid, stepChangedCallback, pollingCallback, logArchive, null);
+    }
+
+    CompletableFuture<JobStatusWithSteps> watch(String jobGuid, Consumer<JobStatusWithSteps> stepChangedCallback, Consumer<LogContentDto> pollingCallback, JobLogArchive logArchive,
+                                                JobEtaTracker etaTracker) {
+        if (StringUtils.isBlank(jobGuid)) {
+            throw new IllegalArgumentException("No job GUID provided");
+        }
+        if (executor.isShutdown()) {
+            throw new IllegalStateException("Job watcher is closed");
+        }
+        WatchedJob job = new WatchedJob(new JobPollingContext(jobGuid, pollingScheduler, stepChangedCallback, pollingCallback, logArchive, etaTracker, restApiService, executor));
+        WatchedJob existing = watchedJobs.putIfAbsent(jobGuid, job);
+        if (existing != null) {
+            return existing.future;
+        }
+        job.future.whenComplete((status, error) -> {
+            watchedJobs.remove(jobGuid, job);
+            job.context.close();
+        });
+        return job.future;
+    }
+
+    /**
+     * @return The number of jobs currently watched
+     */
+    public int getWatchedJobsCount() {
+        return watchedJobs.size();
+    }
+
+    /**
+     * Stops the watcher. The futures of the jobs still being watched are cancelled.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        watchedJobs.values().forEach(job -> job.future.cancel(false));
+        watchedJobs.clear();
+    }
+
+    private void tick() {
+        try {
+            long now = System.currentTimeMillis();
+            List<WatchedJob> dueJobs = watchedJobs.values().stream()
+                    .filter(job -> job.isDue(now))
+                    .collect(Collectors.toList());
+            if (dueJobs.isEmpty()) {
+                return;
+            }
+            refreshSession(now);
+            Map<String, JobStatusProjection> runningJobs = dueJobs.size() > 1 ? listRunningJobs() : Collections.emptyMap();
+            for (WatchedJob job : dueJobs) {
+                job.inFlight = true;
+                executor.execute(() -> poll(job, runningJobs.get(job.context.getJobGuid())));
+            }
+        } catch (RuntimeException e) {
+            // never let an exception cancel the periodic task
+            log.log(Level.SEVERE, "Unexpected error while watching jobs", e);
+        }
+    }
+
+    private void poll(WatchedJob job, JobStatusProjection listedStatus) {
+        JobPollingContext context = job.context;
+        try {
+            if (job.future.isDone()) {
+                return;
+            }
+            JobStatusProjection projection = listedStatus != null ? listedStatus : getJobStatus(context.getJobGuid(), JobStatusProjection.class);
+            // the projection is enough while the job is still in the same step, otherwise get the whole job details
+            JobStatusWithSteps jobStatus = null;
+            if (projection != null) {
+                if (!context.onStatusProjection(projection)) {
+                    job.nextPollTime = System.currentTimeMillis() + context.getNextPollDelay();
+                    return;
+                }
+                jobStatus = getJobStatus(context.getJobGuid(), JobStatusWithSteps.class);
+            }
+            if (jobStatus == null) {
+                if (!context.onStatusUnavailable()) {
+                    job.future.completeExceptionally(new JobServiceException(
+                            "Failed to get status of job " + context.getJobGuid() + " after retrying " + JobPollingContext.MAX_STATUS_RETRIES + " times"));
+                    return;
+                }
+            } else if (context.onStatus(jobStatus)) {
+                JobStatusWithSteps finalStatus = jobStatus;
+                job.finishing = true;
+                // hand over the final status once the end of the log was read
+                context.finishLogs().whenComplete((v, e) -> job.future.complete(finalStatus));
+                return;
+            }
+            job.nextPollTime = System.currentTimeMillis() + context.getNextPollDelay();
+        } catch (RuntimeException e) {
+            log.log(Level.SEVERE, "Error occurred while polling the status of job " + context.getJobGuid(), e);
+            job.future.completeExceptionally(e);
+            return;
+        } finally {
+            job.inFlight = false;
+        }
+    }
+
+    private synchronized void refreshSession(long now) {
+        // Force login to keep session alive (jobs endpoint doesn't refresh session status)
+        if (now - lastLoginTime > SESSION_REFRESH_DURATION) {
+            try {
+                log.fine("Refresh console session");
+                restApiService.login();
+                lastLoginTime = now;
+            } catch (ApiCallException e) {
+                log.log(Level.WARNING, "Unable to refresh console session", e);
+            }
+        }
+    }
+
+    private Map<String, JobStatusProjection> listRunningJobs() {
+        if (!jobListingSupported) {
+            return Collections.emptyMap();
+        }
+        try {
+            List<JobStatusProjection> jobs = restApiService.getForEntity(ApiEndpointHelper.getRunningJobsEndpoint(),
+                    new TypeReference<List<JobStatusProjection>>() {
+                    });
+            if (jobs == null) {
+                return Collections.emptyMap();
+            }
+            return jobs.stream()
+                    .filter(j -> j.getGuid() != null)
+                    .collect(Collectors.toMap(JobStatusProjection::getGuid, j -> j, (first, second) -> first));
+        } catch (ApiCallException | RuntimeException e) {
+            log.log(Level.FINE, "Unable to list running jobs, falling back to one status request per job", e);
+            jobListingSupported = false;
+            return Collections.emptyMap();
+        }
+    }
+
+    private <T> T getJobStatus(String jobGuid, Class<T> statusClass) {
+        String jobDetailsEndpoint = ApiEndpointHelper.getJobDetailsEndpoint(jobGuid);
+        try {
+            return restApiService.getForEntity(jobDetailsEndpoint, statusClass);
+        } catch (ApiCallException e) {
+            log.log(Level.SEVERE, "Error to get job status " + jobDetailsEndpoint);
+            return null;
+        }
+    }
+
+    private static class WatchedJob {
+        private final JobPollingContext context;
+        private final CompletableFuture<JobStatusWithSteps> future = new CompletableFuture<>();
+        private volatile long nextPollTime;
+        private volatile boolean inFlight;
+        private volatile boolean finishing;
+
+        private WatchedJob(JobPollingContext context) {
+            this.context = context;
+            this.nextPollTime = System.currentTimeMillis() + context.getNextPollDelay();
+        }
+
+        private boolean isDue(long now) {
+            return !inFlight && !finishing && !future.isDone() && nextPollTime <= now;
+        }
+    }
+
+    private static class WatcherThreadFactory implements ThreadFactory {
+        private static final AtomicInteger WATCHER_COUNT = new AtomicInteger();
+        private final int watcherId = WATCHER_COUNT.incrementAndGet();
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "job-watcher-" + watcherId + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -6,7 +6,9 @@ import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusWithSteps;
 import com.castsoftware.aip.console.tools.core.dto.jobs.LogContentDto;
 import com.castsoftware.aip.console.tools.core.exceptions.JobServiceException;
 
+import java.nio.file.Path;
 import java.util.Date;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -123,5 +125,72 @@ public interface JobsService {
 
     <R> R pollAndWaitForJobFinished(String jobGuid, Consumer<JobStatusWithSteps> stepChangedCallback, Consumer<LogContentDto> pollingCallback, Function<JobStatusWithSteps, R> completionCallback) throws JobServiceException;
 
+    /**
+     * Watches a job without blocking the calling thread.
+     * <p/>
+     * All the jobs watched through this service share the same small pool of threads, so waiting on many jobs at once
+     * doesn't require a thread per job.
+     *
+     * @param jobGuid             The GUID of the job to watch on AIP Console
+     * @param stepChangedCallback A {@link Consumer} that will be run on each changes to the current step in the job. Can be null.
+     * @param pollingCallback     A {@link Consumer} that will receive the log content of the job. Can be null.
+     * @return A {@link CompletableFuture} completed with the final status of the job
+     */
+    CompletableFuture<JobStatusWithSteps> watchJob(String jobGuid, Consumer<JobStatusWithSteps> stepChangedCallback, Consumer<LogContentDto> pollingCallback);
+
+    /**
+     * Watches a job without blocking the calling thread.
+     * <p/>
+     * Same as {@link #watchJob(String, Consumer, Consumer)}, but the job can be left out of the jobs cancelled when the
+     * process is stopped, for instance when following a job started by another process.
+     *
+     * @param jobGuid             The GUID of the job to watch on AIP Console
+     * @param stepChangedCallback A {@link Consumer} that will be run on each changes to the current step in the job. Can be null.
+     * @param pollingCallback     A {@link Consumer} that will receive the log content of the job. Can be null.
+     * @param cancelOnExit        Whether the job must be cancelled if the process is stopped before the job is finished
+     * @return A {@link CompletableFuture} completed with the final status of the job
+     */
+    CompletableFuture<JobStatusWithSteps> watchJob(String jobGuid, Consumer<JobStatusWithSteps> stepChangedCallback, Consumer<LogContentDto> pollingCallback, boolean cancelOnExit);
+
+    /**
+     * Get the current status of a job, without waiting for it to finish
+     *
+     * @param jobGuid The GUID of the job on AIP Console
+     * @return The status of the job
+     * @throws JobServiceException If the status of the job could not be retrieved
+     */
+    JobStatusWithSteps getJobStatus(String jobGuid) throws JobServiceException;
+
+    /**
+     * Sets a folder in which the logs of the jobs polled or watched afterwards will be archived.
+     * Each job gets its own sub folder, containing the gzip-compressed logs and an index of the steps.
+     *
+     * @param logArchiveDirectory The folder in which logs are archived, or null to stop archiving logs
+     */
+    void setLogArchiveDirectory(Path logArchiveDirectory);
+
+    /**
+     * Sets a store in which the step durations of the jobs polled or watched afterwards are recorded.
+     * The store is also used to log the estimated remaining time of the jobs on each step change.
+     *
+     * @param stepDurationStore The store of the step durations, or null to stop recording them
+     */
+    void setStepDurationStore(StepDurationStore stepDurationStore);
+
     void cancelJob(String jobGuid) throws JobServiceException;
+
+    /**
+     * Adds a listener called with the final status of every job polled or watched by this service, once it is finished
+     *
+     * @param listener The listener of the finished jobs
+     */
+    void addJobFinishedListener(Consumer<JobStatusWithSteps> listener);
+
+    /**
+     * Get the manager tracking the jobs currently polled or watched by this service, which can cancel all of them when
+     * the process is stopped.
+     *
+     * @return The job lifecycle manager of this service
+     */
+    JobLifecycleManager getJobLifecycleManager();
 }
@@ -1,35 +1,44 @@
 package com.castsoftware.aip.console.tools.core.services;
 
-import com.castsoftware.aip.console.tools.core.dto.ApiInfoDto;
 import com.castsoftware.aip.console.tools.core.dto.ModuleGenerationType;
+import com.castsoftware.aip.console.tools.core.dto.ServerCapabilities;
 import com.castsoftware.aip.console.tools.core.dto.jobs.ChangeJobStateRequest;
 import com.castsoftware.aip.console.tools.core.dto.jobs.CreateJobsRequest;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobRequestBuilder;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobState;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatus;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusProjection;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusWithSteps;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobType;
 import com.castsoftware.aip.console.tools.core.dto.jobs.LogContentDto;
-import com.castsoftware.aip.console.tools.core.dto.jobs.LogsDto;
 import com.castsoftware.aip.console.tools.core.dto.jobs.SuccessfulJobStartDto;
 import com.castsoftware.aip.console.tools.core.exceptions.ApiCallException;
 import com.castsoftware.aip.console.tools.core.exceptions.JobServiceException;
+import com.castsoftware.aip.console.tools.core.tracing.Span;
+import com.castsoftware.aip.console.tools.core.tracing.Tracer;
 import com.castsoftware.aip.console.tools.core.utils.ApiEndpointHelper;
 import com.castsoftware.aip.console.tools.core.utils.Constants;
 import com.castsoftware.aip.console.tools.core.utils.LogUtils;
 import com.castsoftware.aip.console.tools.core.utils.VersionObjective;
-import com.fasterxml.jackson.core.type.TypeReference;
 import lombok.extern.java.Log;
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.time.LocalDateTime;
 import java.util.Date;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -38,21 +47,40 @@ import java.util.logging.Level;
 @Log
 public class JobsServiceImpl implements JobsService {
     private static final long POLL_SLEEP_DURATION = TimeUnit.SECONDS.toMillis(15);
+    private static final int LOG_TAILING_THREADS = 2;
 
     private final RestApiService restApiService;
 
-    private final long pollingSleepDuration;
+    private final JobPollingScheduler pollingScheduler;
 
-    private ApiInfoDto apiInfoDto;
+    private final JobLifecycleManager lifecycleManager;
+
+    private JobWatcher jobWatcher;
+
+    private ScheduledExecutorService logExecutor;
+
+    private volatile Path logArchiveDirectory;
+
+    private volatile StepDurationStore stepDurationStore;
+
+    // sizes of the source archives of the started jobs, kept locally for the step duration history
+    private final Map<String, Long> archiveSizes = new ConcurrentHashMap<>();
+
+    private final List<Consumer<JobStatusWithSteps>> jobFinishedListeners = new CopyOnWriteArrayList<>();
 
     public JobsServiceImpl(RestApiService restApiService) {
-        this.restApiService = restApiService;
-        this.pollingSleepDuration = POLL_SLEEP_DURATION;
+        this(restApiService, new AdaptiveJobPollingScheduler(new InMemoryStepDurationHistory(),
+                AdaptiveJobPollingScheduler.DEFAULT_MIN_DELAY, AdaptiveJobPollingScheduler.DEFAULT_MAX_DELAY, POLL_SLEEP_DURATION));
     }
 
     public JobsServiceImpl(RestApiService restApiService, long pollingSleepDuration) {
+        this(restApiService, new FixedJobPollingScheduler(pollingSleepDuration));
+    }
+
+    public JobsServiceImpl(RestApiService restApiService, JobPollingScheduler pollingScheduler) {
         this.restApiService = restApiService;
-        this.pollingSleepDuration = pollingSleepDuration;
+        this.pollingScheduler = pollingScheduler;
+        this.lifecycleManager = new JobLifecycleManager(this, restApiService);
     }
 
     @Override
@@ -126,8 +154,7 @@ public class JobsServiceImpl implements JobsService {
     @Override
     public String startAddVersionJob(JobRequestBuilder builder) throws JobServiceException {
 
-        ApiInfoDto apiInfoDto = getApiInfoDto();
-        if (apiInfoDto.isExtractionRequired()) {
+        if (restApiService.getServerCapabilities().isExtractionRequired()) {
             builder.startStep(Constants.CODE_SCANNER_STEP_NAME);
         } else {
             builder.startStep(Constants.EXTRACT_STEP_NAME);
@@ -151,9 +178,9 @@ public class JobsServiceImpl implements JobsService {
     @Override
     public String startJob(JobRequestBuilder jobRequestBuilder) throws JobServiceException {
         CreateJobsRequest jobRequest = filterModuleGenerationType(jobRequestBuilder.buildJobRequest());
-        ApiInfoDto apiInfoDto = getApiInfoDto();
+        ServerCapabilities capabilities = restApiService.getServerCapabilities();
 
-        try {
+        try (Span span = Tracer.span("job submission").setAttribute("jobType", jobRequest.getJobType())) {
             SuccessfulJobStartDto dto = restApiService.postForEntity(ApiEndpointHelper.getJobsEndpoint(), jobRequest, SuccessfulJobStartDto.class);
 
             if (dto == null || StringUtils.isBlank(dto.getJobGuid())) {
@@ -162,7 +189,7 @@ public class JobsServiceImpl implements JobsService {
 
             // BACKWARDS COMPATIBILITY with 1.9
             // Job is started in suspended state, and must be resumed
-            if (apiInfoDto.isJobToBeResumed()) {
+            if (capabilities.isJobToBeResumed()) {
                 String jobDetailsEndpoint = ApiEndpointHelper.getJobDetailsEndpoint(dto.getJobGuid());
                 JobStatusWithSteps jobStatusWithSteps = restApiService.getForEntity(jobDetailsEndpoint, JobStatusWithSteps.class);
                 if (jobStatusWithSteps.getState() == JobState.STARTING) {
@@ -172,7 +199,11 @@ public class JobsServiceImpl implements JobsService {
                     restApiService.putForEntity(jobDetailsEndpoint, resumeRequest, String.class);
                 }
             }
+            if (jobRequestBuilder.getArchiveSize() > 0) {
+                archiveSizes.put(dto.getJobGuid(), jobRequestBuilder.getArchiveSize());
+            }
             log.info("Successfully started Job");
+            span.setAttribute("jobGuid", dto.getJobGuid());
             return dto.getJobGuid();
         } catch (ApiCallException e) {
             log.log(Level.SEVERE, "Error starting Job with type " + jobRequest.getJobType(), e);
@@ -199,16 +230,15 @@ public class JobsServiceImpl implements JobsService {
         assert StringUtils.isNotBlank(jobGuid);
 
         String jobDetailsEndpoint = ApiEndpointHelper.getJobDetailsEndpoint(jobGuid);
-        String previousStep = "";
         log.fine("Checking status of Job with GUID " + jobGuid);
-        int retryCount = 0;
+        JobLogArchive logArchive = openLogArchive(jobGuid);
+        JobPollingContext context = new JobPollingContext(jobGuid, pollingScheduler, stepChangedCallback, pollingCallback, logArchive,
+                createEtaTracker(jobGuid), restApiService, pollingCallback == null && logArchive == null ? null : getLogExecutor());
         LocalDateTime loginTime = LocalDateTime.now();
+        lifecycleManager.register(jobGuid);
         try {
-            JobStatusWithSteps jobStatus;
-            String logName = null;
-            int startOffset = 0;
             while (true) {
-                Thread.sleep(pollingSleepDuration);
+                Thread.sleep(context.getNextPollDelay());
                 // Force login to keep session alive (jobs endpoint doesn't refresh session status), if the last k
                 if (loginTime.plusMinutes(10L).isBefore(LocalDateTime.now())) {
                     log.info("Refresh console session at " + LocalDateTime.now());
@@ -216,49 +246,85 @@ public class JobsServiceImpl implements JobsService {
                     loginTime = LocalDateTime.now();
                 }
                 // Sometimes it takes more than 10 secs till the jobstatus is ready
-                jobStatus = getJobStatus(jobDetailsEndpoint);
+                JobStatusProjection projection = getJobStatus(jobDetailsEndpoint, JobStatusProjection.class);
+                if (projection != null && !context.onStatusProjection(projection)) {
+                    continue;
+                }
+                // the job moved on, get the whole job details
+                JobStatusWithSteps jobStatus = projection == null ? null : getJobStatus(jobDetailsEndpoint, JobStatusWithSteps.class);
                 if (jobStatus == null) {
-                    if (retryCount < 20) {
-                        ++retryCount;
+                    if (context.onStatusUnavailable()) {
                         continue;
-                    } else {
-                        throw new ApiCallException(500, "Failed to get job status after retrying 20 times");
                     }
-
-                } else {
-                    retryCount = 0;
+                    throw new ApiCallException(500, "Failed to get job status after retrying " + JobPollingContext.MAX_STATUS_RETRIES + " times");
                 }
-
-                String currentStep = jobStatus.getProgressStep();
-
-                if (currentStep != null && !currentStep.equalsIgnoreCase(previousStep)) {
-                    previousStep = currentStep;
-                    if (stepChangedCallback != null) {
-                        stepChangedCallback.accept(jobStatus);
-                    }
-                    logName = getLogName(jobGuid, currentStep);
-                    startOffset = 0;
-                }
-
-                if (pollingCallback != null && !StringUtils.isAnyBlank(logName, currentStep)) {
-                    LogContentDto logContent = getLogContent(jobGuid, currentStep, logName, startOffset);
-                    if (logContent != null && !logContent.getLines().isEmpty()) {
-                        pollingCallback.accept(logContent);
-                        startOffset = startOffset + logContent.getNbLines();
-                    }
-                }
-
-                if (jobStatus.getState() != JobState.STARTED && jobStatus.getState() != JobState.STARTING) {
+                if (context.onStatus(jobStatus)) {
                     break;
                 }
             }
-            return completionCallback.apply(jobStatus);
-        } catch (InterruptedException | ApiCallException e) {
+            // print the end of the log before handing over the final status
+            context.finishLogs().get();
+            notifyJobFinished(context.getLastStatus());
+            return completionCallback.apply(context.getLastStatus());
+        } catch (InterruptedException | ExecutionException | ApiCallException e) {
             log.log(Level.SEVERE, "Error occurred while polling the job status", e);
             throw new JobServiceException(e);
+        } finally {
+            lifecycleManager.unregister(jobGuid);
+            context.close();
+            closeLogArchive(logArchive);
+        }
+    }
+
+    @Override
+    public CompletableFuture<JobStatusWithSteps> watchJob(String jobGuid, Consumer<JobStatusWithSteps> stepChangedCallback, Consumer<LogContentDto> pollingCallback) {
+        return watchJob(jobGuid, stepChangedCallback, pollingCallback, true);
+    }
+
+    @Override
+    public CompletableFuture<JobStatusWithSteps> watchJob(String jobGuid, Consumer<JobStatusWithSteps> stepChangedCallback, Consumer<LogContentDto> pollingCallback, boolean cancelOnExit) {
+        JobLogArchive logArchive = openLogArchive(jobGuid);
+        CompletableFuture<JobStatusWithSteps> future = getJobWatcher().watch(jobGuid, stepChangedCallback, pollingCallback, logArchive, createEtaTracker(jobGuid));
+        if (cancelOnExit) {
+            lifecycleManager.register(jobGuid);
+        }
+        future.whenComplete((status, error) -> {
+            lifecycleManager.unregister(jobGuid);
+            closeLogArchive(logArchive);
+            if (status != null) {
+                notifyJobFinished(status);
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public JobStatusWithSteps getJobStatus(String jobGuid) throws JobServiceException {
+        if (StringUtils.isBlank(jobGuid)) {
+            throw new JobServiceException("No job GUID provided");
+        }
+        try {
+            JobStatusWithSteps jobStatus = restApiService.getForEntity(ApiEndpointHelper.getJobDetailsEndpoint(jobGuid), JobStatusWithSteps.class);
+            if (jobStatus == null) {
+                throw new JobServiceException("No status returned for job " + jobGuid);
+            }
+            return jobStatus;
+        } catch (ApiCallException e) {
+            log.log(Level.SEVERE, "Unable to get the status of job " + jobGuid, e);
+            throw new JobServiceException(e);
         }
     }
 
+    @Override
+    public void setLogArchiveDirectory(Path logArchiveDirectory) {
+        this.logArchiveDirectory = logArchiveDirectory;
+    }
+
+    @Override
+    public void setStepDurationStore(StepDurationStore stepDurationStore) {
+        this.stepDurationStore = stepDurationStore;
+    }
+
     @Override
     public void cancelJob(String jobGuid) throws JobServiceException {
         try {
@@ -270,43 +336,81 @@ public class JobsServiceImpl implements JobsService {
         }
     }
 
-    private LogContentDto getLogContent(String jobGuid, String currentStep, String logName, int startOffset) {
-        try {
-            return restApiService.getForEntity("/api/jobs/" + jobGuid + "/steps/" + currentStep + "/logs/" + logName + "?nbLines=3000&startOffset=" + startOffset, LogContentDto.class);
-        } catch (Exception e) {
-            log.log(Level.SEVERE, "Error to get the log content", e);
-            return null;
-        }
+    @Override
+    public void addJobFinishedListener(Consumer<JobStatusWithSteps> listener) {
+        jobFinishedListeners.add(listener);
     }
 
-    private String getLogName(String jobGuid, String step) throws ApiCallException {
-        try {
-            Set<LogsDto> logs = restApiService.getForEntity("/api/jobs/" + jobGuid + "/steps/" + step + "/logs", new TypeReference<Set<LogsDto>>() {
-            });
-            return logs.stream().filter(l -> l.getLogType().equalsIgnoreCase("MAIN_LOG")).findFirst().map(LogsDto::getLogName).orElse(null);
-        } catch (Exception e) {
-            log.log(Level.SEVERE, "Error to get the log name");
-            return null;
-        }
+    @Override
+    public JobLifecycleManager getJobLifecycleManager() {
+        return lifecycleManager;
     }
 
-    private JobStatusWithSteps getJobStatus(String jobDetailsEndpoint) {
+    private <T> T getJobStatus(String jobDetailsEndpoint, Class<T> statusClass) {
         try {
-            return restApiService.getForEntity(jobDetailsEndpoint, JobStatusWithSteps.class);
+            return restApiService.getForEntity(jobDetailsEndpoint, statusClass);
         } catch (ApiCallException e) {
             log.log(Level.SEVERE, "Error to get job status " + jobDetailsEndpoint);
             return null;
         }
     }
 
+    private void notifyJobFinished(JobStatusWithSteps jobStatus) {
+        for (Consumer<JobStatusWithSteps> listener : jobFinishedListeners) {
+            try {
+                listener.accept(jobStatus);
+            } catch (RuntimeException e) {
+                log.log(Level.WARNING, "Error while notifying the end of job " + jobStatus.getGuid(), e);
+            }
+        }
+    }
+
     private void printLog(LogContentDto logContent) {
         logContent.getLines().forEach(logLine -> log.info(LogUtils.replaceAllSensitiveInformation(logLine.getContent())));
     }
 
-    private synchronized ApiInfoDto getApiInfoDto() {
-        if (apiInfoDto == null) {
-            apiInfoDto = restApiService.getAipConsoleApiInfo();
+    private JobLogArchive openLogArchive(String jobGuid) {
+        Path archiveDirectory = logArchiveDirectory;
+        if (archiveDirectory == null) {
+            return null;
+        }
+        try {
+            return new JobLogArchive(archiveDirectory, jobGuid);
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Unable to create the log archive in " + archiveDirectory + ". Job logs will not be archived.", e);
+            return null;
+        }
+    }
+
+    private JobEtaTracker createEtaTracker(String jobGuid) {
+        Long archiveSize = archiveSizes.remove(jobGuid);
+        StepDurationStore store = stepDurationStore;
+        return store == null ? null : new JobEtaTracker(store, archiveSize == null ? 0 : archiveSize);
+    }
+
+    private void closeLogArchive(JobLogArchive logArchive) {
+        if (logArchive != null) {
+            logArchive.close();
+            log.info("Job logs archived in " + logArchive.getDirectory().toAbsolutePath());
+        }
+    }
+
+    private synchronized ScheduledExecutorService getLogExecutor() {
+        if (logExecutor == null) {
+            logExecutor = Executors.newScheduledThreadPool(LOG_TAILING_THREADS, r -> {
+                Thread thread = new Thread(r, "job-log-tailer");
+                thread.setDaemon(true);
+                return thread;
+            });
         }
-        return apiInfoDto;
+        return logExecutor;
     }
+
+    private synchronized JobWatcher getJobWatcher() {
+        if (jobWatcher == null) {
+            jobWatcher = new JobWatcher(restApiService, pollingScheduler);
+        }
+        return jobWatcher;
+    }
+
 }
\ No newline at end of file
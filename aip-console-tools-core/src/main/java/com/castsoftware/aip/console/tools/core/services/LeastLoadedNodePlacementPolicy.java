@@ -0,0 +1,123 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.castsoftware.aip.console.tools.core.dto.NodeLoad;
+import com.castsoftware.aip.console.tools.core.dto.NodePlacement;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatus;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStepType;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Places new applications on the node with the lowest load score.
+ * <p>
+ * Each running job counts for 1 in the score of its node. When a step duration history is available, a job running an
+ * analysis counts instead for its expected remaining analysis time, relative to the median expected analysis time of
+ * all the running jobs, so a long analysis that just started weighs more than one about to finish. Ties are broken by
+ * the number of running jobs, then by the node name.
+ */
+public class LeastLoadedNodePlacementPolicy implements NodePlacementPolicy {
+    // a job running longer than expected still counts for this share of its expected duration
+    private static final double MIN_REMAINING_RATIO = 0.1;
+    private static final Set<String> ANALYSIS_JOB_TYPES = Arrays.stream(new JobType[]{
+            JobType.ANALYZE, JobType.ADD_VERSION, JobType.RESCAN_APPLICATION, JobType.UPLOAD_SNAPSHOT_VERSION, JobType.DATAFLOW_SECURITY_ANALYZE
+    }).map(JobType::getSerializableValue).collect(Collectors.toSet());
+
+    private final StepDurationStore history;
+
+    /**
+     * @param history The observed step durations, or null to only count the running jobs
+     */
+    public LeastLoadedNodePlacementPolicy(StepDurationStore history) {
+        this.history = history;
+    }
+
+    @Override
+    public NodePlacement choose(String applicationName, List<NodeLoad> nodes) {
+        if (nodes == null || nodes.isEmpty()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        Map<JobStatus, Long> expectedDurations = new IdentityHashMap<>();
+        for (NodeLoad node : nodes) {
+            for (JobStatus job : node.getRunningJobs()) {
+                OptionalLong expected = getExpectedDuration(job);
+                if (expected.isPresent() && expected.getAsLong() > 0) {
+                    expectedDurations.put(job, expected.getAsLong());
+                }
+            }
+        }
+        double reference = median(new ArrayList<>(expectedDurations.values()));
+
+        NodeLoad best = null;
+        double bestScore = Double.MAX_VALUE;
+        long bestRemaining = 0;
+        for (NodeLoad node : nodes) {
+            double score = 0;
+            long remaining = 0;
+            for (JobStatus job : node.getRunningJobs()) {
+                Long expected = expectedDurations.get(job);
+                if (expected == null) {
+                    score += 1;
+                } else {
+                    long jobRemaining = getRemainingDuration(job, expected, now);
+                    remaining += jobRemaining;
+                    score += jobRemaining / reference;
+                }
+            }
+            if (best == null || score < bestScore
+                    || (score == bestScore && isPreferred(node, best))) {
+                best = node;
+                bestScore = score;
+                bestRemaining = remaining;
+            }
+        }
+
+        StringBuilder reason = new StringBuilder(String.format(Locale.ROOT, "lowest load score %.2f among %d nodes, with %d running jobs",
+                bestScore, nodes.size(), best.getRunningJobs().size()));
+        if (bestRemaining > 0) {
+            reason.append(" and about ").append(TimeUnit.MILLISECONDS.toMinutes(bestRemaining)).append(" minutes of expected analysis left");
+        }
+        return new NodePlacement(best.getNode(), reason.toString());
+    }
+
+    private OptionalLong getExpectedDuration(JobStatus job) {
+        if (history == null || job.getJobType() == null || !ANALYSIS_JOB_TYPES.contains(job.getJobType().toLowerCase(Locale.ROOT))) {
+            return OptionalLong.empty();
+        }
+        return history.getExpectedDuration(job.getAppGuid(), JobStepType.ANALYZE, 0, Collections.emptySet());
+    }
+
+    private static long getRemainingDuration(JobStatus job, long expected, long now) {
+        long elapsed = job.getCreated() == null ? 0 : Math.max(now - job.getCreated().getTime(), 0);
+        return Math.max(expected - elapsed, Math.round(expected * MIN_REMAINING_RATIO));
+    }
+
+    private static boolean isPreferred(NodeLoad node, NodeLoad other) {
+        int runningJobs = Integer.compare(node.getRunningJobs().size(), other.getRunningJobs().size());
+        if (runningJobs != 0) {
+            return runningJobs < 0;
+        }
+        String name = node.getNode().getName() == null ? "" : node.getNode().getName();
+        String otherName = other.getNode().getName() == null ? "" : other.getNode().getName();
+        return name.compareToIgnoreCase(otherName) < 0;
+    }
+
+    private static double median(List<Long> values) {
+        if (values.isEmpty()) {
+            return 0;
+        }
+        Collections.sort(values);
+        return values.get(values.size() / 2);
+    }
+}
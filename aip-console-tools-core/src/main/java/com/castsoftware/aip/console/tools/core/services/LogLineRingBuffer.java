@@ -0,0 +1,159 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.castsoftware.aip.console.tools.core.dto.jobs.LogLine;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A bounded buffer of log lines, keeping the lines in the order they were added.
+ * <p>
+ * The {@link LogLine} holders are allocated when the buffer grows, and reused as lines are added and released. This
+ * means the lines returned by {@link #peek(int)} are only valid until they are {@link #release(int) released}.
+ * The buffer only grows when asked to, up to its maximum capacity, so a quiet log keeps a small buffer.
+ * <p>
+ * One thread can add lines while another one reads them.
+ */
+class LogLineRingBuffer {
+    private final int maxCapacity;
+    private final LinesView view = new LinesView();
+
+    // guarded by this
+    private LogLine[] slots;
+    private int head;
+    private int size;
+
+    LogLineRingBuffer(int capacity) {
+        this(capacity, capacity);
+    }
+
+    /**
+     * @param initialCapacity The number of lines the buffer holds at first
+     * @param maxCapacity     The number of lines up to which the buffer can grow
+     */
+    LogLineRingBuffer(int initialCapacity, int maxCapacity) {
+        if (initialCapacity <= 0 || maxCapacity < initialCapacity) {
+            throw new IllegalArgumentException("Capacity must be positive and not exceed the maximum capacity");
+        }
+        this.maxCapacity = maxCapacity;
+        slots = new LogLine[initialCapacity];
+        for (int i = 0; i < initialCapacity; i++) {
+            slots[i] = new LogLine();
+        }
+    }
+
+    synchronized int capacity() {
+        return slots.length;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    synchronized int remainingCapacity() {
+        return slots.length - size;
+    }
+
+    /**
+     * Grow the buffer so that the given number of lines can be added, within its maximum capacity
+     *
+     * @param count The number of lines to add
+     * @return The remaining capacity, which can be lower than the given count once the maximum capacity is reached
+     */
+    synchronized int reserve(int count) {
+        int needed = Math.min(size + count, maxCapacity);
+        if (needed > slots.length) {
+            // the lines are moved to the start of the new slots, the holders being added are kept
+            LogLine[] grown = new LogLine[Math.max(needed, Math.min(slots.length * 2, maxCapacity))];
+            for (int i = 0; i < slots.length; i++) {
+                grown[i] = slots[(head + i) % slots.length];
+            }
+            for (int i = slots.length; i < grown.length; i++) {
+                grown[i] = new LogLine();
+            }
+            slots = grown;
+            head = 0;
+        }
+        return slots.length - size;
+    }
+
+    /**
+     * Add a line after the last one
+     *
+     * @param content The content of the line
+     * @return false if the buffer is full, in which case the line is not added
+     */
+    boolean add(String content) {
+        LogLine line;
+        synchronized (this) {
+            if (size == slots.length) {
+                return false;
+            }
+            line = slots[(head + size) % slots.length];
+        }
+        // the line is not visible to the reader until size is incremented
+        line.setContent(content);
+        synchronized (this) {
+            size++;
+        }
+        return true;
+    }
+
+    /**
+     * Get the oldest lines of the buffer, without removing them.
+     * The returned list is reused by the next call, and its lines are only valid until they are released.
+     *
+     * @param max The maximum number of lines to return
+     * @return The oldest lines of the buffer, in the order they were added
+     */
+    List<LogLine> peek(int max) {
+        synchronized (this) {
+            view.slots = slots;
+            view.start = head;
+            view.size = Math.min(max, size);
+        }
+        return view;
+    }
+
+    /**
+     * Remove the oldest lines of the buffer, so their holders can be reused
+     *
+     * @param count The number of lines to remove
+     */
+    synchronized void release(int count) {
+        if (count < 0 || count > size) {
+            throw new IllegalArgumentException("Cannot release " + count + " lines out of " + size);
+        }
+        head = (head + count) % slots.length;
+        size -= count;
+    }
+
+    synchronized void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    private static class LinesView extends AbstractList<LogLine> implements RandomAccess {
+        private LogLine[] slots;
+        private int start;
+        private int size;
+
+        @Override
+        public LogLine get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return slots[(start + index) % slots.length];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
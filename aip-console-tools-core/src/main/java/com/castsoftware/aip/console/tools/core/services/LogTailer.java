@@ -0,0 +1,361 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.castsoftware.aip.console.tools.core.dto.jobs.LogContentDto;
+import com.castsoftware.aip.console.tools.core.dto.jobs.LogLine;
+import com.castsoftware.aip.console.tools.core.dto.jobs.LogsDto;
+import com.castsoftware.aip.console.tools.core.utils.ApiEndpointHelper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import lombok.extern.java.Log;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Follows the main log of each step of a job, independently from the job status polling.
+ * <p>
+ * The log is read page by page until the end of the file. Each page is decoded directly into a bounded buffer of
+ * reusable lines, grown with the size of the pages, from which the lines are passed to the callback in the order of the log, while the page is still
+ * being read. A page is only requested when there is room for it in the buffer, so a slow callback slows down the
+ * reading instead of accumulating lines in memory. The lines given to the callback are reused afterwards, so they
+ * must not be kept once the callback returned.
+ * <p>
+ * The number of lines requested per page grows when the log is written faster than it is read, and shrinks back
+ * when the log is quiet.
+ * <p>
+ * When the job moves to another step, or when the job is finished, the remaining lines of the previous step are read
+ * before moving on, so no line is lost.
+ * All reads and callbacks of a tailer happen sequentially, on the given executor.
+ */
+@Log
+class LogTailer {
+    static final int MIN_PAGE_SIZE = 500;
+    static final int DEFAULT_PAGE_SIZE = 3000;
+    static final int MAX_PAGE_SIZE = 24000;
+    static final int MAX_BUFFER_CAPACITY = MAX_PAGE_SIZE;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final long IDLE_DELAY = TimeUnit.SECONDS.toMillis(2);
+    private static final long PREFETCH_WAIT_DELAY = 20;
+    private static final int MAX_DRAIN_FAILURES = 3;
+
+    private final RestApiService restApiService;
+    private final String jobGuid;
+    private final Consumer<LogContentDto> callback;
+    private final JobLogArchive logArchive;
+    private final ScheduledExecutorService executor;
+
+    // guarded by this
+    private final Deque<StepLog> stepLogs = new ArrayDeque<>();
+    private final CompletableFuture<Void> drained = new CompletableFuture<>();
+    private boolean finishing;
+    private boolean pumping;
+
+    // the lines are added by the page reads, and removed by the pump
+    private final LogLineRingBuffer buffer = new LogLineRingBuffer(MIN_PAGE_SIZE, MAX_BUFFER_CAPACITY);
+
+    // only accessed by the pump
+    private final LogContentDto content = new LogContentDto();
+    private int pageSize = DEFAULT_PAGE_SIZE;
+
+    LogTailer(RestApiService restApiService, String jobGuid, Consumer<LogContentDto> callback, ScheduledExecutorService executor) {
+        this(restApiService, jobGuid, callback, null, executor);
+    }
+
+    /**
+     * @param restApiService The service used to read the logs
+     * @param jobGuid        The GUID of the job
+     * @param callback       Receives the log contents. Can be null.
+     * @param logArchive     An archive to which all the log contents are added. Can be null.
+     * @param executor       The executor on which the logs are read
+     */
+    LogTailer(RestApiService restApiService, String jobGuid, Consumer<LogContentDto> callback, JobLogArchive logArchive, ScheduledExecutorService executor) {
+        this.restApiService = restApiService;
+        this.jobGuid = jobGuid;
+        this.callback = callback;
+        this.logArchive = logArchive;
+        this.executor = executor;
+    }
+
+    /**
+     * Start following the log of the given step. The log of the previous step is read until its end first.
+     *
+     * @param step The new step of the job
+     */
+    synchronized void follow(String step) {
+        if (finishing) {
+            return;
+        }
+        stepLogs.add(new StepLog(step));
+        schedulePump(0);
+    }
+
+    /**
+     * Read the remaining lines of the followed steps, then stop.
+     *
+     * @return A future completed once all the remaining lines were passed to the callback
+     */
+    synchronized CompletableFuture<Void> finish() {
+        finishing = true;
+        if (stepLogs.isEmpty() && !pumping) {
+            drained.complete(null);
+        } else {
+            schedulePump(0);
+        }
+        return drained;
+    }
+
+    /**
+     * Stop following the logs immediately, without reading the remaining lines
+     */
+    synchronized void close() {
+        finishing = true;
+        stepLogs.clear();
+        drained.complete(null);
+    }
+
+    int getPageSize() {
+        return pageSize;
+    }
+
+    private synchronized void schedulePump(long delay) {
+        if (!pumping && !drained.isDone()) {
+            pumping = true;
+            executor.schedule(this::pump, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void pump() {
+        long nextDelay;
+        try {
+            nextDelay = pumpOnce();
+        } catch (RuntimeException e) {
+            log.log(Level.SEVERE, "Error while reading the log of job " + jobGuid, e);
+            nextDelay = IDLE_DELAY;
+        }
+        synchronized (this) {
+            pumping = false;
+            if (nextDelay >= 0) {
+                schedulePump(nextDelay);
+            } else if (finishing && stepLogs.isEmpty()) {
+                drained.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Passes the lines read so far to the callback, and reads the next page of the current step log
+     *
+     * @return The delay before the next read, or -1 if nothing is left to read for now
+     */
+    private long pumpOnce() {
+        StepLog stepLog;
+        boolean draining;
+        synchronized (this) {
+            stepLog = stepLogs.peek();
+            if (stepLog == null) {
+                return -1;
+            }
+            draining = finishing || stepLogs.size() > 1;
+        }
+
+        if (stepLog.logName == null) {
+            // the log might not be created yet at the beginning of the step
+            stepLog.logName = getLogName(stepLog.step);
+            if (stepLog.logName == null) {
+                return draining ? done(stepLog) : IDLE_DELAY;
+            }
+        }
+
+        // lines are passed on while the page is still being decoded
+        deliverBufferedLines(stepLog);
+
+        if (stepLog.pendingRead == null) {
+            return startRead(stepLog);
+        }
+        if (!stepLog.pendingRead.isDone()) {
+            return PREFETCH_WAIT_DELAY;
+        }
+        PageRead read = stepLog.pendingRead.join();
+        stepLog.pendingRead = null;
+        stepLog.offset += read.lines;
+        adaptPageSize(read.lines);
+
+        if (read.failed) {
+            if (draining && ++stepLog.failures >= MAX_DRAIN_FAILURES) {
+                log.warning("Unable to read the end of the log for step " + stepLog.step);
+                deliverBufferedLines(stepLog);
+                return done(stepLog);
+            }
+            return IDLE_DELAY;
+        }
+        if (read.lines > 0 && !read.endOfFile) {
+            return startRead(stepLog);
+        }
+        if (!buffer.isEmpty()) {
+            return 0;
+        }
+        // caught up with the log
+        return draining ? done(stepLog) : IDLE_DELAY;
+    }
+
+    /**
+     * Start reading the next page of the log, in the room left in the buffer
+     */
+    private long startRead(StepLog stepLog) {
+        int nbLines = Math.min(pageSize, buffer.reserve(pageSize));
+        if (nbLines == 0) {
+            // the callback is slower than the log, wait for it to catch up
+            return 0;
+        }
+        int startOffset = stepLog.offset;
+        stepLog.pendingRead = CompletableFuture.supplyAsync(() -> readPage(stepLog, startOffset, nbLines), executor);
+        return PREFETCH_WAIT_DELAY;
+    }
+
+    private void deliverBufferedLines(StepLog stepLog) {
+        while (!buffer.isEmpty()) {
+            List<LogLine> lines = buffer.peek(DEFAULT_PAGE_SIZE);
+            content.setStartOffset(stepLog.deliveredOffset);
+            content.setNbLines(lines.size());
+            content.setLines(lines);
+            if (logArchive != null) {
+                logArchive.append(stepLog.step, content);
+            }
+            if (callback != null) {
+                callback.accept(content);
+            }
+            stepLog.deliveredOffset += lines.size();
+            buffer.release(lines.size());
+        }
+        content.setLines(null);
+    }
+
+    private long done(StepLog stepLog) {
+        synchronized (this) {
+            stepLogs.remove(stepLog);
+            return stepLogs.isEmpty() ? -1 : 0;
+        }
+    }
+
+    private void adaptPageSize(int nbLines) {
+        if (nbLines >= pageSize) {
+            pageSize = Math.min(pageSize * 2, MAX_PAGE_SIZE);
+        } else if (nbLines < pageSize / 4) {
+            pageSize = Math.max(pageSize / 2, MIN_PAGE_SIZE);
+        }
+    }
+
+    /**
+     * Read a page of the log, decoding its lines directly into the buffer
+     */
+    private PageRead readPage(StepLog stepLog, int startOffset, int nbLines) {
+        PageRead read = new PageRead();
+        String endpoint = getStepLogsEndpoint(stepLog.step) + "/" + stepLog.logName + "?nbLines=" + nbLines + "&startOffset=" + startOffset;
+        try (Response response = restApiService.exchangeForResponse("GET", endpoint, null)) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                log.severe("Unable to get the log content, response code was " + response.code());
+                read.failed = true;
+                return read;
+            }
+            try (JsonParser parser = JSON_FACTORY.createParser(body.byteStream())) {
+                decodePage(parser, read);
+            }
+        } catch (Exception e) {
+            log.log(Level.SEVERE, "Error to get the log content", e);
+            read.failed = true;
+        }
+        return read;
+    }
+
+    private void decodePage(JsonParser parser, PageRead read) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected the log content to be an object");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("endOfFile".equals(field)) {
+                read.endOfFile = value == JsonToken.VALUE_TRUE;
+            } else if ("lines".equals(field) && value == JsonToken.START_ARRAY) {
+                if (!decodeLines(parser, read)) {
+                    // the remaining lines will be read with the next page
+                    read.endOfFile = false;
+                    return;
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * @return false if the buffer was full before all the lines were decoded
+     */
+    private boolean decodeLines(JsonParser parser, PageRead read) throws IOException {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String lineContent = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("content".equals(field)) {
+                    lineContent = parser.getValueAsString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (!buffer.add(lineContent)) {
+                return false;
+            }
+            read.lines++;
+        }
+        return true;
+    }
+
+    private String getLogName(String step) {
+        try {
+            Set<LogsDto> logs = restApiService.getForEntity(getStepLogsEndpoint(step), new TypeReference<Set<LogsDto>>() {
+            });
+            return logs.stream().filter(l -> l.getLogType().equalsIgnoreCase("MAIN_LOG")).findFirst().map(LogsDto::getLogName).orElse(null);
+        } catch (Exception e) {
+            log.log(Level.SEVERE, "Error to get the log name");
+            return null;
+        }
+    }
+
+    private String getStepLogsEndpoint(String step) {
+        return ApiEndpointHelper.getJobDetailsEndpoint(jobGuid) + "/steps/" + step + "/logs";
+    }
+
+    private static class StepLog {
+        private final String step;
+        private String logName;
+        private int offset;
+        private int deliveredOffset;
+        private int failures;
+        private CompletableFuture<PageRead> pendingRead;
+
+        private StepLog(String step) {
+            this.step = step;
+        }
+    }
+
+    private static class PageRead {
+        private int lines;
+        private boolean endOfFile;
+        private boolean failed;
+    }
+}
@@ -0,0 +1,286 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import lombok.extern.java.Log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Local cache of the AIP Console metadata (API information, nodes, applications and versions), shared by all the
+ * processes using the same AIP Console with the same user.
+ * <p>
+ * The cache is a binary file made of an 8 bytes header followed by one record per cached endpoint :
+ * <ul>
+ *     <li>the expiry time of the record, in epoch milliseconds (8 bytes)</li>
+ *     <li>the CRC32 of the endpoint and content (4 bytes)</li>
+ *     <li>the length of the endpoint, followed by the endpoint in UTF-8</li>
+ *     <li>the length of the content, followed by the content as returned by AIP Console</li>
+ * </ul>
+ * The file is read once when the cache is opened, under a shared lock. Each update takes an exclusive lock, reads the
+ * file again to get the records saved by the other processes, applies the change and rewrites the file. Records which
+ * are expired, or which don't match their checksum (e.g. interrupted write), are dropped.
+ */
+@Log
+public class MetadataCache {
+    static final int MAGIC = 0x4149434d;
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 12;
+    private static final int MAX_ENDPOINT_LENGTH = 4096;
+    private static final int MAX_CONTENT_LENGTH = 64 * 1024 * 1024;
+    // endpoints which can be cached, and for how long
+    private static final Map<Pattern, Long> TIME_TO_LIVE = new LinkedHashMap<>();
+
+    static {
+        TIME_TO_LIVE.put(Pattern.compile("/api/?"), TimeUnit.HOURS.toMillis(1));
+        TIME_TO_LIVE.put(Pattern.compile("/api/nodes"), TimeUnit.MINUTES.toMillis(10));
+        TIME_TO_LIVE.put(Pattern.compile("/api/applications"), ApplicationDirectory.DEFAULT_TTL);
+        TIME_TO_LIVE.put(Pattern.compile("/api/applications/[^/]+/versions"), ApplicationDirectory.DEFAULT_TTL);
+    }
+
+    private final Path file;
+    // guarded by this
+    private Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * Open the cache file, creating it if it doesn't exist
+     *
+     * @param file The cache file
+     * @throws IOException If the cache file cannot be read or created
+     */
+    public MetadataCache(Path file) throws IOException {
+        this.file = file;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        if (!Files.exists(file)) {
+            createFile();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             FileLock lock = channel.lock(0, Long.MAX_VALUE, true)) {
+            entries = read(channel);
+        }
+        log.fine("Loaded " + entries.size() + " cached responses from " + file);
+    }
+
+    /**
+     * Open the cache of a user on an AIP Console instance
+     *
+     * @param directory The directory containing the caches
+     * @param serverUrl The URL of AIP Console
+     * @param identity  The user name, or API key, identifying the user. Only a hash of it is kept.
+     * @return The cache
+     * @throws IOException If the cache file cannot be read or created
+     */
+    public static MetadataCache open(Path directory, String serverUrl, String identity) throws IOException {
+        return new MetadataCache(directory.resolve(sha256(serverUrl + "\n" + identity).substring(0, 32) + ".bin"));
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @param endpoint The endpoint called with a GET request
+     * @return Whether the response of this endpoint can be kept in the cache
+     */
+    public static boolean isCacheable(String endpoint) {
+        return getTimeToLive(endpoint) > 0;
+    }
+
+    /**
+     * @param endpoint The endpoint called with a GET request
+     * @return The cached response of the endpoint, or null if it wasn't cached or is expired
+     */
+    public synchronized byte[] get(String endpoint) {
+        Entry entry = entries.get(endpoint);
+        return entry == null || entry.isExpired(System.currentTimeMillis()) ? null : entry.content;
+    }
+
+    /**
+     * Keep the response of an endpoint in the cache, if the endpoint can be cached
+     *
+     * @param endpoint The endpoint called with a GET request
+     * @param content  The response returned by AIP Console
+     */
+    public void put(String endpoint, byte[] content) {
+        long timeToLive = getTimeToLive(endpoint);
+        if (timeToLive > 0) {
+            Entry entry = new Entry(System.currentTimeMillis() + timeToLive, content);
+            update(current -> current.put(endpoint, entry));
+        }
+    }
+
+    /**
+     * Remove the responses of an endpoint, and of all the endpoints below it, from the cache
+     *
+     * @param endpoint The endpoint
+     * @return Whether any response was removed
+     */
+    public synchronized boolean evict(String endpoint) {
+        String prefix = endpoint.endsWith("/") ? endpoint : endpoint + "/";
+        if (entries.keySet().stream().noneMatch(e -> e.equals(endpoint) || e.startsWith(prefix))) {
+            return false;
+        }
+        update(current -> current.keySet().removeIf(e -> e.equals(endpoint) || e.startsWith(prefix)));
+        return true;
+    }
+
+    private synchronized void update(Consumer<Map<String, Entry>> change) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             FileLock lock = channel.lock()) {
+            Map<String, Entry> current = read(channel);
+            change.accept(current);
+            write(channel, current);
+            entries = current;
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Unable to update the metadata cache " + file, e);
+        }
+    }
+
+    private Map<String, Entry> read(FileChannel channel) throws IOException {
+        Map<String, Entry> result = new HashMap<>();
+        long size = channel.size();
+        if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+            return result;
+        }
+        ByteBuffer content = ByteBuffer.allocate((int) size);
+        channel.position(0);
+        while (content.hasRemaining() && channel.read(content) >= 0) {
+            // read the whole file
+        }
+        content.flip();
+        if (content.getInt() != MAGIC || content.getInt() != FORMAT_VERSION) {
+            log.warning("The metadata cache " + file + " has an unknown format. It will be replaced.");
+            return result;
+        }
+        long now = System.currentTimeMillis();
+        while (content.remaining() >= RECORD_HEADER_SIZE + 4) {
+            long expiry = content.getLong();
+            int checksum = content.getInt();
+            byte[] endpoint = readBytes(content, MAX_ENDPOINT_LENGTH);
+            byte[] value = endpoint == null ? null : readBytes(content, MAX_CONTENT_LENGTH);
+            if (value == null || checksum(endpoint, value) != checksum) {
+                // the rest of the file cannot be trusted
+                log.fine("Ignoring an invalid record in the metadata cache " + file);
+                break;
+            }
+            Entry entry = new Entry(expiry, value);
+            if (!entry.isExpired(now)) {
+                result.put(new String(endpoint, StandardCharsets.UTF_8), entry);
+            }
+        }
+        return result;
+    }
+
+    private static byte[] readBytes(ByteBuffer content, int maxLength) {
+        if (content.remaining() < 4) {
+            return null;
+        }
+        int length = content.getInt();
+        if (length < 0 || length > maxLength || length > content.remaining()) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        content.get(bytes);
+        return bytes;
+    }
+
+    private static void write(FileChannel channel, Map<String, Entry> entries) throws IOException {
+        int size = HEADER_SIZE;
+        Map<byte[], Entry> records = new LinkedHashMap<>();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            byte[] endpoint = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            records.put(endpoint, entry.getValue());
+            size += RECORD_HEADER_SIZE + 8 + endpoint.length + entry.getValue().content.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size).putInt(MAGIC).putInt(FORMAT_VERSION);
+        for (Map.Entry<byte[], Entry> record : records.entrySet()) {
+            byte[] endpoint = record.getKey();
+            byte[] content = record.getValue().content;
+            buffer.putLong(record.getValue().expiry)
+                    .putInt(checksum(endpoint, content))
+                    .putInt(endpoint.length).put(endpoint)
+                    .putInt(content.length).put(content);
+        }
+        buffer.flip();
+        channel.truncate(0);
+        channel.position(0);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    private void createFile() throws IOException {
+        Files.write(file, ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION).array());
+        try {
+            // the cache describes the applications visible to the user
+            Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            log.finest("POSIX permissions are not supported for " + file);
+        }
+    }
+
+    private static long getTimeToLive(String endpoint) {
+        for (Map.Entry<Pattern, Long> timeToLive : TIME_TO_LIVE.entrySet()) {
+            if (timeToLive.getKey().matcher(endpoint).matches()) {
+                return timeToLive.getValue();
+            }
+        }
+        return 0;
+    }
+
+    private static int checksum(byte[] endpoint, byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(endpoint);
+        crc.update(content);
+        return (int) crc.getValue();
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is available on all Java platforms
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Entry {
+        private final long expiry;
+        private final byte[] content;
+
+        private Entry(long expiry, byte[] content) {
+            this.expiry = expiry;
+            this.content = content;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiry;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.castsoftware.aip.console.tools.core.dto.NodeLoad;
+import com.castsoftware.aip.console.tools.core.dto.NodePlacement;
+
+import java.util.List;
+
+/**
+ * Chooses the node on which a new application is created, when no node was requested
+ */
+public interface NodePlacementPolicy {
+
+    /**
+     * @param applicationName The name of the application to create
+     * @param nodes           The nodes of AIP Console, with the jobs currently running on each of them
+     * @return The chosen node with the reason of the choice, or null to let AIP Console choose the node
+     */
+    NodePlacement choose(String applicationName, List<NodeLoad> nodes);
+}
@@ -0,0 +1,138 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.castsoftware.aip.console.tools.core.dto.PendingResultDto;
+import com.castsoftware.aip.console.tools.core.dto.jobs.DeliveryPackageDto;
+import com.castsoftware.aip.console.tools.core.dto.jobs.DiscoverPackageRequest;
+import com.castsoftware.aip.console.tools.core.exceptions.ApiCallException;
+import com.castsoftware.aip.console.tools.core.exceptions.JobServiceException;
+import com.castsoftware.aip.console.tools.core.tracing.Span;
+import com.castsoftware.aip.console.tools.core.tracing.Tracer;
+import com.castsoftware.aip.console.tools.core.utils.ApiEndpointHelper;
+import com.fasterxml.jackson.core.type.TypeReference;
+import lombok.extern.java.Log;
+import okhttp3.Response;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Discovers the packages of a new version from the configuration of a previous version.
+ * <p>
+ * AIP Console either answers directly, or returns a pending result which is polled with an exponential backoff until
+ * it is available or until the deadline is reached. The discovery runs on the given executor, so the caller can
+ * prepare the rest of the delivery configuration in the meantime.
+ */
+@Log
+class PackageDiscovery {
+    static final long DEFAULT_TIMEOUT = TimeUnit.HOURS.toMillis(1);
+    static final long DEFAULT_MIN_DELAY = 500;
+    // previously the fixed polling interval
+    static final long DEFAULT_MAX_DELAY = TimeUnit.SECONDS.toMillis(5);
+
+    private final RestApiService restApiService;
+    private final Executor executor;
+    private final long minDelay;
+    private final long maxDelay;
+    private volatile long timeoutMillis = DEFAULT_TIMEOUT;
+
+    PackageDiscovery(RestApiService restApiService, Executor executor, long minDelay, long maxDelay) {
+        if (minDelay <= 0 || maxDelay < minDelay) {
+            throw new IllegalArgumentException("Invalid polling delays: min=" + minDelay + ", max=" + maxDelay);
+        }
+        this.restApiService = restApiService;
+        this.executor = executor;
+        this.minDelay = minDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * @param timeout The maximum time to wait for the discovered packages
+     * @param unit    The unit of the timeout
+     */
+    void setTimeout(long timeout, TimeUnit unit) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("The package discovery timeout must be positive");
+        }
+        this.timeoutMillis = unit.toMillis(timeout);
+    }
+
+    /**
+     * Start the discovery of the packages
+     *
+     * @param appGuid             The application GUID
+     * @param sourcePath          The path of the sources of the new version on AIP Console
+     * @param previousVersionGuid The GUID of the version to copy the configuration from
+     * @return The discovered packages, or a future completed with a {@link JobServiceException} if the discovery failed
+     * or did not finish before the deadline
+     */
+    CompletableFuture<Set<DeliveryPackageDto>> discover(String appGuid, String sourcePath, String previousVersionGuid) {
+        long timeout = timeoutMillis;
+        long deadline = System.currentTimeMillis() + timeout;
+        return CompletableFuture.supplyAsync(Tracer.wrap(() -> {
+            try {
+                return discover(appGuid, sourcePath, previousVersionGuid, timeout, deadline);
+            } catch (JobServiceException e) {
+                throw new CompletionException(e);
+            }
+        }), executor);
+    }
+
+    private Set<DeliveryPackageDto> discover(String appGuid, String sourcePath, String previousVersionGuid, long timeout, long deadline) throws JobServiceException {
+        try (Span span = Tracer.span("package discovery")) {
+            PendingResultDto pendingResult;
+            DiscoverPackageRequest request = DiscoverPackageRequest.builder().previousVersionGuid(previousVersionGuid).sourcePath(sourcePath).build();
+            try (Response response = restApiService.exchangeForResponse("POST", ApiEndpointHelper.getDiscoverPackagesPath(appGuid), request)) {
+                if (response.code() == 200) {
+                    return readPackages(response);
+                }
+                checkPending(response);
+                pendingResult = restApiService.mapResponse(response, PendingResultDto.class);
+            }
+            if (pendingResult == null || StringUtils.isBlank(pendingResult.getGuid())) {
+                throw new JobServiceException("AIP Console didn't provide the pending result of the package discovery");
+            }
+
+            String pendingResultEndpoint = ApiEndpointHelper.getPendingResultPath(appGuid, pendingResult.getGuid());
+            long delay = minDelay;
+            for (int poll = 1; ; poll++) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new JobServiceException("Packages were not discovered by AIP Console within " + TimeUnit.MILLISECONDS.toSeconds(timeout) + " seconds");
+                }
+                Thread.sleep(Math.min(delay, remaining));
+                delay = Math.min(delay * 2, maxDelay);
+
+                log.fine("Polling server to get discovered packages...");
+                try (Response response = restApiService.exchangeForResponse("GET", pendingResultEndpoint, null)) {
+                    if (response.code() == 200) {
+                        span.setAttribute("polls", poll);
+                        return readPackages(response);
+                    }
+                    checkPending(response);
+                }
+            }
+        } catch (ApiCallException e) {
+            throw new JobServiceException("Error discovering packages", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JobServiceException("Interrupted while waiting for the discovered packages", e);
+        }
+    }
+
+    private Set<DeliveryPackageDto> readPackages(Response response) {
+        Set<DeliveryPackageDto> packages = restApiService.mapResponse(response, new TypeReference<Set<DeliveryPackageDto>>() {
+        });
+        return packages == null ? Collections.emptySet() : packages;
+    }
+
+    private static void checkPending(Response response) throws ApiCallException {
+        if (response.code() != 202) {
+            throw new ApiCallException(response.code(), "Unexpected response from AIP Console while discovering packages : " + response.code());
+        }
+    }
+}
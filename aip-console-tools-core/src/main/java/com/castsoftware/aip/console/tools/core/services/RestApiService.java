@@ -1,11 +1,13 @@
 package com.castsoftware.aip.console.tools.core.services;
 
 import com.castsoftware.aip.console.tools.core.dto.ApiInfoDto;
+import com.castsoftware.aip.console.tools.core.dto.ServerCapabilities;
 import com.castsoftware.aip.console.tools.core.exceptions.ApiCallException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JavaType;
 import okhttp3.Response;
 
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -19,6 +21,9 @@ public interface RestApiService {
     void setTimeout(long timeout, TimeUnit timeUnit);
 
     /**
+     * Log in to AIP Console. Nothing is done if already logged in to the same AIP Console with the same credentials,
+     * so the commands of a batch share a single session.
+     *
      * @param serverUrl
      * @param apiKey
      * @throws ApiCallException
@@ -33,6 +38,22 @@ public interface RestApiService {
      */
     void validateUrlAndKey(String serverUrl, String username, String password) throws ApiCallException;
 
+    /**
+     * Keep the AIP Console metadata (API information, nodes, applications and versions) in a local cache shared by the
+     * processes using the same AIP Console with the same user. Should be called before {@link #validateUrlAndKey}, the cache of an open session is changed otherwise.
+     *
+     * @param directory The directory containing the caches, or null to disable the cache
+     */
+    void setMetadataCacheDirectory(Path directory);
+
+    /**
+     * Remove the cached responses of an endpoint, and of all the endpoints below it
+     *
+     * @param endpoint The endpoint
+     * @return Whether any cached response was removed
+     */
+    boolean evictCachedResponses(String endpoint);
+
     Response exchangeForResponse(String method, String endPoints, Object entity) throws ApiCallException;
 
     <T> T mapResponse(Response response, Class<T> responseClass);
@@ -53,6 +74,14 @@ public interface RestApiService {
      */
     ApiInfoDto getAipConsoleApiInfo();
 
+    /**
+     * Get the features supported by AIP Console. They are retrieved once per session, i.e. until the next login with
+     * {@link #validateUrlAndKey}.
+     *
+     * @return a {@link ServerCapabilities} instance
+     */
+    ServerCapabilities getServerCapabilities();
+
     <T> T getForEntity(String endpoint, Class<T> clazz) throws ApiCallException;
 
     <T> T getForEntity(String endpoint, TypeReference<T> clazz) throws ApiCallException;
@@ -1,10 +1,13 @@
 package com.castsoftware.aip.console.tools.core.services;
 
 import com.castsoftware.aip.console.tools.core.dto.ApiInfoDto;
+import com.castsoftware.aip.console.tools.core.dto.ServerCapabilities;
 import com.castsoftware.aip.console.tools.core.dto.export.jackson.LocalDateTimeJsonDeserializer;
 import com.castsoftware.aip.console.tools.core.dto.export.jackson.LocalDateTimeJsonSerializer;
 import com.castsoftware.aip.console.tools.core.exceptions.ApiCallException;
 import com.castsoftware.aip.console.tools.core.exceptions.ApiKeyMissingException;
+import com.castsoftware.aip.console.tools.core.tracing.Span;
+import com.castsoftware.aip.console.tools.core.tracing.Tracer;
 import com.castsoftware.aip.console.tools.core.utils.ApiEndpointHelper;
 import com.castsoftware.aip.console.tools.core.utils.Constants;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -38,12 +41,14 @@ import org.apache.commons.lang3.StringUtils;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -53,6 +58,8 @@ import java.util.logging.Level;
 public class RestApiServiceImpl implements RestApiService {
     private static final List<Integer> ACCEPTED_HTTP_CODES = Arrays.asList(200, 201, 202, 204);
     private static final String JSON_MEDIA_TYPE = "application/json";
+    // a long-lived process logs in again rather than reuse a session which may have expired
+    private static final long SESSION_REUSE_DURATION = TimeUnit.MINUTES.toMillis(10);
 
     private OkHttpClient client;
     private ObjectMapper mapper;
@@ -60,6 +67,11 @@ public class RestApiServiceImpl implements RestApiService {
     private String serverUrl;
     private String username;
     private String key;
+    private Path metadataCacheDirectory;
+    private volatile MetadataCache metadataCache;
+    private volatile ServerCapabilities serverCapabilities;
+    private boolean authenticated;
+    private long lastLoginTime;
 
     public RestApiServiceImpl() {
         this.cookieJar = new QueryableCookieJar();
@@ -109,7 +121,7 @@ public class RestApiServiceImpl implements RestApiService {
     }
 
     @Override
-    public void validateUrlAndKey(String serverUrl, String apiKey) throws ApiCallException {
+    public synchronized void validateUrlAndKey(String serverUrl, String apiKey) throws ApiCallException {
         assert StringUtils.isNoneBlank(serverUrl);
 
         if(StringUtils.isBlank(apiKey)) {
@@ -124,9 +136,51 @@ public class RestApiServiceImpl implements RestApiService {
             serverUrl = serverUrl.substring(0, serverUrl.length() - 1);
         }
 
+        if (authenticated && serverUrl.equals(this.serverUrl) && apiKey.equals(this.key)
+                && System.currentTimeMillis() - lastLoginTime < SESSION_REUSE_DURATION) {
+            // e.g. the commands of a batch, sharing the session
+            log.fine("Already logged in to " + serverUrl);
+            return;
+        }
+        this.authenticated = false;
         this.serverUrl = serverUrl;
         this.key = apiKey;
-        login();
+        this.serverCapabilities = null;
+        openMetadataCache();
+        try (Span span = Tracer.span("login")) {
+            login();
+        }
+        this.authenticated = true;
+        this.lastLoginTime = System.currentTimeMillis();
+    }
+
+    @Override
+    public synchronized void setMetadataCacheDirectory(Path directory) {
+        if (Objects.equals(directory, metadataCacheDirectory)) {
+            return;
+        }
+        this.metadataCacheDirectory = directory;
+        if (authenticated) {
+            // the session may be reused, so the cache is not opened again at the next login
+            openMetadataCache();
+        }
+    }
+
+    @Override
+    public boolean evictCachedResponses(String endpoint) {
+        return metadataCache != null && metadataCache.evict(endpoint);
+    }
+
+    private void openMetadataCache() {
+        metadataCache = null;
+        if (metadataCacheDirectory == null) {
+            return;
+        }
+        try {
+            metadataCache = MetadataCache.open(metadataCacheDirectory, serverUrl, StringUtils.isNotBlank(username) ? username : key);
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Unable to open the metadata cache in " + metadataCacheDirectory + ". Metadata will be retrieved from AIP Console.", e);
+        }
     }
 
     @Override
@@ -140,7 +194,30 @@ public class RestApiServiceImpl implements RestApiService {
     }
 
     @Override
-    public void validateUrlAndKey(String serverUrl, String username, String password) throws ApiCallException {
+    public ServerCapabilities getServerCapabilities() {
+        ServerCapabilities capabilities = serverCapabilities;
+        if (capabilities != null) {
+            return capabilities;
+        }
+        synchronized (this) {
+            if (serverCapabilities == null) {
+                try {
+                    serverCapabilities = ServerCapabilities.of(getForEntity(ApiEndpointHelper.getRootPath(), ApiInfoDto.class));
+                } catch (ApiCallException e) {
+                    // not kept, the next call will try again
+                    log.log(Level.WARNING, "Unable to retrieve AIP Console information.", e);
+                    return ServerCapabilities.of(new ApiInfoDto());
+                }
+            }
+            return serverCapabilities;
+        }
+    }
+
+    @Override
+    public synchronized void validateUrlAndKey(String serverUrl, String username, String password) throws ApiCallException {
+        if (!StringUtils.equals(this.username, username)) {
+            this.authenticated = false;
+        }
         this.username = username;
         validateUrlAndKey(serverUrl, password);
     }
@@ -262,6 +339,14 @@ public class RestApiServiceImpl implements RestApiService {
     }
 
     private <T> T exchangeForEntity(String method, String endpoint, Object entity, JavaType javaType) throws ApiCallException {
+        boolean cacheable = metadataCache != null && "GET".equals(method) && MetadataCache.isCacheable(endpoint);
+        if (cacheable) {
+            byte[] cachedContent = metadataCache.get(endpoint);
+            if (cachedContent != null) {
+                log.fine("Using the cached response of endpoint " + endpoint);
+                return readContent(cachedContent, javaType);
+            }
+        }
         RequestBody body = HttpMethod.requiresRequestBody(method) ? getRequestBodyForEntity(entity) : null;
         Request request = getRequestBuilder(endpoint)
                 .method(method, body)
@@ -270,6 +355,11 @@ public class RestApiServiceImpl implements RestApiService {
         log.finest("Entity is " + entity);
 
         try (Response response = client.newCall(request).execute()) {
+            if (cacheable && response.code() == 200 && response.body() != null) {
+                byte[] content = response.body().bytes();
+                metadataCache.put(endpoint, content);
+                return readContent(content, javaType);
+            }
             if (ACCEPTED_HTTP_CODES.contains(response.code())) {
                 return mapResponse(response, javaType);
             }
@@ -294,6 +384,18 @@ public class RestApiServiceImpl implements RestApiService {
         return mapResponse(response, javaType);
     }
 
+    private <T> T readContent(byte[] content, JavaType javaType) {
+        if (String.class.isAssignableFrom(javaType.getRawClass())) {
+            return (T) new String(content, StandardCharsets.UTF_8);
+        }
+        try {
+            return mapper.readValue(content, javaType);
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Unable to parse object as " + javaType.getRawClass().getName() + "(expected ?). Returning null instead.", e);
+            return null;
+        }
+    }
+
     private <T> T mapResponse(Response response, JavaType javaType) {
         ResponseBody responseBody = response.body();
         if (responseBody != null) {
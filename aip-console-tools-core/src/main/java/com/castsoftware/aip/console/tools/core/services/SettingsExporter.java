@@ -0,0 +1,383 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.castsoftware.aip.console.tools.core.dto.export.ExportApplicationsRequest;
+import com.castsoftware.aip.console.tools.core.dto.export.ExportDto;
+import com.castsoftware.aip.console.tools.core.exceptions.ApiCallException;
+import com.castsoftware.aip.console.tools.core.utils.ApiEndpointHelper;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import lombok.extern.java.Log;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports the settings of AIP Console to a file.
+ * <p>
+ * The exported settings are streamed from the response to the file, optionally gzip-compressed, without holding them
+ * in memory. While they are copied, the same bytes are given to a non-blocking JSON parser which checks that they are
+ * complete and have the structure of an {@link ExportDto}, without building any tree. The file is written next to the
+ * target and only moved to the target once the whole content was copied and checked.
+ */
+@Log
+public class SettingsExporter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final RestApiService restApiService;
+    private final ObjectMapper mapper;
+
+    public SettingsExporter(RestApiService restApiService, ObjectMapper mapper) {
+        this.restApiService = restApiService;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Export the settings of the given applications
+     *
+     * @param request The applications to export
+     * @param target  The file to create
+     * @param gzip    Whether the file is gzip-compressed
+     * @return The size of the exported settings, before compression
+     * @throws ApiCallException If AIP Console didn't export the settings
+     * @throws IOException      If the file could not be written, or the exported settings are not valid
+     */
+    public long export(ExportApplicationsRequest request, Path target, boolean gzip) throws ApiCallException, IOException {
+        return writeAtomically(target, out -> download(request, out, gzip));
+    }
+
+    /**
+     * Export the settings of several batches of applications to a single file.
+     * <p>
+     * The batches are exported concurrently to temporary files, which are then merged : the settings and the exclusion
+     * templates are only written once, and the applications of the same domain are grouped under a single domain.
+     *
+     * @param batches     The batches of applications to export, each one within the limit of AIP Console
+     * @param target      The file to create
+     * @param gzip        Whether the file is gzip-compressed
+     * @param maxParallel The maximum number of batches exported at the same time
+     * @return The size of the exported settings, before compression
+     * @throws ApiCallException     If AIP Console didn't export the settings of a batch
+     * @throws IOException          If a file could not be written, or the exported settings are not valid
+     * @throws InterruptedException If interrupted while waiting for the batches
+     */
+    public long export(List<ExportApplicationsRequest> batches, Path target, boolean gzip, int maxParallel) throws ApiCallException, IOException, InterruptedException {
+        if (batches.isEmpty() || maxParallel < 1) {
+            throw new IllegalArgumentException("At least one batch must be exported, with at least one export at a time");
+        }
+        if (batches.size() == 1) {
+            return export(batches.get(0), target, gzip);
+        }
+        Path workDirectory = createWorkDirectory(target);
+        try {
+            List<Path> parts = downloadAll(batches, workDirectory, maxParallel);
+            ExportMerger merger = new ExportMerger(mapper);
+            return writeAtomically(target, out -> merger.merge(parts, openOutput(out, gzip)));
+        } finally {
+            deleteWorkDirectory(workDirectory);
+        }
+    }
+
+    /**
+     * Export the settings of several batches of applications, and only write what changed since a previous export.
+     * <p>
+     * The current settings are exported to a temporary file, which is compared to the previous export entity by entity :
+     * the settings, the exclusion templates, the domains, the applications, their versions and their job executions. The
+     * file starts with a summary of the number of added, changed, removed and unchanged entities of each kind, followed
+     * by the content of the added and changed entities, and the keys of the removed ones.
+     *
+     * @param batches     The batches of applications to export, each one within the limit of AIP Console
+     * @param previous    A previous export of the settings, which may be gzip-compressed
+     * @param target      The file to create
+     * @param gzip        Whether the file is gzip-compressed
+     * @param maxParallel The maximum number of batches exported at the same time
+     * @return The size of the changes, before compression
+     * @throws ApiCallException     If AIP Console didn't export the settings of a batch
+     * @throws IOException          If a file could not be read or written, or the exported settings are not valid
+     * @throws InterruptedException If interrupted while waiting for the batches
+     */
+    public long exportChanges(List<ExportApplicationsRequest> batches, Path previous, Path target, boolean gzip, int maxParallel) throws ApiCallException, IOException, InterruptedException {
+        Path workDirectory = createWorkDirectory(target);
+        try {
+            Path current = workDirectory.resolve("current.json");
+            export(batches, current, false, maxParallel);
+            ExportDiff diff = new ExportDiff(mapper);
+            return writeAtomically(target, out -> diff.write(previous, current, openOutput(out, gzip)));
+        } finally {
+            deleteWorkDirectory(workDirectory);
+        }
+    }
+
+    private static Path createWorkDirectory(Path target) throws IOException {
+        Path absoluteTarget = target.toAbsolutePath();
+        return Files.createTempDirectory(absoluteTarget.getParent(), absoluteTarget.getFileName().toString() + ".");
+    }
+
+    private static void deleteWorkDirectory(Path workDirectory) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(workDirectory)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(workDirectory);
+    }
+
+    private List<Path> downloadAll(List<ExportApplicationsRequest> batches, Path workDirectory, int maxParallel) throws ApiCallException, IOException, InterruptedException {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(maxParallel, batches.size()), r -> {
+            Thread thread = new Thread(r, "export-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Path> parts = new ArrayList<>();
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int i = 0; i < batches.size(); i++) {
+                ExportApplicationsRequest batch = batches.get(i);
+                Path part = workDirectory.resolve("batch-" + (i + 1) + ".json");
+                parts.add(part);
+                futures.add(executor.submit(() -> {
+                    log.fine("Exporting the settings of " + batch.getApplications());
+                    return export(batch, part, false);
+                }));
+            }
+            for (Future<Long> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof ApiCallException) {
+                        throw (ApiCallException) cause;
+                    }
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                    throw new IOException("Unable to export a batch of applications", cause);
+                }
+            }
+            return parts;
+        } finally {
+            // stops the other batches once one of them failed
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    private long download(ExportApplicationsRequest request, FileChannel out, boolean gzip) throws ApiCallException, IOException {
+        try (Response response = restApiService.exchangeForResponse("POST", ApiEndpointHelper.getExportSettingsPath(), request)) {
+            ResponseBody body = response.body();
+            if (response.code() != 200 || body == null) {
+                String message = "Response code from API was unexpected : " + response.code();
+                message += "\nContent was " + (body == null ? "EMPTY" : body.string());
+                throw new ApiCallException(response.code(), message);
+            }
+            try (ReadableByteChannel in = Channels.newChannel(body.byteStream())) {
+                return copy(in, out, gzip);
+            }
+        }
+    }
+
+    /**
+     * Write a file next to the target, and move it to the target once it is complete
+     */
+    private static long writeAtomically(Path target, ContentWriter writer) throws ApiCallException, IOException {
+        Path absoluteTarget = target.toAbsolutePath();
+        Path partFile = Files.createTempFile(absoluteTarget.getParent(), absoluteTarget.getFileName().toString(), ".part");
+        try {
+            long size;
+            try (FileChannel out = FileChannel.open(partFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                size = writer.write(out);
+                out.force(false);
+            }
+            Files.move(partFile, absoluteTarget, StandardCopyOption.ATOMIC_MOVE);
+            return size;
+        } finally {
+            Files.deleteIfExists(partFile);
+        }
+    }
+
+    /**
+     * @return A stream writing to the channel, which must not close the channel before it's forced to disk
+     */
+    private static OutputStream openOutput(FileChannel out, boolean gzip) throws IOException {
+        OutputStream stream = new UnclosedOutputStream(Channels.newOutputStream(out));
+        return gzip ? new GZIPOutputStream(stream, BUFFER_SIZE) : stream;
+    }
+
+    private long copy(ReadableByteChannel in, FileChannel out, boolean gzip) throws IOException {
+        StructureValidator validator = new StructureValidator();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long size = 0;
+        OutputStream gzipStream = gzip ? openOutput(out, true) : null;
+        try {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (read == 0) {
+                    continue;
+                }
+                validator.feed(buffer.array(), 0, read);
+                if (gzipStream != null) {
+                    gzipStream.write(buffer.array(), 0, read);
+                } else {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                }
+                buffer.clear();
+                size += read;
+            }
+            validator.finish();
+        } finally {
+            if (gzipStream != null) {
+                gzipStream.close();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Checks the structure of the exported settings as they are read : a single object, with the properties of an
+     * {@link ExportDto} holding either an array or an object, as their type.
+     */
+    private class StructureValidator {
+        private final JsonParser parser;
+        private final ByteArrayFeeder feeder;
+        private final Map<String, JsonToken> expectedTokens = new HashMap<>();
+        private final boolean failOnUnknownProperties;
+        private int depth;
+        private boolean rootDone;
+        private String currentProperty;
+
+        private StructureValidator() throws IOException {
+            parser = mapper.getFactory().createNonBlockingByteArrayParser();
+            feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+            JavaType type = mapper.constructType(ExportDto.class);
+            BeanDescription description = mapper.getDeserializationConfig().introspect(type);
+            for (BeanPropertyDefinition property : description.findProperties()) {
+                JavaType propertyType = property.getPrimaryType();
+                boolean array = propertyType.isArrayType() || propertyType.isCollectionLikeType();
+                expectedTokens.put(property.getName(), array ? JsonToken.START_ARRAY : JsonToken.START_OBJECT);
+            }
+            failOnUnknownProperties = mapper.isEnabled(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        }
+
+        private void feed(byte[] content, int offset, int length) throws IOException {
+            // the parser keeps a reference to the content, which must be fully parsed before the buffer is reused
+            feeder.feedInput(content, offset, offset + length);
+            parseAvailableTokens();
+        }
+
+        private void finish() throws IOException {
+            feeder.endOfInput();
+            parseAvailableTokens();
+            if (!rootDone) {
+                throw new JsonParseException(parser, "The exported settings are incomplete");
+            }
+        }
+
+        private void parseAvailableTokens() throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                if (rootDone) {
+                    throw new JsonParseException(parser, "Unexpected content after the exported settings");
+                }
+                if (depth == 0 && token != JsonToken.START_OBJECT) {
+                    throw new JsonParseException(parser, "The exported settings are not an object");
+                }
+                if (depth == 1) {
+                    checkProperty(token);
+                }
+                if (token.isStructStart()) {
+                    depth++;
+                } else if (token.isStructEnd()) {
+                    depth--;
+                    rootDone = depth == 0;
+                }
+            }
+        }
+
+        private void checkProperty(JsonToken token) throws IOException {
+            if (token == JsonToken.FIELD_NAME) {
+                currentProperty = parser.getCurrentName();
+                if (!expectedTokens.containsKey(currentProperty)) {
+                    if (failOnUnknownProperties) {
+                        throw new JsonParseException(parser, "Unknown property '" + currentProperty + "' in the exported settings");
+                    }
+                    log.log(Level.FINE, "Ignoring unknown property '" + currentProperty + "' in the exported settings");
+                }
+                return;
+            }
+            if (token == JsonToken.END_OBJECT || token == JsonToken.VALUE_NULL) {
+                return;
+            }
+            JsonToken expected = expectedTokens.get(currentProperty);
+            if (expected != null && token != expected) {
+                throw new JsonParseException(parser, "Property '" + currentProperty + "' of the exported settings should be "
+                        + (expected == JsonToken.START_ARRAY ? "an array" : "an object"));
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ContentWriter {
+        long write(FileChannel out) throws ApiCallException, IOException;
+    }
+
+    private static class UnclosedOutputStream extends OutputStream {
+        private final OutputStream delegate;
+
+        private UnclosedOutputStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStepType;
+
+import java.util.OptionalLong;
+
+/**
+ * Keeps track of the durations observed for each type of job step
+ */
+public interface StepDurationHistory {
+
+    /**
+     * Record the observed duration of a step
+     *
+     * @param stepType       The type of step
+     * @param durationMillis The duration of the step, in milliseconds
+     */
+    void record(JobStepType stepType, long durationMillis);
+
+    /**
+     * Get the expected duration of a step, based on the previously recorded durations
+     *
+     * @param stepType The type of step
+     * @return The expected duration in milliseconds, or an empty value if nothing was recorded for that step
+     */
+    OptionalLong getExpectedDuration(JobStepType stepType);
+}
@@ -0,0 +1,331 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStepType;
+import com.castsoftware.aip.console.tools.core.utils.VersionObjective;
+import lombok.extern.java.Log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Local, append-only store of the observed durations of job steps, used to predict the duration of the next runs.
+ * <p>
+ * The store is a binary file made of an 8 bytes header followed by fixed-size records of {@value #RECORD_SIZE} bytes :
+ * <ul>
+ *     <li>the time of the observation, in epoch milliseconds (8 bytes)</li>
+ *     <li>a 64 bits hash of the application GUID (8 bytes)</li>
+ *     <li>the hash of the step name (4 bytes)</li>
+ *     <li>the version objectives of the job, as a bit set of the {@link VersionObjective} ordinals (4 bytes)</li>
+ *     <li>the step duration, in milliseconds (8 bytes)</li>
+ *     <li>the size of the delivered source archive in bytes, 0 if unknown (8 bytes)</li>
+ * </ul>
+ * The whole file is read when the store is opened, and only the most recent observations of each step, younger than
+ * {@value #MAX_AGE_DAYS} days, are kept in memory. The file is rewritten with these observations only once most of its
+ * records are no longer used, so its size stays bounded. New observations are appended to the file right away, and the
+ * file is locked while it is read, rewritten or appended to, so several processes can share the same store. Only one
+ * store should be opened on a given file in a process.
+ */
+@Log
+public class StepDurationStore implements Closeable {
+    static final int MAGIC = 0x41495344;
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int RECORD_SIZE = 40;
+    static final int MAX_SAMPLES = 10;
+    static final int MAX_AGE_DAYS = 180;
+    private static final double MIN_SIZE_RATIO = 0.25;
+    private static final double MAX_SIZE_RATIO = 4;
+    private static final Map<Integer, JobStepType> STEPS_BY_HASH = new HashMap<>();
+
+    static {
+        for (JobStepType stepType : JobStepType.values()) {
+            STEPS_BY_HASH.put(stepType.name().hashCode(), stepType);
+        }
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(RECORD_SIZE);
+    // guarded by this
+    private final Map<StepKey, Deque<Sample>> samplesByApplication = new HashMap<>();
+    private final Map<JobStepType, Deque<Sample>> samplesByStep = new HashMap<>();
+
+    /**
+     * Open the store, creating the file if it doesn't exist
+     *
+     * @param file The store file
+     * @throws IOException If the store file cannot be read or created
+     */
+    public StepDurationStore(Path file) throws IOException {
+        this.file = file;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try (FileLock ignored = channel.lock()) {
+            load();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Record the observed duration of a step
+     *
+     * @param appGuid        The GUID of the application. Can be null if unknown.
+     * @param stepType       The type of step
+     * @param durationMillis The duration of the step, in milliseconds
+     * @param archiveSize    The size of the delivered source archive in bytes, 0 if unknown
+     * @param objectives     The version objectives of the job
+     */
+    public synchronized void record(String appGuid, JobStepType stepType, long durationMillis, long archiveSize, Set<VersionObjective> objectives) {
+        if (stepType == null || durationMillis < 0) {
+            return;
+        }
+        Sample sample = new Sample(System.currentTimeMillis(), durationMillis, Math.max(archiveSize, 0), toMask(objectives));
+        StepKey key = new StepKey(hash(appGuid), stepType);
+        addSample(key, sample);
+
+        recordBuffer.clear();
+        putRecord(recordBuffer, key, sample).flip();
+        try (FileLock ignored = channel.lock()) {
+            long position = channel.size();
+            while (recordBuffer.hasRemaining()) {
+                position += channel.write(recordBuffer, position);
+            }
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Unable to save the step duration in " + file, e);
+        }
+    }
+
+    /**
+     * Get the expected duration of a step, based on the previous observations.
+     * <p>
+     * The observations of the same application are used first, or the observations of all applications if none was
+     * recorded for that application. Among them, the ones with the same objectives are preferred, and each duration
+     * is scaled by the ratio between the archive sizes when both are known. The median of the results is returned.
+     *
+     * @param appGuid     The GUID of the application. Can be null if unknown.
+     * @param stepType    The type of step
+     * @param archiveSize The size of the delivered source archive in bytes, 0 if unknown
+     * @param objectives  The version objectives of the job
+     * @return The expected duration in milliseconds, or an empty value if the step was never observed
+     */
+    public synchronized OptionalLong getExpectedDuration(String appGuid, JobStepType stepType, long archiveSize, Set<VersionObjective> objectives) {
+        if (stepType == null) {
+            return OptionalLong.empty();
+        }
+        Deque<Sample> samples = samplesByApplication.get(new StepKey(hash(appGuid), stepType));
+        if (samples == null) {
+            samples = samplesByStep.get(stepType);
+            if (samples == null) {
+                return OptionalLong.empty();
+            }
+        }
+        int objectivesMask = toMask(objectives);
+        boolean sameObjectivesFound = samples.stream().anyMatch(s -> s.objectives == objectivesMask);
+        long[] estimates = samples.stream()
+                .filter(s -> !sameObjectivesFound || s.objectives == objectivesMask)
+                .mapToLong(s -> scale(s, archiveSize))
+                .sorted()
+                .toArray();
+        return OptionalLong.of(estimates[estimates.length / 2]);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private void load() throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE) {
+            writeHeader();
+            return;
+        }
+        ByteBuffer content = ByteBuffer.allocate((int) Math.min(size, Integer.MAX_VALUE));
+        while (content.hasRemaining() && channel.read(content, content.position()) >= 0) {
+            // read the whole file
+        }
+        content.flip();
+        if (content.getInt() != MAGIC || content.getInt() != FORMAT_VERSION) {
+            log.warning("The step durations file " + file + " has an unknown format. A new history is started.");
+            writeHeader();
+            return;
+        }
+        long oldestTime = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(MAX_AGE_DAYS);
+        int nbRecords = content.remaining() / RECORD_SIZE;
+        List<StepKey> loadedKeys = new ArrayList<>();
+        List<Sample> loadedSamples = new ArrayList<>();
+        for (int i = 0; i < nbRecords; i++) {
+            long time = content.getLong();
+            long appKey = content.getLong();
+            JobStepType stepType = STEPS_BY_HASH.get(content.getInt());
+            int objectives = content.getInt();
+            long duration = content.getLong();
+            long archiveSize = content.getLong();
+            if (stepType != null && time >= oldestTime) {
+                StepKey key = new StepKey(appKey, stepType);
+                Sample sample = new Sample(time, duration, archiveSize, objectives);
+                addSample(key, sample);
+                loadedKeys.add(key);
+                loadedSamples.add(sample);
+            }
+        }
+        log.fine("Loaded " + loadedSamples.size() + " step durations from " + file);
+
+        // the most recent observations of a step are also among the most recent ones of their application
+        Set<Sample> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        samplesByApplication.values().forEach(kept::addAll);
+        int unused = nbRecords - kept.size();
+        if (unused > 0 && unused >= kept.size()) {
+            ByteBuffer records = ByteBuffer.allocate(kept.size() * RECORD_SIZE);
+            for (int i = 0; i < loadedSamples.size(); i++) {
+                if (kept.contains(loadedSamples.get(i))) {
+                    putRecord(records, loadedKeys.get(i), loadedSamples.get(i));
+                }
+            }
+            records.flip();
+            long position = HEADER_SIZE;
+            while (records.hasRemaining()) {
+                position += channel.write(records, position);
+            }
+            channel.truncate(position);
+            log.fine("Removed " + unused + " unused step durations from " + file);
+        } else if (content.hasRemaining()) {
+            // an interrupted write, remove it so the next records are aligned
+            channel.truncate(HEADER_SIZE + (long) nbRecords * RECORD_SIZE);
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION);
+        header.flip();
+        channel.truncate(0);
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    private static ByteBuffer putRecord(ByteBuffer buffer, StepKey key, Sample sample) {
+        return buffer.putLong(sample.time)
+                .putLong(key.appKey)
+                .putInt(key.stepType.name().hashCode())
+                .putInt(sample.objectives)
+                .putLong(sample.duration)
+                .putLong(sample.archiveSize);
+    }
+
+    private void addSample(StepKey key, Sample sample) {
+        addLast(samplesByApplication.computeIfAbsent(key, k -> new ArrayDeque<>()), sample);
+        addLast(samplesByStep.computeIfAbsent(key.stepType, k -> new ArrayDeque<>()), sample);
+    }
+
+    private static void addLast(Deque<Sample> samples, Sample sample) {
+        if (samples.size() == MAX_SAMPLES) {
+            samples.removeFirst();
+        }
+        samples.addLast(sample);
+    }
+
+    private static long scale(Sample sample, long archiveSize) {
+        if (archiveSize <= 0 || sample.archiveSize <= 0) {
+            return sample.duration;
+        }
+        double ratio = Math.min(Math.max((double) archiveSize / sample.archiveSize, MIN_SIZE_RATIO), MAX_SIZE_RATIO);
+        return Math.round(sample.duration * ratio);
+    }
+
+    private static int toMask(Set<VersionObjective> objectives) {
+        int mask = 0;
+        if (objectives != null) {
+            for (VersionObjective objective : objectives) {
+                mask |= 1 << objective.ordinal();
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 64 bits FNV-1a hash, stable across runs unlike {@link Object#hashCode()} of most types
+     */
+    static long hash(String value) {
+        if (value == null) {
+            return 0;
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static class StepKey {
+        private final long appKey;
+        private final JobStepType stepType;
+
+        private StepKey(long appKey, JobStepType stepType) {
+            this.appKey = appKey;
+            this.stepType = stepType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof StepKey)) {
+                return false;
+            }
+            StepKey other = (StepKey) o;
+            return appKey == other.appKey && stepType == other.stepType;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(appKey, stepType);
+        }
+    }
+
+    private static class Sample {
+        private final long time;
+        private final long duration;
+        private final long archiveSize;
+        private final int objectives;
+
+        private Sample(long time, long duration, long archiveSize, int objectives) {
+            this.time = time;
+            this.duration = duration;
+            this.archiveSize = archiveSize;
+            this.objectives = objectives;
+        }
+    }
+}
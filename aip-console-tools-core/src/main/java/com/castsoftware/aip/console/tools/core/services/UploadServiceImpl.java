@@ -1,7 +1,7 @@
 package com.castsoftware.aip.console.tools.core.services;
 
 import com.castsoftware.aip.console.tools.core.dto.AbsolutePathDto;
-import com.castsoftware.aip.console.tools.core.dto.ApiInfoDto;
+import com.castsoftware.aip.console.tools.core.dto.ServerCapabilities;
 import com.castsoftware.aip.console.tools.core.dto.jobs.FileCommandRequest;
 import com.castsoftware.aip.console.tools.core.dto.upload.ChunkedUploadDto;
 import com.castsoftware.aip.console.tools.core.dto.upload.ChunkedUploadMetadataRequest;
@@ -10,6 +10,8 @@ import com.castsoftware.aip.console.tools.core.dto.upload.CreateUploadRequest;
 import com.castsoftware.aip.console.tools.core.exceptions.ApiCallException;
 import com.castsoftware.aip.console.tools.core.exceptions.UploadException;
 import com.castsoftware.aip.console.tools.core.exceptions.UploadIncompleteException;
+import com.castsoftware.aip.console.tools.core.tracing.Span;
+import com.castsoftware.aip.console.tools.core.tracing.Tracer;
 import com.castsoftware.aip.console.tools.core.utils.ApiEndpointHelper;
 import com.castsoftware.aip.console.tools.core.utils.Constants;
 import lombok.extern.java.Log;
@@ -78,20 +80,22 @@ public class UploadServiceImpl implements UploadService {
 
     @Override
     public String uploadFileAndGetSourcePath(String appName, String appGuid, File filePath) throws UploadException {
-        ApiInfoDto apiInfo = restApiService.getAipConsoleApiInfo();
+        ServerCapabilities capabilities = restApiService.getServerCapabilities();
         String sourcePath;
         String archiveExtension = com.castsoftware.aip.console.tools.core.utils.FilenameUtils.getFileExtension(filePath.getName());
         if (StringUtils.equalsAnyIgnoreCase(archiveExtension, Constants.ALLOWED_ARCHIVE_EXTENSIONS)) {
             sourcePath = UUID.randomUUID().toString() + "." + archiveExtension;
-            try (InputStream stream = Files.newInputStream(filePath.toPath())) {
+            try (Span span = Tracer.span("upload");
+                 InputStream stream = Files.newInputStream(filePath.toPath())) {
                 long fileSize = filePath.length();
-                if (!uploadInputStream(appGuid, sourcePath, fileSize, stream, apiInfo.isExtractionRequired())) {
+                span.setAttribute("fileSize", fileSize);
+                if (!uploadInputStream(appGuid, sourcePath, fileSize, stream, capabilities.isExtractionRequired())) {
                     throw new UploadIncompleteException("Local file fully uploaded, but AIP Console expects more content (fileSize on AIP Console not reached). Check the file you provided wasn't modified since the start of the CLI");
                 }
-                if (apiInfo.isExtractionRequired()) {
+                if (capabilities.isExtractionRequired()) {
                     // If we have already extracted the content, the source path will be application main sources
                     sourcePath = appName + "/main_sources";
-                    if (apiInfo.isSourcePathPrefixRequired()) {
+                    if (capabilities.isSourcePathPrefixRequired()) {
                         sourcePath = "upload:" + sourcePath;
                     }
                 }
@@ -138,8 +142,7 @@ public class UploadServiceImpl implements UploadService {
     @Override
     public boolean uploadInputStream(String appGuid, String fileName, long fileSize, InputStream content)
             throws UploadException {
-        ApiInfoDto dto = restApiService.getAipConsoleApiInfo();
-        return uploadInputStream(appGuid, fileName, fileSize, content, dto.isExtractionRequired());
+        return uploadInputStream(appGuid, fileName, fileSize, content, restApiService.getServerCapabilities().isExtractionRequired());
     }
 
     @Override
@@ -207,7 +210,9 @@ public class UploadServiceImpl implements UploadService {
                 log.info(String.format("Uploading chunk %s of %s", currentChunk, totalChunks));
                 log.fine("Uploading a chunk of " + nbBytesRead + " bytes");
 
-                dto = restApiService.exchangeMultipartForEntity("PATCH", uploadChunkEndpoint, headers, body, ChunkedUploadDto.class);
+                try (Span span = Tracer.span("upload chunk").setAttribute("chunk", currentChunk).setAttribute("size", nbBytesRead)) {
+                    dto = restApiService.exchangeMultipartForEntity("PATCH", uploadChunkEndpoint, headers, body, ChunkedUploadDto.class);
+                }
                 currentOffset += nbBytesRead;
                 currentChunk++;
 
@@ -236,6 +241,7 @@ public class UploadServiceImpl implements UploadService {
         log.info("Extracting archive on AIP Console");
         long waitTime = 0;
         String extractEndpoint = ApiEndpointHelper.getApplicationExtractUploadPath(appGuid, dto.getGuid());
+        Span extractionSpan = Tracer.span("extraction");
         while (StringUtils.equalsAnyIgnoreCase(dto.getStatus(), ChunkedUploadStatus.UPLOADED.name(), ChunkedUploadStatus.EXTRACTING.name())) {
             try {
                 dto = restApiService.putForEntity(extractEndpoint, null, ChunkedUploadDto.class);
@@ -250,9 +256,11 @@ public class UploadServiceImpl implements UploadService {
                 log.log(Level.WARNING, "Thread.sleep was interrupted. Trying to continue polling AIP Console", e);
             } catch (ApiCallException e) {
                 log.log(Level.SEVERE, "Unable to extract source code archive on AIP Console", e);
+                extractionSpan.close();
                 throw new UploadException("Failed to extract source code in AIP Console", e);
             }
         }
+        extractionSpan.setAttribute("status", dto.getStatus()).close();
         return StringUtils.equalsIgnoreCase(dto.getStatus(), "EXTRACTED");
     }
 }
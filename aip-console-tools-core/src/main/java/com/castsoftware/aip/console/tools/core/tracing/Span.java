@@ -0,0 +1,121 @@
+package com.castsoftware.aip.console.tools.core.tracing;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A timed operation of a trace, see {@link Tracer}.
+ * <p>
+ * When tracing is disabled, spans are replaced by {@link #NOOP}, which records nothing.
+ */
+public class Span implements AutoCloseable {
+    /**
+     * The span returned when tracing is disabled
+     */
+    public static final Span NOOP = new Span(null, null, 0, 0, null);
+
+    private final Tracer tracer;
+    private final Span parent;
+    private final long spanId;
+    private final long startNanos;
+    private final String name;
+    private final long threadId;
+    private final String threadName;
+    private final Map<String, Object> attributes = new LinkedHashMap<>();
+    private volatile long endNanos = -1;
+
+    Span(Tracer tracer, Span parent, long spanId, long startNanos, String name) {
+        this.tracer = tracer;
+        this.parent = parent;
+        this.spanId = spanId;
+        this.startNanos = startNanos;
+        this.name = name;
+        Thread thread = Thread.currentThread();
+        this.threadId = thread.getId();
+        this.threadName = thread.getName();
+    }
+
+    /**
+     * @return false for {@link #NOOP}, so callers can skip computing attributes when tracing is disabled
+     */
+    public boolean isRecording() {
+        return tracer != null;
+    }
+
+    /**
+     * Add an attribute to the span
+     *
+     * @param key   The attribute name
+     * @param value The attribute value. Strings, numbers and booleans are exported as such, other values as strings.
+     * @return This span
+     */
+    public Span setAttribute(String key, Object value) {
+        if (tracer != null && value != null) {
+            synchronized (attributes) {
+                attributes.put(key, value);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Start a child of this span, which can be ended on any thread.
+     * Unlike {@link Tracer#span(String)}, the child does not become the current span of the calling thread.
+     *
+     * @param name The name of the child span
+     * @return The new span
+     */
+    public Span childSpan(String name) {
+        return tracer == null ? NOOP : tracer.startSpan(name, this, false);
+    }
+
+    /**
+     * End the span. Ending a span more than once has no effect.
+     */
+    @Override
+    public void close() {
+        if (tracer != null && endNanos < 0) {
+            endNanos = tracer.nanoTime();
+            tracer.ended(this);
+        }
+    }
+
+    Tracer getTracer() {
+        return tracer;
+    }
+
+    Span getParent() {
+        return parent;
+    }
+
+    long getSpanId() {
+        return spanId;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    long getStartNanos() {
+        return startNanos;
+    }
+
+    long getEndNanos() {
+        return endNanos;
+    }
+
+    long getThreadId() {
+        return threadId;
+    }
+
+    String getThreadName() {
+        return threadName;
+    }
+
+    Map<String, Object> getAttributes() {
+        synchronized (attributes) {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(attributes));
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.castsoftware.aip.console.tools.core.tracing;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the spans of a {@link Tracer} to files, either in the Chrome trace event format or in the OTLP JSON format.
+ * <p>
+ * Spans which were not ended when the trace is exported are ended at the time of the export.
+ */
+final class TraceExporter {
+    static final String SERVICE_NAME = "aip-integration-tool";
+    private static final String SCOPE_NAME = "com.castsoftware.aip.console.tools";
+    private static final int PROCESS_ID = 1;
+    private static final int SPAN_KIND_INTERNAL = 1;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private TraceExporter() {
+    }
+
+    /**
+     * Write the trace as complete events ("ph": "X") of the Chrome trace event format, with one track per thread
+     *
+     * @param tracer The tracer to export
+     * @param file   The output file
+     * @throws IOException If the file cannot be written
+     */
+    static void writeChromeTrace(Tracer tracer, Path file) throws IOException {
+        long exportNanos = tracer.nanoTime();
+        List<Span> spans = tracer.getSpans();
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(Files.newOutputStream(file), JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeArrayFieldStart("traceEvents");
+
+            json.writeStartObject();
+            json.writeStringField("name", "process_name");
+            json.writeStringField("ph", "M");
+            json.writeNumberField("pid", PROCESS_ID);
+            json.writeObjectFieldStart("args");
+            json.writeStringField("name", SERVICE_NAME + " " + tracer.getName());
+            json.writeEndObject();
+            json.writeEndObject();
+
+            Map<Long, String> threadNames = new LinkedHashMap<>();
+            spans.forEach(span -> threadNames.putIfAbsent(span.getThreadId(), span.getThreadName()));
+            for (Map.Entry<Long, String> thread : threadNames.entrySet()) {
+                json.writeStartObject();
+                json.writeStringField("name", "thread_name");
+                json.writeStringField("ph", "M");
+                json.writeNumberField("pid", PROCESS_ID);
+                json.writeNumberField("tid", thread.getKey());
+                json.writeObjectFieldStart("args");
+                json.writeStringField("name", thread.getValue());
+                json.writeEndObject();
+                json.writeEndObject();
+            }
+
+            for (Span span : spans) {
+                long startNanos = span.getStartNanos();
+                long endNanos = getEndNanos(span, exportNanos);
+                json.writeStartObject();
+                json.writeStringField("name", span.getName());
+                json.writeStringField("cat", SERVICE_NAME);
+                json.writeStringField("ph", "X");
+                json.writeNumberField("ts", TimeUnit.NANOSECONDS.toMicros(tracer.toEpochNanos(startNanos)));
+                json.writeNumberField("dur", TimeUnit.NANOSECONDS.toMicros(endNanos - startNanos));
+                json.writeNumberField("pid", PROCESS_ID);
+                json.writeNumberField("tid", span.getThreadId());
+                json.writeObjectFieldStart("args");
+                for (Map.Entry<String, Object> attribute : span.getAttributes().entrySet()) {
+                    json.writeFieldName(attribute.getKey());
+                    writeChromeValue(json, attribute.getValue());
+                }
+                json.writeEndObject();
+                json.writeEndObject();
+            }
+
+            json.writeEndArray();
+            json.writeStringField("displayTimeUnit", "ms");
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * Write the trace as an OTLP JSON export request, as accepted by the OTLP/HTTP trace endpoint
+     *
+     * @param tracer The tracer to export
+     * @param file   The output file
+     * @throws IOException If the file cannot be written
+     */
+    static void writeOtlpJson(Tracer tracer, Path file) throws IOException {
+        long exportNanos = tracer.nanoTime();
+        List<Span> spans = tracer.getSpans();
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(Files.newOutputStream(file), JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeArrayFieldStart("resourceSpans");
+            json.writeStartObject();
+
+            json.writeObjectFieldStart("resource");
+            json.writeArrayFieldStart("attributes");
+            writeOtlpAttribute(json, "service.name", SERVICE_NAME);
+            json.writeEndArray();
+            json.writeEndObject();
+
+            json.writeArrayFieldStart("scopeSpans");
+            json.writeStartObject();
+            json.writeObjectFieldStart("scope");
+            json.writeStringField("name", SCOPE_NAME);
+            json.writeEndObject();
+            json.writeArrayFieldStart("spans");
+            for (Span span : spans) {
+                json.writeStartObject();
+                json.writeStringField("traceId", tracer.getTraceId());
+                json.writeStringField("spanId", toHex(span.getSpanId()));
+                if (span.getParent() != null) {
+                    json.writeStringField("parentSpanId", toHex(span.getParent().getSpanId()));
+                }
+                json.writeStringField("name", span.getName());
+                json.writeNumberField("kind", SPAN_KIND_INTERNAL);
+                // 64 bits integers are written as strings in OTLP JSON
+                json.writeStringField("startTimeUnixNano", Long.toString(tracer.toEpochNanos(span.getStartNanos())));
+                json.writeStringField("endTimeUnixNano", Long.toString(tracer.toEpochNanos(getEndNanos(span, exportNanos))));
+                json.writeArrayFieldStart("attributes");
+                writeOtlpAttribute(json, "thread.name", span.getThreadName());
+                for (Map.Entry<String, Object> attribute : span.getAttributes().entrySet()) {
+                    writeOtlpAttribute(json, attribute.getKey(), attribute.getValue());
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+            json.writeEndArray();
+
+            json.writeEndObject();
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    private static long getEndNanos(Span span, long exportNanos) {
+        long endNanos = span.getEndNanos();
+        return endNanos < 0 ? exportNanos : endNanos;
+    }
+
+    private static void writeChromeValue(JsonGenerator json, Object value) throws IOException {
+        if (value instanceof Boolean) {
+            json.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer || value instanceof Long) {
+            json.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Number) {
+            json.writeNumber(((Number) value).doubleValue());
+        } else {
+            json.writeString(String.valueOf(value));
+        }
+    }
+
+    private static void writeOtlpAttribute(JsonGenerator json, String key, Object value) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("key", key);
+        json.writeObjectFieldStart("value");
+        if (value instanceof Boolean) {
+            json.writeBooleanField("boolValue", (Boolean) value);
+        } else if (value instanceof Integer || value instanceof Long) {
+            json.writeStringField("intValue", value.toString());
+        } else if (value instanceof Number) {
+            json.writeNumberField("doubleValue", ((Number) value).doubleValue());
+        } else {
+            json.writeStringField("stringValue", String.valueOf(value));
+        }
+        json.writeEndObject();
+        json.writeEndObject();
+    }
+
+    private static String toHex(long id) {
+        return String.format("%016x", id);
+    }
+}
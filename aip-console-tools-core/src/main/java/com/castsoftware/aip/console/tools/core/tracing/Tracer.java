@@ -0,0 +1,246 @@
+package com.castsoftware.aip.console.tools.core.tracing;
+
+import lombok.extern.java.Log;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * Records the timeline of a command, as a tree of {@link Span spans}.
+ * <p>
+ * Tracing is only enabled while an action runs through {@link #trace(Path, String, Callable)}. The services record
+ * their spans with {@link #span(String)}, which returns {@link Span#NOOP} when tracing is disabled, so that spans cost
+ * nothing more than a field read in that case.
+ * <p>
+ * Spans started with {@link #span(String)} become the current span of the calling thread until they are closed, and
+ * the spans started afterwards on that thread are their children. Spans ended on another thread, like the steps of a
+ * job, should be started with {@link #detachedSpan(String)} or {@link Span#childSpan(String)} instead.
+ * <p>
+ * The trace being recorded is the one of the current span, so each top-level {@link #trace(Path, String, Callable)}
+ * records its own trace, even when several of them run at the same time. Work handed to other threads should be
+ * wrapped with {@link #wrap(Runnable)} or {@link #wrap(Supplier)}, so that its spans are children of the span current
+ * when the work was submitted.
+ * <p>
+ * At the end of the action, the trace is exported in the Chrome trace format (for chrome://tracing or Perfetto) and
+ * in the OTLP JSON format (for OpenTelemetry compatible viewers), see {@link TraceExporter}.
+ */
+@Log
+public class Tracer {
+    public static final String CHROME_TRACE_EXTENSION = ".trace.json";
+    public static final String OTLP_EXTENSION = ".otlp.json";
+
+    private static final ThreadLocal<Span> CURRENT_SPAN = new ThreadLocal<>();
+
+    private final String name;
+    private final String traceId;
+    private final long startEpochNanos;
+    private final long startNanoTime;
+    private final Queue<Span> spans = new ConcurrentLinkedQueue<>();
+
+    Tracer(String name) {
+        this.name = name;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        this.traceId = String.format("%016x%016x", random.nextLong(), random.nextLong());
+        this.startEpochNanos = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+        this.startNanoTime = System.nanoTime();
+    }
+
+    /**
+     * @return true if a trace is being recorded by the calling thread
+     */
+    public static boolean isEnabled() {
+        return currentSpan() != null;
+    }
+
+    /**
+     * Start a span, child of the current span of the calling thread, and make it the current span until it is closed.
+     *
+     * @param name The name of the span
+     * @return The new span, or {@link Span#NOOP} if tracing is disabled
+     */
+    public static Span span(String name) {
+        Span parent = currentSpan();
+        return parent == null ? Span.NOOP : parent.getTracer().startSpan(name, parent, true);
+    }
+
+    /**
+     * Start a span, child of the current span of the calling thread, without making it the current span.
+     * The span can be ended on any thread.
+     *
+     * @param name The name of the span
+     * @return The new span, or {@link Span#NOOP} if tracing is disabled
+     */
+    public static Span detachedSpan(String name) {
+        Span parent = currentSpan();
+        return parent == null ? Span.NOOP : parent.getTracer().startSpan(name, parent, false);
+    }
+
+    /**
+     * Wrap a task run on another thread, so that the span current when it is wrapped is its current span while it runs
+     *
+     * @param task The task
+     * @return The wrapped task, or the task itself if tracing is disabled
+     */
+    public static Runnable wrap(Runnable task) {
+        Span parent = currentSpan();
+        if (parent == null) {
+            return task;
+        }
+        return () -> {
+            Span previous = CURRENT_SPAN.get();
+            CURRENT_SPAN.set(parent);
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * Same as {@link #wrap(Runnable)}, for a task returning a value
+     *
+     * @param task The task
+     * @return The wrapped task, or the task itself if tracing is disabled
+     */
+    public static <T> Supplier<T> wrap(Supplier<T> task) {
+        Span parent = currentSpan();
+        if (parent == null) {
+            return task;
+        }
+        return () -> {
+            Span previous = CURRENT_SPAN.get();
+            CURRENT_SPAN.set(parent);
+            try {
+                return task.get();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * Run the given action, recording its trace if a trace directory is given.
+     * The trace files are written in that directory once the action is done, the result of the action being added to
+     * the root span. If a trace is already being recorded, e.g. for a batch of commands, the action is recorded as a
+     * span of that trace instead.
+     *
+     * @param traceDirectory The directory of the trace files. Tracing is disabled if null.
+     * @param name           The name of the root span, also used for the trace file names
+     * @param action         The action to trace
+     * @return The result of the action
+     * @throws Exception Any exception thrown by the action
+     */
+    public static <T> T trace(Path traceDirectory, String name, Callable<T> action) throws Exception {
+        if (traceDirectory == null) {
+            return action.call();
+        }
+        if (currentSpan() != null) {
+            Span span = span(name);
+            T result = null;
+            try {
+                result = action.call();
+                return result;
+            } finally {
+                span.setAttribute("result", result);
+                span.close();
+            }
+        }
+        Tracer tracer = new Tracer(name);
+        Span previous = CURRENT_SPAN.get();
+        Span root = tracer.startSpan(name, null, true);
+        T result = null;
+        try {
+            result = action.call();
+            return result;
+        } finally {
+            root.setAttribute("result", result);
+            root.close();
+            restore(previous);
+            tracer.export(traceDirectory);
+        }
+    }
+
+    Span startSpan(String spanName, Span parent, boolean makeCurrent) {
+        long spanId;
+        do {
+            spanId = ThreadLocalRandom.current().nextLong();
+        } while (spanId == 0);
+        Span span = new Span(this, parent, spanId, nanoTime(), spanName);
+        spans.add(span);
+        if (makeCurrent) {
+            CURRENT_SPAN.set(span);
+        }
+        return span;
+    }
+
+    void ended(Span span) {
+        if (CURRENT_SPAN.get() == span) {
+            Span parent = span.getParent();
+            if (parent == null) {
+                CURRENT_SPAN.remove();
+            } else {
+                CURRENT_SPAN.set(parent);
+            }
+        }
+    }
+
+    long nanoTime() {
+        return System.nanoTime() - startNanoTime;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getTraceId() {
+        return traceId;
+    }
+
+    long toEpochNanos(long nanos) {
+        return startEpochNanos + nanos;
+    }
+
+    List<Span> getSpans() {
+        return new ArrayList<>(spans);
+    }
+
+    private static Span currentSpan() {
+        Span current = CURRENT_SPAN.get();
+        // ignore the spans left over by a trace already recorded
+        return current != null && current.getEndNanos() < 0 ? current : null;
+    }
+
+    private static void restore(Span previous) {
+        if (previous == null) {
+            CURRENT_SPAN.remove();
+        } else {
+            CURRENT_SPAN.set(previous);
+        }
+    }
+
+    private void export(Path traceDirectory) {
+        String baseName = name + "-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date(TimeUnit.NANOSECONDS.toMillis(startEpochNanos)));
+        try {
+            Files.createDirectories(traceDirectory);
+            Path chromeTrace = traceDirectory.resolve(baseName + CHROME_TRACE_EXTENSION);
+            TraceExporter.writeChromeTrace(this, chromeTrace);
+            TraceExporter.writeOtlpJson(this, traceDirectory.resolve(baseName + OTLP_EXTENSION));
+            log.info("Trace written to " + chromeTrace);
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Unable to write the trace files in " + traceDirectory, e);
+        }
+    }
+}
@@ -1,16 +1,25 @@
 package com.castsoftware.aip.console.tools.core.utils;
 
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobState;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
 public class ApiEndpointHelper {
 
     private static final String ROOT_PATH = "/api";
     private static final String APPLICATIONS_ENDPOINT = "/applications";
     private static final String JOBS_ENDPOINT = "/jobs";
+    private static final String NODES_ENDPOINT = "/nodes";
     private static final String UPLOAD_ENDPOINT = "/upload";
     private static final String VERSIONS_ENDPOINT = "/versions";
     private static final String EXTRACT_ENDPOINT = "/extract";
     private static final String DEBUG_OPTIONS_ENDPOINT = "/debug-options";
     private static final String SHOW_SQL_ENDPOINT = "/show-sql";
     private static final String AMT_PROFILE_ENDPOINT = "/activate-amt-memory-profile";
+    private static final String DISCOVER_PACKAGES_ENDPOINT = "/delivery-configuration/discover-packages";
+    private static final String PENDING_RESULTS_ENDPOINT = "/pending-results";
+    private static final String EXPORT_ENDPOINT = "/export";
     public static final String MODULE_OPTIONS_ENDPOINT = "/module-options";
 
     public static final String MODULE_OPTIONS_GENERATION_TYPE_ENDPOINT = MODULE_OPTIONS_ENDPOINT + "/generation-type";
@@ -19,6 +28,10 @@ public class ApiEndpointHelper {
         return ROOT_PATH + "/";
     }
 
+    public static String getNodesPath() {
+        return ROOT_PATH + NODES_ENDPOINT;
+    }
+
     public static String getApplicationsPath() {
         return ROOT_PATH + APPLICATIONS_ENDPOINT;
     }
@@ -51,6 +64,16 @@ public class ApiEndpointHelper {
         return getApplicationUploadPath(appGuid, uploadGuid) + EXTRACT_ENDPOINT;
     }
 
+    public static String getDiscoverPackagesPath(String appGuid) {
+        return getApplicationPath(appGuid) + DISCOVER_PACKAGES_ENDPOINT;
+    }
+
+    public static String getPendingResultPath(String appGuid, String pendingResultGuid) {
+        assert pendingResultGuid != null && !pendingResultGuid.isEmpty();
+
+        return getApplicationPath(appGuid) + PENDING_RESULTS_ENDPOINT + "/" + pendingResultGuid;
+    }
+
     public static String getDebugOptionsPath(String appGuid) {
         return getApplicationPath(appGuid) + DEBUG_OPTIONS_ENDPOINT;
     }
@@ -71,6 +94,14 @@ public class ApiEndpointHelper {
         return ROOT_PATH + JOBS_ENDPOINT;
     }
 
+    public static String getExportSettingsPath() {
+        return ROOT_PATH + EXPORT_ENDPOINT;
+    }
+
+    public static String getRunningJobsEndpoint() {
+        return getJobsEndpoint() + "?states=" + Arrays.stream(JobState.getInProgressStates()).map(JobState::toString).collect(Collectors.joining(","));
+    }
+
     public static String getJobDetailsEndpoint(String jobGuid) {
         assert jobGuid != null && !jobGuid.isEmpty();
 
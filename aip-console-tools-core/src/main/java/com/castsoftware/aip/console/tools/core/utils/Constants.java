@@ -27,6 +27,8 @@ public class Constants {
     public static final int RETURN_FILE_ALREADY_EXISTS = 13;
     public static final int RETURN_EXPORT_SETTINGS_ERROR = 14;
     public static final int RETURN_INVALID_PARAMETERS_ERROR = 16;
+    public static final int RETURN_BATCH_FAILED = 17;
+    public static final int RETURN_JOB_NOT_FINISHED = 18;
 
     public static final int UNKNOWN_ERROR = 1000;
 
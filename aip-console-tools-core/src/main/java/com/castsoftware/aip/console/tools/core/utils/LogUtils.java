@@ -1,33 +1,116 @@
 package com.castsoftware.aip.console.tools.core.utils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public final class LogUtils {
-    private static final String HOST_PORT_REGEXP = "\\s*[_']?\\s*(?<sensitiveInfo>\\S+:\\d+)";
+    private static final String HOST_PORT_REGEXP = "\\s*[_']?\\s*(\\S+:\\d+)";
     public static final String REPLACEMENT_STR = "****";
 
-    private static List<Pattern> SENSITIVE_INFO_PATTERNS = new ArrayList<>();
-    static{
-        SENSITIVE_INFO_PATTERNS.add(Pattern.compile("\\*\\*\\s*HOST:\\s*(?<sensitiveInfo>\\S+)"));
-        SENSITIVE_INFO_PATTERNS.add(Pattern.compile("\\*\\*\\s*PORT:\\s*(?<sensitiveInfo>\\d+)"));
-        SENSITIVE_INFO_PATTERNS.add(Pattern.compile("\\-{2}apiKey[:|\\=]?\\s*(?<sensitiveInfo>\\S+)"));
-        SENSITIVE_INFO_PATTERNS.add(Pattern.compile("(CastStorageService" + HOST_PORT_REGEXP + ")"));
-        SENSITIVE_INFO_PATTERNS.add(Pattern.compile("____Connected to" + HOST_PORT_REGEXP + " database"));
-        SENSITIVE_INFO_PATTERNS.add(Pattern.compile("Server" + HOST_PORT_REGEXP + " on CastStorageService'"));
-        SENSITIVE_INFO_PATTERNS.add(Pattern.compile("(-logFilePath|Log file path):\\s*(?<sensitiveInfo>\\S+)"));
-        SENSITIVE_INFO_PATTERNS.add(Pattern.compile("-licenseKey\\s*:\\s*(?<sensitiveInfo>.+)"));
+    /**
+     * All the sensitive information patterns, combined in a single alternation.
+     * Each alternative has exactly one capturing group, holding the sensitive information.
+     */
+    private static final String[] SENSITIVE_INFO_REGEXPS = {
+            "\\*\\*\\s*HOST:\\s*(\\S+)",
+            "\\*\\*\\s*PORT:\\s*(\\d+)",
+            "\\-{2}apiKey[:|\\=]?\\s*(\\S+)",
+            "CastStorageService" + HOST_PORT_REGEXP,
+            "____Connected to" + HOST_PORT_REGEXP + " database",
+            "Server" + HOST_PORT_REGEXP + " on CastStorageService'",
+            "(?:-logFilePath|Log file path):\\s*(\\S+)",
+            "-licenseKey\\s*:\\s*(.+)"
+    };
+    private static final Pattern SENSITIVE_INFO_PATTERN = Pattern.compile(String.join("|", SENSITIVE_INFO_REGEXPS));
+    private static final ThreadLocal<Matcher> SENSITIVE_INFO_MATCHER = ThreadLocal.withInitial(() -> SENSITIVE_INFO_PATTERN.matcher(""));
+
+    /**
+     * Literals that appear in every sensitive information pattern. Lines containing none of them are returned as is,
+     * without running the regular expression.
+     */
+    private static final String[] SENSITIVE_INFO_MARKERS = {
+            "HOST:", "PORT:", "apiKey", "CastStorageService", "Connected to", "-logFilePath", "Log file path", "-licenseKey"
+    };
+    // markers indexed by their first character, to check all of them in a single scan of the line
+    private static final String[][] MARKERS_BY_FIRST_CHAR = new String[128][];
+
+    static {
+        for (String marker : SENSITIVE_INFO_MARKERS) {
+            char first = marker.charAt(0);
+            String[] markers = MARKERS_BY_FIRST_CHAR[first];
+            String[] updated = markers == null ? new String[1] : Arrays.copyOf(markers, markers.length + 1);
+            updated[updated.length - 1] = marker;
+            MARKERS_BY_FIRST_CHAR[first] = updated;
+        }
     }
 
+    private LogUtils() {
+    }
+
+    /**
+     * Replaces every sensitive information (host names, ports, keys, paths...) found in the given line
+     *
+     * @param toMath The log line
+     * @return The line, with all sensitive information replaced by {@link #REPLACEMENT_STR}
+     */
     public static String replaceAllSensitiveInformation(String toMath) {
-        Optional<Matcher> m = SENSITIVE_INFO_PATTERNS.stream().parallel().map(pat -> pat.matcher(toMath)).filter(Matcher::find).findFirst();
-        if (m.isPresent()) {
-            String what = m.get().group("sensitiveInfo");
-            return toMath.replace(what, REPLACEMENT_STR);
+        if (toMath == null || !mayContainSensitiveInformation(toMath)) {
+            return toMath;
+        }
+        Matcher matcher = SENSITIVE_INFO_MATCHER.get().reset(toMath);
+        StringBuilder result = null;
+        List<String> sensitiveValues = null;
+        int lastEnd = 0;
+        while (matcher.find()) {
+            int group = getMatchedGroup(matcher);
+            if (group < 0) {
+                continue;
+            }
+            if (result == null) {
+                result = new StringBuilder(toMath.length());
+                sensitiveValues = new ArrayList<>();
+            }
+            sensitiveValues.add(matcher.group(group));
+            result.append(toMath, lastEnd, matcher.start(group)).append(REPLACEMENT_STR);
+            lastEnd = matcher.end(group);
+        }
+        if (result == null) {
+            return toMath;
+        }
+        String redacted = result.append(toMath, lastEnd, toMath.length()).toString();
+        // other occurrences of the same values elsewhere in the line
+        for (String value : sensitiveValues) {
+            if (redacted.contains(value)) {
+                redacted = redacted.replace(value, REPLACEMENT_STR);
+            }
+        }
+        return redacted;
+    }
+
+    static boolean mayContainSensitiveInformation(String line) {
+        for (int i = 0, length = line.length(); i < length; i++) {
+            char c = line.charAt(i);
+            String[] markers = c < MARKERS_BY_FIRST_CHAR.length ? MARKERS_BY_FIRST_CHAR[c] : null;
+            if (markers != null) {
+                for (String marker : markers) {
+                    if (line.startsWith(marker, i)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int getMatchedGroup(Matcher matcher) {
+        for (int i = 1; i <= matcher.groupCount(); i++) {
+            if (matcher.start(i) >= 0 && matcher.end(i) > matcher.start(i)) {
+                return i;
+            }
         }
-        return toMath;
+        return -1;
     }
 }
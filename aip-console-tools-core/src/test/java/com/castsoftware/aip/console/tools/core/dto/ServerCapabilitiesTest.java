@@ -0,0 +1,41 @@
+package com.castsoftware.aip.console.tools.core.dto;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ServerCapabilitiesTest {
+
+    @Test
+    public void testCapabilitiesOfVersions() {
+        ServerCapabilities old = ServerCapabilities.of(ApiInfoDto.builder().apiVersion("1.9.2").build());
+        assertTrue(old.isJobToBeResumed());
+        assertFalse(old.isSourcePathPrefixRequired());
+        assertTrue(old.isLastStepConsolidateSnapshot());
+        assertFalse(old.isLastStepUploadAppSnapshot());
+
+        ServerCapabilities extracting = ServerCapabilities.of(ApiInfoDto.builder().apiVersion("1.15.0-SNAPSHOT").enablePackagePathCheck(true).build());
+        assertEquals(1, extracting.getApiVersionSemVer().getMajor());
+        assertTrue(extracting.isExtractionRequired());
+        assertTrue(extracting.isSourcePathPrefixRequired());
+        assertTrue(extracting.isPackagePathCheckEnabled());
+        assertFalse(extracting.isJobToBeResumed());
+
+        ServerCapabilities recent = ServerCapabilities.of(ApiInfoDto.builder().apiVersion("1.23.0").castVersion("8.3.40").build());
+        assertEquals("8.3.40", recent.getCastVersion());
+        assertFalse(recent.isExtractionRequired());
+        assertTrue(recent.isJobStatusWithDuration());
+        assertFalse(recent.isLastStepConsolidateSnapshot());
+        assertTrue(recent.isLastStepUploadAppSnapshot());
+    }
+
+    @Test
+    public void testUnknownVersion() {
+        ServerCapabilities unknown = ServerCapabilities.of(null);
+        assertEquals("", unknown.getApiVersion());
+        assertFalse(unknown.isExtractionRequired());
+        assertFalse(unknown.isLastStepUploadAppSnapshot());
+    }
+}
@@ -0,0 +1,60 @@
+package com.castsoftware.aip.console.tools.core.dto;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class VersionIndexTest {
+
+    @Test
+    public void testLatestVersionByMinimumStatus() {
+        VersionDto old = version("v1", VersionStatus.SNAPSHOT_DONE, LocalDateTime.of(2020, 1, 1, 0, 0));
+        VersionDto delivered = version("v2", VersionStatus.DELIVERED, LocalDateTime.of(2020, 2, 1, 0, 0));
+        VersionDto opened = version("v3", VersionStatus.OPENED, LocalDateTime.of(2020, 3, 1, 0, 0));
+        VersionDto undated = version("v4", VersionStatus.VALIDATED, null);
+
+        VersionIndex index = new VersionIndex(Arrays.asList(old, undated, null, opened, delivered));
+
+        assertEquals(Arrays.asList(opened, delivered, old, undated), index.getVersions());
+        assertEquals(opened, index.getLatestVersion(VersionStatus.OPENED));
+        assertEquals(delivered, index.getLatestVersion(VersionStatus.DELIVERED));
+        assertEquals(old, index.getLatestVersion(VersionStatus.ANALYSIS_DONE));
+        assertEquals(undated, index.getLatestVersion(VersionStatus.VALIDATED));
+    }
+
+    @Test
+    public void testFindByNameAndCurrentVersion() {
+        VersionDto current = version("Version 1", VersionStatus.ANALYSIS_DONE, LocalDateTime.of(2020, 1, 1, 0, 0));
+        current.setCurrentVersion(true);
+
+        VersionIndex index = new VersionIndex(Arrays.asList(current));
+
+        assertEquals(current, index.findByName("version 1"));
+        assertNull(index.findByName("version 2"));
+        assertNull(index.findByName(null));
+        assertEquals(current, index.getCurrentVersion());
+    }
+
+    @Test
+    public void testEmptyIndex() {
+        VersionIndex index = new VersionIndex(null);
+
+        assertTrue(index.isEmpty());
+        assertNull(index.getLatestVersion(VersionStatus.DELIVERED));
+        assertNull(index.getCurrentVersion());
+    }
+
+    private static VersionDto version(String name, VersionStatus status, LocalDateTime date) {
+        VersionDto version = new VersionDto();
+        version.setGuid(name + "-guid");
+        version.setName(name);
+        version.setStatus(status);
+        version.setVersionDate(date);
+        return version;
+    }
+}
@@ -0,0 +1,54 @@
+package com.castsoftware.aip.console.tools.core.dto.deserializers;
+
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobState;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusProjection;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusWithSteps;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FullStepsDeserializerTest {
+    private final ObjectMapper mapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    @Test
+    public void testStepNames() throws Exception {
+        JobStatusWithSteps status = mapper.readValue("{\"fullSteps\":[\"unzip_source\",\"analyze\"],\"progressStep\":\"analyze\"}", JobStatusWithSteps.class);
+        assertEquals(Arrays.asList("unzip_source", "analyze"), status.getFullSteps());
+        assertEquals("analyze", status.getProgressStep());
+    }
+
+    @Test
+    public void testStepObjects() throws Exception {
+        String content = "{\"fullSteps\":[" +
+                "{\"parameters\":{\"step\":\"nested\"},\"step\":\"unzip_source\",\"nextStep\":\"analyze\"}," +
+                "{\"step\":{\"name\":\"invalid\"}},{\"state\":\"pending\"},12," +
+                "{\"step\":\"analyze\",\"nextStep\":null}" +
+                "],\"state\":\"started\"}";
+        JobStatusWithSteps status = mapper.readValue(content, JobStatusWithSteps.class);
+        assertEquals(Arrays.asList("unzip_source", "analyze"), status.getFullSteps());
+        assertEquals(JobState.STARTED, status.getState());
+    }
+
+    @Test
+    public void testNoArray() throws Exception {
+        JobStatusWithSteps status = mapper.readValue("{\"fullSteps\":{\"step\":\"analyze\"},\"progressStep\":\"analyze\"}", JobStatusWithSteps.class);
+        assertTrue(status.getFullSteps().isEmpty());
+        assertEquals("analyze", status.getProgressStep());
+    }
+
+    @Test
+    public void testProjectionSkipsDetails() throws Exception {
+        JobStatusProjection status = new ObjectMapper().readValue(
+                JobStatusProjection.class.getResourceAsStream("/jobs/job-status-sample.json"), JobStatusProjection.class);
+        assertEquals(JobState.STARTED, status.getState());
+        assertEquals("analyze", status.getProgressStep());
+        assertNull(status.getFailureStep());
+        assertEquals("f7d2c8a4-1a3b-4c5d-8e9f-0a1b2c3d4e5f", status.getAppGuid());
+    }
+}
@@ -0,0 +1,113 @@
+package com.castsoftware.aip.console.tools.core.dto.jobs;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of reading the status of a job on each poll : the full job status with the previous tree based
+ * reading of the full steps, the full job status, and the projection now used while the job stays in the same step.
+ * <p>
+ * The allocations per poll are reported by the GC profiler, as {@code gc.alloc.rate.norm}.
+ * Not run with the unit tests. Run it with the main method of this class, after a {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JobStatusPollBenchmark {
+    private byte[] content;
+    private ObjectMapper mapper;
+    private ObjectMapper legacyMapper;
+
+    @Setup
+    public void loadStatus() throws IOException {
+        content = IOUtils.toByteArray(JobStatusPollBenchmark.class.getResourceAsStream("/jobs/job-status-sample.json"));
+        mapper = createMapper();
+        legacyMapper = createMapper();
+        legacyMapper.addMixIn(JobStatus.class, LegacyFullStepsMixIn.class);
+    }
+
+    @Benchmark
+    public JobStatusWithSteps legacyFullStatus() throws IOException {
+        return legacyMapper.readValue(content, JobStatusWithSteps.class);
+    }
+
+    @Benchmark
+    public JobStatusWithSteps fullStatus() throws IOException {
+        return mapper.readValue(content, JobStatusWithSteps.class);
+    }
+
+    @Benchmark
+    public JobStatusProjection projection() throws IOException {
+        return mapper.readValue(content, JobStatusProjection.class);
+    }
+
+    // same configuration as the REST API service
+    private static ObjectMapper createMapper() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        return objectMapper;
+    }
+
+    abstract static class LegacyFullStepsMixIn {
+        @JsonDeserialize(using = LegacyFullStepsDeserializer.class)
+        private List<String> fullSteps;
+    }
+
+    static class LegacyFullStepsDeserializer extends JsonDeserializer<List<String>> {
+        @Override
+        public List<String> deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            List<String> fullSteps = new ArrayList<>();
+            JsonNode node = p.readValueAsTree();
+            if (node.isArray()) {
+                for (JsonNode child : node) {
+                    if (child.isObject()) {
+                        JsonNode stepNode = child.get("step");
+                        if (stepNode.isTextual()) {
+                            fullSteps.add(stepNode.textValue());
+                        }
+                    } else if (child.isTextual()) {
+                        fullSteps.add(child.textValue());
+                    }
+                }
+            }
+            return fullSteps;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JobStatusPollBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
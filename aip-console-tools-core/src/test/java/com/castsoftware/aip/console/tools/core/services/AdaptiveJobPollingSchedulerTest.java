@@ -0,0 +1,73 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStepType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveJobPollingSchedulerTest {
+    private static final long MIN_DELAY = TimeUnit.SECONDS.toMillis(2);
+    private static final long MAX_DELAY = TimeUnit.SECONDS.toMillis(60);
+    private static final long UNKNOWN_MAX_DELAY = TimeUnit.SECONDS.toMillis(15);
+
+    private AdaptiveJobPollingScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new AdaptiveJobPollingScheduler(new InMemoryStepDurationHistory(), MIN_DELAY, MAX_DELAY, UNKNOWN_MAX_DELAY);
+    }
+
+    @Test
+    public void testFirstPollIsFast() {
+        assertEquals(MIN_DELAY, scheduler.getNextPollDelay(0, null, 0));
+    }
+
+    @Test
+    public void testBackOffWhileNoStatus() {
+        assertEquals(MIN_DELAY, scheduler.getNextPollDelay(1, null, 0));
+        assertEquals(2 * MIN_DELAY, scheduler.getNextPollDelay(2, null, 0));
+        assertEquals(UNKNOWN_MAX_DELAY, scheduler.getNextPollDelay(30, null, 0));
+    }
+
+    @Test
+    public void testUnknownStepBacksOffWithElapsedTime() {
+        assertEquals(MIN_DELAY, scheduler.getNextPollDelay(1, "analyze", TimeUnit.SECONDS.toMillis(1)));
+        assertEquals(TimeUnit.SECONDS.toMillis(5), scheduler.getNextPollDelay(3, "analyze", TimeUnit.SECONDS.toMillis(20)));
+        assertEquals(UNKNOWN_MAX_DELAY, scheduler.getNextPollDelay(10, "analyze", TimeUnit.MINUTES.toMillis(30)));
+        // steps not known by the tool are handled the same way
+        assertEquals(UNKNOWN_MAX_DELAY, scheduler.getNextPollDelay(10, "some_new_step", TimeUnit.MINUTES.toMillis(30)));
+    }
+
+    @Test
+    public void testKnownStepPollsAroundExpectedEnd() {
+        scheduler.onStepCompleted("analyze", TimeUnit.MINUTES.toMillis(60));
+
+        // long step : slow polling at the beginning
+        assertEquals(MAX_DELAY, scheduler.getNextPollDelay(2, "analyze", TimeUnit.MINUTES.toMillis(1)));
+        // close to the expected end : fast polling
+        assertEquals(TimeUnit.SECONDS.toMillis(10), scheduler.getNextPollDelay(20, "analyze", TimeUnit.MINUTES.toMillis(60) - TimeUnit.SECONDS.toMillis(20)));
+        assertEquals(MIN_DELAY, scheduler.getNextPollDelay(21, "analyze", TimeUnit.MINUTES.toMillis(60)));
+        // overdue : back off again
+        assertEquals(TimeUnit.SECONDS.toMillis(30), scheduler.getNextPollDelay(22, "analyze", TimeUnit.MINUTES.toMillis(61)));
+    }
+
+    @Test
+    public void testShortStepPolledQuickly() {
+        scheduler.onStepCompleted("setcurrent", TimeUnit.SECONDS.toMillis(5));
+        assertEquals(MIN_DELAY, scheduler.getNextPollDelay(1, "setcurrent", TimeUnit.SECONDS.toMillis(2)));
+    }
+
+    @Test
+    public void testHistoryFavorsRecentDurations() {
+        InMemoryStepDurationHistory history = new InMemoryStepDurationHistory();
+        AdaptiveJobPollingScheduler adaptive = new AdaptiveJobPollingScheduler(history);
+        adaptive.onStepCompleted("snapshot", TimeUnit.MINUTES.toMillis(10));
+        adaptive.onStepCompleted("snapshot", TimeUnit.MINUTES.toMillis(20));
+        long expected = history.getExpectedDuration(JobStepType.SNAPSHOT).getAsLong();
+        assertTrue(expected > TimeUnit.MINUTES.toMillis(10) && expected < TimeUnit.MINUTES.toMillis(20));
+    }
+}
@@ -0,0 +1,61 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.castsoftware.aip.console.tools.core.dto.ApplicationDto;
+import com.castsoftware.aip.console.tools.core.dto.Applications;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.StrictStubs.class)
+public class ApplicationDirectoryTest {
+    private static final String API_APP_ENDPOINT = "/api/applications";
+
+    @Mock
+    private RestApiService restApiService;
+
+    @Test
+    public void testLookupsWithinTtl() throws Exception {
+        ApplicationDto first = ApplicationDto.builder().guid("GUID-1").name("First App").build();
+        ApplicationDto second = ApplicationDto.builder().guid("guid-2").name("second app").build();
+        when(restApiService.getForEntity(API_APP_ENDPOINT, Applications.class))
+                .thenReturn(new Applications(new HashSet<>(Arrays.asList(first, second, null))));
+
+        ApplicationDirectory directory = new ApplicationDirectory(restApiService, 1, TimeUnit.HOURS);
+        assertEquals(first, directory.findByName("first APP"));
+        assertEquals(first, directory.findByGuid("guid-1"));
+        assertEquals(second, directory.findByGuid("GUID-2"));
+        assertNull(directory.findByName("unknown"));
+        assertEquals(new HashSet<>(Arrays.asList(first, second)),
+                directory.findByNames(new HashSet<>(Arrays.asList("SECOND APP", "first app", "unknown"))));
+
+        verify(restApiService, times(1)).getForEntity(API_APP_ENDPOINT, Applications.class);
+    }
+
+    @Test
+    public void testRefreshAfterInvalidationOrExpiry() throws Exception {
+        ApplicationDto app = ApplicationDto.builder().guid("guid").name("app").build();
+        when(restApiService.getForEntity(API_APP_ENDPOINT, Applications.class))
+                .thenReturn(new Applications(), new Applications(new HashSet<>(Arrays.asList(app))));
+
+        ApplicationDirectory directory = new ApplicationDirectory(restApiService, 1, TimeUnit.HOURS);
+        assertNull(directory.findByName("app"));
+        directory.invalidate();
+        assertEquals(app, directory.findByName("app"));
+
+        ApplicationDirectory expiredDirectory = new ApplicationDirectory(restApiService, 0, TimeUnit.MILLISECONDS);
+        expiredDirectory.findByName("app");
+        expiredDirectory.findByName("app");
+        verify(restApiService, times(4)).getForEntity(API_APP_ENDPOINT, Applications.class);
+    }
+}
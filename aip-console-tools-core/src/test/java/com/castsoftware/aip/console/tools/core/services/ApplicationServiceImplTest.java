@@ -2,22 +2,36 @@ package com.castsoftware.aip.console.tools.core.services;
 
 import com.castsoftware.aip.console.tools.core.dto.ApplicationDto;
 import com.castsoftware.aip.console.tools.core.dto.Applications;
+import com.castsoftware.aip.console.tools.core.dto.NodeDto;
 import com.castsoftware.aip.console.tools.core.dto.VersionDto;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobState;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatus;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStepType;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobType;
 import com.castsoftware.aip.console.tools.core.exceptions.ApiCallException;
 import com.castsoftware.aip.console.tools.core.exceptions.ApplicationServiceException;
 import com.castsoftware.aip.console.tools.core.exceptions.JobServiceException;
 import com.castsoftware.aip.console.tools.core.utils.ApiEndpointHelper;
+import com.castsoftware.aip.console.tools.core.utils.Constants;
+import com.castsoftware.aip.console.tools.core.utils.VersionObjective;
 import com.fasterxml.jackson.core.type.TypeReference;
 import lombok.extern.java.Log;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -38,6 +52,9 @@ public class ApplicationServiceImplTest {
     private static final String TEST_APP_GUID = "appGuid";
     private static final String TEST_JOB_GUID = "jobGuid";
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Mock
     private RestApiService restApiService;
 
@@ -133,6 +150,67 @@ public class ApplicationServiceImplTest {
         assertEquals("Appguid should be the expected value", TEST_APP_GUID, appGuid);
     }
 
+    @Test
+    public void testGetOrCreateApplicationOnLeastLoadedNode() throws Exception {
+        NodeDto busyNode = new NodeDto("busyNodeGuid", "busyNode", "http", "host1", 8082);
+        NodeDto idleNode = new NodeDto("idleNodeGuid", "idleNode", "http", "host2", 8082);
+        // the running jobs only give their application, which gives its node
+        mockRunningJobs(Arrays.asList(busyNode, idleNode),
+                Collections.singletonList(application("busyAppGuid", "BUSYNODE")),
+                Collections.singletonList(runningJob("busyAppGuid", 0)));
+        mockCreation(idleNode);
+
+        String appGuid = applicationService.getOrCreateApplicationFromName(TEST_APP_NAME, true, null, null, true, true);
+        assertEquals("Appguid should be the expected value", TEST_APP_GUID, appGuid);
+    }
+
+    @Test
+    public void testGetOrCreateApplicationOnNodeWithShortestExpectedAnalyses() throws Exception {
+        NodeDto longNode = new NodeDto("longNodeGuid", "longNode", "http", "host1", 8082);
+        NodeDto shortNode = new NodeDto("shortNodeGuid", "shortNode", "http", "host2", 8082);
+        mockRunningJobs(Arrays.asList(longNode, shortNode),
+                Arrays.asList(application("bigAppGuid", "longNode"), application("smallAppGuid", "shortNode")),
+                Arrays.asList(runningJob("bigAppGuid", 0), runningJob("smallAppGuid", 1), runningJob("smallAppGuid", 2)));
+        mockCreation(shortNode);
+
+        try (StepDurationStore store = new StepDurationStore(folder.getRoot().toPath().resolve("step-durations.bin"))) {
+            store.record("bigAppGuid", JobStepType.ANALYZE, TimeUnit.HOURS.toMillis(10), 0, EnumSet.of(VersionObjective.GLOBAL_RISK));
+            store.record("smallAppGuid", JobStepType.ANALYZE, TimeUnit.MINUTES.toMillis(10), 0, EnumSet.of(VersionObjective.GLOBAL_RISK));
+            ((ApplicationServiceImpl) applicationService).setNodePlacementPolicy(new LeastLoadedNodePlacementPolicy(store));
+
+            // two short analyses weigh less than a long one
+            String appGuid = applicationService.getOrCreateApplicationFromName(TEST_APP_NAME, true, null, null, true, true);
+            assertEquals("Appguid should be the expected value", TEST_APP_GUID, appGuid);
+        }
+    }
+
+    private void mockRunningJobs(List<NodeDto> nodes, List<ApplicationDto> applications, List<JobStatus> jobs) throws Exception {
+        Applications existing = new Applications();
+        existing.applications.addAll(applications);
+        when(restApiService.getForEntity(API_APP_ENDPOINT, Applications.class))
+                .thenReturn(existing);
+        when(restApiService.getForEntity(eq(ApiEndpointHelper.getNodesPath()), any(TypeReference.class)))
+                .thenReturn(nodes);
+        when(restApiService.getForEntity(eq(ApiEndpointHelper.getRunningJobsEndpoint()), any(TypeReference.class)))
+                .thenReturn(jobs);
+    }
+
+    private void mockCreation(NodeDto expectedNode) throws Exception {
+        when(jobsService.startCreateApplication(TEST_APP_NAME, expectedNode.getGuid(), null, false))
+                .thenReturn(TEST_JOB_GUID);
+        when(jobsService.pollAndWaitForJobFinished(eq(TEST_JOB_GUID), any(), anyBoolean()))
+                .thenReturn(TEST_APP_GUID);
+    }
+
+    private static ApplicationDto application(String guid, String nodeName) {
+        return ApplicationDto.builder().guid(guid).name(guid + "Name").targetNode(nodeName).build();
+    }
+
+    private static JobStatus runningJob(String appGuid, int index) {
+        return new JobStatus(TEST_JOB_GUID + index, null, JobType.ADD_VERSION, JobState.STARTED,
+                Collections.singletonMap(Constants.PARAM_APP_GUID, appGuid), new Date(), null, null, null, null);
+    }
+
     @Test
     public void testApplicationHasVersionNoVersionFound() throws Exception {
         String versionEndpoint = ApiEndpointHelper.getApplicationVersionsPath(TEST_APP_GUID);
@@ -0,0 +1,83 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class ExportDiffTest {
+    private static final String PREVIOUS = "{\"settings\":{\"name\":\"value\",\"list\":[\"a\",\"b\"]},"
+            + "\"domains\":[{\"guid\":\"d\",\"name\":\"domain\",\"applications\":["
+            + "{\"guid\":\"a1\",\"name\":\"app1\",\"versions\":[{\"guid\":\"v1\",\"status\":\"DELIVERED\"},{\"guid\":\"v2\",\"status\":\"DELIVERED\"}]},"
+            + "{\"guid\":\"a2\",\"name\":\"app2\",\"versions\":[]}]}],"
+            + "\"exclusionTemplates\":[{\"name\":\"t1\",\"ignorePatterns\":[\"x\",\"y\"]}]}";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void testChangedEntitiesWritten() throws Exception {
+        String current = "{\"exclusionTemplates\":[{\"ignorePatterns\":[\"y\",\"x\"],\"name\":\"t1\"}],"
+                + "\"settings\":{\"list\":[\"b\",\"a\"],\"name\":\"value\"},"
+                + "\"domains\":[{\"guid\":\"d\",\"name\":\"domain\",\"applications\":["
+                + "{\"guid\":\"a1\",\"name\":\"renamed\",\"versions\":[{\"guid\":\"v1\",\"status\":\"DELIVERED\"},{\"guid\":\"v2\",\"status\":\"ANALYZED\"},{\"guid\":\"v3\"}]},"
+                + "{\"guid\":\"a3\",\"name\":\"app3\",\"versions\":[]}]}]}";
+
+        JsonNode changes = diff(write("previous.json", PREVIOUS, false), current);
+
+        assertEquals("previous.json", changes.get("previous").asText());
+        JsonNode summary = changes.get("summary");
+        assertEquals("{\"added\":0,\"changed\":0,\"removed\":0,\"unchanged\":1}", summary.get("properties").toString());
+        assertEquals("{\"added\":0,\"changed\":0,\"removed\":0,\"unchanged\":1}", summary.get("exclusionTemplates").toString());
+        assertEquals("{\"added\":0,\"changed\":0,\"removed\":0,\"unchanged\":1}", summary.get("domains").toString());
+        assertEquals("{\"added\":1,\"changed\":1,\"removed\":1,\"unchanged\":0}", summary.get("applications").toString());
+        assertEquals("{\"added\":1,\"changed\":1,\"removed\":0,\"unchanged\":1}", summary.get("versions").toString());
+
+        JsonNode list = changes.get("changes");
+        assertEquals(5, list.size());
+        assertEquals("{\"type\":\"applications\",\"change\":\"changed\",\"key\":\"a1\",\"parent\":\"d\",\"value\":{\"guid\":\"a1\",\"name\":\"renamed\"}}", list.get(0).toString());
+        assertEquals("{\"type\":\"applications\",\"change\":\"removed\",\"key\":\"a2\",\"parent\":\"d\"}", list.get(1).toString());
+        assertEquals("{\"type\":\"applications\",\"change\":\"added\",\"key\":\"a3\",\"parent\":\"d\",\"value\":{\"guid\":\"a3\",\"name\":\"app3\"}}", list.get(2).toString());
+        assertEquals("{\"type\":\"versions\",\"change\":\"changed\",\"key\":\"v2\",\"parent\":\"a1\",\"value\":{\"guid\":\"v2\",\"status\":\"ANALYZED\"}}", list.get(3).toString());
+        assertEquals("{\"type\":\"versions\",\"change\":\"added\",\"key\":\"v3\",\"parent\":\"a1\",\"value\":{\"guid\":\"v3\"}}", list.get(4).toString());
+    }
+
+    @Test
+    public void testGzipPreviousExportWithoutChanges() throws Exception {
+        JsonNode changes = diff(write("previous.json.gz", PREVIOUS, true), PREVIOUS);
+
+        assertEquals(0, changes.get("changes").size());
+        for (JsonNode counts : changes.get("summary")) {
+            assertEquals(0, counts.get("added").asInt() + counts.get("changed").asInt() + counts.get("removed").asInt());
+        }
+        assertEquals(2, changes.get("summary").get("applications").get("unchanged").asInt());
+    }
+
+    private JsonNode diff(Path previous, String current) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long size = new ExportDiff(mapper).write(previous, write("current.json", current, false), out);
+        assertEquals(out.size(), size);
+        return mapper.readTree(out.toByteArray());
+    }
+
+    private Path write(String name, String content, boolean gzip) throws IOException {
+        Path file = folder.getRoot().toPath().resolve(name);
+        try (OutputStream out = gzip ? new GZIPOutputStream(Files.newOutputStream(file)) : Files.newOutputStream(file)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return file;
+    }
+}
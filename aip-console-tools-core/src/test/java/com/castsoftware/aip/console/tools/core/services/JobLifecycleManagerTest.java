@@ -0,0 +1,73 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobState;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusProjection;
+import com.castsoftware.aip.console.tools.core.exceptions.JobServiceException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.StrictStubs.class)
+public class JobLifecycleManagerTest {
+    private static final String JOB_GUID_1 = "job1";
+    private static final String JOB_GUID_2 = "job2";
+    private static final String JOB_GUID_3 = "job3";
+
+    @Mock
+    private JobsService jobsService;
+    @Mock
+    private RestApiService restApiService;
+
+    private JobLifecycleManager manager;
+
+    @Before
+    public void setUp() {
+        manager = new JobLifecycleManager(jobsService, restApiService);
+    }
+
+    @Test
+    public void testNothingToCancel() {
+        manager.register(JOB_GUID_1);
+        manager.unregister(JOB_GUID_1);
+        assertTrue(manager.cancelAll(1, TimeUnit.SECONDS).isEmpty());
+    }
+
+    @Test
+    public void testCancelAllConcurrently() throws Exception {
+        when(restApiService.getForEntity("/api/jobs/" + JOB_GUID_1, JobStatusProjection.class))
+                .thenReturn(new JobStatusProjection(JOB_GUID_1, JobState.CANCELING, "analyze"),
+                        new JobStatusProjection(JOB_GUID_1, JobState.CANCELED, "analyze"));
+        // every cancellation is stubbed, as the jobs are cancelled in any order
+        doNothing().when(jobsService).cancelJob(JOB_GUID_1);
+        doNothing().when(jobsService).cancelJob(JOB_GUID_3);
+        // already finished, the cancellation request fails
+        doThrow(new JobServiceException("Job is finished")).when(jobsService).cancelJob(JOB_GUID_2);
+        when(restApiService.getForEntity("/api/jobs/" + JOB_GUID_2, JobStatusProjection.class))
+                .thenReturn(new JobStatusProjection(JOB_GUID_2, JobState.COMPLETED, "snapshot"));
+        // never stopped, on a busy machine it may not even be polled before the end of the grace period
+        lenient().when(restApiService.getForEntity("/api/jobs/" + JOB_GUID_3, JobStatusProjection.class))
+                .thenReturn(new JobStatusProjection(JOB_GUID_3, JobState.STARTED, "analyze"));
+
+        manager.register(JOB_GUID_1);
+        manager.register(JOB_GUID_2);
+        manager.register(JOB_GUID_3);
+        assertEquals(Collections.singleton(JOB_GUID_3), manager.cancelAll(2, TimeUnit.SECONDS));
+
+        verify(jobsService).cancelJob(JOB_GUID_1);
+        verify(jobsService).cancelJob(JOB_GUID_3);
+        assertEquals(Collections.singleton(JOB_GUID_3), manager.getInFlightJobs());
+    }
+}
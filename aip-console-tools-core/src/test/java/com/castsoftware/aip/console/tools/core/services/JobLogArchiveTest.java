@@ -0,0 +1,93 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.castsoftware.aip.console.tools.core.dto.jobs.LogContentDto;
+import com.castsoftware.aip.console.tools.core.dto.jobs.LogLine;
+import com.castsoftware.aip.console.tools.core.utils.LogUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JobLogArchiveTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testArchiveStepsAndReadThemBack() throws Exception {
+        Path archiveDirectory;
+        try (JobLogArchive archive = new JobLogArchive(folder.getRoot().toPath(), "jobGuid")) {
+            archiveDirectory = archive.getDirectory();
+            archive.append("analyze", content("analyze", 0, 100));
+            archive.append("analyze", content("analyze", 100, 50));
+            archive.append("snapshot", content("snapshot", 0, 10));
+        }
+
+        List<String> analyzeLines = readStep(archiveDirectory, "analyze");
+        assertEquals(150, analyzeLines.size());
+        assertEquals("analyze line 0", analyzeLines.get(0));
+        assertEquals("analyze line 149", analyzeLines.get(149));
+        assertEquals(10, readStep(archiveDirectory, "snapshot").size());
+        assertTrue(Files.exists(archiveDirectory.resolve(JobLogArchive.INDEX_FILE_NAME)));
+    }
+
+    @Test
+    public void testArchiveRotatedBySize() throws Exception {
+        Path archiveDirectory;
+        try (JobLogArchive archive = new JobLogArchive(folder.getRoot().toPath(), "jobGuid", 1, 16)) {
+            archiveDirectory = archive.getDirectory();
+            for (int i = 0; i < 10; i++) {
+                archive.append("analyze", content("analyze", i * 500, 500));
+            }
+        }
+
+        assertTrue(Files.exists(archiveDirectory.resolve("part-002.log.gz")));
+        List<String> lines = readStep(archiveDirectory, "analyze");
+        assertEquals(5000, lines.size());
+        assertEquals("analyze line 4999", lines.get(4999));
+    }
+
+    @Test
+    public void testSensitiveInformationNotArchived() throws Exception {
+        Path archiveDirectory;
+        try (JobLogArchive archive = new JobLogArchive(folder.getRoot().toPath(), "jobGuid")) {
+            archiveDirectory = archive.getDirectory();
+            LogContentDto content = content("analyze", 0, 0);
+            LogLine line = new LogLine();
+            line.setContent("** HOST: secret_machine");
+            content.getLines().add(line);
+            archive.append("analyze", content);
+        }
+
+        assertEquals("** HOST: " + LogUtils.REPLACEMENT_STR, readStep(archiveDirectory, "analyze").get(0));
+    }
+
+    private static List<String> readStep(Path archiveDirectory, String step) throws Exception {
+        try (InputStream input = JobLogArchive.openStepLog(archiveDirectory, step)) {
+            return IOUtils.readLines(input, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static LogContentDto content(String step, int startOffset, int nbLines) {
+        List<LogLine> lines = new ArrayList<>();
+        for (int i = 0; i < nbLines; i++) {
+            LogLine line = new LogLine();
+            line.setContent(step + " line " + (startOffset + i));
+            lines.add(line);
+        }
+        LogContentDto content = new LogContentDto();
+        content.setStartOffset(startOffset);
+        content.setNbLines(nbLines);
+        content.setLines(lines);
+        return content;
+    }
+}
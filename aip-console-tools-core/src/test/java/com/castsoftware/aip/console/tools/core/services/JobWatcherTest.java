@@ -0,0 +1,117 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobState;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatus;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusProjection;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusWithSteps;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobType;
+import com.castsoftware.aip.console.tools.core.exceptions.ApiCallException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.StrictStubs.class)
+public class JobWatcherTest {
+    private static final String JOB_GUID_1 = "job1";
+    private static final String JOB_GUID_2 = "job2";
+
+    @Mock
+    private RestApiService restApiService;
+
+    private JobWatcher watcher;
+
+    @Before
+    public void setUp() {
+        watcher = new JobWatcher(restApiService, new FixedJobPollingScheduler(10), 2);
+    }
+
+    @After
+    public void tearDown() {
+        watcher.close();
+    }
+
+    @Test
+    public void testWatchManyJobsWithoutJobListing() throws Exception {
+        when(restApiService.getForEntity(startsWith("/api/jobs?states="), any(TypeReference.class)))
+                .thenThrow(new ApiCallException(404));
+        when(restApiService.getForEntity("/api/jobs/" + JOB_GUID_1, JobStatusProjection.class))
+                .thenReturn(projection(JOB_GUID_1, JobState.STARTED, "analyze"), projection(JOB_GUID_1, JobState.STARTED, "analyze"),
+                        projection(JOB_GUID_1, JobState.COMPLETED, "snapshot"));
+        when(restApiService.getForEntity("/api/jobs/" + JOB_GUID_2, JobStatusProjection.class))
+                .thenReturn(projection(JOB_GUID_2, JobState.FAILED, "analyze"));
+        when(restApiService.getForEntity("/api/jobs/" + JOB_GUID_1, JobStatusWithSteps.class))
+                .thenReturn(status(JOB_GUID_1, JobState.STARTED, "analyze"), status(JOB_GUID_1, JobState.COMPLETED, "snapshot"));
+        when(restApiService.getForEntity("/api/jobs/" + JOB_GUID_2, JobStatusWithSteps.class))
+                .thenReturn(status(JOB_GUID_2, JobState.FAILED, "analyze"));
+
+        List<String> steps = new CopyOnWriteArrayList<>();
+        CompletableFuture<JobStatusWithSteps> job1 = watcher.watch(JOB_GUID_1, s -> steps.add(s.getProgressStep()), null);
+        CompletableFuture<JobStatusWithSteps> job2 = watcher.watch(JOB_GUID_2);
+
+        assertEquals(JobState.COMPLETED, job1.get(10, TimeUnit.SECONDS).getState());
+        assertEquals(JobState.FAILED, job2.get(10, TimeUnit.SECONDS).getState());
+        assertEquals(2, steps.size());
+        assertEquals(0, watcher.getWatchedJobsCount());
+        // listing is only attempted once
+        verify(restApiService, atMost(1)).getForEntity(startsWith("/api/jobs?states="), any(TypeReference.class));
+        // details only requested when the step changed
+        verify(restApiService, times(3)).getForEntity("/api/jobs/" + JOB_GUID_1, JobStatusProjection.class);
+        verify(restApiService, times(2)).getForEntity("/api/jobs/" + JOB_GUID_1, JobStatusWithSteps.class);
+    }
+
+    @Test
+    public void testListedStatusAvoidsDetailsRequest() throws Exception {
+        List<JobStatusProjection> running = new ArrayList<>();
+        running.add(projection(JOB_GUID_1, JobState.STARTED, "analyze"));
+        running.add(projection(JOB_GUID_2, JobState.STARTED, "analyze"));
+        when(restApiService.getForEntity(startsWith("/api/jobs?states="), any(TypeReference.class)))
+                .thenReturn(running, running, Collections.emptyList());
+        when(restApiService.getForEntity("/api/jobs/" + JOB_GUID_1, JobStatusProjection.class))
+                .thenReturn(projection(JOB_GUID_1, JobState.COMPLETED, "analyze"));
+        when(restApiService.getForEntity("/api/jobs/" + JOB_GUID_2, JobStatusProjection.class))
+                .thenReturn(projection(JOB_GUID_2, JobState.COMPLETED, "analyze"));
+        when(restApiService.getForEntity("/api/jobs/" + JOB_GUID_1, JobStatusWithSteps.class))
+                .thenReturn(status(JOB_GUID_1, JobState.STARTED, "analyze"), status(JOB_GUID_1, JobState.COMPLETED, "analyze"));
+        when(restApiService.getForEntity("/api/jobs/" + JOB_GUID_2, JobStatusWithSteps.class))
+                .thenReturn(status(JOB_GUID_2, JobState.STARTED, "analyze"), status(JOB_GUID_2, JobState.COMPLETED, "analyze"));
+
+        CompletableFuture<JobStatusWithSteps> job1 = watcher.watch(JOB_GUID_1);
+        CompletableFuture<JobStatusWithSteps> job2 = watcher.watch(JOB_GUID_2);
+
+        assertEquals(JobState.COMPLETED, job1.get(10, TimeUnit.SECONDS).getState());
+        assertEquals(JobState.COMPLETED, job2.get(10, TimeUnit.SECONDS).getState());
+        // details only requested for the first step and for the final status
+        verify(restApiService, times(2)).getForEntity("/api/jobs/" + JOB_GUID_1, JobStatusWithSteps.class);
+        verify(restApiService, times(2)).getForEntity("/api/jobs/" + JOB_GUID_2, JobStatusWithSteps.class);
+    }
+
+    private static JobStatusProjection projection(String jobGuid, JobState state, String step) {
+        return new JobStatusProjection(jobGuid, state, step);
+    }
+
+    private static JobStatusWithSteps status(String jobGuid, JobState state, String step) {
+        JobStatus baseStatus = new JobStatus(jobGuid, "/api/jobs/" + jobGuid, JobType.ADD_VERSION, state, new HashMap<>(), new Date(), new Date(), new ArrayList<>(), new HashMap<>(), new HashMap<>());
+        return new JobStatusWithSteps(baseStatus, step, null);
+    }
+}
@@ -0,0 +1,73 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.castsoftware.aip.console.tools.core.dto.NodeDto;
+import com.castsoftware.aip.console.tools.core.dto.NodeLoad;
+import com.castsoftware.aip.console.tools.core.dto.NodePlacement;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobState;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatus;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStepType;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobType;
+import com.castsoftware.aip.console.tools.core.utils.VersionObjective;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class LeastLoadedNodePlacementPolicyTest {
+    private static final NodeDto NODE_1 = new NodeDto("node1Guid", "node1", "http", "host1", 8082);
+    private static final NodeDto NODE_2 = new NodeDto("node2Guid", "node2", "http", "host2", 8082);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testFewestRunningJobsWithoutHistory() {
+        List<NodeLoad> nodes = Arrays.asList(
+                new NodeLoad(NODE_1, Arrays.asList(job("bigApp"), job("smallApp"))),
+                new NodeLoad(NODE_2, Collections.singletonList(job("smallApp"))));
+
+        NodePlacement placement = new LeastLoadedNodePlacementPolicy(null).choose("newApp", nodes);
+        assertEquals(NODE_2, placement.getNode());
+    }
+
+    @Test
+    public void testExpectedAnalysisDurations() throws Exception {
+        List<NodeLoad> nodes = Arrays.asList(
+                new NodeLoad(NODE_1, Collections.singletonList(job("bigApp"))),
+                new NodeLoad(NODE_2, Arrays.asList(job("smallApp"), job("smallApp"))));
+
+        try (StepDurationStore store = new StepDurationStore(folder.getRoot().toPath().resolve("step-durations.bin"))) {
+            store.record("bigApp", JobStepType.ANALYZE, TimeUnit.HOURS.toMillis(10), 0, EnumSet.of(VersionObjective.GLOBAL_RISK));
+            store.record("smallApp", JobStepType.ANALYZE, TimeUnit.MINUTES.toMillis(10), 0, EnumSet.of(VersionObjective.GLOBAL_RISK));
+
+            // two short analyses weigh less than a long one
+            NodePlacement placement = new LeastLoadedNodePlacementPolicy(store).choose("newApp", nodes);
+            assertEquals(NODE_2, placement.getNode());
+        }
+    }
+
+    @Test
+    public void testTieBrokenByName() {
+        List<NodeLoad> nodes = Arrays.asList(
+                new NodeLoad(NODE_2, Collections.emptyList()),
+                new NodeLoad(NODE_1, null));
+
+        assertEquals(NODE_1, new LeastLoadedNodePlacementPolicy(null).choose("newApp", nodes).getNode());
+        assertNull(new LeastLoadedNodePlacementPolicy(null).choose("newApp", Collections.emptyList()));
+    }
+
+    private static JobStatus job(String appGuid) {
+        JobStatus job = new JobStatus("jobGuid", null, JobType.ADD_VERSION, JobState.STARTED, null, new Date(), null, null, null, null);
+        job.setAppGuid(appGuid);
+        return job;
+    }
+}
@@ -0,0 +1,173 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.castsoftware.aip.console.tools.core.dto.jobs.LogLine;
+import com.castsoftware.aip.console.tools.core.dto.jobs.LogsDto;
+import com.fasterxml.jackson.core.type.TypeReference;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.StrictStubs.class)
+public class LogTailerTest {
+    private static final String JOB_GUID = "jobGuid";
+    private static final String ANALYZE_LOGS = "/api/jobs/" + JOB_GUID + "/steps/analyze/logs";
+    private static final String SNAPSHOT_LOGS = "/api/jobs/" + JOB_GUID + "/steps/snapshot/logs";
+
+    @Mock
+    private RestApiService restApiService;
+
+    private ScheduledExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testDrainStepLogsOnStepChangeAndCompletion() throws Exception {
+        when(restApiService.getForEntity(eq(ANALYZE_LOGS), any(TypeReference.class))).thenReturn(mainLog("analyze.log"));
+        when(restApiService.getForEntity(eq(SNAPSHOT_LOGS), any(TypeReference.class))).thenReturn(mainLog("snapshot.log"));
+        stubPage(ANALYZE_LOGS + "/analyze.log?nbLines=3000&startOffset=0", "analyze", 0, 3000, false);
+        // the page size was doubled after a full page
+        stubPage(ANALYZE_LOGS + "/analyze.log?nbLines=6000&startOffset=3000", "analyze", 3000, 10, true);
+        stubPage(SNAPSHOT_LOGS + "/snapshot.log?nbLines=3000&startOffset=0", "snapshot", 0, 5, true);
+
+        List<String> readLines = new ArrayList<>();
+        LogTailer tailer = new LogTailer(restApiService, JOB_GUID, content -> content.getLines().forEach(l -> readLines.add(l.getContent())), executor);
+        tailer.follow("analyze");
+        tailer.follow("snapshot");
+        tailer.finish().get(10, TimeUnit.SECONDS);
+
+        assertEquals(3015, readLines.size());
+        // lines are given in the order of the log
+        for (int i = 0; i < 3010; i++) {
+            assertEquals("analyze line " + i, readLines.get(i));
+        }
+        assertEquals("snapshot line 0", readLines.get(3010));
+    }
+
+    @Test
+    public void testPageSizeGrowsUpToBufferCapacity() throws Exception {
+        when(restApiService.getForEntity(eq(ANALYZE_LOGS), any(TypeReference.class))).thenReturn(mainLog("analyze.log"));
+        // a full page doubles the page size, up to the room available in the buffer
+        int offset = 0;
+        for (int nbLines = LogTailer.DEFAULT_PAGE_SIZE; nbLines < LogTailer.MAX_BUFFER_CAPACITY; nbLines *= 2) {
+            stubPage(ANALYZE_LOGS + "/analyze.log?nbLines=" + nbLines + "&startOffset=" + offset, "analyze", offset, nbLines, false);
+            offset += nbLines;
+        }
+        stubPage(ANALYZE_LOGS + "/analyze.log?nbLines=" + LogTailer.MAX_BUFFER_CAPACITY + "&startOffset=" + offset, "analyze", offset, 1, true);
+
+        AtomicInteger readLines = new AtomicInteger();
+        LogTailer tailer = new LogTailer(restApiService, JOB_GUID, content -> readLines.addAndGet(content.getLines().size()), executor);
+        tailer.follow("analyze");
+        tailer.finish().get(10, TimeUnit.SECONDS);
+
+        assertEquals(offset + 1, readLines.get());
+    }
+
+    @Test
+    public void testFinishWithoutLogs() throws Exception {
+        when(restApiService.getForEntity(eq(ANALYZE_LOGS), any(TypeReference.class))).thenReturn(Collections.emptySet());
+
+        LogTailer tailer = new LogTailer(restApiService, JOB_GUID, content -> {
+        }, executor);
+        tailer.follow("analyze");
+        tailer.finish().get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testRingBufferKeepsOrderWhenWrapping() {
+        LogLineRingBuffer buffer = new LogLineRingBuffer(3);
+        buffer.add("a");
+        buffer.add("b");
+        buffer.release(buffer.peek(1).size());
+        buffer.add("c");
+        buffer.add("d");
+        assertEquals(false, buffer.add("e"));
+
+        List<LogLine> lines = buffer.peek(10);
+        assertEquals(3, lines.size());
+        assertEquals("b", lines.get(0).getContent());
+        assertEquals("c", lines.get(1).getContent());
+        assertEquals("d", lines.get(2).getContent());
+    }
+
+    @Test
+    public void testRingBufferGrowsUpToMaxCapacity() {
+        LogLineRingBuffer buffer = new LogLineRingBuffer(2, 5);
+        buffer.add("a");
+        buffer.add("b");
+        buffer.release(buffer.peek(1).size());
+        buffer.add("c");
+        assertEquals(false, buffer.add("d"));
+
+        // the lines keep their order when the buffer wraps before growing
+        assertEquals(2, buffer.reserve(2));
+        assertEquals(4, buffer.capacity());
+        buffer.add("d");
+        assertEquals(2, buffer.reserve(10));
+        assertEquals(5, buffer.capacity());
+
+        List<LogLine> lines = buffer.peek(10);
+        assertEquals(3, lines.size());
+        assertEquals("b", lines.get(0).getContent());
+        assertEquals("c", lines.get(1).getContent());
+        assertEquals("d", lines.get(2).getContent());
+    }
+
+    private void stubPage(String endpoint, String step, int startOffset, int nbLines, boolean endOfFile) throws Exception {
+        when(restApiService.exchangeForResponse(eq("GET"), eq(endpoint), isNull())).thenReturn(page(step, startOffset, nbLines, endOfFile));
+    }
+
+    private static Set<LogsDto> mainLog(String logName) {
+        LogsDto logsDto = new LogsDto();
+        logsDto.setLogName(logName);
+        logsDto.setLogType("MAIN_LOG");
+        return Collections.singleton(logsDto);
+    }
+
+    private static Response page(String step, int startOffset, int nbLines, boolean endOfFile) {
+        StringBuilder json = new StringBuilder("{\"startOffset\":").append(startOffset)
+                .append(",\"nbLines\":").append(nbLines)
+                .append(",\"lines\":[");
+        for (int i = 0; i < nbLines; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"content\":\"").append(step).append(" line ").append(startOffset + i).append("\"}");
+        }
+        json.append("],\"endOfFile\":").append(endOfFile).append("}");
+        return new Response.Builder()
+                .request(new Request.Builder().url("http://localhost/api").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .body(ResponseBody.create(MediaType.parse("application/json"), json.toString()))
+                .build();
+    }
+}
@@ -0,0 +1,80 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MetadataCacheTest {
+    private static final byte[] APPLICATIONS = "{\"applications\":[]}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] VERSIONS = "[]".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testResponsesSharedBetweenInstances() throws Exception {
+        Path directory = folder.getRoot().toPath().resolve("metadata-cache");
+        MetadataCache first = MetadataCache.open(directory, "http://localhost:8081", "admin");
+        MetadataCache second = MetadataCache.open(directory, "http://localhost:8081", "admin");
+        assertEquals(first.getFile(), second.getFile());
+        assertNotEquals(first.getFile(), MetadataCache.open(directory, "http://localhost:8081", "other").getFile());
+
+        first.put("/api/applications", APPLICATIONS);
+        // not cacheable
+        first.put("/api/jobs/jobGuid", VERSIONS);
+        // the other instance keeps its own copy until it updates the cache
+        assertNull(second.get("/api/applications"));
+        second.put("/api/applications/appGuid/versions", VERSIONS);
+        assertArrayEquals(APPLICATIONS, second.get("/api/applications"));
+        assertArrayEquals(VERSIONS, second.get("/api/applications/appGuid/versions"));
+        assertNull(second.get("/api/jobs/jobGuid"));
+
+        MetadataCache reopened = new MetadataCache(first.getFile());
+        assertArrayEquals(APPLICATIONS, reopened.get("/api/applications"));
+        assertTrue(reopened.evict("/api/applications"));
+        assertFalse(reopened.evict("/api/applications"));
+        assertNull(reopened.get("/api/applications/appGuid/versions"));
+        assertNull(new MetadataCache(first.getFile()).get("/api/applications"));
+    }
+
+    @Test
+    public void testInvalidRecordsDropped() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("cache.bin");
+        new MetadataCache(file).put("/api/", APPLICATIONS);
+        byte[] content = Files.readAllBytes(file);
+
+        // an interrupted write
+        Files.write(file, new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+        assertArrayEquals(APPLICATIONS, new MetadataCache(file).get("/api/"));
+
+        // a corrupted record
+        content[content.length - 1] = 'x';
+        Files.write(file, content);
+        MetadataCache cache = new MetadataCache(file);
+        assertNull(cache.get("/api/"));
+        cache.put("/api/nodes", VERSIONS);
+        assertArrayEquals(VERSIONS, new MetadataCache(file).get("/api/nodes"));
+    }
+
+    @Test
+    public void testCacheableEndpoints() {
+        assertTrue(MetadataCache.isCacheable("/api/"));
+        assertTrue(MetadataCache.isCacheable("/api/nodes"));
+        assertTrue(MetadataCache.isCacheable("/api/applications"));
+        assertTrue(MetadataCache.isCacheable("/api/applications/appGuid/versions"));
+        assertFalse(MetadataCache.isCacheable("/api/applications/appGuid/debug-options"));
+        assertFalse(MetadataCache.isCacheable("/api/jobs"));
+    }
+}
@@ -0,0 +1,136 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.castsoftware.aip.console.tools.core.dto.PendingResultDto;
+import com.castsoftware.aip.console.tools.core.dto.jobs.DeliveryPackageDto;
+import com.castsoftware.aip.console.tools.core.exceptions.JobServiceException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.StrictStubs.class)
+public class PackageDiscoveryTest {
+    private static final String APP_GUID = "appGuid";
+    private static final String DISCOVER_ENDPOINT = "/api/applications/appGuid/delivery-configuration/discover-packages";
+    private static final String PENDING_RESULT_ENDPOINT = "/api/applications/appGuid/pending-results/pendingGuid";
+
+    @Mock
+    private RestApiService restApiService;
+
+    private PackageDiscovery discovery;
+    private final List<TrackedBody> bodies = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        discovery = new PackageDiscovery(restApiService, Runnable::run, 1, 4);
+    }
+
+    @Test
+    public void testPollUntilPackagesAreAvailable() throws Exception {
+        Set<DeliveryPackageDto> packages = Collections.singleton(DeliveryPackageDto.builder().name("package").path("path").build());
+        Response pending = response(202);
+        Response available = response(200);
+        when(restApiService.exchangeForResponse(eq("POST"), eq(DISCOVER_ENDPOINT), any())).thenReturn(pending);
+        when(restApiService.mapResponse(pending, PendingResultDto.class)).thenReturn(new PendingResultDto("pendingGuid", "packages"));
+        when(restApiService.exchangeForResponse(eq("GET"), eq(PENDING_RESULT_ENDPOINT), isNull()))
+                .thenReturn(response(202), response(202), available);
+        when(restApiService.mapResponse(eq(available), any(TypeReference.class))).thenReturn(packages);
+
+        assertEquals(packages, discovery.discover(APP_GUID, "sources", "versionGuid").get(10, TimeUnit.SECONDS));
+        assertEquals(4, bodies.size());
+        assertTrue("All the responses should be closed", bodies.stream().allMatch(b -> b.closed));
+    }
+
+    @Test
+    public void testDeadline() throws Exception {
+        Response pending = response(202);
+        when(restApiService.exchangeForResponse(eq("POST"), eq(DISCOVER_ENDPOINT), any())).thenReturn(pending);
+        when(restApiService.mapResponse(pending, PendingResultDto.class)).thenReturn(new PendingResultDto("pendingGuid", "packages"));
+        when(restApiService.exchangeForResponse(eq("GET"), eq(PENDING_RESULT_ENDPOINT), isNull()))
+                .thenAnswer(invocation -> response(202));
+
+        discovery.setTimeout(50, TimeUnit.MILLISECONDS);
+        try {
+            discovery.discover(APP_GUID, "sources", "versionGuid").get(10, TimeUnit.SECONDS);
+            fail("The discovery should fail after the deadline");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof JobServiceException);
+        }
+        assertTrue("All the responses should be closed", bodies.stream().allMatch(b -> b.closed));
+    }
+
+    @Test
+    public void testUnexpectedStatus() throws Exception {
+        when(restApiService.exchangeForResponse(eq("POST"), eq(DISCOVER_ENDPOINT), any())).thenReturn(response(500));
+
+        try {
+            discovery.discover(APP_GUID, "sources", "versionGuid").get(10, TimeUnit.SECONDS);
+            fail("The discovery should fail on an unexpected status");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof JobServiceException);
+        }
+        assertTrue(bodies.get(0).closed);
+    }
+
+    private Response response(int code) {
+        TrackedBody body = new TrackedBody();
+        bodies.add(body);
+        return new Response.Builder()
+                .request(new Request.Builder().url("http://localhost/api").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("")
+                .body(body)
+                .build();
+    }
+
+    private static class TrackedBody extends ResponseBody {
+        private final Buffer content = new Buffer().writeUtf8("{}");
+        private volatile boolean closed;
+
+        @Override
+        public MediaType contentType() {
+            return MediaType.parse("application/json");
+        }
+
+        @Override
+        public long contentLength() {
+            return content.size();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return content;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            super.close();
+        }
+    }
+}
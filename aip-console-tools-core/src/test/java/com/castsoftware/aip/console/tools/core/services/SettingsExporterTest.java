@@ -0,0 +1,196 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.castsoftware.aip.console.tools.core.dto.export.ExportApplicationsRequest;
+import com.castsoftware.aip.console.tools.core.exceptions.ApiCallException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SettingsExporterTest {
+    private static final String EXPORTED_SETTINGS = "{\"settings\":{\"name\":\"value\"},\"domains\":[{\"name\":\"domain\",\"applications\":[]}],\"exclusionTemplates\":null}";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Mock
+    private RestApiService restApiService;
+
+    private SettingsExporter exporter;
+    private ExportApplicationsRequest request;
+
+    @Before
+    public void setUp() {
+        ObjectMapper mapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        exporter = new SettingsExporter(restApiService, mapper);
+        request = new ExportApplicationsRequest(Collections.singleton("app"));
+    }
+
+    @Test
+    public void testExportWrittenAsReceived() throws Exception {
+        respondWith(200, EXPORTED_SETTINGS);
+        Path target = folder.getRoot().toPath().resolve("settings.json");
+
+        long size = exporter.export(request, target, false);
+
+        assertEquals(EXPORTED_SETTINGS.length(), size);
+        assertEquals(EXPORTED_SETTINGS, new String(Files.readAllBytes(target), StandardCharsets.UTF_8));
+        assertEquals(1, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void testGzipExport() throws Exception {
+        respondWith(200, EXPORTED_SETTINGS);
+        Path target = folder.getRoot().toPath().resolve("settings.json.gz");
+
+        exporter.export(request, target, true);
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(target))) {
+            assertEquals(EXPORTED_SETTINGS, IOUtils.toString(in, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testTruncatedExportIsNotKept() throws Exception {
+        respondWith(200, EXPORTED_SETTINGS.substring(0, EXPORTED_SETTINGS.length() - 10));
+        assertRejected();
+    }
+
+    @Test
+    public void testInvalidStructureIsNotKept() throws Exception {
+        respondWith(200, "{\"settings\":{},\"domains\":{\"name\":\"domain\"}}");
+        assertRejected();
+
+        respondWith(200, "\"{\\\"settings\\\":{}}\"");
+        assertRejected();
+    }
+
+    @Test(expected = ApiCallException.class)
+    public void testExportFailure() throws Exception {
+        respondWith(500, "error");
+        exporter.export(request, folder.getRoot().toPath().resolve("settings.json"), false);
+    }
+
+    @Test
+    public void testBatchesMerged() throws Exception {
+        respondToBatches(200);
+        Path target = folder.getRoot().toPath().resolve("settings.json");
+
+        long size = exporter.export(Arrays.asList(batch("a1"), batch("a2", "a3")), target, false, 2);
+
+        String merged = new String(Files.readAllBytes(target), StandardCharsets.UTF_8);
+        assertEquals("{\"settings\":{\"name\":\"value\"},"
+                + "\"domains\":[{\"guid\":\"d\",\"name\":\"domain\",\"applications\":[{\"name\":\"a1\"},{\"name\":\"a2\"}]},"
+                + "{\"guid\":\"o\",\"name\":\"other\",\"applications\":[{\"name\":\"a3\"}]}],"
+                + "\"exclusionTemplates\":[{\"name\":\"t1\"},{\"name\":\"t2\"}]}", merged);
+        assertEquals(merged.length(), size);
+        assertEquals(1, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void testGzipBatchesMerged() throws Exception {
+        respondToBatches(200);
+        Path target = folder.getRoot().toPath().resolve("settings.json.gz");
+
+        exporter.export(Arrays.asList(batch("a1"), batch("a2", "a3")), target, true, 1);
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(target))) {
+            JsonNode merged = new ObjectMapper().readTree(in);
+            assertEquals(2, merged.get("domains").size());
+            assertEquals(2, merged.get("exclusionTemplates").size());
+        }
+    }
+
+    @Test
+    public void testFailedBatchIsNotKept() throws Exception {
+        respondToBatches(500);
+        Path target = folder.getRoot().toPath().resolve("settings.json");
+        try {
+            exporter.export(Arrays.asList(batch("a1"), batch("a2", "a3")), target, false, 2);
+            fail("A failed batch was accepted");
+        } catch (ApiCallException e) {
+            // expected
+        }
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    private void assertRejected() throws ApiCallException {
+        Path target = folder.getRoot().toPath().resolve("settings.json");
+        try {
+            exporter.export(request, target, false);
+            fail("Invalid exported settings were accepted");
+        } catch (IOException e) {
+            // expected
+        }
+        assertFalse(Files.exists(target));
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    private static ExportApplicationsRequest batch(String... applications) {
+        return new ExportApplicationsRequest(new LinkedHashSet<>(Arrays.asList(applications)));
+    }
+
+    /**
+     * The first batch exports "a1", in domain "domain". The second one exports "a2" in that domain too, and "a3" in
+     * domain "other". Batches containing "a3" fail with the given code if it is not 200.
+     */
+    private void respondToBatches(int secondBatchCode) throws ApiCallException {
+        when(restApiService.exchangeForResponse(eq("POST"), eq("/api/export"), any())).thenAnswer(invocation -> {
+            ExportApplicationsRequest batch = invocation.getArgument(2);
+            if (batch.getApplications().contains("a1")) {
+                return response(200, "{\"settings\":{\"name\":\"value\"},"
+                        + "\"domains\":[{\"guid\":\"d\",\"name\":\"domain\",\"applications\":[{\"name\":\"a1\"}]}],"
+                        + "\"exclusionTemplates\":[{\"name\":\"t1\"}]}");
+            }
+            return response(secondBatchCode, "{\"settings\":{\"name\":\"value\"},"
+                    + "\"domains\":[{\"guid\":\"d\",\"name\":\"domain\",\"applications\":[{\"name\":\"a2\"}]},"
+                    + "{\"guid\":\"o\",\"name\":\"other\",\"applications\":[{\"name\":\"a3\"}]}],"
+                    + "\"exclusionTemplates\":[{\"name\":\"t1\"},{\"name\":\"t2\"}]}");
+        });
+    }
+
+    private void respondWith(int code, String content) throws ApiCallException {
+        Response response = response(code, content);
+        when(restApiService.exchangeForResponse(eq("POST"), eq("/api/export"), any())).thenReturn(response);
+    }
+
+    private static Response response(int code, String content) {
+        return new Response.Builder()
+                .request(new Request.Builder().url("http://localhost/api/export").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("")
+                .body(ResponseBody.create(MediaType.parse("application/json"), content))
+                .build();
+    }
+}
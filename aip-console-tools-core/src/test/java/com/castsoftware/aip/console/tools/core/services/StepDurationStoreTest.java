@@ -0,0 +1,107 @@
+package com.castsoftware.aip.console.tools.core.services;
+
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStepType;
+import com.castsoftware.aip.console.tools.core.utils.VersionObjective;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class StepDurationStoreTest {
+    private static final Set<VersionObjective> DEFAULT_OBJECTIVES = EnumSet.of(VersionObjective.GLOBAL_RISK, VersionObjective.FUNCTIONAL_POINTS);
+    private static final Set<VersionObjective> SECURITY_OBJECTIVES = EnumSet.of(VersionObjective.GLOBAL_RISK, VersionObjective.SECURITY);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testDurationsReloaded() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("history").resolve("step-durations.bin");
+        try (StepDurationStore store = new StepDurationStore(file)) {
+            store.record("appGuid", JobStepType.ANALYZE, 1000, 0, DEFAULT_OBJECTIVES);
+            store.record("appGuid", JobStepType.ANALYZE, 3000, 0, DEFAULT_OBJECTIVES);
+            store.record("appGuid", JobStepType.ANALYZE, 2000, 0, DEFAULT_OBJECTIVES);
+            store.record("appGuid", JobStepType.SNAPSHOT, 500, 0, DEFAULT_OBJECTIVES);
+        }
+        assertEquals(StepDurationStore.HEADER_SIZE + 4 * StepDurationStore.RECORD_SIZE, Files.size(file));
+
+        // a partially written record is dropped
+        Files.write(file, new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+        try (StepDurationStore store = new StepDurationStore(file)) {
+            assertEquals(OptionalLong.of(2000), store.getExpectedDuration("appGuid", JobStepType.ANALYZE, 0, DEFAULT_OBJECTIVES));
+            assertEquals(OptionalLong.of(500), store.getExpectedDuration("APPGUID", JobStepType.SNAPSHOT, 0, DEFAULT_OBJECTIVES));
+            // other applications use the observations of all applications
+            assertEquals(OptionalLong.of(500), store.getExpectedDuration("otherApp", JobStepType.SNAPSHOT, 0, DEFAULT_OBJECTIVES));
+            assertFalse(store.getExpectedDuration("appGuid", JobStepType.BACKUP, 0, DEFAULT_OBJECTIVES).isPresent());
+            store.record("appGuid", JobStepType.BACKUP, 100, 0, DEFAULT_OBJECTIVES);
+        }
+        assertEquals(StepDurationStore.HEADER_SIZE + 5 * StepDurationStore.RECORD_SIZE, Files.size(file));
+    }
+
+    @Test
+    public void testUnusedDurationsRemoved() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("step-durations.bin");
+        try (StepDurationStore store = new StepDurationStore(file)) {
+            for (int i = 1; i <= 3 * StepDurationStore.MAX_SAMPLES; i++) {
+                store.record("appGuid", JobStepType.ANALYZE, i * 1000, 0, DEFAULT_OBJECTIVES);
+            }
+        }
+        // an observation older than the maximum age
+        ByteBuffer oldRecord = ByteBuffer.allocate(StepDurationStore.RECORD_SIZE)
+                .putLong(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(StepDurationStore.MAX_AGE_DAYS + 1))
+                .putLong(StepDurationStore.hash("appGuid"))
+                .putInt(JobStepType.SNAPSHOT.name().hashCode())
+                .putInt(0)
+                .putLong(500)
+                .putLong(0);
+        Files.write(file, oldRecord.array(), StandardOpenOption.APPEND);
+
+        try (StepDurationStore store = new StepDurationStore(file)) {
+            assertEquals(OptionalLong.of(26000), store.getExpectedDuration("appGuid", JobStepType.ANALYZE, 0, DEFAULT_OBJECTIVES));
+            assertFalse(store.getExpectedDuration("appGuid", JobStepType.SNAPSHOT, 0, DEFAULT_OBJECTIVES).isPresent());
+        }
+        assertEquals(StepDurationStore.HEADER_SIZE + StepDurationStore.MAX_SAMPLES * StepDurationStore.RECORD_SIZE, Files.size(file));
+
+        try (StepDurationStore store = new StepDurationStore(file)) {
+            assertEquals(OptionalLong.of(26000), store.getExpectedDuration("appGuid", JobStepType.ANALYZE, 0, DEFAULT_OBJECTIVES));
+        }
+    }
+
+    @Test
+    public void testExpectedDurationForObjectivesAndArchiveSize() throws Exception {
+        try (StepDurationStore store = new StepDurationStore(folder.getRoot().toPath().resolve("step-durations.bin"))) {
+            store.record("appGuid", JobStepType.ANALYZE, 1000, 1000, DEFAULT_OBJECTIVES);
+            store.record("appGuid", JobStepType.ANALYZE, 5000, 1000, SECURITY_OBJECTIVES);
+
+            assertEquals(OptionalLong.of(1000), store.getExpectedDuration("appGuid", JobStepType.ANALYZE, 0, DEFAULT_OBJECTIVES));
+            assertEquals(OptionalLong.of(5000), store.getExpectedDuration("appGuid", JobStepType.ANALYZE, 0, SECURITY_OBJECTIVES));
+            // scaled with the archive size
+            assertEquals(OptionalLong.of(2000), store.getExpectedDuration("appGuid", JobStepType.ANALYZE, 2000, DEFAULT_OBJECTIVES));
+            // up to a limit
+            assertEquals(OptionalLong.of(4000), store.getExpectedDuration("appGuid", JobStepType.ANALYZE, 1000000, DEFAULT_OBJECTIVES));
+        }
+    }
+
+    @Test
+    public void testRemainingSteps() {
+        List<String> fullSteps = Arrays.asList("code_scanner", "analyze", "snapshot");
+        assertEquals(Arrays.asList("analyze", "snapshot"), JobEtaTracker.getRemainingSteps(fullSteps, "Analyze"));
+        assertEquals(Arrays.asList("backup"), JobEtaTracker.getRemainingSteps(fullSteps, "backup"));
+        assertEquals("45s", JobEtaTracker.formatDuration(45_000));
+        assertEquals("12m 05s", JobEtaTracker.formatDuration(725_000));
+        assertEquals("2h 03m", JobEtaTracker.formatDuration(7_380_000));
+    }
+}
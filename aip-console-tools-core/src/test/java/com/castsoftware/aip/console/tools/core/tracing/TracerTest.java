@@ -0,0 +1,142 @@
+package com.castsoftware.aip.console.tools.core.tracing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TracerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testNoSpanRecordedWhenDisabled() throws Exception {
+        int result = Tracer.trace(null, "Command", () -> {
+            assertFalse(Tracer.isEnabled());
+            assertSame(Span.NOOP, Tracer.span("login"));
+            return 3;
+        });
+        assertEquals(3, result);
+        assertFalse(Span.NOOP.setAttribute("key", "value").isRecording());
+    }
+
+    @Test
+    public void testTraceFilesWritten() throws Exception {
+        Tracer.trace(folder.getRoot().toPath(), "Command", () -> {
+            try (Span login = Tracer.span("login")) {
+                login.setAttribute("attempt", 1);
+            }
+            Span job = Tracer.detachedSpan("job");
+            Thread stepThread = new Thread(() -> job.childSpan("analyze").close());
+            stepThread.start();
+            stepThread.join();
+            job.setAttribute("state", "completed").close();
+            return 0;
+        });
+
+        File[] chromeTraces = folder.getRoot().listFiles((dir, name) -> name.endsWith(Tracer.CHROME_TRACE_EXTENSION));
+        File[] otlpTraces = folder.getRoot().listFiles((dir, name) -> name.endsWith(Tracer.OTLP_EXTENSION));
+        assertEquals(1, chromeTraces.length);
+        assertEquals(1, otlpTraces.length);
+
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode chromeTrace = mapper.readTree(chromeTraces[0]);
+        int completeEvents = 0;
+        for (JsonNode event : chromeTrace.get("traceEvents")) {
+            if ("X".equals(event.get("ph").asText())) {
+                completeEvents++;
+                assertTrue(event.get("dur").asLong() >= 0);
+            }
+        }
+        assertEquals(4, completeEvents);
+
+        JsonNode spans = mapper.readTree(otlpTraces[0]).at("/resourceSpans/0/scopeSpans/0/spans");
+        Map<String, JsonNode> spansByName = new HashMap<>();
+        spans.forEach(span -> spansByName.put(span.get("name").asText(), span));
+        assertEquals(4, spansByName.size());
+        String rootId = spansByName.get("Command").get("spanId").asText();
+        assertNull(spansByName.get("Command").get("parentSpanId"));
+        assertEquals(rootId, spansByName.get("login").get("parentSpanId").asText());
+        assertEquals(rootId, spansByName.get("job").get("parentSpanId").asText());
+        assertEquals(spansByName.get("job").get("spanId").asText(), spansByName.get("analyze").get("parentSpanId").asText());
+        assertNotNull(spansByName.get("Command").get("traceId"));
+        assertEquals(32, spansByName.get("Command").get("traceId").asText().length());
+        assertFalse(Tracer.isEnabled());
+    }
+
+    @Test
+    public void testWrappedTaskSpansAreChildrenOfTheSubmittingSpan() throws Exception {
+        Tracer.trace(folder.getRoot().toPath(), "Command", () -> {
+            Thread worker = new Thread(Tracer.wrap(() -> Tracer.span("discovery").close()));
+            worker.start();
+            worker.join();
+            // unwrapped tasks are not traced
+            Thread other = new Thread(() -> assertSame(Span.NOOP, Tracer.span("unwrapped")));
+            other.start();
+            other.join();
+            return 0;
+        });
+
+        Map<String, JsonNode> spansByName = readOtlpSpans(folder.getRoot());
+        assertEquals(2, spansByName.size());
+        assertEquals(spansByName.get("Command").get("spanId").asText(), spansByName.get("discovery").get("parentSpanId").asText());
+    }
+
+    @Test
+    public void testConcurrentTracesRecordedSeparately() throws Exception {
+        CountDownLatch started = new CountDownLatch(2);
+        List<Thread> threads = new ArrayList<>();
+        for (String name : new String[]{"First", "Second"}) {
+            File directory = folder.newFolder(name);
+            threads.add(new Thread(() -> {
+                try {
+                    Tracer.trace(directory.toPath(), name, () -> {
+                        // both traces are recorded at the same time
+                        started.countDown();
+                        started.await(10, TimeUnit.SECONDS);
+                        Tracer.span(name + "-login").close();
+                        return 0;
+                    });
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (String name : new String[]{"First", "Second"}) {
+            Map<String, JsonNode> spansByName = readOtlpSpans(new File(folder.getRoot(), name));
+            assertEquals(2, spansByName.size());
+            assertEquals(spansByName.get(name).get("spanId").asText(), spansByName.get(name + "-login").get("parentSpanId").asText());
+        }
+    }
+
+    private static Map<String, JsonNode> readOtlpSpans(File directory) throws IOException {
+        File[] otlpTraces = directory.listFiles((dir, name) -> name.endsWith(Tracer.OTLP_EXTENSION));
+        assertEquals(1, otlpTraces.length);
+        Map<String, JsonNode> spansByName = new HashMap<>();
+        new ObjectMapper().readTree(otlpTraces[0]).at("/resourceSpans/0/scopeSpans/0/spans")
+                .forEach(span -> spansByName.put(span.get("name").asText(), span));
+        return spansByName;
+    }
+}
@@ -0,0 +1,93 @@
+package com.castsoftware.aip.console.tools.core.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Measures the redaction throughput over a sample analysis log, compared to the previous implementation
+ * (one parallel stream over all the patterns for each line).
+ * <p>
+ * Not run with the unit tests. Run it with the main method of this class, after a {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogUtilsBenchmark {
+    private static final String HOST_PORT_REGEXP = "\\s*[_']?\\s*(?<sensitiveInfo>\\S+:\\d+)";
+    private static final List<Pattern> LEGACY_PATTERNS = new ArrayList<>();
+
+    static {
+        LEGACY_PATTERNS.add(Pattern.compile("\\*\\*\\s*HOST:\\s*(?<sensitiveInfo>\\S+)"));
+        LEGACY_PATTERNS.add(Pattern.compile("\\*\\*\\s*PORT:\\s*(?<sensitiveInfo>\\d+)"));
+        LEGACY_PATTERNS.add(Pattern.compile("\\-{2}apiKey[:|\\=]?\\s*(?<sensitiveInfo>\\S+)"));
+        LEGACY_PATTERNS.add(Pattern.compile("(CastStorageService" + HOST_PORT_REGEXP + ")"));
+        LEGACY_PATTERNS.add(Pattern.compile("____Connected to" + HOST_PORT_REGEXP + " database"));
+        LEGACY_PATTERNS.add(Pattern.compile("Server" + HOST_PORT_REGEXP + " on CastStorageService'"));
+        LEGACY_PATTERNS.add(Pattern.compile("(-logFilePath|Log file path):\\s*(?<sensitiveInfo>\\S+)"));
+        LEGACY_PATTERNS.add(Pattern.compile("-licenseKey\\s*:\\s*(?<sensitiveInfo>.+)"));
+    }
+
+    private List<String> lines;
+
+    @Setup
+    public void loadLog() throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                LogUtilsBenchmark.class.getResourceAsStream("/logs/analysis-sample.log"), StandardCharsets.UTF_8))) {
+            lines = reader.lines().collect(Collectors.toList());
+        }
+    }
+
+    @Benchmark
+    public void singlePass(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(LogUtils.replaceAllSensitiveInformation(line));
+        }
+    }
+
+    @Benchmark
+    public void legacyParallelStream(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(legacyReplace(line));
+        }
+    }
+
+    private static String legacyReplace(String toMath) {
+        Optional<Matcher> m = LEGACY_PATTERNS.stream().parallel().map(pat -> pat.matcher(toMath)).filter(Matcher::find).findFirst();
+        if (m.isPresent()) {
+            String what = m.get().group("sensitiveInfo");
+            return toMath.replace(what, LogUtils.REPLACEMENT_STR);
+        }
+        return toMath;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LogUtilsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
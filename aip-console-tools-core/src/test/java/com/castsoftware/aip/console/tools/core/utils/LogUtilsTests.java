@@ -51,4 +51,20 @@ public class LogUtilsTests {
         replaced0 = LogUtils.replaceAllSensitiveInformation(line0);
         assertThat(replaced0.contains("--apiKey=" + LogUtils.REPLACEMENT_STR), is(true));
     }
+
+    @Test
+    public void testHideAllSensitiveInformationOfLine() {
+        String line = "INF: ** HOST: machine1 ** PORT: 2280 --apiKey=secret.key";
+        String replaced = LogUtils.replaceAllSensitiveInformation(line);
+        assertThat(replaced, is("INF: ** HOST: " + LogUtils.REPLACEMENT_STR + " ** PORT: " + LogUtils.REPLACEMENT_STR + " --apiKey=" + LogUtils.REPLACEMENT_STR));
+    }
+
+    @Test
+    public void testLineWithoutSensitiveInformationIsUnchanged() {
+        String line = "INF;Mon 09/07/2020 15:56:14.08; Analysis of 1254 files done";
+        assertThat(LogUtils.replaceAllSensitiveInformation(line) == line, is(true));
+        // marker present, but no sensitive information
+        line = "INF;Mon 09/07/2020 15:56:14.08; CastStorageService is available";
+        assertThat(LogUtils.replaceAllSensitiveInformation(line), is(line));
+    }
 }
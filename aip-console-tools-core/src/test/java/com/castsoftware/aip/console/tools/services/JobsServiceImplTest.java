@@ -1,10 +1,12 @@
 package com.castsoftware.aip.console.tools.services;
 
 import com.castsoftware.aip.console.tools.core.dto.ApiInfoDto;
+import com.castsoftware.aip.console.tools.core.dto.ServerCapabilities;
 import com.castsoftware.aip.console.tools.core.dto.jobs.ChangeJobStateRequest;
 import com.castsoftware.aip.console.tools.core.dto.jobs.CreateJobsRequest;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobState;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatus;
+import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusProjection;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobStatusWithSteps;
 import com.castsoftware.aip.console.tools.core.dto.jobs.JobType;
 import com.castsoftware.aip.console.tools.core.dto.jobs.SuccessfulJobStartDto;
@@ -43,6 +45,8 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.StrictStubs.class)
@@ -66,8 +70,8 @@ public class JobsServiceImplTest {
     @Before
     public void setUp() {
         service = new JobsServiceImpl(restApiService, TEST_SLEEP_DURATION);
-        doReturn(ApiInfoDto.builder().apiVersion("1.13.0").enablePackagePathCheck(false).build())
-                .when(restApiService).getAipConsoleApiInfo();
+        doReturn(ServerCapabilities.of(ApiInfoDto.builder().apiVersion("1.13.0").enablePackagePathCheck(false).build()))
+                .when(restApiService).getServerCapabilities();
     }
 
     @Test(expected = JobServiceException.class)
@@ -150,11 +154,11 @@ public class JobsServiceImplTest {
         status.setState(JobState.STARTING);
 
         // Test "old" version of AIP Console
-        when(restApiService.getAipConsoleApiInfo()).thenReturn(
-                ApiInfoDto.builder()
+        when(restApiService.getServerCapabilities()).thenReturn(
+                ServerCapabilities.of(ApiInfoDto.builder()
                         .enablePackagePathCheck(false)
                         .apiVersion("1.8.0")
-                        .build()
+                        .build())
         );
 
         when(restApiService
@@ -205,7 +209,7 @@ public class JobsServiceImplTest {
     @Test(expected = JobServiceException.class)
     public void testPollAndWaitForJobApiCallException() throws Exception {
         when(restApiService
-                .getForEntity(ArgumentMatchers.eq("/api/jobs/" + TEST_JOB_GUID), ArgumentMatchers.eq(JobStatusWithSteps.class))
+                .getForEntity(ArgumentMatchers.eq("/api/jobs/" + TEST_JOB_GUID), ArgumentMatchers.eq(JobStatusProjection.class))
         ).thenThrow(new ApiCallException(500));
 
         service.pollAndWaitForJobFinished(TEST_JOB_GUID);
@@ -221,6 +225,11 @@ public class JobsServiceImplTest {
         JobStatus errorBaseStatus = new JobStatus(TEST_APP_GUID, "/api/jobs/" + TEST_JOB_GUID, JobType.ADD_VERSION, JobState.CANCELED, new HashMap<>(), new Date(), new Date(), new ArrayList<>(), new HashMap<>(), new HashMap<>());
         JobStatusWithSteps errorStatus = new JobStatusWithSteps(errorBaseStatus, Constants.CODE_SCANNER_STEP_NAME, Constants.CODE_SCANNER_STEP_NAME);
 
+        when(restApiService
+                .getForEntity("/api/jobs/" + TEST_JOB_GUID, JobStatusProjection.class)
+        ).thenReturn(new JobStatusProjection(TEST_JOB_GUID, JobState.STARTED, "unzip_source"),
+                new JobStatusProjection(TEST_JOB_GUID, JobState.STARTED, "unzip_source"),
+                new JobStatusProjection(TEST_JOB_GUID, JobState.CANCELED, Constants.CODE_SCANNER_STEP_NAME));
         when(restApiService
                 .getForEntity("/api/jobs/" + TEST_JOB_GUID, JobStatusWithSteps.class)
         ).thenReturn(initialStatus, errorStatus);
@@ -231,6 +240,8 @@ public class JobsServiceImplTest {
 
         JobState resultState = service.pollAndWaitForJobFinished(TEST_JOB_GUID);
         assertEquals("Expected state should be 'CANCELED'", JobState.CANCELED, resultState);
+        // the job details are only requested when the job moved on
+        verify(restApiService, times(2)).getForEntity("/api/jobs/" + TEST_JOB_GUID, JobStatusWithSteps.class);
     }
 
     private ArgumentMatcher<CreateJobsRequest> getCreateJobsRequestMatcher() {